@@ -0,0 +1,180 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.MonolingualQueryResult;
+import org.xlrnet.metadict.api.util.FutureUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Adapter which provides the asynchronous methods of {@link SearchEngine} for an engine that only implements the
+ * blocking methods. The blocking calls of the wrapped engine will be executed on the given {@link Executor}, so that
+ * the caller of the asynchronous methods will never block. If the executor rejects a call, the returned future will
+ * fail with a {@link RejectedExecutionException}. Cancelling the returned future interrupts the blocking call if it is
+ * already running or prevents it from being started otherwise. The returned futures are {@link CallFuture}s, which
+ * also report when the blocking call has actually finished.
+ * <p>
+ * Engines which are based on a non-blocking backend should override the asynchronous methods of {@link SearchEngine}
+ * directly instead of using this adapter.
+ */
+public final class AsyncSearchEngineAdapter implements SearchEngine {
+
+    private final SearchEngine delegate;
+
+    private final Executor executor;
+
+    /**
+     * Create a new adapter for the given blocking engine.
+     *
+     * @param delegate
+     *         The engine whose blocking methods should be wrapped.
+     * @param executor
+     *         The executor on which the blocking calls will be executed.
+     */
+    public AsyncSearchEngineAdapter(@NotNull SearchEngine delegate, @NotNull Executor executor) {
+        this.delegate = checkNotNull(delegate, "Delegate engine may not be null");
+        this.executor = checkNotNull(executor, "Executor may not be null");
+    }
+
+    @NotNull
+    @Override
+    public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+        return this.delegate.executeBilingualQuery(queryInput, inputLanguage, outputLanguage, allowBothWay);
+    }
+
+    @NotNull
+    @Override
+    public MonolingualQueryResult executeMonolingualQuery(@NotNull String queryInput, @NotNull Language queryLanguage) throws MetadictTechnicalException {
+        return this.delegate.executeMonolingualQuery(queryInput, queryLanguage);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<BilingualQueryResult> executeBilingualQueryAsync(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+        return callAsync(() -> this.delegate.executeBilingualQuery(queryInput, inputLanguage, outputLanguage, allowBothWay));
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<MonolingualQueryResult> executeMonolingualQueryAsync(@NotNull String queryInput, @NotNull Language queryLanguage) {
+        return callAsync(() -> this.delegate.executeMonolingualQuery(queryInput, queryLanguage));
+    }
+
+    /**
+     * Returns the wrapped engine.
+     *
+     * @return the wrapped engine.
+     */
+    @NotNull
+    public SearchEngine getDelegate() {
+        return this.delegate;
+    }
+
+    @NotNull
+    private <T> CompletableFuture<T> callAsync(@NotNull BlockingCall<T> blockingCall) {
+        CallFuture<T> resultFuture = new CallFuture<>();
+        AtomicBoolean started = new AtomicBoolean();
+        FutureTask<T> task = new FutureTask<T>(blockingCall::call) {
+            @Override
+            public void run() {
+                started.set(true);
+                try {
+                    super.run();
+                } finally {
+                    resultFuture.callCompletion.complete(null);
+                }
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    // A task which has never been started won't be run anymore
+                    if (!started.get()) {
+                        resultFuture.callCompletion.complete(null);
+                    }
+                    resultFuture.cancel(false);
+                    return;
+                }
+                try {
+                    resultFuture.complete(get());
+                } catch (ExecutionException e) {
+                    resultFuture.completeExceptionally(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    resultFuture.completeExceptionally(e);
+                }
+            }
+        };
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            return FutureUtils.failedFuture(e);
+        }
+        FutureUtils.propagateCancellation(resultFuture, task);
+        return resultFuture;
+    }
+
+    /**
+     * Future of a blocking call which is executed by an {@link AsyncSearchEngineAdapter}. Cancelling the future
+     * completes it immediately, but an interrupted call may keep running until the engine reacts to the interrupt.
+     * The end of the call itself can be observed through {@link #getCallCompletion()}.
+     */
+    public static final class CallFuture<T> extends CompletableFuture<T> {
+
+        private final CompletableFuture<Void> callCompletion = new CompletableFuture<>();
+
+        private CallFuture() {
+        }
+
+        /**
+         * Returns a future which will be completed as soon as the blocking call has returned or it is certain that the
+         * call will never be started.
+         *
+         * @return a future which will be completed when the blocking call is finished.
+         */
+        @NotNull
+        public CompletableFuture<Void> getCallCompletion() {
+            return this.callCompletion;
+        }
+    }
+
+    @FunctionalInterface
+    interface BlockingCall<T> {
+
+        T call() throws MetadictTechnicalException;
+    }
+}
@@ -32,6 +32,9 @@ import org.xlrnet.metadict.api.query.BilingualQueryResult;
 import org.xlrnet.metadict.api.query.BilingualQueryResultBuilder;
 import org.xlrnet.metadict.api.query.MonolingualQueryResult;
 import org.xlrnet.metadict.api.query.MonolingualQueryResultBuilder;
+import org.xlrnet.metadict.api.util.FutureUtils;
+
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The interface {@link SearchEngine} represents the main part that has to be implemented to search in a backend. Each
@@ -46,6 +49,13 @@ import org.xlrnet.metadict.api.query.MonolingualQueryResultBuilder;
  * However, it is allowed and encouraged to provide searches in multiple dictionaries via the same {@link SearchEngine}
  * object. The core will try to split and parallelize queries whenever possible. For more information, see {@link
  * #executeBilingualQuery(String, Language, Language, boolean)}.
+ * <p>
+ * The core always calls the asynchronous variants of the query methods. By default, these adapt the blocking methods,
+ * i.e. they call the blocking method on the calling thread and return an already completed future. Existing engines
+ * therefore don't have to be changed. Engines which use a non-blocking backend (e.g. an asynchronous HTTP client)
+ * should override the asynchronous methods, so that a lookup doesn't occupy the calling thread while it is waiting
+ * for the backend. The core wraps all other engines in an {@link AsyncSearchEngineAdapter}, which executes the blocking
+ * methods on a dedicated executor.
  */
 public interface SearchEngine {
 
@@ -109,4 +119,58 @@ public interface SearchEngine {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Asynchronous variant of {@link #executeBilingualQuery(String, Language, Language, boolean)}. The returned future
+     * will be completed with the results of the query or completed exceptionally with the error that occurred during
+     * the query. Errors are never thrown directly.
+     * <p>
+     * The default implementation calls {@link #executeBilingualQuery(String, Language, Language, boolean)} on the
+     * calling thread, i.e. the caller is blocked until the query is finished, and returns an already completed future.
+     * Engines with a non-blocking backend should override this method and return without waiting for the backend. If
+     * the returned future is cancelled, the engine should abort the pending call.
+     *
+     * @param queryInput
+     *         The query string i.e. word that should be looked up.
+     * @param inputLanguage
+     *         The input language of the query.
+     * @param outputLanguage
+     *         The expected output language of the query.
+     * @param allowBothWay
+     *         True, if the engine may search in both directions.
+     * @return a future which will be completed with the results from the search query.
+     */
+    @NotNull
+    default CompletableFuture<BilingualQueryResult> executeBilingualQueryAsync(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+        try {
+            return CompletableFuture.completedFuture(executeBilingualQuery(queryInput, inputLanguage, outputLanguage, allowBothWay));
+        } catch (MetadictTechnicalException | RuntimeException e) {
+            return FutureUtils.failedFuture(e);
+        }
+    }
+
+    /**
+     * Asynchronous variant of {@link #executeMonolingualQuery(String, Language)}. The returned future will be completed
+     * with the results of the query or completed exceptionally with the error that occurred during the query. Errors
+     * are never thrown directly.
+     * <p>
+     * The default implementation calls {@link #executeMonolingualQuery(String, Language)} on the calling thread, i.e.
+     * the caller is blocked until the query is finished, and returns an already completed future. Engines with a
+     * non-blocking backend should override this method and return without waiting for the backend. If the returned
+     * future is cancelled, the engine should abort the pending call.
+     *
+     * @param queryInput
+     *         The query string i.e. word that should be looked up.
+     * @param queryLanguage
+     *         The input language of the query.
+     * @return a future which will be completed with the results from the search query.
+     */
+    @NotNull
+    default CompletableFuture<MonolingualQueryResult> executeMonolingualQueryAsync(@NotNull String queryInput, @NotNull Language queryLanguage) {
+        try {
+            return CompletableFuture.completedFuture(executeMonolingualQuery(queryInput, queryLanguage));
+        } catch (MetadictTechnicalException | RuntimeException e) {
+            return FutureUtils.failedFuture(e);
+        }
+    }
+
 }
@@ -33,6 +33,9 @@ import org.jetbrains.annotations.NotNull;
  * Each {@link BilingualEntry} consists of two different values: an input and an output content. Both objects must
  * implement the {@link DictionaryObject} interface. These objects contain the respective source or target translation
  * of a word or phrase and additional information about use cases, grammatical forms, etc.
+ * <p>
+ * The implementations in this package are equal to each other if their source, target and entry type are equal. They
+ * are never equal to implementations from other packages.
  */
 public interface BilingualEntry extends Entry {
 
@@ -36,7 +36,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class BilingualQueryResultBuilder extends EngineQueryResultBuilder {
 
-    private List<BilingualEntry> bilingualEntries = new Vector<>();
+    protected List<BilingualEntry> bilingualEntries = new Vector<>();
 
     BilingualQueryResultBuilder() {
 
@@ -0,0 +1,443 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.query;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xlrnet.metadict.api.language.GrammaticalForm;
+import org.xlrnet.metadict.api.language.GrammaticalGender;
+import org.xlrnet.metadict.api.language.Language;
+
+import java.io.ObjectStreamException;
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Compact implementation of {@link BilingualQueryResult} for large result sets. Instead of keeping two full {@link
+ * DictionaryObject} instances per entry, all attributes are stored column-wise in parallel arrays. The dictionary
+ * object of the source side of entry {@code i} is stored in row {@code 2*i}, the target side in row {@code 2*i+1}.
+ * Columns which contain no value at all are not allocated and empty collections are not stored, but returned as shared
+ * empty singletons.
+ * <p>
+ * The entries are exposed as lightweight views which read directly from the arrays. These views are created on every
+ * access and should therefore not be compared by identity. A view is equal to any other {@link BilingualEntry} or
+ * {@link DictionaryObject} of this package which contains the same values, e.g. the immutable original. When a single
+ * view is serialized, it is replaced by an immutable copy, so that the arrays of the whole result aren't serialized
+ * with it.
+ */
+public class CompactBilingualQueryResult extends AbstractQueryResult implements BilingualQueryResult {
+
+    private static final long serialVersionUID = -4301956315808386236L;
+
+    private final int entryCount;
+
+    private final EntryType[] entryTypes;
+
+    private final Language[] languages;
+
+    private final String[] generalForms;
+
+    /** Normalized general forms - only set where they differ from the general form. */
+    private final String[] normalizedGeneralForms;
+
+    private final String[] descriptions;
+
+    private final String[] abbreviations;
+
+    private final String[] domains;
+
+    private final String[] pronunciations;
+
+    private final GrammaticalGender[] grammaticalGenders;
+
+    private final Map<GrammaticalForm, String>[] additionalForms;
+
+    private final List<String>[] meanings;
+
+    private final List<String>[] syllabifications;
+
+    private final List<String>[] alternateForms;
+
+    private transient List<BilingualEntry> bilingualEntries;
+
+    @SuppressWarnings("unchecked")
+    private CompactBilingualQueryResult(@NotNull List<BilingualEntry> entries, @NotNull List<DictionaryObject> similarRecommendations, @NotNull List<ExternalContent> externalContents, @NotNull List<SynonymEntry> synonymEntries) {
+        super(similarRecommendations, externalContents, synonymEntries);
+        int rowCount = entries.size() * 2;
+
+        this.entryCount = entries.size();
+        this.entryTypes = new EntryType[this.entryCount];
+        this.languages = new Language[rowCount];
+        this.generalForms = new String[rowCount];
+
+        String[] normalizedGeneralFormColumn = new String[rowCount];
+        String[] descriptionColumn = new String[rowCount];
+        String[] abbreviationColumn = new String[rowCount];
+        String[] domainColumn = new String[rowCount];
+        String[] pronunciationColumn = new String[rowCount];
+        GrammaticalGender[] grammaticalGenderColumn = new GrammaticalGender[rowCount];
+        Map<GrammaticalForm, String>[] additionalFormColumn = new Map[rowCount];
+        List<String>[] meaningColumn = new List[rowCount];
+        List<String>[] syllabificationColumn = new List[rowCount];
+        List<String>[] alternateFormColumn = new List[rowCount];
+
+        for (int i = 0; i < this.entryCount; i++) {
+            BilingualEntry entry = entries.get(i);
+            this.entryTypes[i] = entry.getEntryType();
+            for (int row = 2 * i; row <= 2 * i + 1; row++) {
+                DictionaryObject object = (row % 2 == 0) ? entry.getSource() : entry.getTarget();
+                checkNotNull(object, "Dictionary object of entry %s may not be null", i);
+                String generalForm = object.getGeneralForm();
+                String normalizedGeneralForm = object.getNormalizedGeneralForm();
+
+                this.languages[row] = object.getLanguage();
+                this.generalForms[row] = generalForm;
+                normalizedGeneralFormColumn[row] = Objects.equal(generalForm, normalizedGeneralForm) ? null : normalizedGeneralForm;
+                descriptionColumn[row] = object.getDescription();
+                abbreviationColumn[row] = object.getAbbreviation();
+                domainColumn[row] = object.getDomain();
+                pronunciationColumn[row] = object.getPronunciation();
+                grammaticalGenderColumn[row] = object.getGrammaticalGender();
+                additionalFormColumn[row] = nullIfEmpty(object.getAdditionalForms());
+                meaningColumn[row] = nullIfEmpty(object.getMeanings());
+                syllabificationColumn[row] = nullIfEmpty(object.getSyllabification());
+                alternateFormColumn[row] = nullIfEmpty(object.getAlternateForms());
+            }
+        }
+
+        this.normalizedGeneralForms = nullIfUnused(normalizedGeneralFormColumn);
+        this.descriptions = nullIfUnused(descriptionColumn);
+        this.abbreviations = nullIfUnused(abbreviationColumn);
+        this.domains = nullIfUnused(domainColumn);
+        this.pronunciations = nullIfUnused(pronunciationColumn);
+        this.grammaticalGenders = nullIfUnused(grammaticalGenderColumn);
+        this.additionalForms = nullIfUnused(additionalFormColumn);
+        this.meanings = nullIfUnused(meaningColumn);
+        this.syllabifications = nullIfUnused(syllabificationColumn);
+        this.alternateForms = nullIfUnused(alternateFormColumn);
+    }
+
+    /**
+     * Create a new compact copy of the given {@link BilingualQueryResult}. The values of all entries will be copied
+     * into the compact representation; similar recommendations, external contents and synonyms are taken over as they
+     * are. If the given result is already compact, it will be returned without copying.
+     *
+     * @param queryResult
+     *         The result to copy.
+     * @return a compact copy of the given result.
+     */
+    @NotNull
+    public static CompactBilingualQueryResult copyOf(@NotNull BilingualQueryResult queryResult) {
+        checkNotNull(queryResult, "Query result may not be null");
+
+        if (queryResult instanceof CompactBilingualQueryResult) {
+            return (CompactBilingualQueryResult) queryResult;
+        }
+        return new CompactBilingualQueryResult(queryResult.getBilingualEntries(), queryResult.getSimilarRecommendations(), queryResult.getExternalContents(), queryResult.getSynonymEntries());
+    }
+
+    @Nullable
+    private static <T> T nullIfEmpty(@Nullable T value) {
+        if (value instanceof Collection && ((Collection<?>) value).isEmpty()) {
+            return null;
+        } else if (value instanceof Map && ((Map<?, ?>) value).isEmpty()) {
+            return null;
+        }
+        return value;
+    }
+
+    @Nullable
+    private static <T> T[] nullIfUnused(@NotNull T[] column) {
+        for (T value : column) {
+            if (value != null) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    @Nullable
+    private static <T> T valueAt(@Nullable T[] column, int row) {
+        return column != null ? column[row] : null;
+    }
+
+    @NotNull
+    private static <T> List<T> listAt(@Nullable List<T>[] column, int row) {
+        List<T> value = valueAt(column, row);
+        return value != null ? value : Collections.emptyList();
+    }
+
+    @NotNull
+    @Override
+    public List<BilingualEntry> getBilingualEntries() {
+        List<BilingualEntry> entries = this.bilingualEntries;
+        if (entries == null) {
+            entries = new EntryList();
+            this.bilingualEntries = entries;
+        }
+        return entries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof CompactBilingualQueryResult)) return false;
+        CompactBilingualQueryResult that = (CompactBilingualQueryResult) o;
+        return Objects.equal(getBilingualEntries(), that.getBilingualEntries()) &&
+                Objects.equal(similarRecommendations, that.similarRecommendations) &&
+                Objects.equal(externalContents, that.externalContents);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getBilingualEntries(), similarRecommendations, externalContents);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("entries", getBilingualEntries())
+                .add("similarRecommendations", super.getSimilarRecommendations())
+                .add("externalContents", super.getExternalContents())
+                .add("synonymEntries", super.getSynonymEntries())
+                .toString();
+    }
+
+    /**
+     * Unmodifiable list of entry views.
+     */
+    private final class EntryList extends AbstractList<BilingualEntry> implements RandomAccess {
+
+        @Override
+        public BilingualEntry get(int index) {
+            if (index < 0 || index >= entryCount) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + entryCount);
+            }
+            return new EntryView(index);
+        }
+
+        @Override
+        public int size() {
+            return entryCount;
+        }
+    }
+
+    /**
+     * View on a single entry of the enclosing result.
+     */
+    final class EntryView implements BilingualEntry {
+
+        private static final long serialVersionUID = 4425325016853012938L;
+
+        private final int index;
+
+        private EntryView(int index) {
+            this.index = index;
+        }
+
+        @NotNull
+        @Override
+        public DictionaryObject getSource() {
+            return new DictionaryObjectView(2 * this.index);
+        }
+
+        @NotNull
+        @Override
+        public DictionaryObject getTarget() {
+            return new DictionaryObjectView(2 * this.index + 1);
+        }
+
+        @NotNull
+        @Override
+        public EntryType getEntryType() {
+            return entryTypes[this.index];
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!ImmutableBilingualEntry.isValueEntry(o)) return false;
+            return ImmutableBilingualEntry.valuesEqual(this, (BilingualEntry) o);
+        }
+
+        @Override
+        public int hashCode() {
+            return ImmutableBilingualEntry.valuesHashCode(this);
+        }
+
+        /**
+         * Serialize an immutable copy instead of the view, which would include the enclosing result.
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            DictionaryObjectView source = new DictionaryObjectView(2 * this.index);
+            DictionaryObjectView target = new DictionaryObjectView(2 * this.index + 1);
+            return new ImmutableBilingualEntry(source.toImmutableObject(), target.toImmutableObject(), getEntryType());
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("sourceObject", getSource())
+                    .add("targetObject", getTarget())
+                    .add("entryType", getEntryType())
+                    .toString();
+        }
+    }
+
+    /**
+     * View on a single dictionary object row of the enclosing result.
+     */
+    final class DictionaryObjectView implements DictionaryObject {
+
+        private static final long serialVersionUID = -6532472880930429624L;
+
+        private final int row;
+
+        private DictionaryObjectView(int row) {
+            this.row = row;
+        }
+
+        @Nullable
+        @Override
+        public String getAbbreviation() {
+            return valueAt(abbreviations, this.row);
+        }
+
+        @NotNull
+        @Override
+        public Map<GrammaticalForm, String> getAdditionalForms() {
+            Map<GrammaticalForm, String> value = valueAt(additionalForms, this.row);
+            return value != null ? value : Collections.emptyMap();
+        }
+
+        @Nullable
+        @Override
+        public String getDescription() {
+            return valueAt(descriptions, this.row);
+        }
+
+        @Nullable
+        @Override
+        public String getDomain() {
+            return valueAt(domains, this.row);
+        }
+
+        @NotNull
+        @Override
+        public String getGeneralForm() {
+            return generalForms[this.row];
+        }
+
+        @NotNull
+        @Override
+        public String getNormalizedGeneralForm() {
+            String normalized = valueAt(normalizedGeneralForms, this.row);
+            return normalized != null ? normalized : generalForms[this.row];
+        }
+
+        @Nullable
+        @Override
+        public GrammaticalGender getGrammaticalGender() {
+            return valueAt(grammaticalGenders, this.row);
+        }
+
+        @NotNull
+        @Override
+        public Language getLanguage() {
+            return languages[this.row];
+        }
+
+        @Nullable
+        @Override
+        public String getPronunciation() {
+            return valueAt(pronunciations, this.row);
+        }
+
+        @NotNull
+        @Override
+        public List<String> getMeanings() {
+            return listAt(meanings, this.row);
+        }
+
+        @NotNull
+        @Override
+        public List<String> getSyllabification() {
+            return listAt(syllabifications, this.row);
+        }
+
+        @NotNull
+        @Override
+        public List<String> getAlternateForms() {
+            return listAt(alternateForms, this.row);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!ImmutableDictionaryObject.isValueObject(o)) return false;
+            return ImmutableDictionaryObject.valuesEqual(this, (DictionaryObject) o);
+        }
+
+        @Override
+        public int hashCode() {
+            return ImmutableDictionaryObject.valuesHashCode(this);
+        }
+
+        @NotNull
+        private ImmutableDictionaryObject toImmutableObject() {
+            return new ImmutableDictionaryObject(getLanguage(), getGeneralForm(), getDescription(), getAbbreviation(), getDomain(), getPronunciation(), getGrammaticalGender(), valueAt(additionalForms, this.row), getMeanings(), getSyllabification(), getAlternateForms());
+        }
+
+        /**
+         * Serialize an immutable copy instead of the view, which would include the enclosing result.
+         */
+        private Object writeReplace() throws ObjectStreamException {
+            return toImmutableObject();
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("language", getLanguage())
+                    .add("generalForm", getGeneralForm())
+                    .add("description", getDescription())
+                    .add("abbreviation", getAbbreviation())
+                    .add("domain", getDomain())
+                    .add("grammaticalGender", getGrammaticalGender())
+                    .add("additionalForms", getAdditionalForms())
+                    .add("meanings", getMeanings())
+                    .add("syllabification", getSyllabification())
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Abstract builder for engine query results that may be filled concurrently by multiple threads without locking.
+ * <p>
+ * Objects that are added directly to this builder are stored in lock-free queues. For deterministic results when
+ * parsing in parallel, each unit of work should instead obtain its own partition through {@link #partition(int)}.
+ * A partition is a regular, non-thread-safe builder that must only be used by one thread at a time. When building
+ * the final result, the directly added objects come first, followed by the content of all partitions in ascending
+ * order of their index - independent of the order in which the threads finished their work.
+ *
+ * @param <P>
+ *         Type of the builder that is used for partitions.
+ */
+public abstract class ConcurrentEngineQueryResultBuilder<P extends EngineQueryResultBuilder> extends EngineQueryResultBuilder {
+
+    private final Queue<DictionaryObject> concurrentSimilarRecommendations = new ConcurrentLinkedQueue<>();
+
+    private final Queue<ExternalContent> concurrentExternalContents = new ConcurrentLinkedQueue<>();
+
+    private final Queue<SynonymEntry> concurrentSynonyms = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentNavigableMap<Integer, P> partitions = new ConcurrentSkipListMap<>();
+
+    @NotNull
+    @Override
+    public EngineQueryResultBuilder addExternalContent(@NotNull ExternalContent externalContent) {
+        checkNotNull(externalContent);
+
+        this.concurrentExternalContents.add(externalContent);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public EngineQueryResultBuilder addSimilarRecommendation(@NotNull DictionaryObject dictionaryObject) {
+        checkNotNull(dictionaryObject);
+
+        this.concurrentSimilarRecommendations.add(dictionaryObject);
+        return this;
+    }
+
+    @NotNull
+    @Override
+    public EngineQueryResultBuilder addSynonymEntry(@NotNull SynonymEntry synonymEntry) {
+        checkNotNull(synonymEntry);
+
+        this.concurrentSynonyms.add(synonymEntry);
+        return this;
+    }
+
+    /**
+     * Returns the partition with the given index. The partition will be created if it doesn't exist yet. Partitions
+     * are merged in ascending order of their index when the final result is built. A partition must not be shared
+     * between multiple threads at the same time.
+     *
+     * @param index
+     *         The index of the partition, e.g. the index of the parsed section.
+     * @return the partition with the given index.
+     */
+    @NotNull
+    public P partition(int index) {
+        P partition = this.partitions.get(index);
+        if (partition == null) {
+            P newPartition = newPartition();
+            partition = this.partitions.putIfAbsent(index, newPartition);
+            if (partition == null) {
+                partition = newPartition;
+            }
+        }
+        return partition;
+    }
+
+    /**
+     * Create a new empty builder that will be used as a partition.
+     *
+     * @return a new empty builder.
+     */
+    @NotNull
+    protected abstract P newPartition();
+
+    /**
+     * Returns all partitions in ascending order of their index.
+     *
+     * @return all partitions in ascending order of their index.
+     */
+    @NotNull
+    protected Collection<P> getPartitions() {
+        return this.partitions.values();
+    }
+
+    @NotNull
+    protected List<DictionaryObject> collectSimilarRecommendations() {
+        List<DictionaryObject> result = new ArrayList<>(this.concurrentSimilarRecommendations);
+        for (P partition : getPartitions()) {
+            result.addAll(partition.similarRecommendations);
+        }
+        return result;
+    }
+
+    @NotNull
+    protected List<ExternalContent> collectExternalContents() {
+        List<ExternalContent> result = new ArrayList<>(this.concurrentExternalContents);
+        for (P partition : getPartitions()) {
+            result.addAll(partition.externalContents);
+        }
+        return result;
+    }
+
+    @NotNull
+    protected List<SynonymEntry> collectSynonyms() {
+        List<SynonymEntry> result = new ArrayList<>(this.concurrentSynonyms);
+        for (P partition : getPartitions()) {
+            result.addAll(partition.synonyms);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Lock-free builder for creating new {@link MonolingualQueryResult} objects from multiple threads. See {@link
+ * ConcurrentEngineQueryResultBuilder} for details about the ordering of the results.
+ */
+public class ConcurrentMonolingualQueryResultBuilder extends ConcurrentEngineQueryResultBuilder<MonolingualQueryResultBuilder> {
+
+    private final Queue<MonolingualEntry> monolingualEntries = new ConcurrentLinkedQueue<>();
+
+    ConcurrentMonolingualQueryResultBuilder() {
+
+    }
+
+    /**
+     * Add a new {@link MonolingualEntry} to the builder. This may be called from any thread.
+     *
+     * @param monolingualEntry
+     *         The {@link MonolingualEntry} object - not null.
+     * @return this instance of the {@link ConcurrentMonolingualQueryResultBuilder}.
+     */
+    @NotNull
+    public ConcurrentMonolingualQueryResultBuilder addMonolingualEntry(@NotNull MonolingualEntry monolingualEntry) {
+        checkNotNull(monolingualEntry);
+
+        this.monolingualEntries.add(monolingualEntry);
+        return this;
+    }
+
+    /**
+     * Build a new instance of {@link MonolingualQueryResult} with the previously added entries and the content of all
+     * partitions. This should only be called after all threads have finished adding objects.
+     *
+     * @return a new instance of {@link MonolingualQueryResult}.
+     */
+    @NotNull
+    @Override
+    public MonolingualQueryResult build() {
+        List<MonolingualEntry> entries = new ArrayList<>(this.monolingualEntries);
+        for (MonolingualQueryResultBuilder partition : getPartitions()) {
+            entries.addAll(partition.monolingualEntries);
+        }
+        return new ImmutableMonolingualQueryResult(collectSimilarRecommendations(), collectExternalContents(), entries, collectSynonyms());
+    }
+
+    @NotNull
+    @Override
+    protected MonolingualQueryResultBuilder newPartition() {
+        return new MonolingualQueryResultBuilder();
+    }
+}
@@ -24,6 +24,7 @@
 
 package org.xlrnet.metadict.api.query;
 
+import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.xlrnet.metadict.api.language.GrammaticalForm;
@@ -39,6 +40,9 @@ import java.util.Map;
  * description of an entry in a certain language. This includes the word/phrase itself, but also additional information
  * like the grammatical gender, a description, possible abbreviations and a special domain where the word/phrase is
  * primarily used. It provides also additional fields like hyphenations, meanings and synonyms.
+ * <p>
+ * The implementations in this package are equal to each other if they contain the same values. They are never equal
+ * to implementations from other packages.
  */
 public interface DictionaryObject extends Serializable {
 
@@ -100,6 +104,20 @@ public interface DictionaryObject extends Serializable {
     @NotNull
     String getGeneralForm();
 
+    /**
+     * Returns the general form of this object without leading or trailing whitespace and in lower case. This form
+     * should be used whenever objects are compared by their general form, e.g. for building merge keys.
+     * <p/>
+     * The default implementation normalizes the general form on each call. Implementations should calculate the value
+     * only once.
+     *
+     * @return the normalized general form of this object.
+     */
+    @NotNull
+    default String getNormalizedGeneralForm() {
+        return StringUtils.lowerCase(StringUtils.strip(getGeneralForm()));
+    }
+
     /**
      * Returns the grammatical gender of this object. This field should be used on nouns (or other types) where the
      * general form has a grammatical gender.
@@ -27,6 +27,7 @@ package org.xlrnet.metadict.api.query;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
  * Immutable implementation for {@link BilingualEntry}.
@@ -75,14 +76,37 @@ public class ImmutableBilingualEntry extends AbstractEntry implements BilingualE
         return new ImmutableBilingualEntry(bilingualEntry.getTarget(), bilingualEntry.getSource(), bilingualEntry.getEntryType());
     }
 
+    /**
+     * Returns true if the given object is one of the implementations of {@link BilingualEntry} in this package, which
+     * are compared by their values. Other implementations may carry additional state and are never equal to them.
+     */
+    static boolean isValueEntry(@Nullable Object o) {
+        return o instanceof ImmutableBilingualEntry || o instanceof CompactBilingualQueryResult.EntryView;
+    }
+
+    /**
+     * Compare the values of two bilingual entries. All implementations of {@link BilingualEntry} in this package use
+     * this method, so that they are equal to each other if they contain the same values.
+     */
+    static boolean valuesEqual(@NotNull BilingualEntry first, @NotNull BilingualEntry second) {
+        return Objects.equal(first.getSource(), second.getSource()) &&
+                Objects.equal(first.getTarget(), second.getTarget()) &&
+                Objects.equal(first.getEntryType(), second.getEntryType());
+    }
+
+    /**
+     * Calculate the hash code of the values of the given bilingual entry. Consistent with {@link
+     * #valuesEqual(BilingualEntry, BilingualEntry)}.
+     */
+    static int valuesHashCode(@NotNull BilingualEntry entry) {
+        return Objects.hashCode(entry.getSource(), entry.getTarget(), entry.getEntryType());
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
-        if (!(o instanceof ImmutableBilingualEntry)) return false;
-        ImmutableBilingualEntry that = (ImmutableBilingualEntry) o;
-        return Objects.equal(this.sourceObject, that.sourceObject) &&
-                Objects.equal(this.targetObject, that.targetObject) &&
-                Objects.equal(this.entryType, that.entryType);
+        if (!isValueEntry(o)) return false;
+        return valuesEqual(this, (BilingualEntry) o);
     }
 
     @NotNull
@@ -99,7 +123,7 @@ public class ImmutableBilingualEntry extends AbstractEntry implements BilingualE
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.sourceObject, this.targetObject, this.entryType);
+        return valuesHashCode(this);
     }
 
     @Override
@@ -65,6 +65,15 @@ public class ImmutableBilingualQueryResult extends AbstractQueryResult implement
         return new BilingualQueryResultBuilder();
     }
 
+    /**
+     * Return a new builder instance for creating new {@link BilingualQueryResult} objects from multiple threads.
+     *
+     * @return a new thread-safe builder.
+     */
+    public static ConcurrentBilingualQueryResultBuilder concurrentBuilder() {
+        return new ConcurrentBilingualQueryResultBuilder();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -33,6 +33,7 @@ import org.xlrnet.metadict.api.language.GrammaticalGender;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.util.CommonUtils;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -67,6 +68,12 @@ public class ImmutableDictionaryObject implements DictionaryObject {
 
     private final List<String> alternateForms;
 
+    /**
+     * Normalized general form. Not final, since it is missing in objects which have been serialized before the field
+     * was introduced.
+     */
+    private String normalizedGeneralForm;
+
     /**
      * Create a new immutable instance. See {@link DictionaryObject} for more information about the parameters.
      *
@@ -105,6 +112,7 @@ public class ImmutableDictionaryObject implements DictionaryObject {
         this.meanings = CommonUtils.emptyIfNull(meanings);
         this.syllabification = CommonUtils.emptyIfNull(syllabification);
         this.alternateForms = CommonUtils.emptyIfNull(alternateForms);
+        this.normalizedGeneralForm = DictionaryObject.super.getNormalizedGeneralForm();
     }
 
     /**
@@ -134,29 +142,59 @@ public class ImmutableDictionaryObject implements DictionaryObject {
         return builder().setGeneralForm(generalForm).setLanguage(language).build();
     }
 
+    /**
+     * Returns true if the given object is one of the implementations of {@link DictionaryObject} in this package,
+     * which are compared by their values. Other implementations may carry additional state and are never equal to
+     * them.
+     */
+    static boolean isValueObject(@Nullable Object o) {
+        return o instanceof ImmutableDictionaryObject || o instanceof CompactBilingualQueryResult.DictionaryObjectView;
+    }
+
+    /**
+     * Compare the values of two dictionary objects. All implementations of {@link DictionaryObject} in this package use
+     * this method, so that they are equal to each other if they contain the same values. A missing map of additional
+     * forms is treated like an empty one.
+     */
+    static boolean valuesEqual(@NotNull DictionaryObject first, @NotNull DictionaryObject second) {
+        return Objects.equal(first.getLanguage(), second.getLanguage()) &&
+                Objects.equal(first.getGeneralForm(), second.getGeneralForm()) &&
+                Objects.equal(first.getDescription(), second.getDescription()) &&
+                Objects.equal(first.getAbbreviation(), second.getAbbreviation()) &&
+                Objects.equal(first.getDomain(), second.getDomain()) &&
+                Objects.equal(first.getGrammaticalGender(), second.getGrammaticalGender()) &&
+                Objects.equal(emptyIfNull(first.getAdditionalForms()), emptyIfNull(second.getAdditionalForms())) &&
+                Objects.equal(first.getMeanings(), second.getMeanings()) &&
+                Objects.equal(first.getSyllabification(), second.getSyllabification());
+    }
+
+    /**
+     * Calculate the hash code of the values of the given dictionary object. Consistent with {@link
+     * #valuesEqual(DictionaryObject, DictionaryObject)}.
+     */
+    static int valuesHashCode(@NotNull DictionaryObject object) {
+        return Objects.hashCode(object.getLanguage(), object.getGeneralForm(), object.getDescription(), object.getAbbreviation(), object.getDomain(), object.getGrammaticalGender(), emptyIfNull(object.getAdditionalForms()), object.getMeanings(), object.getSyllabification());
+    }
+
+    @NotNull
+    private static Map<GrammaticalForm, String> emptyIfNull(@Nullable Map<GrammaticalForm, String> map) {
+        return map != null ? map : Collections.emptyMap();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
             return true;
         }
-        if (!(o instanceof ImmutableDictionaryObject)) {
+        if (!isValueObject(o)) {
             return false;
         }
-        ImmutableDictionaryObject that = (ImmutableDictionaryObject) o;
-        return Objects.equal(language, that.language) &&
-                Objects.equal(generalForm, that.generalForm) &&
-                Objects.equal(description, that.description) &&
-                Objects.equal(abbreviation, that.abbreviation) &&
-                Objects.equal(domain, that.domain) &&
-                Objects.equal(grammaticalGender, that.grammaticalGender) &&
-                Objects.equal(additionalForms, that.additionalForms) &&
-                Objects.equal(meanings, that.meanings) &&
-                Objects.equal(syllabification, that.syllabification);
+        return valuesEqual(this, (DictionaryObject) o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(language, generalForm, description, abbreviation, domain, grammaticalGender, additionalForms, meanings, syllabification);
+        return valuesHashCode(this);
     }
 
     @Override
@@ -204,6 +242,24 @@ public class ImmutableDictionaryObject implements DictionaryObject {
         return generalForm;
     }
 
+    /**
+     * Returns the general form of this object without leading or trailing whitespace and in lower case. The value is
+     * calculated only once when the object is created. If the general form is already normalized, the same string
+     * instance will be returned as by {@link #getGeneralForm()}.
+     *
+     * @return the normalized general form of this object.
+     */
+    @NotNull
+    @Override
+    public String getNormalizedGeneralForm() {
+        String normalized = this.normalizedGeneralForm;
+        if (normalized == null) {
+            normalized = DictionaryObject.super.getNormalizedGeneralForm();
+            this.normalizedGeneralForm = normalized;
+        }
+        return normalized;
+    }
+
     @Nullable
     @Override
     public GrammaticalGender getGrammaticalGender() {
@@ -56,6 +56,15 @@ public class ImmutableMonolingualQueryResult extends AbstractQueryResult impleme
         return new MonolingualQueryResultBuilder();
     }
 
+    /**
+     * Return a new builder instance for creating new {@link MonolingualQueryResult} objects from multiple threads.
+     *
+     * @return a new thread-safe builder.
+     */
+    public static ConcurrentMonolingualQueryResultBuilder concurrentBuilder() {
+        return new ConcurrentMonolingualQueryResultBuilder();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -40,7 +40,7 @@ public class MonolingualQueryResultBuilder extends EngineQueryResultBuilder {
 
     }
 
-    private List<MonolingualEntry> monolingualEntries = new Vector<>();
+    protected List<MonolingualEntry> monolingualEntries = new Vector<>();
 
     /**
      * Add a new {@link BilingualEntry} to the builder. This should be used for all bilingual results of the query that
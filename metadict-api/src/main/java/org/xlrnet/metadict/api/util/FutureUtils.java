@@ -0,0 +1,94 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.util;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Helper utilities for working with {@link CompletableFuture} objects.
+ */
+public class FutureUtils {
+
+    private FutureUtils() {
+
+    }
+
+    /**
+     * Returns a new {@link CompletableFuture} which is already completed exceptionally with the given throwable.
+     *
+     * @param throwable
+     *         the cause of the failure
+     * @return a future which is already completed exceptionally
+     */
+    @NotNull
+    public static <T> CompletableFuture<T> failedFuture(@NotNull Throwable throwable) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(throwable);
+        return future;
+    }
+
+    /**
+     * Cancel the given source future as soon as the dependent future is cancelled. Futures which have been derived from
+     * another {@link CompletableFuture} (e.g. with {@link CompletableFuture#handle(java.util.function.BiFunction)}) don't
+     * propagate their cancellation to the original future by themselves.
+     *
+     * @param dependent
+     *         the future which will be returned to the caller
+     * @param source
+     *         the future which should be cancelled together with the dependent future
+     * @return the dependent future
+     */
+    @NotNull
+    public static <T> CompletableFuture<T> propagateCancellation(@NotNull CompletableFuture<T> dependent, @NotNull Future<?> source) {
+        dependent.whenComplete((result, throwable) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+
+    /**
+     * Returns the original cause of a failed future. Exceptions are wrapped in a {@link CompletionException} or {@link
+     * ExecutionException} depending on how the result of a future was obtained - these wrappers will be removed.
+     *
+     * @param throwable
+     *         the throwable that was reported by the future
+     * @return the original cause of the failure
+     */
+    @NotNull
+    public static Throwable unwrap(@NotNull Throwable throwable) {
+        Throwable cause = throwable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+}
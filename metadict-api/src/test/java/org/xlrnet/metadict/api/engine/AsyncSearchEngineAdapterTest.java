@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link AsyncSearchEngineAdapter}.
+ */
+public class AsyncSearchEngineAdapterTest {
+
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        this.executor = Executors.newSingleThreadExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testExecuteBilingualQueryAsync_runsOnExecutor() throws Exception {
+        AtomicReference<Thread> engineThread = new AtomicReference<>();
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+                engineThread.set(Thread.currentThread());
+                return ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT;
+            }
+        };
+
+        CompletableFuture<BilingualQueryResult> future = new AsyncSearchEngineAdapter(searchEngine, this.executor).executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        assertSame(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT, future.get(1, TimeUnit.SECONDS));
+        assertNotSame(Thread.currentThread(), engineThread.get());
+    }
+
+    @Test
+    public void testExecuteBilingualQueryAsync_checkedException() throws Exception {
+        MetadictTechnicalException exception = new MetadictTechnicalException("failure");
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+                throw exception;
+            }
+        };
+
+        CompletableFuture<BilingualQueryResult> future = new AsyncSearchEngineAdapter(searchEngine, this.executor).executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        try {
+            future.get(1, TimeUnit.SECONDS);
+            fail("Future must be completed exceptionally");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void testExecuteBilingualQueryAsync_rejected() throws Exception {
+        this.executor.shutdown();
+
+        CompletableFuture<BilingualQueryResult> future = new AsyncSearchEngineAdapter(new SearchEngine() {
+        }, this.executor).executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    @Test
+    public void testExecuteBilingualQueryAsync_cancelInterruptsCall() throws Exception {
+        CountDownLatch callStarted = new CountDownLatch(1);
+        CountDownLatch callInterrupted = new CountDownLatch(1);
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+                callStarted.countDown();
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    callInterrupted.countDown();
+                    throw new MetadictTechnicalException(e);
+                }
+                return ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT;
+            }
+        };
+
+        CompletableFuture<BilingualQueryResult> future = new AsyncSearchEngineAdapter(searchEngine, this.executor).executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+        assertTrue(callStarted.await(1, TimeUnit.SECONDS));
+        future.cancel(true);
+
+        assertTrue(callInterrupted.await(1, TimeUnit.SECONDS));
+        assertTrue(future.isCancelled());
+        ((AsyncSearchEngineAdapter.CallFuture<?>) future).getCallCompletion().get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testExecuteBilingualQueryAsync_queuedCallCancelledOnShutdown() throws Exception {
+        CountDownLatch callReleased = new CountDownLatch(1);
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+                try {
+                    callReleased.await(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT;
+            }
+        };
+        AsyncSearchEngineAdapter adapter = new AsyncSearchEngineAdapter(searchEngine, this.executor);
+        adapter.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+        CompletableFuture<BilingualQueryResult> queuedFuture = adapter.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        for (Runnable queuedCall : this.executor.shutdownNow()) {
+            ((Future<?>) queuedCall).cancel(false);
+        }
+
+        assertTrue(queuedFuture.isCancelled());
+        assertTrue(((AsyncSearchEngineAdapter.CallFuture<?>) queuedFuture).getCallCompletion().isDone());
+        callReleased.countDown();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.engine;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+import org.xlrnet.metadict.api.query.MonolingualQueryResult;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the default asynchronous methods of {@link SearchEngine}.
+ */
+public class SearchEngineTest {
+
+    @Test
+    public void testExecuteBilingualQueryAsync() throws Exception {
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+                return ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT;
+            }
+        };
+
+        CompletableFuture<BilingualQueryResult> future = searchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        assertTrue(future.isDone());
+        assertSame(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT, future.get());
+    }
+
+    @Test
+    public void testExecuteBilingualQueryAsync_checkedException() throws Exception {
+        MetadictTechnicalException exception = new MetadictTechnicalException("failure");
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+                throw exception;
+            }
+        };
+
+        CompletableFuture<BilingualQueryResult> future = searchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        assertFailedWith(exception, future);
+    }
+
+    @Test
+    public void testExecuteMonolingualQueryAsync_runtimeException() throws Exception {
+        IllegalStateException exception = new IllegalStateException("failure");
+        SearchEngine searchEngine = new SearchEngine() {
+            @NotNull
+            @Override
+            public MonolingualQueryResult executeMonolingualQuery(@NotNull String queryInput, @NotNull Language queryLanguage) {
+                throw exception;
+            }
+        };
+
+        CompletableFuture<MonolingualQueryResult> future = searchEngine.executeMonolingualQueryAsync("test", Language.GERMAN);
+
+        assertFailedWith(exception, future);
+    }
+
+    @Test
+    public void testExecuteMonolingualQueryAsync_notSupported() throws Exception {
+        CompletableFuture<MonolingualQueryResult> future = new SearchEngine() {
+        }.executeMonolingualQueryAsync("test", Language.GERMAN);
+
+        assertTrue(future.isCompletedExceptionally());
+    }
+
+    private void assertFailedWith(Exception expected, CompletableFuture<?> future) throws InterruptedException {
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("Future must be completed exceptionally");
+        } catch (ExecutionException e) {
+            assertSame(expected, e.getCause());
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.GrammaticalCase;
+import org.xlrnet.metadict.api.language.GrammaticalGender;
+import org.xlrnet.metadict.api.language.Language;
+
+import java.io.*;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link CompactBilingualQueryResult}.
+ */
+public class CompactBilingualQueryResultTest {
+
+    private BilingualQueryResult originalResult;
+
+    @Before
+    public void setup() {
+        DictionaryObjectBuilder fullObjectBuilder = ImmutableDictionaryObject.builder();
+        fullObjectBuilder.setPronunciation("haʊ̯s");
+        DictionaryObject fullObject = fullObjectBuilder
+                .setLanguage(Language.GERMAN)
+                .setGeneralForm(" Haus")
+                .setDescription("description")
+                .setAbbreviation("abbr.")
+                .setDomain("domain")
+                .setGrammaticalGender(GrammaticalGender.NEUTER)
+                .setAdditionalForm(GrammaticalCase.GENITIVE, "Hauses")
+                .addMeaning("building")
+                .addSyllable("Haus")
+                .addAlternateForm("Hus")
+                .build();
+        DictionaryObject simpleObject = ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "house");
+
+        BilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.builder()
+                .addBilingualEntry(ImmutableBilingualEntry.builder().setEntryType(EntryType.NOUN).setInputObject(fullObject).setOutputObject(simpleObject).build())
+                .addBilingualEntry(ImmutableBilingualEntry.builder().setEntryType(EntryType.ADJECTIVE).setInputObject(simpleObject).setOutputObject(simpleObject).build());
+        resultBuilder.addSimilarRecommendation(simpleObject);
+        this.originalResult = resultBuilder.build();
+    }
+
+    @Test
+    public void testCopyOf() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+
+        assertEquals(2, compactResult.getBilingualEntries().size());
+        for (int i = 0; i < 2; i++) {
+            BilingualEntry expected = this.originalResult.getBilingualEntries().get(i);
+            BilingualEntry actual = compactResult.getBilingualEntries().get(i);
+            assertEquals(expected.getEntryType(), actual.getEntryType());
+            assertSameValues(expected.getSource(), actual.getSource());
+            assertSameValues(expected.getTarget(), actual.getTarget());
+        }
+        assertEquals(this.originalResult.getSimilarRecommendations(), compactResult.getSimilarRecommendations());
+    }
+
+    @Test
+    public void testCopyOf_alreadyCompact() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+
+        assertSame(compactResult, CompactBilingualQueryResult.copyOf(compactResult));
+    }
+
+    @Test
+    public void testCopyOf_sharedEmptyCollections() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+        DictionaryObject target = compactResult.getBilingualEntries().get(1).getTarget();
+
+        assertSame(Collections.emptyList(), target.getMeanings());
+        assertSame(Collections.emptyList(), target.getSyllabification());
+        assertSame(Collections.emptyList(), target.getAlternateForms());
+        assertSame(Collections.emptyMap(), target.getAdditionalForms());
+        assertNull(target.getDescription());
+        assertNull(target.getGrammaticalGender());
+    }
+
+    @Test
+    public void testCopyOf_empty() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT);
+
+        assertTrue(compactResult.getBilingualEntries().isEmpty());
+    }
+
+    @Test
+    public void testGetBilingualEntries_unmodifiable() throws Exception {
+        List<BilingualEntry> entries = CompactBilingualQueryResult.copyOf(this.originalResult).getBilingualEntries();
+
+        try {
+            entries.add(entries.get(0));
+            fail("Entries may not be modified");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testEquals() throws Exception {
+        CompactBilingualQueryResult first = CompactBilingualQueryResult.copyOf(this.originalResult);
+        CompactBilingualQueryResult second = CompactBilingualQueryResult.copyOf(this.originalResult);
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.getBilingualEntries().get(0), second.getBilingualEntries().get(0));
+        assertFalse(first.getBilingualEntries().get(0).equals(first.getBilingualEntries().get(1)));
+    }
+
+    @Test
+    public void testEquals_immutableEntries() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+
+        for (int i = 0; i < 2; i++) {
+            BilingualEntry original = this.originalResult.getBilingualEntries().get(i);
+            BilingualEntry view = compactResult.getBilingualEntries().get(i);
+            assertEquals(original, view);
+            assertEquals(view, original);
+            assertEquals(original.hashCode(), view.hashCode());
+            assertEquals(original.getSource(), view.getSource());
+            assertEquals(view.getSource(), original.getSource());
+            assertEquals(original.getSource().hashCode(), view.getSource().hashCode());
+        }
+        assertFalse(this.originalResult.getBilingualEntries().get(0).equals(compactResult.getBilingualEntries().get(1)));
+    }
+
+    @Test
+    public void testEquals_otherImplementation() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+        BilingualEntry original = this.originalResult.getBilingualEntries().get(0);
+        BilingualEntry view = compactResult.getBilingualEntries().get(0);
+        BilingualEntry otherEntry = new ForwardingBilingualEntry(original);
+
+        // Equality must stay symmetric with implementations which may carry additional state
+        assertFalse(original.equals(otherEntry));
+        assertFalse(view.equals(otherEntry));
+        assertFalse(otherEntry.equals(original));
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+
+        Object deserialized = serializeAndDeserialize(compactResult);
+
+        assertEquals(compactResult, deserialized);
+        assertEquals(2, ((BilingualQueryResult) deserialized).getBilingualEntries().size());
+    }
+
+    @Test
+    public void testSerialization_singleEntry() throws Exception {
+        CompactBilingualQueryResult compactResult = CompactBilingualQueryResult.copyOf(this.originalResult);
+        BilingualEntry view = compactResult.getBilingualEntries().get(0);
+
+        Object deserializedEntry = serializeAndDeserialize(view);
+        Object deserializedObject = serializeAndDeserialize(view.getTarget());
+
+        // Views are replaced with immutable copies, which don't reference the enclosing result
+        assertTrue(deserializedEntry instanceof ImmutableBilingualEntry);
+        assertTrue(((BilingualEntry) deserializedEntry).getSource() instanceof ImmutableDictionaryObject);
+        assertEquals(view, deserializedEntry);
+        assertEquals(this.originalResult.getBilingualEntries().get(0), deserializedEntry);
+        assertSameValues(view.getSource(), ((BilingualEntry) deserializedEntry).getSource());
+        assertTrue(deserializedObject instanceof ImmutableDictionaryObject);
+        assertEquals(view.getTarget(), deserializedObject);
+    }
+
+    private Object serializeAndDeserialize(Object object) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(object);
+        }
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            return objectInputStream.readObject();
+        }
+    }
+
+    private void assertSameValues(DictionaryObject expected, DictionaryObject actual) {
+        assertEquals(expected.getLanguage(), actual.getLanguage());
+        assertEquals(expected.getGeneralForm(), actual.getGeneralForm());
+        assertEquals(expected.getNormalizedGeneralForm(), actual.getNormalizedGeneralForm());
+        assertEquals(expected.getDescription(), actual.getDescription());
+        assertEquals(expected.getAbbreviation(), actual.getAbbreviation());
+        assertEquals(expected.getDomain(), actual.getDomain());
+        assertEquals(expected.getPronunciation(), actual.getPronunciation());
+        assertEquals(expected.getGrammaticalGender(), actual.getGrammaticalGender());
+        assertEquals(expected.getAdditionalForms(), actual.getAdditionalForms());
+        assertEquals(expected.getMeanings(), actual.getMeanings());
+        assertEquals(expected.getSyllabification(), actual.getSyllabification());
+        assertEquals(expected.getAlternateForms(), actual.getAlternateForms());
+    }
+
+    /**
+     * Implementation of {@link BilingualEntry} outside of the value implementations which delegates to another entry.
+     */
+    private static class ForwardingBilingualEntry implements BilingualEntry {
+
+        private final BilingualEntry delegate;
+
+        ForwardingBilingualEntry(BilingualEntry delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public DictionaryObject getSource() {
+            return this.delegate.getSource();
+        }
+
+        @Override
+        public DictionaryObject getTarget() {
+            return this.delegate.getTarget();
+        }
+
+        @Override
+        public EntryType getEntryType() {
+            return this.delegate.getEntryType();
+        }
+    }
+}
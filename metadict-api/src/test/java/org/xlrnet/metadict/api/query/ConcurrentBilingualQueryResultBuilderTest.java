@@ -0,0 +1,98 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.query;
+
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.Language;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link ConcurrentBilingualQueryResultBuilder}.
+ */
+public class ConcurrentBilingualQueryResultBuilderTest {
+
+    private static final int PARTITIONS = 64;
+
+    private static final int ENTRIES_PER_PARTITION = 100;
+
+    private static BilingualEntry createEntry(int partition, int entry) {
+        return ImmutableBilingualEntry.builder()
+                .setEntryType(EntryType.NOUN)
+                .setInputObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "in-" + partition + "-" + entry))
+                .setOutputObject(ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "out-" + partition + "-" + entry))
+                .build();
+    }
+
+    @Test
+    public void testBuild_partitionsInOrder() {
+        ConcurrentBilingualQueryResultBuilder builder = ImmutableBilingualQueryResult.concurrentBuilder();
+
+        IntStream.range(0, PARTITIONS).parallel().forEach(p -> {
+            BilingualQueryResultBuilder partition = builder.partition(p);
+            for (int e = 0; e < ENTRIES_PER_PARTITION; e++) {
+                partition.addBilingualEntry(createEntry(p, e));
+            }
+        });
+
+        List<BilingualEntry> entries = builder.build().getBilingualEntries();
+
+        assertEquals(PARTITIONS * ENTRIES_PER_PARTITION, entries.size());
+        for (int p = 0; p < PARTITIONS; p++) {
+            for (int e = 0; e < ENTRIES_PER_PARTITION; e++) {
+                assertEquals(createEntry(p, e), entries.get(p * ENTRIES_PER_PARTITION + e));
+            }
+        }
+    }
+
+    @Test
+    public void testBuild_directEntriesBeforePartitions() {
+        ConcurrentBilingualQueryResultBuilder builder = ImmutableBilingualQueryResult.concurrentBuilder();
+
+        builder.partition(1).addBilingualEntry(createEntry(1, 0));
+        builder.partition(0).addBilingualEntry(createEntry(0, 0));
+        builder.addBilingualEntry(createEntry(-1, 0));
+        builder.addSimilarRecommendation(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "direct"));
+        builder.partition(0).addSimilarRecommendation(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "partition"));
+
+        BilingualQueryResult result = builder.build();
+
+        assertEquals(createEntry(-1, 0), result.getBilingualEntries().get(0));
+        assertEquals(createEntry(0, 0), result.getBilingualEntries().get(1));
+        assertEquals(createEntry(1, 0), result.getBilingualEntries().get(2));
+        assertEquals("direct", result.getSimilarRecommendations().get(0).getGeneralForm());
+        assertEquals("partition", result.getSimilarRecommendations().get(1).getGeneralForm());
+    }
+
+    @Test
+    public void testPartition_sameInstance() {
+        ConcurrentBilingualQueryResultBuilder builder = ImmutableBilingualQueryResult.concurrentBuilder();
+
+        assertEquals(builder.partition(3), builder.partition(3));
+    }
+}
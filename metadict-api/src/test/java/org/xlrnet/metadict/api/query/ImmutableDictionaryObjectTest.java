@@ -0,0 +1,77 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.query;
+
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.Language;
+
+import java.io.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for {@link ImmutableDictionaryObject}.
+ */
+public class ImmutableDictionaryObjectTest {
+
+    @Test
+    public void testGetNormalizedGeneralForm() throws Exception {
+        DictionaryObject dictionaryObject = ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "  To Test ");
+
+        assertEquals("to test", dictionaryObject.getNormalizedGeneralForm());
+    }
+
+    @Test
+    public void testGetNormalizedGeneralForm_alreadyNormalized() throws Exception {
+        DictionaryObject dictionaryObject = ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "test");
+
+        assertSame(dictionaryObject.getGeneralForm(), dictionaryObject.getNormalizedGeneralForm());
+    }
+
+    @Test
+    public void testGetNormalizedGeneralForm_memoized() throws Exception {
+        DictionaryObject dictionaryObject = ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "Test");
+
+        assertSame(dictionaryObject.getNormalizedGeneralForm(), dictionaryObject.getNormalizedGeneralForm());
+    }
+
+    @Test
+    public void testGetNormalizedGeneralForm_serialized() throws Exception {
+        DictionaryObject dictionaryObject = ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "Test");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(dictionaryObject);
+        }
+        DictionaryObject deserialized;
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            deserialized = (DictionaryObject) objectInputStream.readObject();
+        }
+
+        assertEquals(dictionaryObject, deserialized);
+        assertEquals("test", deserialized.getNormalizedGeneralForm());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.api.util;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link FutureUtils}.
+ */
+public class FutureUtilsTest {
+
+    @Test
+    public void testFailedFuture() throws Exception {
+        IOException exception = new IOException("failure");
+
+        CompletableFuture<Object> future = FutureUtils.failedFuture(exception);
+
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("Future must be completed exceptionally");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+    }
+
+    @Test
+    public void testUnwrap() throws Exception {
+        IOException exception = new IOException("failure");
+
+        assertSame(exception, FutureUtils.unwrap(new ExecutionException(new CompletionException(exception))));
+        assertSame(exception, FutureUtils.unwrap(exception));
+    }
+
+    @Test
+    public void testUnwrap_withoutCause() throws Exception {
+        CompletionException exception = new CompletionException("failure", null);
+
+        assertSame(exception, FutureUtils.unwrap(exception));
+    }
+
+    @Test
+    public void testPropagateCancellation() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> dependent = FutureUtils.propagateCancellation(source.thenApply(String::trim), source);
+
+        dependent.cancel(true);
+
+        assertTrue(source.isCancelled());
+    }
+
+    @Test
+    public void testPropagateCancellation_completedNormally() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        CompletableFuture<String> dependent = FutureUtils.propagateCancellation(source.thenApply(String::trim), source);
+
+        source.complete(" value ");
+
+        assertEquals("value", dependent.get());
+        assertFalse(source.isCancelled());
+    }
+
+    @Test
+    public void testPropagateCancellation_failed() throws Exception {
+        CompletableFuture<String> source = new CompletableFuture<>();
+        FutureUtils.propagateCancellation(source.thenApply(String::trim), source);
+
+        source.completeExceptionally(new IOException("failure"));
+
+        assertFalse(source.isCancelled());
+    }
+}
@@ -0,0 +1,330 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.benchmarks;
+
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.query.AbstractQueryStep;
+import org.xlrnet.metadict.core.services.query.BilingualQueryStep;
+import org.xlrnet.metadict.core.services.query.MonolingualQueryStep;
+import org.xlrnet.metadict.core.services.query.QueryStepResultBuilder;
+import org.xlrnet.metadict.engines.heinzelnisse.HeinzelnisseEngine;
+import org.xlrnet.metadict.engines.http.RecordedHttpFetchService;
+import org.xlrnet.metadict.engines.leo.LeoEngine;
+import org.xlrnet.metadict.engines.nobordbok.OrdbokEngine;
+import org.xlrnet.metadict.engines.woxikon.WoxikonEngine;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates the query step results which are used as input for the aggregation benchmarks. Both data sets contain
+ * many dialect variants and a high share of entries with {@link EntryType#UNKNOWN}, since these are the most
+ * expensive cases for merging.
+ */
+final class AggregationDataSets {
+
+    /** Name of the data set which consists only of generated entries. */
+    static final String SYNTHETIC = "synthetic";
+
+    /** Name of the data set which is derived from the recorded engine responses. */
+    static final String FIXTURE = "fixture";
+
+    /** Fixed seed to make sure that all forks measure the same data. */
+    private static final long SEED = 0x6d657461L;
+
+    /** Share of bilingual entries with an unknown entry type in percent. */
+    private static final int UNKNOWN_PERCENTAGE = 40;
+
+    /** Average number of occurrences of each general form in the synthetic data set. */
+    private static final int OCCURRENCES_PER_FORM = 4;
+
+    private static final EntryType[] KNOWN_ENTRY_TYPES = {
+            EntryType.NOUN, EntryType.VERB, EntryType.ADJECTIVE, EntryType.ADVERB, EntryType.PHRASE, EntryType.EXAMPLE
+    };
+
+    /** Dictionaries of the synthetic data set. Norwegian is queried with and without dialects. */
+    private static final Language[][] SYNTHETIC_DICTIONARIES = {
+            {Language.GERMAN, Language.ENGLISH},
+            {Language.GERMAN, Language.NORWEGIAN},
+            {Language.GERMAN, Language.NORWEGIAN_BOKMÅL},
+            {Language.GERMAN, Language.NORWEGIAN_NYNORSK},
+            {Language.ENGLISH, Language.NORWEGIAN_BOKMÅL},
+    };
+
+    private static final Language[] NORWEGIAN_VARIANTS = {
+            Language.NORWEGIAN, Language.NORWEGIAN_BOKMÅL, Language.NORWEGIAN_NYNORSK
+    };
+
+    private static final String RECORDED_RESPONSES = "/recorded/";
+
+    /** Shared with the parser tests of metadict-engines and loaded from its test jar. */
+    private static final String LEO_RESPONSE_FIXTURE = "/org/xlrnet/metadict/engines/leo/leo-ende-build.xml";
+
+    private static final String HTML_CONTENT_TYPE = "text/html; charset=UTF-8";
+
+    private static final String XML_CONTENT_TYPE = "application/xml; charset=UTF-8";
+
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    private AggregationDataSets() {
+
+    }
+
+    /**
+     * Returns the query string which matches the generated entries best.
+     *
+     * @param dataSet
+     *         The name of the data set.
+     * @return the query string for the given data set.
+     */
+    @NotNull
+    static String queryString(@NotNull String dataSet) {
+        return FIXTURE.equals(dataSet) ? "hus" : "form1";
+    }
+
+    /**
+     * Run all engines on their recorded responses and return the results together with the steps that would have
+     * produced them.
+     */
+    @NotNull
+    static List<QueryStepResult> recordEngineResults() throws IOException, MetadictTechnicalException {
+        LeoEngine leoEngine = new LeoEngine(new RecordedHttpFetchService()
+                .recordResource("https://dict.leo.org/", XML_CONTENT_TYPE, LEO_RESPONSE_FIXTURE));
+        WoxikonEngine woxikonEngine = new WoxikonEngine(new RecordedHttpFetchService()
+                .recordResource("http://www.woxikon.de/", HTML_CONTENT_TYPE, RECORDED_RESPONSES + "woxikon-de-en-haus.html"));
+        HeinzelnisseEngine heinzelnisseEngine = new HeinzelnisseEngine(new RecordedHttpFetchService()
+                .recordResource("https://www.heinzelnisse.info/", JSON_CONTENT_TYPE, RECORDED_RESPONSES + "heinzelnisse-de-no-hus.json"));
+        OrdbokEngine ordbokEngine = new OrdbokEngine(new RecordedHttpFetchService()
+                .recordResource("http://ordbok.uib.no/", HTML_CONTENT_TYPE, RECORDED_RESPONSES + "ordbok-begge-hus.html"));
+
+        List<QueryStepResult> recordedResults = new ArrayList<>();
+        recordedResults.add(buildStepResult(
+                recordedBilingualStep("leo", "build", Language.ENGLISH, Language.GERMAN),
+                leoEngine.executeBilingualQuery("build", Language.ENGLISH, Language.GERMAN, true)));
+        recordedResults.add(buildStepResult(
+                recordedBilingualStep("woxikon", "Haus", Language.GERMAN, Language.ENGLISH),
+                woxikonEngine.executeBilingualQuery("Haus", Language.GERMAN, Language.ENGLISH, true)));
+        recordedResults.add(buildStepResult(
+                recordedBilingualStep("heinzelnisse", "hus", Language.NORWEGIAN, Language.GERMAN),
+                heinzelnisseEngine.executeBilingualQuery("hus", Language.NORWEGIAN, Language.GERMAN, true)));
+        recordedResults.add(buildStepResult(
+                recordedMonolingualStep("ordbok", "hus", Language.NORWEGIAN),
+                ordbokEngine.executeMonolingualQuery("hus", Language.NORWEGIAN)));
+        return recordedResults;
+    }
+
+    /**
+     * Generate a synthetic data set with the given number of bilingual entries. Additionally, a quarter of the size
+     * is generated as monolingual entries and a tenth as similar recommendations. Each general form occurs multiple
+     * times in different dictionaries, dialects and directions with both known and unknown entry types.
+     *
+     * @param size
+     *         Number of bilingual entries to generate.
+     * @return a list of query step results with the generated entries.
+     */
+    @NotNull
+    static List<QueryStepResult> synthetic(int size) {
+        Random random = new Random(SEED);
+        int vocabularySize = Math.max(1, size / OCCURRENCES_PER_FORM);
+        List<BilingualQueryResultBuilder> builders = new ArrayList<>(SYNTHETIC_DICTIONARIES.length);
+        for (int i = 0; i < SYNTHETIC_DICTIONARIES.length; i++) {
+            builders.add(ImmutableBilingualQueryResult.builder());
+        }
+
+        for (int i = 0; i < size; i++) {
+            int form = random.nextInt(vocabularySize);
+            int dictionary = random.nextInt(SYNTHETIC_DICTIONARIES.length);
+            EntryType entryType = random.nextInt(100) < UNKNOWN_PERCENTAGE ? EntryType.UNKNOWN : KNOWN_ENTRY_TYPES[form % KNOWN_ENTRY_TYPES.length];
+            DictionaryObject source = ImmutableDictionaryObject.createSimpleObject(SYNTHETIC_DICTIONARIES[dictionary][0], "form" + form);
+            DictionaryObject target = ImmutableDictionaryObject.createSimpleObject(SYNTHETIC_DICTIONARIES[dictionary][1], "target" + form);
+            BilingualEntry entry = ImmutableBilingualEntry.builder().setEntryType(entryType).setInputObject(source).setOutputObject(target).build();
+
+            // Some engines return entries in the opposite direction
+            builders.get(dictionary).addBilingualEntry(random.nextBoolean() ? entry : ImmutableBilingualEntry.invert(entry));
+        }
+
+        for (int i = 0; i < size / 10; i++) {
+            Language language = SYNTHETIC_DICTIONARIES[i % SYNTHETIC_DICTIONARIES.length][1];
+            builders.get(i % builders.size()).addSimilarRecommendation(ImmutableDictionaryObject.createSimpleObject(language, "form" + random.nextInt(vocabularySize)));
+        }
+
+        List<QueryStepResult> stepResults = new ArrayList<>();
+        for (int i = 0; i < SYNTHETIC_DICTIONARIES.length; i++) {
+            stepResults.add(buildStepResult(bilingualStep(SYNTHETIC_DICTIONARIES[i][0], SYNTHETIC_DICTIONARIES[i][1]), builders.get(i).build()));
+        }
+
+        MonolingualQueryResultBuilder monolingualBuilder = ImmutableMonolingualQueryResult.builder();
+        for (int i = 0; i < size / 4; i++) {
+            int form = random.nextInt(vocabularySize);
+            EntryType entryType = random.nextInt(100) < UNKNOWN_PERCENTAGE ? EntryType.UNKNOWN : KNOWN_ENTRY_TYPES[form % KNOWN_ENTRY_TYPES.length];
+            DictionaryObject content = ImmutableDictionaryObject.builder()
+                    .setLanguage(NORWEGIAN_VARIANTS[random.nextInt(NORWEGIAN_VARIANTS.length)])
+                    .setGeneralForm("target" + form)
+                    .setDescription("description" + random.nextInt(OCCURRENCES_PER_FORM))
+                    .build();
+            monolingualBuilder.addMonolingualEntry(ImmutableMonolingualEntry.builder().setEntryType(entryType).setContent(content).build());
+        }
+        stepResults.add(buildStepResult(monolingualStep(Language.NORWEGIAN), monolingualBuilder.build()));
+
+        return stepResults;
+    }
+
+    /**
+     * Generate a data set with the given number of bilingual entries by replicating the entries of the given recorded
+     * engine results. The replicas are rotated through unchanged copies, copies with an unknown entry type and copies
+     * with Norwegian dialects. Every fourth round of replicas gets new general forms, so that the number of distinct
+     * entries grows with the size of the data set. Monolingual entries and similar recommendations are replicated in
+     * the same ratio.
+     *
+     * @param recordedResults
+     *         The recorded engine results together with the steps that produced them.
+     * @param size
+     *         Number of bilingual entries to generate.
+     * @return a list of query step results with the replicated entries.
+     */
+    @NotNull
+    static List<QueryStepResult> fixture(@NotNull List<QueryStepResult> recordedResults, int size) {
+        int recordedBilingualEntries = 0;
+        for (QueryStepResult recordedResult : recordedResults) {
+            if (recordedResult.getEngineQueryResult() instanceof BilingualQueryResult) {
+                recordedBilingualEntries += ((BilingualQueryResult) recordedResult.getEngineQueryResult()).getBilingualEntries().size();
+            }
+        }
+        int rounds = Math.max(1, (size + recordedBilingualEntries - 1) / Math.max(1, recordedBilingualEntries));
+        int remaining = size;
+
+        List<QueryStepResult> stepResults = new ArrayList<>(recordedResults.size());
+        for (QueryStepResult recordedResult : recordedResults) {
+            EngineQueryResult engineQueryResult = recordedResult.getEngineQueryResult();
+            if (engineQueryResult instanceof BilingualQueryResult) {
+                List<BilingualEntry> entries = ((BilingualQueryResult) engineQueryResult).getBilingualEntries();
+                int count = Math.min(remaining, entries.size() * rounds);
+                remaining -= count;
+                stepResults.add(buildStepResult(recordedResult.getQueryStep(), replicateBilingualResult((BilingualQueryResult) engineQueryResult, count)));
+            } else if (engineQueryResult instanceof MonolingualQueryResult) {
+                stepResults.add(buildStepResult(recordedResult.getQueryStep(), replicateMonolingualResult((MonolingualQueryResult) engineQueryResult, rounds)));
+            }
+        }
+        return stepResults;
+    }
+
+    @NotNull
+    private static BilingualQueryResult replicateBilingualResult(@NotNull BilingualQueryResult recordedResult, int count) {
+        BilingualQueryResultBuilder builder = ImmutableBilingualQueryResult.builder();
+        List<BilingualEntry> entries = recordedResult.getBilingualEntries();
+        for (int i = 0; i < count; i++) {
+            BilingualEntry entry = entries.get(i % entries.size());
+            int round = i / entries.size();
+            EntryType entryType = round % 4 == 1 ? EntryType.UNKNOWN : entry.getEntryType();
+            BilingualEntry replica = ImmutableBilingualEntry.builder()
+                    .setEntryType(entryType)
+                    .setInputObject(replicateObject(entry.getSource(), round))
+                    .setOutputObject(replicateObject(entry.getTarget(), round))
+                    .build();
+            builder.addBilingualEntry(replica);
+        }
+        int recommendations = recordedResult.getSimilarRecommendations().size();
+        for (int i = 0; i < recommendations * Math.max(1, count / Math.max(1, entries.size())); i++) {
+            builder.addSimilarRecommendation(replicateObject(recordedResult.getSimilarRecommendations().get(i % recommendations), i / recommendations));
+        }
+        return builder.build();
+    }
+
+    @NotNull
+    private static MonolingualQueryResult replicateMonolingualResult(@NotNull MonolingualQueryResult recordedResult, int rounds) {
+        MonolingualQueryResultBuilder builder = ImmutableMonolingualQueryResult.builder();
+        for (int round = 0; round < rounds; round++) {
+            for (MonolingualEntry entry : recordedResult.getMonolingualEntries()) {
+                EntryType entryType = round % 4 == 1 ? EntryType.UNKNOWN : entry.getEntryType();
+                builder.addMonolingualEntry(ImmutableMonolingualEntry.builder().setEntryType(entryType).setContent(replicateObject(entry.getContent(), round)).build());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Copy the given object for the given replication round. Norwegian objects are moved to a dialect in every fourth
+     * round and the general form gets a unique suffix for each block of four rounds.
+     */
+    @NotNull
+    private static DictionaryObject replicateObject(@NotNull DictionaryObject original, int round) {
+        Language language = original.getLanguage();
+        if (round % 4 == 2 && Language.NORWEGIAN.equals(Language.getWithoutDialect(language))) {
+            language = NORWEGIAN_VARIANTS[1 + (round / 4) % 2];
+        }
+        String generalForm = round < 4 ? original.getGeneralForm() : original.getGeneralForm() + " " + (round / 4);
+
+        return ImmutableDictionaryObject.builder()
+                .setLanguage(language)
+                .setGeneralForm(generalForm)
+                .setDescription(original.getDescription())
+                .setDomain(original.getDomain())
+                .setAbbreviation(original.getAbbreviation())
+                .setGrammaticalGender(original.getGrammaticalGender())
+                .setAdditionalForms(original.getAdditionalForms())
+                .setMeanings(original.getMeanings())
+                .setAlternateForms(original.getAlternateForms())
+                .build();
+    }
+
+    @NotNull
+    private static BilingualQueryStep bilingualStep(@NotNull Language inputLanguage, @NotNull Language outputLanguage) {
+        BilingualQueryStep queryStep = new BilingualQueryStep().setInputLanguage(inputLanguage).setOutputLanguage(outputLanguage).setAllowBothWay(true);
+        queryStep.setQueryString("form").setSearchEngineName("synthetic");
+        return queryStep;
+    }
+
+    @NotNull
+    private static MonolingualQueryStep monolingualStep(@NotNull Language language) {
+        MonolingualQueryStep queryStep = new MonolingualQueryStep().setRequestLanguage(language);
+        queryStep.setQueryString("form").setSearchEngineName("synthetic");
+        return queryStep;
+    }
+
+    @NotNull
+    static QueryStepResult buildStepResult(@NotNull AbstractQueryStep queryStep, @NotNull EngineQueryResult engineQueryResult) {
+        return new QueryStepResultBuilder().setQueryStep(queryStep).setEngineQueryResult(engineQueryResult).build();
+    }
+
+    @NotNull
+    static BilingualQueryStep recordedBilingualStep(@NotNull String engineName, @NotNull String queryString, @NotNull Language inputLanguage, @NotNull Language outputLanguage) {
+        BilingualQueryStep queryStep = bilingualStep(inputLanguage, outputLanguage);
+        queryStep.setQueryString(queryString).setSearchEngineName(engineName);
+        return queryStep;
+    }
+
+    @NotNull
+    static MonolingualQueryStep recordedMonolingualStep(@NotNull String engineName, @NotNull String queryString, @NotNull Language language) {
+        MonolingualQueryStep queryStep = monolingualStep(language);
+        queryStep.setQueryString(queryString).setSearchEngineName(engineName);
+        return queryStep;
+    }
+}
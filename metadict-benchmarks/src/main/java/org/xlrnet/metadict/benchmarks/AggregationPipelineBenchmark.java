@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.query.BilingualEntry;
+import org.xlrnet.metadict.api.query.DictionaryObject;
+import org.xlrnet.metadict.api.query.MonolingualEntry;
+import org.xlrnet.metadict.core.api.aggregation.Group;
+import org.xlrnet.metadict.core.api.aggregation.ResultEntry;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.aggregation.group.DictionaryGroupingStrategy;
+import org.xlrnet.metadict.core.services.aggregation.group.EntryTypeGroupingStrategy;
+import org.xlrnet.metadict.core.services.aggregation.group.GroupBuilder;
+import org.xlrnet.metadict.core.services.aggregation.merge.BenchmarkMergeServices;
+import org.xlrnet.metadict.core.services.aggregation.merge.SimilarElementsMergeService;
+import org.xlrnet.metadict.core.services.aggregation.order.BoundedRelevanceOrderStrategy;
+import org.xlrnet.metadict.core.services.aggregation.order.LevenstheinRelevanceOrderStrategy;
+import org.xlrnet.metadict.core.services.query.QueryRequestBuilder;
+import org.xlrnet.metadict.core.services.query.QueryUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the single phases of the aggregation pipeline in the same way as the query service runs them: grouping,
+ * merging and ordering. Each phase gets the output of the previous phase as input, which is prepared once per trial.
+ * <p>
+ * The {@code synthetic} data set consists of generated entries while the {@code fixture} data set replicates the
+ * results of the recorded engine responses. Both data sets contain many dialect variants and entries with an unknown
+ * entry type. Run the benchmarks through {@link BenchmarkRunner} to additionally get the allocation per operation of
+ * each phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AggregationPipelineBenchmark {
+
+    /** Number of entries per group on the first page of a paged response. */
+    private static final int FIRST_PAGE_SIZE = 20;
+
+    /** Number of bilingual entries in the data set. */
+    @Param({"10", "100", "1000", "10000", "50000"})
+    private int size;
+
+    @Param({AggregationDataSets.SYNTHETIC, AggregationDataSets.FIXTURE})
+    private String dataSet;
+
+    private final DictionaryGroupingStrategy dictionaryGroupingStrategy = new DictionaryGroupingStrategy();
+
+    private final EntryTypeGroupingStrategy entryTypeGroupingStrategy = new EntryTypeGroupingStrategy();
+
+    private final LevenstheinRelevanceOrderStrategy levenstheinOrderStrategy = new LevenstheinRelevanceOrderStrategy();
+
+    private final BoundedRelevanceOrderStrategy boundedOrderStrategy = new BoundedRelevanceOrderStrategy();
+
+    private SimilarElementsMergeService mergeService;
+
+    private QueryRequest queryRequest;
+
+    private List<QueryStepResult> stepResults;
+
+    private Collection<Group<BilingualEntry>> bilingualGroups;
+
+    private Collection<Group<BilingualEntry>> mergedBilingualGroups;
+
+    private List<MonolingualEntry> monolingualEntries;
+
+    private List<DictionaryObject> similarRecommendations;
+
+    @Setup
+    public void setUp() throws IOException, MetadictTechnicalException {
+        this.mergeService = BenchmarkMergeServices.createMergeService();
+        this.queryRequest = new QueryRequestBuilder().setQueryString(AggregationDataSets.queryString(this.dataSet)).build();
+
+        if (AggregationDataSets.FIXTURE.equals(this.dataSet)) {
+            this.stepResults = AggregationDataSets.fixture(AggregationDataSets.recordEngineResults(), this.size);
+        } else {
+            this.stepResults = AggregationDataSets.synthetic(this.size);
+        }
+
+        this.bilingualGroups = this.dictionaryGroupingStrategy.groupResultSets(this.stepResults);
+        this.mergedBilingualGroups = mergeBilingual();
+        this.monolingualEntries = QueryUtil.collectMonolingualEntries(this.stepResults);
+        this.similarRecommendations = QueryUtil.collectSimilarRecommendations(this.stepResults);
+    }
+
+    @Benchmark
+    public Collection<Group<BilingualEntry>> groupByDictionary() {
+        return this.dictionaryGroupingStrategy.groupResultSets(this.stepResults);
+    }
+
+    @Benchmark
+    public Collection<Group<BilingualEntry>> groupByEntryType() {
+        return this.entryTypeGroupingStrategy.groupResultSets(this.stepResults);
+    }
+
+    /**
+     * Merges the bilingual entries of each dictionary group like the query service does.
+     */
+    @Benchmark
+    public Collection<Group<BilingualEntry>> mergeBilingual() {
+        List<Group<BilingualEntry>> mergedGroups = new ArrayList<>(this.bilingualGroups.size());
+        for (Group<BilingualEntry> bilingualGroup : this.bilingualGroups) {
+            GroupBuilder<BilingualEntry> groupBuilder = new GroupBuilder<BilingualEntry>().setGroupIdentifier(bilingualGroup.getGroupIdentifier());
+            groupBuilder.addAll(this.mergeService.mergeElements(bilingualGroup.getResultEntries(), BilingualEntry.class));
+            mergedGroups.add(groupBuilder.build());
+        }
+        return mergedGroups;
+    }
+
+    @Benchmark
+    public Collection<MonolingualEntry> mergeMonolingual() {
+        return this.mergeService.mergeElements(this.monolingualEntries, MonolingualEntry.class);
+    }
+
+    @Benchmark
+    public Collection<DictionaryObject> mergeDictionaryObjects() {
+        return this.mergeService.mergeElements(this.similarRecommendations, DictionaryObject.class);
+    }
+
+    @Benchmark
+    public Collection<Group<ResultEntry>> orderByLevenstheinRelevance() {
+        return this.levenstheinOrderStrategy.sortResultGroups(this.queryRequest, this.mergedBilingualGroups);
+    }
+
+    @Benchmark
+    public Collection<Group<ResultEntry>> orderByBoundedRelevance() {
+        return this.boundedOrderStrategy.sortResultGroups(this.queryRequest, this.mergedBilingualGroups);
+    }
+
+    /**
+     * Orders only the entries which are necessary for the first page of a paged response.
+     */
+    @Benchmark
+    public Collection<Group<ResultEntry>> orderFirstPageByBoundedRelevance() {
+        return this.boundedOrderStrategy.sortResultGroups(this.queryRequest, this.mergedBilingualGroups, FIRST_PAGE_SIZE);
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.MonolingualQueryResult;
+import org.xlrnet.metadict.engines.heinzelnisse.HeinzelnisseEngine;
+import org.xlrnet.metadict.engines.http.RecordedHttpFetchService;
+import org.xlrnet.metadict.engines.leo.LeoEngine;
+import org.xlrnet.metadict.engines.nobordbok.OrdbokEngine;
+import org.xlrnet.metadict.engines.woxikon.WoxikonEngine;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the parsers of the search engines by replaying recorded responses. No network connections are opened,
+ * i.e. the results only contain the cost of parsing the responses and building the query results.
+ * <p>
+ * Throughput is measured in operations per millisecond. The sample time mode reports the latency percentiles
+ * (including p99) per engine. Run the benchmarks through {@link BenchmarkRunner} to additionally get the allocation
+ * rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class EngineParserBenchmark {
+
+    private static final String RECORDED_RESPONSES = "/recorded/";
+
+    /** Shared with the parser tests of metadict-engines and loaded from its test jar. */
+    private static final String LEO_RESPONSE_FIXTURE = "/org/xlrnet/metadict/engines/leo/leo-ende-build.xml";
+
+    private static final String HTML_CONTENT_TYPE = "text/html; charset=UTF-8";
+
+    private static final String XML_CONTENT_TYPE = "application/xml; charset=UTF-8";
+
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=UTF-8";
+
+    private LeoEngine leoEngine;
+
+    private WoxikonEngine woxikonEngine;
+
+    private HeinzelnisseEngine heinzelnisseEngine;
+
+    private OrdbokEngine ordbokEngine;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.leoEngine = new LeoEngine(new RecordedHttpFetchService()
+                .recordResource("https://dict.leo.org/", XML_CONTENT_TYPE, LEO_RESPONSE_FIXTURE));
+        this.woxikonEngine = new WoxikonEngine(new RecordedHttpFetchService()
+                .recordResource("http://www.woxikon.de/", HTML_CONTENT_TYPE, RECORDED_RESPONSES + "woxikon-de-en-haus.html"));
+        this.heinzelnisseEngine = new HeinzelnisseEngine(new RecordedHttpFetchService()
+                .recordResource("https://www.heinzelnisse.info/", JSON_CONTENT_TYPE, RECORDED_RESPONSES + "heinzelnisse-de-no-hus.json"));
+        this.ordbokEngine = new OrdbokEngine(new RecordedHttpFetchService()
+                .recordResource("http://ordbok.uib.no/", HTML_CONTENT_TYPE, RECORDED_RESPONSES + "ordbok-begge-hus.html"));
+    }
+
+    @Benchmark
+    public BilingualQueryResult leo() throws MetadictTechnicalException {
+        return this.leoEngine.executeBilingualQuery("build", Language.ENGLISH, Language.GERMAN, true);
+    }
+
+    @Benchmark
+    public BilingualQueryResult woxikon() throws MetadictTechnicalException {
+        return this.woxikonEngine.executeBilingualQuery("Haus", Language.GERMAN, Language.ENGLISH, true);
+    }
+
+    @Benchmark
+    public BilingualQueryResult heinzelnisse() throws MetadictTechnicalException {
+        return this.heinzelnisseEngine.executeBilingualQuery("hus", Language.NORWEGIAN, Language.GERMAN, true);
+    }
+
+    @Benchmark
+    public MonolingualQueryResult ordbok() throws MetadictTechnicalException {
+        return this.ordbokEngine.executeMonolingualQuery("hus", Language.NORWEGIAN);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.query.QueryStepResultCodec;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary {@link QueryStepResultCodec} with the Java serialization, which MapDB uses by default for
+ * storing cached query step results. Each operation encodes or decodes all step results of the data set.
+ * <p>
+ * The encoded sizes of both formats are printed once per trial, since JMH can only report times. Decoding with the
+ * codec includes the conversion of large bilingual results into their compact representation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class QueryStepResultSerializationBenchmark {
+
+    /** Number of bilingual entries in the data set. */
+    @Param({"10", "1000", "10000"})
+    private int size;
+
+    @Param({AggregationDataSets.SYNTHETIC, AggregationDataSets.FIXTURE})
+    private String dataSet;
+
+    private List<QueryStepResult> stepResults;
+
+    private List<byte[]> binaryEncoded;
+
+    private List<byte[]> javaEncoded;
+
+    @Setup
+    public void setUp() throws IOException, MetadictTechnicalException {
+        if (AggregationDataSets.FIXTURE.equals(this.dataSet)) {
+            this.stepResults = AggregationDataSets.fixture(AggregationDataSets.recordEngineResults(), this.size);
+        } else {
+            this.stepResults = AggregationDataSets.synthetic(this.size);
+        }
+        this.binaryEncoded = encodeBinary();
+        this.javaEncoded = encodeJava();
+
+        System.out.printf("%nEncoded size of %s data set with %d entries: binary=%d bytes, java=%d bytes%n",
+                this.dataSet, this.size, totalSize(this.binaryEncoded), totalSize(this.javaEncoded));
+    }
+
+    @Benchmark
+    public List<byte[]> encodeBinary() throws IOException {
+        List<byte[]> encoded = new ArrayList<>(this.stepResults.size());
+        for (QueryStepResult stepResult : this.stepResults) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream dataOutputStream = new DataOutputStream(bytes)) {
+                QueryStepResultCodec.write(dataOutputStream, stepResult);
+            }
+            encoded.add(bytes.toByteArray());
+        }
+        return encoded;
+    }
+
+    @Benchmark
+    public List<byte[]> encodeJava() throws IOException {
+        List<byte[]> encoded = new ArrayList<>(this.stepResults.size());
+        for (QueryStepResult stepResult : this.stepResults) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+                objectOutputStream.writeObject(stepResult);
+            }
+            encoded.add(bytes.toByteArray());
+        }
+        return encoded;
+    }
+
+    @Benchmark
+    public List<Object> decodeBinary() throws IOException {
+        List<Object> decoded = new ArrayList<>(this.binaryEncoded.size());
+        for (byte[] bytes : this.binaryEncoded) {
+            decoded.add(QueryStepResultCodec.read(new DataInputStream(new ByteArrayInputStream(bytes))));
+        }
+        return decoded;
+    }
+
+    @Benchmark
+    public List<Object> decodeJava() throws IOException, ClassNotFoundException {
+        List<Object> decoded = new ArrayList<>(this.javaEncoded.size());
+        for (byte[] bytes : this.javaEncoded) {
+            try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                decoded.add(objectInputStream.readObject());
+            }
+        }
+        return decoded;
+    }
+
+    private static long totalSize(List<byte[]> encoded) {
+        long totalSize = 0;
+        for (byte[] bytes : encoded) {
+            totalSize += bytes.length;
+        }
+        return totalSize;
+    }
+}
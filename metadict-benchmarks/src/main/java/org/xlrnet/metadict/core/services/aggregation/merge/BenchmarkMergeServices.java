@@ -0,0 +1,72 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.aggregation.merge;
+
+import com.google.common.collect.ImmutableSet;
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.core.api.aggregation.SimilarElementsMerger;
+import org.xlrnet.metadict.core.services.aggregation.merge.normalizer.EnglishVerbNormalizer;
+import org.xlrnet.metadict.core.services.aggregation.merge.normalizer.NorwegianVerbNormalizer;
+
+/**
+ * Creates the merge services outside of the injector. The services are wired with the same mergers and normalizers
+ * as in {@link org.xlrnet.metadict.core.CoreModule} and initialized like the lifecycle manager would do on startup.
+ */
+public final class BenchmarkMergeServices {
+
+    private BenchmarkMergeServices() {
+
+    }
+
+    /**
+     * Create a new and initialized {@link NormalizationService} with all default normalizers.
+     *
+     * @return a new and initialized {@link NormalizationService}.
+     */
+    @NotNull
+    public static NormalizationService createNormalizationService() {
+        NormalizationService normalizationService = new NormalizationService(ImmutableSet.of(new EnglishVerbNormalizer(), new NorwegianVerbNormalizer()));
+        normalizationService.initialize();
+        return normalizationService;
+    }
+
+    /**
+     * Create a new and initialized {@link SimilarElementsMergeService} with all default mergers.
+     *
+     * @return a new and initialized {@link SimilarElementsMergeService}.
+     */
+    @NotNull
+    public static SimilarElementsMergeService createMergeService() {
+        NormalizationService normalizationService = createNormalizationService();
+        SimilarElementsMergeService mergeService = new SimilarElementsMergeService(ImmutableSet.<SimilarElementsMerger>of(
+                new DefaultSimilarElementsMerger(),
+                new BilingualEntryMerger(normalizationService),
+                new MonolingualEntryMerger(normalizationService),
+                new DictionaryObjectMerger()
+        ));
+        mergeService.initialize();
+        return mergeService;
+    }
+}
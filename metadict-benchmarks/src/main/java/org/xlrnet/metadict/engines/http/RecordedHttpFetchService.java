@@ -0,0 +1,145 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.http;
+
+import com.google.common.io.ByteStreams;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Replacement for the {@link HttpFetchService} that never opens a network connection and replays previously recorded
+ * responses instead. This allows measuring and testing the parsers of engines without hitting the live backends.
+ * <p>
+ * Each recorded response is registered for a URL prefix. A request is answered with the response of the longest
+ * registered prefix that matches the requested URL. An empty prefix matches all URLs. Engine-specific timeouts are
+ * ignored.
+ * <p>
+ * This class lives in the package of {@link HttpFetchService} to reuse its package-private helpers, but it is only
+ * shipped with the benchmarks.
+ */
+public class RecordedHttpFetchService extends HttpFetchService {
+
+    private final Map<String, RecordedResponse> recordedResponses = new ConcurrentHashMap<>();
+
+    public RecordedHttpFetchService() {
+        super(new DefaultHttpFetchConfiguration());
+    }
+
+    /**
+     * Register a recorded response for all URLs that start with the given prefix.
+     *
+     * @param urlPrefix
+     *         The prefix of the URLs which should be answered with the response.
+     * @param contentType
+     *         The content type of the response including its charset, e.g. "text/html; charset=UTF-8".
+     * @param body
+     *         The decoded body of the response.
+     * @return this instance.
+     */
+    @NotNull
+    public RecordedHttpFetchService record(@NotNull String urlPrefix, @NotNull String contentType, @NotNull byte[] body) {
+        checkNotNull(urlPrefix, "URL prefix may not be null");
+        checkNotNull(body, "Body may not be null");
+
+        this.recordedResponses.put(urlPrefix, new RecordedResponse(contentType, body));
+        return this;
+    }
+
+    /**
+     * Register a recorded response from a classpath resource for all URLs that start with the given prefix.
+     *
+     * @param urlPrefix
+     *         The prefix of the URLs which should be answered with the response.
+     * @param contentType
+     *         The content type of the response including its charset, e.g. "text/html; charset=UTF-8".
+     * @param resourceName
+     *         The absolute name of the classpath resource which contains the body of the response.
+     * @return this instance.
+     * @throws IOException
+     *         Will be thrown if the resource couldn't be read.
+     */
+    @NotNull
+    public RecordedHttpFetchService recordResource(@NotNull String urlPrefix, @NotNull String contentType, @NotNull String resourceName) throws IOException {
+        try (InputStream inputStream = RecordedHttpFetchService.class.getResourceAsStream(resourceName)) {
+            if (inputStream == null) {
+                throw new FileNotFoundException("Recorded response " + resourceName + " not found on classpath");
+            }
+            return record(urlPrefix, contentType, ByteStreams.toByteArray(inputStream));
+        }
+    }
+
+    @NotNull
+    @Override
+    public HttpFetchResponse get(@NotNull String url, @NotNull Map<String, String> requestHeaders) throws IOException {
+        return replay(url);
+    }
+
+    @NotNull
+    @Override
+    public HttpFetchResponse get(@NotNull String url, @NotNull Map<String, String> requestHeaders, int timeout) throws IOException {
+        return replay(url);
+    }
+
+    @NotNull
+    private HttpFetchResponse replay(@NotNull String url) throws IOException {
+        checkNotNull(url, "URL may not be null");
+
+        RecordedResponse response = null;
+        int matchedPrefixLength = -1;
+        for (Map.Entry<String, RecordedResponse> entry : this.recordedResponses.entrySet()) {
+            String urlPrefix = entry.getKey();
+            if (url.startsWith(urlPrefix) && urlPrefix.length() > matchedPrefixLength) {
+                response = entry.getValue();
+                matchedPrefixLength = urlPrefix.length();
+            }
+        }
+
+        if (response == null) {
+            throw new IOException("No recorded response for " + url);
+        }
+
+        return new HttpFetchResponse(new URL(url), 200, response.contentType, extractCharset(response.contentType), response.body);
+    }
+
+    private static class RecordedResponse {
+
+        private final String contentType;
+
+        private final byte[] body;
+
+        RecordedResponse(String contentType, byte[] body) {
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
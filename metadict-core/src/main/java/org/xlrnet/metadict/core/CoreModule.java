@@ -38,8 +38,8 @@ import org.xlrnet.metadict.core.services.aggregation.merge.DictionaryObjectMerge
 import org.xlrnet.metadict.core.services.aggregation.merge.MonolingualEntryMerger;
 import org.xlrnet.metadict.core.services.aggregation.merge.normalizer.EnglishVerbNormalizer;
 import org.xlrnet.metadict.core.services.aggregation.merge.normalizer.NorwegianVerbNormalizer;
-import org.xlrnet.metadict.core.services.query.CachedLinearExecutionStrategy;
-import org.xlrnet.metadict.core.services.query.SimpleQueryPlanningStrategy;
+import org.xlrnet.metadict.core.services.query.QueryPlanExecutionStrategyFactory;
+import org.xlrnet.metadict.core.services.query.QueryPlanningStrategyFactory;
 import org.xlrnet.metadict.core.services.storage.DefaultStorageService;
 import org.xlrnet.metadict.core.services.storage.InMemoryStorageProvider;
 import org.xlrnet.metadict.core.services.storage.StorageServiceFactory;
@@ -59,8 +59,8 @@ public class CoreModule extends AbstractModule {
         bind(StorageService.class).annotatedWith(DefaultStorageService.class).toProvider(StorageServiceFactory.class);
 
         // Configure strategies
-        bind(QueryPlanExecutionStrategy.class).to(CachedLinearExecutionStrategy.class);
-        bind(QueryPlanningStrategy.class).to(SimpleQueryPlanningStrategy.class);
+        bind(QueryPlanExecutionStrategy.class).toProvider(QueryPlanExecutionStrategyFactory.class);
+        bind(QueryPlanningStrategy.class).toProvider(QueryPlanningStrategyFactory.class);
 
         // Configure mergers
         Multibinder<SimilarElementsMerger> similarElementsMergerBinder = Multibinder.newSetBinder(binder(), SimilarElementsMerger.class);
@@ -46,4 +46,12 @@ public interface Group<T> extends Iterable<T>, Serializable {
      * @return the entries of this group.
      */
     List<T> getResultEntries();
+
+    /**
+     * Returns the total number of entries in this group. If only a page of the group is returned, this number may be
+     * greater than the number of entries in {@link #getResultEntries()}.
+     *
+     * @return the total number of entries in this group.
+     */
+    int getTotalEntryCount();
 }
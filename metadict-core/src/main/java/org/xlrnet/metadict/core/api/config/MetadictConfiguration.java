@@ -38,4 +38,12 @@ public interface MetadictConfiguration {
      */
     @NotNull
     StorageConfiguration getStorageConfiguration();
+
+    /**
+     * Return the configuration for the query subsystem.
+     *
+     * @return the configuration for the query subsystem.
+     */
+    @NotNull
+    QueryConfiguration getQueryConfiguration();
 }
@@ -0,0 +1,205 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.api.config;
+
+import org.xlrnet.metadict.core.services.query.ExecutionStrategyType;
+import org.xlrnet.metadict.core.services.query.PlanningStrategyType;
+
+import java.util.Map;
+
+/**
+ * Configuration for the execution of queries.
+ */
+public interface QueryConfiguration {
+
+    /**
+     * Returns the type of execution strategy which should be used for executing query plans.
+     *
+     * @return the type of execution strategy which should be used for executing query plans.
+     */
+    ExecutionStrategyType getExecutionStrategy();
+
+    /**
+     * Returns the type of planning strategy which should be used for creating query plans.
+     *
+     * @return the type of planning strategy which should be used for creating query plans.
+     */
+    PlanningStrategyType getPlanningStrategy();
+
+    /**
+     * Returns the default time in milliseconds in which a query should be answered. Cost-based planning strategies
+     * omit supplementary query steps which are not expected to finish within this budget. If zero, no budget will be
+     * used.
+     *
+     * @return the default time in milliseconds in which a query should be answered.
+     */
+    long getLatencyBudget();
+
+    /**
+     * Returns the maximum number of query steps of a single query plan that may be executed concurrently. This is only
+     * used by concurrent execution strategies.
+     *
+     * @return the maximum number of query steps of a single query plan that may be executed concurrently.
+     */
+    int getMaxConcurrentSteps();
+
+    /**
+     * Returns the maximum time in milliseconds that a single query step may run before it will be considered as
+     * failed.
+     *
+     * @return the maximum time in milliseconds that a single query step may run.
+     */
+    long getStepTimeout();
+
+    /**
+     * Returns the maximum time in milliseconds that the execution of a whole query plan may take. Steps which are not
+     * finished after this deadline will be considered as failed.
+     *
+     * @return the maximum time in milliseconds that the execution of a whole query plan may take.
+     */
+    long getPlanTimeout();
+
+    /**
+     * Returns the maximum number of final query responses that will be cached. A value of zero disables the response
+     * cache.
+     *
+     * @return the maximum number of final query responses that will be cached.
+     */
+    int getResponseCacheSize();
+
+    /**
+     * Returns the time in milliseconds after which a cached query response expires.
+     *
+     * @return the time in milliseconds after which a cached query response expires.
+     */
+    long getResponseCacheTtl();
+
+    /**
+     * Returns the time in milliseconds after which a cached query step result is considered stale. Stale results will
+     * still be returned, but a refresh will be triggered in the background. A value of zero disables expiration.
+     *
+     * @return the time in milliseconds after which a cached query step result is considered stale.
+     */
+    long getStepCacheTtl();
+
+    /**
+     * Returns engine-specific overrides for {@link #getStepCacheTtl()}. The keys of the map are the canonical class
+     * names of the engines.
+     *
+     * @return engine-specific overrides for the time to live of cached query step results.
+     */
+    Map<String, Long> getEngineStepCacheTtl();
+
+    /**
+     * Returns the time in milliseconds for which failed and empty query step results will be cached. A value of zero
+     * disables caching of these results.
+     *
+     * @return the time in milliseconds for which failed and empty query step results will be cached.
+     */
+    long getNegativeCacheTtl();
+
+    /**
+     * Returns the time in milliseconds for which an engine will not be queried after it failed. The backoff doubles
+     * with each consecutive failure. A value of zero disables the backoff.
+     *
+     * @return the initial backoff time in milliseconds after an engine failed.
+     */
+    long getEngineBackoffInitial();
+
+    /**
+     * Returns the maximum time in milliseconds for which an engine will not be queried after consecutive failures.
+     *
+     * @return the maximum backoff time in milliseconds.
+     */
+    long getEngineBackoffMax();
+
+    /**
+     * Returns the maximum number of calls that may run concurrently on a single engine. Further calls will be
+     * rejected immediately. A value of zero disables the limit.
+     *
+     * @return the maximum number of calls that may run concurrently on a single engine.
+     */
+    int getEngineMaxConcurrentCalls();
+
+    /**
+     * Returns the number of threads per engine which execute the calls of engines that only implement the blocking
+     * query methods.
+     *
+     * @return the number of threads per blocking engine.
+     */
+    int getEngineThreads();
+
+    /**
+     * Returns the maximum number of calls per blocking engine which may wait for a free thread. Further calls will be
+     * skipped without being recorded as failures of the engine.
+     *
+     * @return the maximum number of waiting calls per blocking engine.
+     */
+    int getEngineMaxQueuedCalls();
+
+    /**
+     * Returns the number of recent calls per engine which are used for calculating the failure rate of the engine's
+     * circuit breaker.
+     *
+     * @return the number of recent calls per engine which are used for calculating the failure rate.
+     */
+    int getCircuitBreakerWindowSize();
+
+    /**
+     * Returns the failure rate in percent at which the circuit breaker of an engine opens.
+     *
+     * @return the failure rate in percent at which the circuit breaker of an engine opens.
+     */
+    int getCircuitBreakerFailureRateThreshold();
+
+    /**
+     * Returns the time in milliseconds for which an open circuit rejects all calls before a probe call is permitted.
+     *
+     * @return the time in milliseconds for which an open circuit rejects all calls.
+     */
+    long getCircuitBreakerOpenDuration();
+
+    /**
+     * Returns true, if slow engine calls should be hedged by issuing a second identical call. This is only used by
+     * concurrent execution strategies.
+     *
+     * @return true, if slow engine calls should be hedged.
+     */
+    boolean isHedgingEnabled();
+
+    /**
+     * Returns the percentile of the recent latencies of an engine after which a call to this engine will be hedged.
+     *
+     * @return the percentile of the recent latencies after which a call will be hedged.
+     */
+    int getHedgePercentile();
+
+    /**
+     * Returns the maximum percentage of calls per engine which may be hedged.
+     *
+     * @return the maximum percentage of calls per engine which may be hedged.
+     */
+    int getMaxHedgeRate();
+}
@@ -27,8 +27,10 @@ package org.xlrnet.metadict.core.api.query;
 import org.jetbrains.annotations.NotNull;
 import org.xlrnet.metadict.core.services.query.BilingualQueryStep;
 import org.xlrnet.metadict.core.services.query.QueryPlan;
+import org.xlrnet.metadict.core.services.query.QueryStepKey;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 
 /**
  * The {@link QueryPlanExecutionStrategy} interface is used for implementing query plan executors. A query plan
@@ -49,4 +51,36 @@ public interface QueryPlanExecutionStrategy {
     @NotNull
     Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan);
 
+    /**
+     * Execute the given {@link QueryPlan} and notify the given consumer about the result of each step as soon as it is
+     * available. Strategies which execute steps concurrently should notify the consumer in the order in which the
+     * steps finish. The consumer will always be called on the thread which invoked this method. The returned
+     * collection is the same as for {@link #executeQueryPlan(QueryPlan)}.
+     * <p>
+     * The default implementation executes the whole plan and notifies the consumer afterwards.
+     *
+     * @param queryPlan
+     *         The query plan that should be executed.
+     * @param stepResultConsumer
+     *         Consumer which will be called with the result of each step.
+     * @return a collection with the results of each step
+     */
+    @NotNull
+    default Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan, @NotNull Consumer<QueryStepResult> stepResultConsumer) {
+        Collection<QueryStepResult> queryStepResults = executeQueryPlan(queryPlan);
+        queryStepResults.forEach(stepResultConsumer);
+        return queryStepResults;
+    }
+
+    /**
+     * Register a listener which will be notified whenever a cached result of a query step is no longer valid, e.g.
+     * because it was evicted from a cache. The default implementation does nothing, since strategies without caching
+     * never invalidate any results.
+     *
+     * @param invalidationListener
+     *         Listener which will be called with the cache key of the query step whose result has been invalidated.
+     */
+    default void addInvalidationListener(@NotNull Consumer<QueryStepKey> invalidationListener) {
+        // Strategies without caching never invalidate results
+    }
 }
@@ -85,4 +85,38 @@ public interface QueryRequest {
      */
     @NotNull
     String getOriginalQueryString();
+
+    /**
+     * Returns all languages in {@link #getMonolingualLanguages()} which haven't been requested explicitly but have
+     * been derived automatically from the requested bilingual dictionaries. Lookups in these languages are
+     * supplementary and may be omitted by a {@link QueryPlanningStrategy}.
+     *
+     * @return all monolingual languages which have been derived automatically.
+     */
+    @NotNull
+    List<Language> getAutoDerivedMonolingualLanguages();
+
+    /**
+     * Returns the time in milliseconds in which the request should be answered. This budget is a hint for the {@link
+     * QueryPlanningStrategy} and not a hard limit. If zero, the configured default budget will be used.
+     *
+     * @return the time in milliseconds in which the request should be answered or zero for the default.
+     */
+    long getLatencyBudget();
+
+    /**
+     * Returns the maximum number of entries that should be returned for each result group. If zero, all entries of
+     * each group will be returned.
+     *
+     * @return the maximum number of entries per group or zero for all entries.
+     */
+    int getGroupLimit();
+
+    /**
+     * Returns the number of most relevant entries that should be skipped in each result group. Together with {@link
+     * #getGroupLimit()} this defines the page of each group that should be returned.
+     *
+     * @return the number of entries that should be skipped in each group.
+     */
+    int getGroupOffset();
 }
@@ -75,4 +75,13 @@ public interface QueryStepResult extends Serializable {
      * @return true, if the attached {@link AbstractQueryStep} has failed.
      */
     boolean isFailedStep();
+
+    /**
+     * Returns true, if the attached {@link AbstractQueryStep} has not been executed at all, e.g. because its engine is
+     * currently backing off after previous failures. Skipped steps always contain an empty result and {@link
+     * #getErrorMessage()} should return the reason why the step was skipped.
+     *
+     * @return true, if the attached {@link AbstractQueryStep} has not been executed.
+     */
+    boolean isSkippedStep();
 }
@@ -42,6 +42,8 @@ public class GroupBuilder<T> {
 
     private List<T> objectsInGroup = new ArrayList<>();
 
+    private Integer totalEntryCount;
+
     /**
      * Adds all results from the given Iterable to this group.
      *
@@ -49,7 +51,7 @@ public class GroupBuilder<T> {
      *         The elements that should be added.
      * @return The current builder.
      */
-    public GroupBuilder addAll(Collection<T> elements) {
+    public GroupBuilder<T> addAll(Collection<T> elements) {
         checkNotNull(elements);
 
         this.objectsInGroup.addAll(elements);
@@ -63,7 +65,7 @@ public class GroupBuilder<T> {
      *         The element that should be added.
      * @return The current builder.
      */
-    public GroupBuilder add(T element) {
+    public GroupBuilder<T> add(T element) {
         checkNotNull(element);
 
         this.objectsInGroup.add(element);
@@ -78,7 +80,23 @@ public class GroupBuilder<T> {
      */
     public Group<T> build() {
         checkArgument(this.objectsInGroup != null, "Group identifier may not be null");
-        return new ImmutableGroup<>(this.groupIdentifier, this.objectsInGroup);
+        int totalEntryCount = this.totalEntryCount != null ? Math.max(this.totalEntryCount, this.objectsInGroup.size()) : this.objectsInGroup.size();
+        return new ImmutableGroup<>(this.groupIdentifier, this.objectsInGroup, totalEntryCount);
+    }
+
+    /**
+     * Set the total number of entries in the group if the builder contains only a page of the group. If none is set,
+     * the number of added entries will be used.
+     *
+     * @param totalEntryCount
+     *         The total number of entries in the group.
+     * @return The current builder.
+     */
+    public GroupBuilder<T> setTotalEntryCount(int totalEntryCount) {
+        checkArgument(totalEntryCount >= 0, "Total entry count must not be negative");
+
+        this.totalEntryCount = totalEntryCount;
+        return this;
     }
 
     /**
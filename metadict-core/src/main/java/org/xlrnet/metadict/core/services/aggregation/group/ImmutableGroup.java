@@ -41,9 +41,12 @@ public class ImmutableGroup<T> implements Group<T> {
 
     private final List<T> resultEntries;
 
-    ImmutableGroup(String groupIdentifier, List<T> elements) {
+    private final int totalEntryCount;
+
+    ImmutableGroup(String groupIdentifier, List<T> elements, int totalEntryCount) {
         this.groupIdentifier = groupIdentifier;
         this.resultEntries = elements;
+        this.totalEntryCount = totalEntryCount;
     }
 
     /**
@@ -67,6 +70,17 @@ public class ImmutableGroup<T> implements Group<T> {
         return this.resultEntries;
     }
 
+    /**
+     * Returns the total number of entries in this group. If only a page of the group is returned, this number may be
+     * greater than the number of entries in {@link #getResultEntries()}.
+     *
+     * @return the total number of entries in this group.
+     */
+    @Override
+    public int getTotalEntryCount() {
+        return this.totalEntryCount;
+    }
+
     /**
      * Returns an iterator over elements of type {@code T}.
      *
@@ -82,6 +96,7 @@ public class ImmutableGroup<T> implements Group<T> {
         return MoreObjects.toStringHelper(this)
                 .add("groupIdentifier", this.groupIdentifier)
                 .add("elements", this.resultEntries)
+                .add("totalEntryCount", this.totalEntryCount)
                 .toString();
     }
 }
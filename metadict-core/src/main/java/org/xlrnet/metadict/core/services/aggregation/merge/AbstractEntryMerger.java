@@ -26,18 +26,15 @@ package org.xlrnet.metadict.core.services.aggregation.merge;
 
 import com.google.common.collect.Multimap;
 import com.google.common.collect.MultimapBuilder;
-import com.google.common.collect.Multimaps;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.apache.commons.lang3.tuple.Pair;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.Entry;
 import org.xlrnet.metadict.api.query.EntryType;
 import org.xlrnet.metadict.core.api.aggregation.SimilarElementsMerger;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 /**
  * Abstract {@link SimilarElementsMerger} for objects {@link Entry}. <br/> Uses the following algorithm:</p> <ol>
@@ -68,69 +65,68 @@ public abstract class AbstractEntryMerger<T extends Entry> extends AbstractMerge
     @NotNull
     protected Collection<Collection<T>> findCandidates(@NotNull Collection<T> normalizedInput) {
         Multimap<MergeCandidateIdentifier, T> candidatesMap = buildMergeCandidateMultimap(normalizedInput);
-        Multimap<MergeCandidateIdentifier, T> knownMap = Multimaps.filterEntries(candidatesMap, this::toNullIfUnknown);
-        Multimap<MergeCandidateIdentifier, T> unknownMap = Multimaps.filterEntries(candidatesMap, this::toNullIfKnown);
-        Collection<Collection<T>> candidates = new ArrayList<>(candidatesMap.keys().size());
+        Collection<Collection<T>> candidates = new ArrayList<>(candidatesMap.keySet().size());
 
-        identifyUnknownEntryTypeCandidates(candidatesMap, knownMap, unknownMap, candidates);
-
-        for (MergeCandidateIdentifier key : knownMap.asMap().keySet()) {
-            candidates.add(candidatesMap.get(key));
-        }
+        identifyUnknownEntryTypeCandidates(candidatesMap, candidates);
+        addKnownEntryTypeCandidates(candidatesMap, candidates);
 
         return candidates;
     }
 
+    /**
+     * Add the elements of each identifier with a known entry type as a candidate.
+     */
+    void addKnownEntryTypeCandidates(@NotNull Multimap<MergeCandidateIdentifier, T> candidatesMap, @NotNull Collection<Collection<T>> candidates) {
+        for (Map.Entry<MergeCandidateIdentifier, Collection<T>> candidate : candidatesMap.asMap().entrySet()) {
+            if (candidate.getKey().getEntryType() != EntryType.UNKNOWN) {
+                candidates.add(candidate.getValue());
+            }
+        }
+    }
+
     /**
      * Try to detect the EntryType of unknown objects automatically by checking if an identifier with the same language
      * and general forms parameter exists in another EntryType. If exactly one possible key could be found, then add the
      * unknown entry to it as another candidate. If more than one candidates exist, treat the unknown object as actually
-     * unknown.
+     * unknown and add it directly to the given candidates.
+     * <p>
+     * The known entry types are indexed once by their language pair without dialect and general forms, so that each
+     * unknown identifier needs only a single lookup.
+     *
+     * @return true if the entry type of at least one unknown candidate could be identified.
      */
-    void identifyUnknownEntryTypeCandidates(@NotNull Multimap<MergeCandidateIdentifier, T> candidatesMap,
-                                            @NotNull Multimap<MergeCandidateIdentifier, T> knownMap,
-                                            @NotNull Multimap<MergeCandidateIdentifier, T> unknownMap,
-                                            @NotNull Collection<Collection<T>> candidates) {
-        Multimap<MergeCandidateIdentifier, T> normalizedKnownMap = buildNormalizedCandidateMap(knownMap);
-        Set<MergeCandidateIdentifier> toRemove = new HashSet<>();
-        List<Pair<MergeCandidateIdentifier, Collection<T>>> toAdd = new ArrayList<>();
-        for (MergeCandidateIdentifier unknownTypeKey : unknownMap.asMap().keySet()) {
-            Collection<T> values = candidatesMap.get(unknownTypeKey);
-            EntryType newEntryType = null;
-            boolean isAdded = false;
-            for (EntryType entryType : EntryType.allButUnknown()) {
-                ImmutablePair<Language, Language> normalizedLanguagePair = getLanguagePairWithoutDialect(unknownTypeKey.getLanguagePair());
-                MergeCandidateIdentifier candidateIdentifier = new MergeCandidateIdentifier(normalizedLanguagePair, entryType, unknownTypeKey.getGeneralForms());
-                if (normalizedKnownMap.containsKey(candidateIdentifier)) {
-                    if (newEntryType != null) {
-                        // If two possible EntryTypes exist, then abort automatic discovery and treat unknown as third
-                        candidates.add(values);
-                        isAdded = true;
-                        break;
-                    } else {
-                        newEntryType = entryType;
-                    }
-                }
-            }
-            // Treat the candidates either again as unknown or add it to the possible identified entryType group
-            if (newEntryType == null) {
-                candidates.add(values); // -> Automatic identification failed
-            } else if (!isAdded) {
-                // Rebuild the old identifier with changed dialect
-                MergeCandidateIdentifier enhancedIdentifier = new MergeCandidateIdentifier(unknownTypeKey.getLanguagePair(), newEntryType, unknownTypeKey.getGeneralForms());
-                final EntryType tmp = newEntryType;
-                toAdd.add(new ImmutablePair<>(enhancedIdentifier, values.stream().map(v -> enrichEntryByEntryType(v, tmp)).collect(Collectors.toList())));
-                toRemove.add(unknownTypeKey);
+    boolean identifyUnknownEntryTypeCandidates(@NotNull Multimap<MergeCandidateIdentifier, T> candidatesMap, @NotNull Collection<Collection<T>> candidates) {
+        Map<Pair<Pair<Language, Language>, Pair<String, String>>, EntryType> knownEntryTypes = new HashMap<>();
+        List<MergeCandidateIdentifier> unknownTypeKeys = new ArrayList<>();
+        for (MergeCandidateIdentifier candidateIdentifier : candidatesMap.keySet()) {
+            if (candidateIdentifier.getEntryType() == EntryType.UNKNOWN) {
+                unknownTypeKeys.add(candidateIdentifier);
+            } else {
+                // More than one possible entry type is marked as unknown
+                knownEntryTypes.merge(buildEntryTypeIndexKey(candidateIdentifier), candidateIdentifier.getEntryType(),
+                        (existing, entryType) -> existing == entryType ? existing : EntryType.UNKNOWN);
             }
         }
 
-        for (Pair<MergeCandidateIdentifier, Collection<T>> toAddData : toAdd) {
-            knownMap.putAll(toAddData.getKey(), toAddData.getValue());
+        boolean identified = false;
+        for (MergeCandidateIdentifier unknownTypeKey : unknownTypeKeys) {
+            EntryType newEntryType = knownEntryTypes.get(buildEntryTypeIndexKey(unknownTypeKey));
+            if (newEntryType == null || newEntryType == EntryType.UNKNOWN) {
+                candidates.add(candidatesMap.get(unknownTypeKey)); // -> Automatic identification failed
+                continue;
+            }
+            // Rebuild the old identifier with the identified entry type
+            MergeCandidateIdentifier enhancedIdentifier = new MergeCandidateIdentifier(unknownTypeKey.getLanguagePair(), newEntryType, unknownTypeKey.getGeneralForms());
+            Collection<T> values = candidatesMap.removeAll(unknownTypeKey);
+            List<T> enrichedValues = new ArrayList<>(values.size());
+            for (T value : values) {
+                enrichedValues.add(enrichEntryByEntryType(value, newEntryType));
+            }
+            candidatesMap.putAll(enhancedIdentifier, enrichedValues);
+            identified = true;
         }
 
-        for (MergeCandidateIdentifier candidateIdentifier : toRemove) {
-            candidatesMap.removeAll(candidateIdentifier);
-        }
+        return identified;
     }
 
     /**
@@ -139,31 +135,22 @@ public abstract class AbstractEntryMerger<T extends Entry> extends AbstractMerge
     protected abstract T enrichEntryByEntryType(T entry, EntryType entryType);
 
     /**
-     * Create a candidate multimap where the languages are normalized (i.e. without dialect).
+     * Create the key for looking up the known entry types of an identifier. The key consists of the language pair
+     * without dialect and the general forms.
      */
-    private Multimap<MergeCandidateIdentifier, T> buildNormalizedCandidateMap(@NotNull Multimap<MergeCandidateIdentifier, T> knownMap) {
-        Multimap<MergeCandidateIdentifier, T> normalizedKnownMap = MultimapBuilder.linkedHashKeys(knownMap.size()).linkedListValues().build();
-        for (MergeCandidateIdentifier candidateIdentifier : knownMap.keySet()) {
-            Pair<Language, Language> originalLanguagePair = candidateIdentifier.getLanguagePair();
-            ImmutablePair<Language, Language> languagePairWithoutDialect = getLanguagePairWithoutDialect(originalLanguagePair);
-            normalizedKnownMap.putAll(new MergeCandidateIdentifier(languagePairWithoutDialect, candidateIdentifier.getEntryType(), candidateIdentifier.getGeneralForms()), knownMap.get(candidateIdentifier));
-        }
-        return normalizedKnownMap;
-    }
-
     @NotNull
-    private ImmutablePair<Language, Language> getLanguagePairWithoutDialect(Pair<Language, Language> originalLanguagePair) {
-        return new ImmutablePair<>(
-                Language.getWithoutDialect(originalLanguagePair.getLeft()),
-                // For monolingual pairs, the right language may be null
-                originalLanguagePair.getRight() != null ? Language.getWithoutDialect(originalLanguagePair.getRight()) : null);
+    private Pair<Pair<Language, Language>, Pair<String, String>> buildEntryTypeIndexKey(@NotNull MergeCandidateIdentifier candidateIdentifier) {
+        return ImmutablePair.of(getLanguagePairWithoutDialect(candidateIdentifier.getLanguagePair()), candidateIdentifier.getGeneralForms());
     }
 
-    boolean toNullIfKnown(@Nullable Map.Entry<MergeCandidateIdentifier, T> input) {
-        return (input != null ? input.getKey().getEntryType() : null) == EntryType.UNKNOWN;
-    }
-
-    boolean toNullIfUnknown(@Nullable Map.Entry<MergeCandidateIdentifier, T> input) {
-        return (input != null ? input.getKey().getEntryType() : null) != EntryType.UNKNOWN;
+    @NotNull
+    private Pair<Language, Language> getLanguagePairWithoutDialect(Pair<Language, Language> originalLanguagePair) {
+        Language left = originalLanguagePair.getLeft();
+        Language right = originalLanguagePair.getRight();
+        // For monolingual pairs, the right language may be null
+        if (!left.isDialect() && (right == null || !right.isDialect())) {
+            return originalLanguagePair;
+        }
+        return new ImmutablePair<>(Language.getWithoutDialect(left), right != null ? Language.getWithoutDialect(right) : null);
     }
 }
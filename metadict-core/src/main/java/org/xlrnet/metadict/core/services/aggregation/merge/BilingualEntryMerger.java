@@ -25,9 +25,10 @@
 package org.xlrnet.metadict.core.services.aggregation.merge;
 
 import com.google.common.collect.Multimap;
-import com.google.common.collect.Multimaps;
 import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.ImmutableTriple;
 import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -137,72 +138,49 @@ public class BilingualEntryMerger extends AbstractEntryMerger<BilingualEntry> {
     @Override
     protected Collection<Collection<BilingualEntry>> findCandidates(@NotNull Collection<BilingualEntry> normalizedInput) {
         Multimap<MergeCandidateIdentifier, BilingualEntry> candidatesMap = buildMergeCandidateMultimap(normalizedInput);
-        Multimap<MergeCandidateIdentifier, BilingualEntry> knownMap = Multimaps.filterEntries(candidatesMap, this::toNullIfUnknown);
-        Multimap<MergeCandidateIdentifier, BilingualEntry> unknownMap = Multimaps.filterEntries(candidatesMap, this::toNullIfKnown);
-        Collection<Collection<BilingualEntry>> candidates = new ArrayList<>(candidatesMap.keys().size());
+        Collection<Collection<BilingualEntry>> candidates = new ArrayList<>(candidatesMap.keySet().size());
 
-        identifyUnknownEntryTypeCandidates(candidatesMap, knownMap, unknownMap, candidates);
-        mergeSingleDialectLanguages(candidatesMap);
-
-        for (MergeCandidateIdentifier key : knownMap.asMap().keySet()) {
-            candidates.add(candidatesMap.get(key));
+        // Only entries with a newly identified entry type may introduce new dialect candidates
+        if (identifyUnknownEntryTypeCandidates(candidatesMap, candidates)) {
+            mergeSingleDialectLanguages(candidatesMap);
         }
+        addKnownEntryTypeCandidates(candidatesMap, candidates);
 
         return candidates;
     }
 
     /**
-     * Merges those candidate identifiers where one language is a dialect.
+     * Merges those candidate identifiers where one language is a dialect. All identifiers with the same entry type,
+     * general forms and language on the other side are merged into the dialect identifier, as long as they don't use a
+     * dialect themselves. If there is more than one dialect identifier for the same combination, nothing will be merged.
+     * <p>
+     * The identifiers are indexed once by their entry type, general forms and the language on each side, so that the
+     * merge runs in linear time.
      */
     private void mergeSingleDialectLanguages(Multimap<MergeCandidateIdentifier, BilingualEntry> mergeCandidateMap) {
+        Map<Triple<EntryType, Pair<String, String>, Language>, DialectGroup> leftDialectGroups = new HashMap<>();
+        Map<Triple<EntryType, Pair<String, String>, Language>, DialectGroup> rightDialectGroups = new HashMap<>();
+        for (MergeCandidateIdentifier candidateIdentifier : mergeCandidateMap.keySet()) {
+            Pair<Language, Language> languagePair = candidateIdentifier.getLanguagePair();
+            getDialectGroup(leftDialectGroups, candidateIdentifier, languagePair.getRight()).add(candidateIdentifier, languagePair.getLeft());
+            getDialectGroup(rightDialectGroups, candidateIdentifier, languagePair.getLeft()).add(candidateIdentifier, languagePair.getRight());
+        }
+
         List<Pair<MergeCandidateIdentifier, List<MergeCandidateIdentifier>>> replaceBy = new ArrayList<>();
-        List<MergeCandidateIdentifier> toReplace = new ArrayList<>();
-        // Iterate over all candidate identifiers to detect if there are mergeable dialects
-        for (Iterator<MergeCandidateIdentifier> iterator = mergeCandidateMap.keySet().iterator(); iterator.hasNext(); ) {
-            MergeCandidateIdentifier candidateIdentifier = iterator.next();
+        for (MergeCandidateIdentifier candidateIdentifier : mergeCandidateMap.keySet()) {
             Pair<Language, Language> languagePair = candidateIdentifier.getLanguagePair();
-            // Exclude all candidates where both languages are dialects
-            if ((languagePair.getLeft().isDialect() && !languagePair.getRight().isDialect()) || (languagePair.getRight().isDialect() && !languagePair.getLeft().isDialect())) {
-                boolean hasOtherDialect = false;
-                // If the left language is a dialect, try to find others, where the right is no dialect
-                List<MergeCandidateIdentifier> candidatesToRemove = new ArrayList<>();
-                if (languagePair.getLeft().isDialect()) {
-                    for (MergeCandidateIdentifier candidateForNoDialect : mergeCandidateMap.keySet()) {
-                        if (!candidateForNoDialect.equals(candidateIdentifier)
-                                && candidateForNoDialect.getEntryType().equals(candidateIdentifier.getEntryType())
-                                && candidateForNoDialect.getGeneralForms().equals(candidateIdentifier.getGeneralForms())
-                                && candidateForNoDialect.getLanguagePair().getRight().equals(languagePair.getRight())) {
-                            if (candidateForNoDialect.getLanguagePair().getLeft().isDialect()) {
-                                hasOtherDialect = true;
-                                break;
-                            } else {
-                                candidatesToRemove.add(candidateForNoDialect);
-                            }
-                        }
-                    }
-                }
-                // If the right language is a dialect, try to find others, where the left is no dialect
-                else if (languagePair.getRight().isDialect()) {
-                    for (MergeCandidateIdentifier candidateForNoDialect : mergeCandidateMap.keySet()) {
-                        if (!candidateForNoDialect.equals(candidateIdentifier)
-                                && candidateForNoDialect.getEntryType().equals(candidateIdentifier.getEntryType())
-                                && candidateForNoDialect.getGeneralForms().equals(candidateIdentifier.getGeneralForms())
-                                && candidateForNoDialect.getLanguagePair().getLeft().equals(languagePair.getLeft())) {
-                            if (candidateForNoDialect.getLanguagePair().getRight().isDialect()) {
-                                hasOtherDialect = true;
-                                break;
-                            } else {
-                                candidatesToRemove.add(candidateForNoDialect);
-                            }
-                        }
-                    }
-                }
-
-                // If no other dialect was found, merge the other findings into the current and remove them from their original identifier
-                if (!hasOtherDialect && !candidatesToRemove.isEmpty()) {
-                    toReplace.addAll(candidatesToRemove);
-                    replaceBy.add(new ImmutablePair<>(candidateIdentifier, candidatesToRemove));
-                }
+            DialectGroup dialectGroup;
+            // Exclude all candidates where both or none of the languages are dialects
+            if (languagePair.getLeft().isDialect() && !languagePair.getRight().isDialect()) {
+                dialectGroup = leftDialectGroups.get(buildDialectGroupKey(candidateIdentifier, languagePair.getRight()));
+            } else if (languagePair.getRight().isDialect() && !languagePair.getLeft().isDialect()) {
+                dialectGroup = rightDialectGroups.get(buildDialectGroupKey(candidateIdentifier, languagePair.getLeft()));
+            } else {
+                continue;
+            }
+            // If no other dialect was found, merge the other findings into the current identifier
+            if (dialectGroup.dialectCount == 1 && !dialectGroup.candidatesWithoutDialect.isEmpty()) {
+                replaceBy.add(new ImmutablePair<>(candidateIdentifier, dialectGroup.candidatesWithoutDialect));
             }
         }
 
@@ -216,4 +194,34 @@ public class BilingualEntryMerger extends AbstractEntryMerger<BilingualEntry> {
             }
         }
     }
+
+    @NotNull
+    private DialectGroup getDialectGroup(@NotNull Map<Triple<EntryType, Pair<String, String>, Language>, DialectGroup> dialectGroups,
+                                         @NotNull MergeCandidateIdentifier candidateIdentifier, @NotNull Language otherLanguage) {
+        return dialectGroups.computeIfAbsent(buildDialectGroupKey(candidateIdentifier, otherLanguage), k -> new DialectGroup());
+    }
+
+    @NotNull
+    private Triple<EntryType, Pair<String, String>, Language> buildDialectGroupKey(@NotNull MergeCandidateIdentifier candidateIdentifier, @NotNull Language otherLanguage) {
+        return ImmutableTriple.of(candidateIdentifier.getEntryType(), candidateIdentifier.getGeneralForms(), otherLanguage);
+    }
+
+    /**
+     * All candidate identifiers with the same entry type, general forms and language on one side. The identifiers are
+     * split by whether they use a dialect on the other side.
+     */
+    private static class DialectGroup {
+
+        private final List<MergeCandidateIdentifier> candidatesWithoutDialect = new ArrayList<>();
+
+        private int dialectCount = 0;
+
+        void add(@NotNull MergeCandidateIdentifier candidateIdentifier, @NotNull Language language) {
+            if (language.isDialect()) {
+                this.dialectCount++;
+            } else {
+                this.candidatesWithoutDialect.add(candidateIdentifier);
+            }
+        }
+    }
 }
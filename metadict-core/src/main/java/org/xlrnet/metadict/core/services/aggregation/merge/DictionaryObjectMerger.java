@@ -34,7 +34,6 @@ import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.DictionaryObject;
 import org.xlrnet.metadict.core.api.aggregation.Merges;
 import org.xlrnet.metadict.core.api.aggregation.SimilarElementsMerger;
-import org.xlrnet.metadict.core.util.CommonUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -60,7 +59,7 @@ public class DictionaryObjectMerger extends AbstractMerger<DictionaryObject> {
 
         for (DictionaryObject dictionaryObject : normalizedInput) {
             Pair<String, Language> candidateIdentifier = ImmutablePair.of(
-                    CommonUtils.stripAndLowercase(dictionaryObject.getGeneralForm()),
+                    dictionaryObject.getNormalizedGeneralForm(),
                     dictionaryObject.getLanguage()
             );
             candidateMap.put(candidateIdentifier, dictionaryObject);
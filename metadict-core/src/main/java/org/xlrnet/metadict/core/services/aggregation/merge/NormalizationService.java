@@ -8,7 +8,6 @@ import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.DictionaryObject;
 import org.xlrnet.metadict.api.query.EntryType;
 import org.xlrnet.metadict.core.api.aggregation.Normalizer;
-import org.xlrnet.metadict.core.util.CommonUtils;
 
 import javax.annotation.PostConstruct;
 import javax.inject.Inject;
@@ -64,7 +63,8 @@ public class NormalizationService {
     }
 
     /**
-     * Normalizes the general form of the given dictionary object using language and entry-type dependent patterns.
+     * Normalizes the general form of the given dictionary object using language and entry-type dependent patterns. The
+     * patterns are applied on the already stripped and lowercased {@link DictionaryObject#getNormalizedGeneralForm()}.
      *
      * @param dictionaryObject
      *         The dictionary object to normalize.
@@ -73,8 +73,7 @@ public class NormalizationService {
      * @return The normalized general form.
      */
     public String getNormalizedGeneralForm(DictionaryObject dictionaryObject, EntryType type) {
-        String generalForm = dictionaryObject.getGeneralForm();
-        String normalized = CommonUtils.stripAndLowercase(generalForm);
+        String normalized = dictionaryObject.getNormalizedGeneralForm();
         Normalizer normalizer = getNormalizerByLanguageAndEntryType(dictionaryObject.getLanguage(), type);
         if (normalizer != null) {
             normalized = normalizer.normalize(normalized);
@@ -0,0 +1,220 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.aggregation.order;
+
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.api.query.BilingualEntry;
+import org.xlrnet.metadict.api.query.DictionaryObject;
+import org.xlrnet.metadict.core.api.aggregation.Group;
+import org.xlrnet.metadict.core.api.aggregation.OrderStrategy;
+import org.xlrnet.metadict.core.api.aggregation.ResultEntry;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.services.aggregation.group.GroupBuilder;
+import org.xlrnet.metadict.core.services.aggregation.group.ScoredResultEntry;
+
+import java.util.*;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Sort the result groups with a relevance score based on the Levensthein distance. The scores and the resulting order
+ * are the same as in {@link LevenstheinRelevanceOrderStrategy}, but the query is prepared only once per request and
+ * the distances are calculated with a bit-parallel algorithm. Since the distances are small integers, the entries are
+ * sorted in linear time.
+ * <p>
+ * If the number of entries per group is limited, only the most relevant entries will be selected. In this case the
+ * calculation of a distance is aborted as soon as the entry can't be among the most relevant entries anymore. Entries
+ * with the same relevance keep their original order.
+ */
+public class BoundedRelevanceOrderStrategy implements OrderStrategy {
+
+    /** Default maximum number of entries per group. */
+    private final int maxEntriesPerGroup;
+
+    /**
+     * Create a new strategy which doesn't limit the number of entries per group.
+     */
+    public BoundedRelevanceOrderStrategy() {
+        this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Create a new strategy which returns at most the given number of entries per group.
+     *
+     * @param maxEntriesPerGroup
+     *         The maximum number of entries per group. Must be positive.
+     */
+    public BoundedRelevanceOrderStrategy(int maxEntriesPerGroup) {
+        checkArgument(maxEntriesPerGroup > 0, "Maximum number of entries per group must be positive");
+        this.maxEntriesPerGroup = maxEntriesPerGroup;
+    }
+
+    @NotNull
+    @Override
+    public Collection<Group<ResultEntry>> sortResultGroups(@NotNull QueryRequest queryRequest, @NotNull Collection<Group<BilingualEntry>> unorderedResultGroups) {
+        return sortResultGroups(queryRequest, unorderedResultGroups, this.maxEntriesPerGroup);
+    }
+
+    /**
+     * Sort the entries in the given result groups and return only the given number of most relevant entries per
+     * group. To build a paged response, the limit should be the offset of the requested page plus its size.
+     *
+     * @param queryRequest
+     *         The query request that was used to create the result groups.
+     * @param unorderedResultGroups
+     *         An unsorted collection of result groups.
+     * @param maxEntriesPerGroup
+     *         The maximum number of entries per group. Must be positive.
+     * @return a sorted collection of groups.
+     */
+    @NotNull
+    public Collection<Group<ResultEntry>> sortResultGroups(@NotNull QueryRequest queryRequest, @NotNull Collection<Group<BilingualEntry>> unorderedResultGroups, int maxEntriesPerGroup) {
+        checkArgument(maxEntriesPerGroup > 0, "Maximum number of entries per group must be positive");
+
+        QueryDistanceCalculator distanceCalculator = new QueryDistanceCalculator(queryRequest.getQueryString());
+        Collection<Group<ResultEntry>> sortedGroups = new ArrayList<>(unorderedResultGroups.size());
+        for (Group<BilingualEntry> group : unorderedResultGroups) {
+            List<BilingualEntry> entries = group.getResultEntries();
+            List<ResultEntry> sortedEntries;
+            if (entries.size() > maxEntriesPerGroup) {
+                sortedEntries = selectMostRelevantEntries(entries, distanceCalculator, maxEntriesPerGroup);
+            } else {
+                sortedEntries = sortAllEntries(entries, distanceCalculator);
+            }
+            sortedGroups.add(new GroupBuilder<ResultEntry>()
+                    .setTotalEntryCount(entries.size())
+                    .setGroupIdentifier(group.getGroupIdentifier())
+                    .addAll(sortedEntries)
+                    .build());
+        }
+        return sortedGroups;
+    }
+
+    /**
+     * Sort all given entries with a stable counting sort over their distances.
+     */
+    @NotNull
+    private List<ResultEntry> sortAllEntries(@NotNull List<BilingualEntry> entries, @NotNull QueryDistanceCalculator distanceCalculator) {
+        int[] distances = new int[entries.size()];
+        int maxDistance = 0;
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = calculateDistance(entries.get(i), distanceCalculator, QueryDistanceCalculator.UNBOUNDED);
+            maxDistance = Math.max(maxDistance, distances[i]);
+        }
+
+        int[] positions = new int[maxDistance + 2];
+        for (int distance : distances) {
+            positions[distance + 1]++;
+        }
+        for (int i = 1; i < positions.length; i++) {
+            positions[i] += positions[i - 1];
+        }
+
+        ResultEntry[] sortedEntries = new ResultEntry[distances.length];
+        for (int i = 0; i < distances.length; i++) {
+            sortedEntries[positions[distances[i]]++] = ScoredResultEntry.from(entries.get(i), calculateScore(distances[i]));
+        }
+        return Arrays.asList(sortedEntries);
+    }
+
+    /**
+     * Select the given number of most relevant entries with a bounded heap. The least relevant selected entry is always
+     * on top of the heap and determines the maximum distance for all following entries.
+     */
+    @NotNull
+    private List<ResultEntry> selectMostRelevantEntries(@NotNull List<BilingualEntry> entries, @NotNull QueryDistanceCalculator distanceCalculator, int limit) {
+        PriorityQueue<RankedEntry> selectedEntries = new PriorityQueue<>(limit, Collections.reverseOrder());
+        int index = 0;
+        for (BilingualEntry entry : entries) {
+            int maxDistance = QueryDistanceCalculator.UNBOUNDED;
+            if (selectedEntries.size() == limit) {
+                // Entries with the same distance keep their order, i.e. only better entries can be selected
+                maxDistance = selectedEntries.peek().distance - 1;
+                if (maxDistance < 0) {
+                    break;
+                }
+            }
+            int distance = calculateDistance(entry, distanceCalculator, maxDistance);
+            if (distance <= maxDistance) {
+                if (selectedEntries.size() == limit) {
+                    selectedEntries.poll();
+                }
+                selectedEntries.add(new RankedEntry(entry, index, distance));
+            }
+            index++;
+        }
+
+        RankedEntry[] rankedEntries = selectedEntries.toArray(new RankedEntry[selectedEntries.size()]);
+        Arrays.sort(rankedEntries);
+        List<ResultEntry> sortedEntries = new ArrayList<>(rankedEntries.length);
+        for (RankedEntry rankedEntry : rankedEntries) {
+            sortedEntries.add(ScoredResultEntry.from(rankedEntry.entry, calculateScore(rankedEntry.distance)));
+        }
+        return sortedEntries;
+    }
+
+    /**
+     * Calculate the smallest distance of the source or target general form from the query. Returns a value greater
+     * than the given maximum, if both distances exceed it.
+     */
+    private int calculateDistance(@NotNull BilingualEntry entry, @NotNull QueryDistanceCalculator distanceCalculator, int maxDistance) {
+        int distance = distanceCalculator.distance(entry.getSource().getGeneralForm(), maxDistance);
+        DictionaryObject target = entry.getTarget();
+        if (distance > 0 && target != null && target.getGeneralForm() != null) {
+            int targetDistance = distanceCalculator.distance(target.getGeneralForm(), Math.min(maxDistance, distance - 1));
+            distance = Math.min(distance, targetDistance);
+        }
+        return distance;
+    }
+
+    private double calculateScore(int distance) {
+        return 1.0 - ((double) distance / (1 + (double) distance));
+    }
+
+    /**
+     * Entry with its distance and original position in the group. Entries are ordered by their distance and then by
+     * their position.
+     */
+    private static class RankedEntry implements Comparable<RankedEntry> {
+
+        private final BilingualEntry entry;
+
+        private final int index;
+
+        private final int distance;
+
+        RankedEntry(BilingualEntry entry, int index, int distance) {
+            this.entry = entry;
+            this.index = index;
+            this.distance = distance;
+        }
+
+        @Override
+        public int compareTo(@NotNull RankedEntry o) {
+            int result = Integer.compare(this.distance, o.distance);
+            return result != 0 ? result : Integer.compare(this.index, o.index);
+        }
+    }
+}
@@ -33,7 +33,14 @@ import org.xlrnet.metadict.core.api.aggregation.OrderStrategy;
 public enum OrderType {
 
     /** Order entries based on their Levensthein distance from the original query. */
-    RELEVANCE(new LevenstheinRelevanceOrderStrategy());
+    RELEVANCE(new LevenstheinRelevanceOrderStrategy()),
+
+    /**
+     * Same order as {@link #RELEVANCE}, but calculated with {@link BoundedRelevanceOrderStrategy} which is faster for
+     * large groups. For responses with a limited number of entries per group, only the entries up to the end of the
+     * requested page are ordered.
+     */
+    BOUNDED_RELEVANCE(new BoundedRelevanceOrderStrategy());
 
     private OrderStrategy orderStrategy;
 
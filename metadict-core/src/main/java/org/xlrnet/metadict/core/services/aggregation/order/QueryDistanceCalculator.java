@@ -0,0 +1,169 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.aggregation.order;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Calculates the case-insensitive Levenshtein distance between a fixed query string and arbitrary other strings. The
+ * query is normalized once on construction and compiled into character bit masks, so that the distances can be
+ * calculated with the bit-parallel algorithm by Myers (as extended by Hyyrö for the edit distance). The calculation
+ * stops as soon as the distance is known to exceed a given maximum.
+ * <p>
+ * Queries with more than 64 characters don't fit into a single bit vector and fall back to the banded dynamic
+ * programming implementation of {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence, int)}.
+ * <p>
+ * This class is immutable and thread-safe.
+ */
+class QueryDistanceCalculator {
+
+    /** Maximum distance to use if the calculation should never be aborted. */
+    static final int UNBOUNDED = Integer.MAX_VALUE - 1;
+
+    /** Maximum length of a query which can be handled with a single bit vector. */
+    private static final int MAX_BIT_PARALLEL_LENGTH = Long.SIZE;
+
+    /** Number of characters with a direct lookup table for their bit masks. */
+    private static final int DIRECT_LOOKUP_SIZE = 256;
+
+    private final String normalizedQuery;
+
+    private final int queryLength;
+
+    /** Bit masks with the positions of each character in the query for characters below {@link #DIRECT_LOOKUP_SIZE}. */
+    private final long[] directPatternMasks = new long[DIRECT_LOOKUP_SIZE];
+
+    /** Bit masks with the positions of all other characters in the query. */
+    private final Map<Character, Long> otherPatternMasks = new HashMap<>();
+
+    /** Bit of the last query character. */
+    private final long lastBit;
+
+    QueryDistanceCalculator(@NotNull String queryString) {
+        this.normalizedQuery = normalize(queryString);
+        this.queryLength = this.normalizedQuery.length();
+        this.lastBit = this.queryLength > 0 ? 1L << (this.queryLength - 1) : 0;
+
+        if (this.queryLength <= MAX_BIT_PARALLEL_LENGTH) {
+            for (int i = 0; i < this.queryLength; i++) {
+                char c = this.normalizedQuery.charAt(i);
+                if (c < DIRECT_LOOKUP_SIZE) {
+                    this.directPatternMasks[c] |= 1L << i;
+                } else {
+                    this.otherPatternMasks.merge(c, 1L << i, (a, b) -> a | b);
+                }
+            }
+        }
+    }
+
+    /**
+     * Calculate the case-insensitive Levenshtein distance between the query and the given string. If the distance is
+     * greater than the given maximum, the calculation will be aborted and {@code maxDistance + 1} is returned.
+     *
+     * @param text
+     *         The string to compare with the query.
+     * @param maxDistance
+     *         The maximum distance that is of interest. Must not be negative.
+     * @return the distance between the query and the given string or {@code maxDistance + 1} if the distance is
+     * greater than {@code maxDistance}.
+     */
+    int distance(@NotNull String text, int maxDistance) {
+        int textLength = text.length();
+        if (Math.abs(textLength - this.queryLength) > maxDistance) {
+            return maxDistance + 1;
+        }
+        if (this.queryLength == 0) {
+            return textLength;
+        }
+        if (this.queryLength > MAX_BIT_PARALLEL_LENGTH) {
+            // The distance can never be greater than the length of the longer string
+            int threshold = Math.min(maxDistance, Math.max(textLength, this.queryLength));
+            int distance = StringUtils.getLevenshteinDistance(normalize(text), this.normalizedQuery, threshold);
+            return distance < 0 ? maxDistance + 1 : distance;
+        }
+
+        long mask = this.queryLength == MAX_BIT_PARALLEL_LENGTH ? -1L : (1L << this.queryLength) - 1;
+        long positiveVertical = mask;
+        long negativeVertical = 0;
+        int score = this.queryLength;
+
+        for (int j = 0; j < textLength; j++) {
+            long equal = getPatternMask(Character.toLowerCase(text.charAt(j)));
+            long xVertical = equal | negativeVertical;
+            long xHorizontal = (((equal & positiveVertical) + positiveVertical) ^ positiveVertical) | equal;
+            long positiveHorizontal = negativeVertical | ~(xHorizontal | positiveVertical);
+            long negativeHorizontal = positiveVertical & xHorizontal;
+
+            if ((positiveHorizontal & this.lastBit) != 0) {
+                score++;
+            } else if ((negativeHorizontal & this.lastBit) != 0) {
+                score--;
+            }
+            // Each remaining character can reduce the distance by at most one
+            if (score - (textLength - j - 1) > maxDistance) {
+                return maxDistance + 1;
+            }
+
+            // The first row of the distance matrix increases by one in each column
+            positiveHorizontal = (positiveHorizontal << 1) | 1;
+            negativeHorizontal = negativeHorizontal << 1;
+            positiveVertical = (negativeHorizontal | ~(xVertical | positiveHorizontal)) & mask;
+            negativeVertical = positiveHorizontal & xVertical & mask;
+        }
+
+        return score;
+    }
+
+    /**
+     * Returns the normalized query string.
+     *
+     * @return the normalized query string.
+     */
+    @NotNull
+    String getNormalizedQuery() {
+        return this.normalizedQuery;
+    }
+
+    private long getPatternMask(char c) {
+        if (c < DIRECT_LOOKUP_SIZE) {
+            return this.directPatternMasks[c];
+        }
+        Long patternMask = this.otherPatternMasks.get(c);
+        return patternMask != null ? patternMask : 0;
+    }
+
+    @NotNull
+    private static String normalize(@NotNull String input) {
+        StringBuilder builder = new StringBuilder(input.length());
+        for (int i = 0; i < input.length(); i++) {
+            builder.append(Character.toLowerCase(input.charAt(i)));
+        }
+        return builder.toString();
+    }
+}
@@ -57,7 +57,7 @@ import java.util.List;
  * public class MyEngineIT extends AutoSearchEngineIntegrationTest {
  *      &#64;Parameterized.Parameters
  *      public static Iterable&lt;Object[]&gt; data() throws Exception {
- *          return prepareProvider(new WoxikonEngineProvider());
+ *          return prepareProvider(new WoxikonEngineProvider(new HttpFetchService(new DefaultHttpFetchConfiguration())));
  *      }
  * }
  * </pre>
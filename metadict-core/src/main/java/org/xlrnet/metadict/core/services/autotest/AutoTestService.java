@@ -35,12 +35,15 @@ import org.xlrnet.metadict.api.engine.SearchEngine;
 import org.xlrnet.metadict.api.language.BilingualDictionary;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.api.util.FutureUtils;
 import org.xlrnet.metadict.core.util.SimilarityUtils;
 
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -197,7 +200,7 @@ public class AutoTestService {
     ResultData invokeBilingualAndValidate(@NotNull SearchEngine searchEngine, @NotNull BilingualDictionary targetDictionary, @NotNull String requestString, @NotNull BilingualQueryResult expectedResult) {
         BilingualQueryResult queryResult;
         try {
-            queryResult = searchEngine.executeBilingualQuery(requestString, targetDictionary.getSource(), targetDictionary.getTarget(), targetDictionary.isBidirectional());
+            queryResult = awaitQueryResult(searchEngine.executeBilingualQueryAsync(requestString, targetDictionary.getSource(), targetDictionary.getTarget(), targetDictionary.isBidirectional()));
         } catch (Exception e) {
             return new ResultData(null, e);
         }
@@ -228,7 +231,7 @@ public class AutoTestService {
     ResultData invokeMonolingualAndValidate(@NotNull SearchEngine searchEngine, @NotNull Language targetLanguage, @NotNull String requestString, @NotNull MonolingualQueryResult expectedResult) {
         MonolingualQueryResult queryResult;
         try {
-            queryResult = searchEngine.executeMonolingualQuery(requestString, targetLanguage);
+            queryResult = awaitQueryResult(searchEngine.executeMonolingualQueryAsync(requestString, targetLanguage));
         } catch (Exception e) {
             return new ResultData(null, e);
         }
@@ -255,6 +258,32 @@ public class AutoTestService {
         return new ResultData(queryResult, null);
     }
 
+    /**
+     * Wait for the given future of a search engine and return its result. If the query failed, the original exception
+     * of the engine will be thrown.
+     *
+     * @param queryResultFuture
+     *         The future returned by the search engine.
+     * @return the result of the query.
+     * @throws Exception
+     *         The exception that caused the query to fail.
+     */
+    <T extends EngineQueryResult> T awaitQueryResult(@NotNull CompletableFuture<T> queryResultFuture) throws Exception {
+        try {
+            return queryResultFuture.get();
+        } catch (InterruptedException e) {
+            queryResultFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = FutureUtils.unwrap(e);
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
     /**
      * Check if the given collection of actual result objects contains all specified expected objects. If any expected
      * object is not inside the actual collection, a {@link AutoTestAssertionException} will be thrown containing the
@@ -0,0 +1,693 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.CompactBilingualQueryResult;
+import org.xlrnet.metadict.api.query.EngineQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+import org.xlrnet.metadict.api.query.MonolingualQueryResult;
+import org.xlrnet.metadict.api.storage.StorageBackendException;
+import org.xlrnet.metadict.api.storage.StorageOperationException;
+import org.xlrnet.metadict.api.storage.StorageService;
+import org.xlrnet.metadict.api.util.FutureUtils;
+import org.xlrnet.metadict.core.api.query.QueryPlanExecutionStrategy;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Abstract base class for execution strategies which use a two-level cache for the results of each query step. The
+ * first level is an in-memory cache, the second level is provided by a {@link StorageService}. Subclasses only have to
+ * decide in which order and on which threads the single steps of a {@link QueryPlan} are executed.
+ * <p>
+ * Each cached result carries the time when it has been written. Results which are older than the time to live of
+ * their engine are still returned immediately, but the step will be executed again on a background thread and the
+ * refreshed result replaces the stale one in both cache levels.
+ * <p>
+ * Failed and empty results are never written to the regular caches, but are kept in a short-lived negative cache to
+ * avoid querying the same step again and again. Failures also cause their engine to back off: while an engine is
+ * backing off, its steps are not executed but reported as skipped.
+ * <p>
+ * Large bilingual results are converted into a {@link CompactBilingualQueryResult} before they are cached to reduce
+ * the heap usage of the first-level cache.
+ */
+public abstract class AbstractCachedExecutionStrategy implements QueryPlanExecutionStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AbstractCachedExecutionStrategy.class);
+
+    private static final String STORAGE_KEY_QUERY_CACHE = "QueryCache";
+
+    /** Number of threads which refresh stale results in the background. */
+    private static final int REFRESH_THREADS = 2;
+
+    /** Maximum number of pending refreshes. Further refreshes will be skipped until the queue drains. */
+    private static final int MAX_QUEUED_REFRESHES = 64;
+
+    /** Minimum number of entries for which bilingual results are kept in a {@link CompactBilingualQueryResult}. */
+    private static final int COMPACT_RESULT_THRESHOLD = 64;
+
+    /** The storage service to use for storing the cached data as a second-level cache. */
+    private final StorageService storageService;
+
+    /** Default time to live of cached results in milliseconds. */
+    private final long stepCacheTtl;
+
+    /** Engine-specific time to live of cached results in milliseconds. */
+    private final Map<String, Long> engineStepCacheTtl;
+
+    /** Executor for refreshing stale results. */
+    private final ThreadPoolExecutor refreshExecutor;
+
+    /** Tracks failures and backoff of engines. */
+    private final EngineBackoffTracker engineBackoffTracker;
+
+    /** Short-lived cache for failed and empty results. */
+    final Cache<QueryStepKey, QueryStepResult> negativeResultCache;
+
+    /** Executions of uncached steps which are currently running, see {@link #lookupQueryStepAsync(AbstractQueryStep)}. */
+    private final ConcurrentMap<QueryStepKey, PendingQueryStep> pendingQuerySteps = new ConcurrentHashMap<>();
+
+    /** Keys of all steps which are currently being refreshed. */
+    private final Set<QueryStepKey> refreshesInProgress = ConcurrentHashMap.newKeySet();
+
+    /** Listeners which will be notified when a cached step result is removed. */
+    private final List<Consumer<QueryStepKey>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    /** First-level inmemory cache for results. */
+    Cache<QueryStepKey, CachedQueryStepResult> queryStepResultCache = CacheBuilder
+            .newBuilder()
+            .concurrencyLevel(8)
+            .initialCapacity(512)
+            .maximumSize(8192)
+            .removalListener(this::onQueryStepResultRemoval)
+            .build();
+
+    protected AbstractCachedExecutionStrategy(StorageService storageService) {
+        this(storageService, new EngineBackoffTracker(0, 0), 0, Collections.emptyMap(), 0);
+    }
+
+    protected AbstractCachedExecutionStrategy(StorageService storageService, EngineBackoffTracker engineBackoffTracker, long stepCacheTtl, Map<String, Long> engineStepCacheTtl, long negativeCacheTtl) {
+        checkArgument(stepCacheTtl >= 0, "Step cache TTL may not be negative");
+        checkArgument(negativeCacheTtl >= 0, "Negative cache TTL may not be negative");
+        this.storageService = storageService;
+        this.engineBackoffTracker = checkNotNull(engineBackoffTracker);
+        this.negativeResultCache = CacheBuilder
+                .newBuilder()
+                .concurrencyLevel(8)
+                .maximumSize(negativeCacheTtl > 0 ? 8192 : 0)
+                .expireAfterWrite(negativeCacheTtl, TimeUnit.MILLISECONDS)
+                .build();
+        this.stepCacheTtl = stepCacheTtl;
+        this.engineStepCacheTtl = engineStepCacheTtl != null ? ImmutableMap.copyOf(engineStepCacheTtl) : Collections.emptyMap();
+        this.refreshExecutor = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(MAX_QUEUED_REFRESHES),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("metadict-cache-refresh-%d").build());
+        this.refreshExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        LOGGER.info("Shutting down cache refresh executor ...");
+        this.refreshExecutor.shutdownNow();
+    }
+
+    @Override
+    public void addInvalidationListener(@NotNull Consumer<QueryStepKey> invalidationListener) {
+        this.invalidationListeners.add(checkNotNull(invalidationListener));
+    }
+
+    /**
+     * Returns the result of the given query step if it is already available in the first-level cache. This method
+     * never blocks and will never call a search engine on the calling thread. If the cached result is stale, a
+     * background refresh will be triggered.
+     *
+     * @param queryStep
+     *         The query step to look up.
+     * @return the cached result or null if the step is not cached.
+     */
+    QueryStepResult getCachedQueryStepResult(@NotNull AbstractQueryStep queryStep) {
+        QueryStepKey queryStepKey = queryStep.getCacheKey();
+        CachedQueryStepResult cachedResult = this.queryStepResultCache.getIfPresent(queryStepKey);
+        if (cachedResult == null) {
+            return this.negativeResultCache.getIfPresent(queryStepKey);
+        }
+        refreshIfStale(queryStepKey, queryStep, cachedResult);
+        return cachedResult.getQueryStepResult();
+    }
+
+    /**
+     * Resolve the result of a single query step by looking it up in both cache levels. If the step is not cached, it
+     * will be executed and the result will be cached. Failed and empty results are only kept in the negative cache.
+     * Stale results will be returned immediately and refreshed in the background.
+     *
+     * @param currentQueryStep
+     *         The query step to resolve.
+     * @return the result of the query step.
+     */
+    @NotNull
+    QueryStepResult lookupQueryStep(@NotNull AbstractQueryStep currentQueryStep) {
+        QueryStepKey queryStepKey = currentQueryStep.getCacheKey();
+        CachedQueryStepResult cachedResult = this.queryStepResultCache.getIfPresent(queryStepKey);
+
+        if (cachedResult == null) {
+            QueryStepResult negativeResult = this.negativeResultCache.getIfPresent(queryStepKey);
+            if (negativeResult != null) {
+                LOGGER.debug("Negative cache hit on query step {}", currentQueryStep);
+                return negativeResult;
+            }
+        }
+
+        try {
+            if (cachedResult == null) {
+                LOGGER.debug("Local cache miss on query step {}", currentQueryStep);
+                cachedResult = this.queryStepResultCache.get(queryStepKey, () -> queryStorageService(queryStepKey, currentQueryStep));
+            } else {
+                LOGGER.debug("Local cache hit on query step {}", currentQueryStep);
+            }
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            LOGGER.error("Query step {} failed", currentQueryStep, e);
+            return buildFailedQueryStepResult(currentQueryStep, e.getMessage());
+        }
+
+        QueryStepResult queryStepResult = cachedResult.getQueryStepResult();
+        if (!isCacheableResult(queryStepResult)) {
+            this.queryStepResultCache.invalidate(queryStepKey);
+        } else {
+            refreshIfStale(queryStepKey, currentQueryStep, cachedResult);
+        }
+        return queryStepResult;
+    }
+
+    /**
+     * Resolve the result of a single query step like {@link #lookupQueryStep(AbstractQueryStep)}, but without waiting
+     * for the search engine. Cached results are returned as completed futures. Otherwise the step will be executed
+     * through {@link #executeQueryStepAsync(AbstractQueryStep)} and its result will be cached as soon as the returned
+     * future completes. Concurrent lookups of the same uncached step share a single execution.
+     * <p>
+     * The returned future will always be completed normally. Cancelling it cancels the execution of the step, unless
+     * another lookup is still waiting for the same step.
+     *
+     * @param currentQueryStep
+     *         The query step to resolve.
+     * @return a future which will be completed with the result of the query step.
+     */
+    @NotNull
+    CompletableFuture<QueryStepResult> lookupQueryStepAsync(@NotNull AbstractQueryStep currentQueryStep) {
+        QueryStepResult cachedResult = getCachedQueryStepResult(currentQueryStep);
+        if (cachedResult != null) {
+            LOGGER.debug("Local cache hit on query step {}", currentQueryStep);
+            return CompletableFuture.completedFuture(cachedResult);
+        }
+
+        QueryStepKey queryStepKey = currentQueryStep.getCacheKey();
+        while (true) {
+            PendingQueryStep pendingQueryStep = new PendingQueryStep();
+            PendingQueryStep existingQueryStep = this.pendingQuerySteps.putIfAbsent(queryStepKey, pendingQueryStep);
+            if (existingQueryStep == null) {
+                CompletableFuture<QueryStepResult> stepResultFuture = pendingQueryStep.join();
+                pendingQueryStep.result.whenComplete((result, throwable) -> this.pendingQuerySteps.remove(queryStepKey, pendingQueryStep));
+                LOGGER.debug("Local cache miss on query step {}", currentQueryStep);
+                resolveQueryStep(queryStepKey, currentQueryStep, pendingQueryStep.result);
+                return stepResultFuture;
+            }
+            CompletableFuture<QueryStepResult> stepResultFuture = existingQueryStep.join();
+            if (stepResultFuture != null) {
+                LOGGER.debug("Joining pending execution of query step {}", currentQueryStep);
+                return stepResultFuture;
+            }
+            // The existing execution has just been cancelled
+            this.pendingQuerySteps.remove(queryStepKey, existingQueryStep);
+        }
+    }
+
+    /**
+     * Complete the given future with the result of the given query step. The result will be read from the storage
+     * service or the step will be executed asynchronously. Results are cached before the future is completed, so that
+     * the step is always either pending or cached.
+     */
+    private void resolveQueryStep(@NotNull QueryStepKey queryStepKey, @NotNull AbstractQueryStep currentQueryStep, @NotNull CompletableFuture<QueryStepResult> resultFuture) {
+        String storageKey = queryStepKey.toString();
+        Optional<CachedQueryStepResult> storedStepResult = readCachedValueFromStorage(storageKey);
+
+        if (storedStepResult != null && storedStepResult.isPresent()) {
+            this.queryStepResultCache.put(queryStepKey, storedStepResult.get());
+            refreshIfStale(queryStepKey, currentQueryStep, storedStepResult.get());
+            resultFuture.complete(storedStepResult.get().getQueryStepResult());
+            return;
+        }
+
+        long remainingBackoff = this.engineBackoffTracker.getRemainingBackoff(currentQueryStep.getSearchEngineName());
+        if (remainingBackoff > 0) {
+            LOGGER.debug("Skipping query step {}: engine is backing off for {} ms", currentQueryStep, remainingBackoff);
+            resultFuture.complete(buildSkippedQueryStepResult(currentQueryStep, "Engine is backing off for " + remainingBackoff + " ms"));
+            return;
+        }
+
+        CompletableFuture<QueryStepResult> executionFuture = executeQueryStepAsync(currentQueryStep);
+        FutureUtils.propagateCancellation(resultFuture, executionFuture);
+        executionFuture.whenComplete((queryStepResult, throwable) -> {
+            if (queryStepResult == null) {
+                // Only happens if the execution has been cancelled
+                resultFuture.complete(buildFailedQueryStepResult(currentQueryStep, "Query step was cancelled"));
+                return;
+            }
+            recordQueryStepResult(currentQueryStep, queryStepResult);
+            // Do not store failed or empty results to avoid cache pollution
+            if (isCacheableResult(queryStepResult)) {
+                CachedQueryStepResult cachedResult = new CachedQueryStepResult(queryStepResult, System.currentTimeMillis());
+                this.queryStepResultCache.put(queryStepKey, cachedResult);
+                createCachedValueInStorage(storageKey, cachedResult);
+            }
+            resultFuture.complete(queryStepResult);
+        });
+    }
+
+    /**
+     * Build a new skipped {@link QueryStepResult} for the given step with an empty result.
+     *
+     * @param queryStep
+     *         The step that was skipped.
+     * @param reason
+     *         The reason why the step was skipped.
+     * @return a skipped {@link QueryStepResult}.
+     */
+    @NotNull
+    QueryStepResult buildSkippedQueryStepResult(@NotNull AbstractQueryStep queryStep, String reason) {
+        return new QueryStepResultBuilder()
+                .setSkippedStep(true)
+                .setQueryStep(queryStep)
+                .setErrorMessage(reason)
+                .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT)
+                .build();
+    }
+
+    /**
+     * Record the result of an executed query step. Failures will be reported to the {@link EngineBackoffTracker} and
+     * both failed and empty results will be put in the negative cache.
+     *
+     * @param queryStep
+     *         The query step that was executed.
+     * @param queryStepResult
+     *         The result of the query step.
+     */
+    void recordQueryStepResult(@NotNull AbstractQueryStep queryStep, @NotNull QueryStepResult queryStepResult) {
+        if (queryStepResult.isSkippedStep()) {
+            return;
+        }
+        if (queryStepResult.isFailedStep()) {
+            this.engineBackoffTracker.recordFailure(queryStep.getSearchEngineName());
+        } else {
+            this.engineBackoffTracker.recordSuccess(queryStep.getSearchEngineName());
+        }
+        if (!isCacheableResult(queryStepResult)) {
+            this.negativeResultCache.put(queryStep.getCacheKey(), queryStepResult);
+        }
+    }
+
+    /**
+     * Returns true, if the given result may be kept in the regular caches, i.e. it neither failed, nor was skipped,
+     * nor is empty.
+     */
+    private static boolean isCacheableResult(@NotNull QueryStepResult queryStepResult) {
+        if (queryStepResult.isFailedStep() || queryStepResult.isSkippedStep()) {
+            return false;
+        }
+        return queryStepResult.getEngineQueryResult() == null || !QueryUtil.isEmptyResult(queryStepResult.getEngineQueryResult());
+    }
+
+    /**
+     * Returns the time to live in milliseconds for cached results of the given engine.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the time to live in milliseconds for cached results of the given engine.
+     */
+    long getStepCacheTtl(String searchEngineName) {
+        Long engineTtl = searchEngineName != null ? this.engineStepCacheTtl.get(searchEngineName) : null;
+        return engineTtl != null ? engineTtl : this.stepCacheTtl;
+    }
+
+    /**
+     * Trigger a background refresh of the given step if its cached result is older than the time to live of its
+     * engine. At most one refresh per step will run at the same time. If too many refreshes are pending, the refresh
+     * will be skipped and retried on the next lookup.
+     */
+    private void refreshIfStale(@NotNull QueryStepKey queryStepKey, @NotNull AbstractQueryStep queryStep, @NotNull CachedQueryStepResult cachedResult) {
+        if (!cachedResult.isStale(getStepCacheTtl(queryStep.getSearchEngineName()), System.currentTimeMillis())) {
+            return;
+        }
+        if (this.engineBackoffTracker.getRemainingBackoff(queryStep.getSearchEngineName()) > 0) {
+            return;
+        }
+        if (!this.refreshesInProgress.add(queryStepKey)) {
+            return;
+        }
+        try {
+            LOGGER.debug("Scheduling refresh of stale query step {}", queryStep);
+            this.refreshExecutor.execute(() -> refreshQueryStep(queryStepKey, queryStep));
+        } catch (RejectedExecutionException e) {     // NOSONAR: Logging of exception not necessary
+            LOGGER.debug("Skipping refresh of query step {}: too many pending refreshes", queryStep);
+            this.refreshesInProgress.remove(queryStepKey);
+        }
+    }
+
+    /**
+     * Start the refresh of the given step. The refresh executor only issues the engine call; the refreshed result is
+     * stored when the call completes, without waiting for it on a refresh thread.
+     */
+    private void refreshQueryStep(@NotNull QueryStepKey queryStepKey, @NotNull AbstractQueryStep queryStep) {
+        executeQueryStepAsync(queryStep).whenComplete((queryStepResult, throwable) -> {
+            try {
+                if (queryStepResult != null) {
+                    storeRefreshedQueryStep(queryStepKey, queryStep, queryStepResult);
+                }
+            } finally {
+                this.refreshesInProgress.remove(queryStepKey);
+            }
+        });
+    }
+
+    private void storeRefreshedQueryStep(@NotNull QueryStepKey queryStepKey, @NotNull AbstractQueryStep queryStep, @NotNull QueryStepResult queryStepResult) {
+        if (queryStepResult.isFailedStep()) {
+            LOGGER.warn("Refresh of query step {} failed - keeping stale result", queryStep);
+            this.engineBackoffTracker.recordFailure(queryStep.getSearchEngineName());
+            return;
+        }
+        this.engineBackoffTracker.recordSuccess(queryStep.getSearchEngineName());
+        if (!isCacheableResult(queryStepResult)) {
+            LOGGER.debug("Refresh of query step {} returned no results - keeping stale result", queryStep);
+            return;
+        }
+        CachedQueryStepResult cachedResult = new CachedQueryStepResult(queryStepResult, System.currentTimeMillis());
+        putCachedValueInStorage(queryStepKey.toString(), cachedResult);
+        this.queryStepResultCache.put(queryStepKey, cachedResult);
+    }
+
+    /**
+     * Build a new failed {@link QueryStepResult} for the given step with an empty result.
+     *
+     * @param queryStep
+     *         The step that failed.
+     * @param errorMessage
+     *         The reason why the step failed.
+     * @return a failed {@link QueryStepResult}.
+     */
+    @NotNull
+    QueryStepResult buildFailedQueryStepResult(@NotNull AbstractQueryStep queryStep, String errorMessage) {
+        return new QueryStepResultBuilder()
+                .setFailedStep(true)
+                .setQueryStep(queryStep)
+                .setErrorMessage(errorMessage)
+                .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT)
+                .build();
+    }
+
+    private void onQueryStepResultRemoval(@NotNull RemovalNotification<QueryStepKey, CachedQueryStepResult> notification) {
+        QueryStepKey queryStepKey = notification.getKey();
+        if (queryStepKey == null) {
+            return;
+        }
+        for (Consumer<QueryStepKey> invalidationListener : this.invalidationListeners) {
+            try {
+                invalidationListener.accept(queryStepKey);
+            } catch (RuntimeException e) {
+                LOGGER.error("Invalidation listener failed for query step key {}", queryStepKey, e);
+            }
+        }
+    }
+
+    /**
+     * Query the storage service for a query step result. If the lookup failed due to technical errors or the looked-up
+     * value has no content, the stored data will be deleted and requeried.
+     *
+     * @param queryStepKey
+     *         The cache key of the query step.
+     * @param currentQueryStep
+     *         The query step for which a lookup should be made.
+     * @return The cached result.
+     */
+    private CachedQueryStepResult queryStorageService(QueryStepKey queryStepKey, AbstractQueryStep currentQueryStep) {
+        String storageKey = queryStepKey.toString();
+        Optional<CachedQueryStepResult> storedStepResult = readCachedValueFromStorage(storageKey);
+
+        if (storedStepResult != null && storedStepResult.isPresent()) {
+            return storedStepResult.get();
+        }
+
+        long remainingBackoff = this.engineBackoffTracker.getRemainingBackoff(currentQueryStep.getSearchEngineName());
+        if (remainingBackoff > 0) {
+            LOGGER.debug("Skipping query step {}: engine is backing off for {} ms", currentQueryStep, remainingBackoff);
+            QueryStepResult skippedResult = buildSkippedQueryStepResult(currentQueryStep, "Engine is backing off for " + remainingBackoff + " ms");
+            return new CachedQueryStepResult(skippedResult, System.currentTimeMillis());
+        }
+
+        QueryStepResult queryStepResult = executeQueryStep(currentQueryStep);
+        CachedQueryStepResult cachedResult = new CachedQueryStepResult(queryStepResult, System.currentTimeMillis());
+        recordQueryStepResult(currentQueryStep, queryStepResult);
+
+        // Do not store failed or empty results to avoid cache pollution
+        if (!isCacheableResult(queryStepResult)) {
+            return cachedResult;
+        }
+
+        createCachedValueInStorage(storageKey, cachedResult);
+
+        return cachedResult;
+    }
+
+    private Optional<CachedQueryStepResult> readCachedValueFromStorage(String queryStepKey) {
+        Optional<CachedQueryStepResult> storedStepResult = null;
+        try {
+            storedStepResult = this.storageService.read(STORAGE_KEY_QUERY_CACHE, queryStepKey, CachedQueryStepResult.class);
+        } catch (StorageBackendException b) {
+            LOGGER.error("Internal storage backend error while reading a value", b);
+        } catch (StorageOperationException o) {
+            LOGGER.warn("Storage backend contained invalid value while reading", o);
+            deleteCachedValueInStorage(queryStepKey);
+        }
+        return storedStepResult;
+    }
+
+    private void deleteCachedValueInStorage(String queryStepKey) {
+        try {
+            this.storageService.delete(STORAGE_KEY_QUERY_CACHE, queryStepKey);
+        } catch (StorageBackendException e) {
+            LOGGER.error("Internal storage backend error while deleting a value", e);
+        }
+    }
+
+    private void createCachedValueInStorage(String queryStepKey, CachedQueryStepResult cachedResult) {
+        try {
+            this.storageService.create(STORAGE_KEY_QUERY_CACHE, queryStepKey, cachedResult);
+        } catch (StorageBackendException b) {
+            LOGGER.error("Internal storage backend error while creating a new value", b);
+        } catch (StorageOperationException o) {  // NOSONAR: Logging of exception not necessary
+            LOGGER.debug("Storage backend was updated before results could be created");
+        }
+    }
+
+    private void putCachedValueInStorage(String queryStepKey, CachedQueryStepResult cachedResult) {
+        try {
+            this.storageService.put(STORAGE_KEY_QUERY_CACHE, queryStepKey, cachedResult);
+        } catch (StorageBackendException b) {
+            LOGGER.error("Internal storage backend error while updating a value", b);
+        }
+    }
+
+    /**
+     * Execute the given query step on its search engine and wait for the result. The engine will be called through its
+     * asynchronous methods, see {@link #executeQueryStepAsync(AbstractQueryStep)}. Since this blocks the calling thread,
+     * it should only be used by strategies which execute the steps on the thread that executes the plan.
+     *
+     * @param step
+     *         The query step to execute.
+     * @return the result of the query step.
+     */
+    @NotNull
+    QueryStepResult executeQueryStep(AbstractQueryStep step) {
+        CompletableFuture<QueryStepResult> stepResultFuture = executeQueryStepAsync(step);
+        try {
+            return stepResultFuture.get();
+        } catch (InterruptedException e) {
+            stepResultFuture.cancel(true);
+            Thread.currentThread().interrupt();
+            return buildFailedQueryStepResult(step, "Query step was interrupted");
+        } catch (ExecutionException e) {
+            LOGGER.error("Query step {} failed", step, e);
+            return buildFailedQueryStepResult(step, FutureUtils.unwrap(e).getMessage());
+        }
+    }
+
+    /**
+     * Execute the given query step asynchronously on its search engine. The returned future will always be completed
+     * normally: failures of the engine will be reported as failed or skipped {@link QueryStepResult}. Cancelling the
+     * returned future also cancels the call of the engine.
+     *
+     * @param step
+     *         The query step to execute.
+     * @return a future which will be completed with the result of the query step.
+     */
+    @NotNull
+    CompletableFuture<QueryStepResult> executeQueryStepAsync(@NotNull AbstractQueryStep step) {
+        LOGGER.debug("Executing query step {}", step);
+
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<? extends EngineQueryResult> queryResultFuture;
+
+        try {
+            if (step instanceof MonolingualQueryStep) {
+                queryResultFuture = executeMonolingualQueryStep((MonolingualQueryStep) step);
+            } else if (step instanceof BilingualQueryStep) {
+                queryResultFuture = executeBilingualQueryStep((BilingualQueryStep) step);
+            } else {
+                throw new UnsupportedOperationException("Unsupported query step: " + step.getClass().getCanonicalName());
+            }
+            if (queryResultFuture == null) {
+                queryResultFuture = CompletableFuture.completedFuture(null);
+            }
+        } catch (RuntimeException e) {
+            queryResultFuture = FutureUtils.failedFuture(e);
+        }
+
+        CompletableFuture<QueryStepResult> stepResultFuture = queryResultFuture.handle((queryResult, throwable) -> buildQueryStepResult(step, startTime, queryResult, throwable));
+        return FutureUtils.propagateCancellation(stepResultFuture, queryResultFuture);
+    }
+
+    @NotNull
+    private QueryStepResult buildQueryStepResult(@NotNull AbstractQueryStep step, long startTime, EngineQueryResult queryResult, Throwable throwable) {
+        QueryStepResultBuilder stepResultBuilder = new QueryStepResultBuilder().setQueryStep(step);
+        long executionTime = System.currentTimeMillis() - startTime;
+        Throwable cause = throwable != null ? FutureUtils.unwrap(throwable) : null;
+
+        if (cause instanceof EngineUnavailableException) {
+            LOGGER.debug("Skipping query step {}: {}", step, cause.getMessage());
+            stepResultBuilder.setSkippedStep(true).setErrorMessage(cause.getMessage())
+                    .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT);
+        } else if (cause != null) {
+            LOGGER.error("Query step {} failed", step, cause);
+            stepResultBuilder.setFailedStep(true).setErrorMessage(cause.getMessage())
+                    .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT);
+        } else if (queryResult == null) {
+            LOGGER.error("Query step {} failed: query result was null", step);
+            stepResultBuilder.setFailedStep(true).setErrorMessage("query result was null")
+                    .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT);
+        } else {
+            stepResultBuilder.setEngineQueryResult(compactQueryResult(queryResult));
+            LOGGER.debug("Executed query step {} in {} ms", step, executionTime);
+        }
+        return stepResultBuilder.setExecutionTime(executionTime).build();
+    }
+
+    /**
+     * Returns a {@link CompactBilingualQueryResult} for bilingual results with at least {@link
+     * #COMPACT_RESULT_THRESHOLD} entries. All other results are returned as they are.
+     */
+    @NotNull
+    static EngineQueryResult compactQueryResult(@NotNull EngineQueryResult queryResult) {
+        if (queryResult instanceof BilingualQueryResult && ((BilingualQueryResult) queryResult).getBilingualEntries().size() >= COMPACT_RESULT_THRESHOLD) {
+            return CompactBilingualQueryResult.copyOf((BilingualQueryResult) queryResult);
+        }
+        return queryResult;
+    }
+
+    @NotNull
+    private CompletableFuture<MonolingualQueryResult> executeMonolingualQueryStep(@NotNull MonolingualQueryStep step) {
+        String queryString = step.getQueryString();
+        Language requestLanguage = step.getRequestLanguage();
+
+        return step.getSearchEngine().executeMonolingualQueryAsync(queryString, requestLanguage);
+    }
+
+    @NotNull
+    private CompletableFuture<BilingualQueryResult> executeBilingualQueryStep(@NotNull BilingualQueryStep step) {
+        String queryString = step.getQueryString();
+        Language inputLanguage = step.getInputLanguage();
+        Language outLanguage = step.getOutputLanguage();
+        boolean allowBothWay = step.isAllowBothWay();
+
+        return step.getSearchEngine().executeBilingualQueryAsync(queryString, inputLanguage, outLanguage, allowBothWay);
+    }
+
+    /**
+     * Shared execution of an uncached query step. Each lookup of the step receives its own dependent future; the
+     * execution will only be cancelled after all dependent futures have been cancelled.
+     */
+    private static class PendingQueryStep {
+
+        private final CompletableFuture<QueryStepResult> result = new CompletableFuture<>();
+
+        /** Number of lookups which are waiting for the result. Guarded by this. */
+        private int waitingLookups = 0;
+
+        /** True, if the execution has been cancelled and can't be joined anymore. Guarded by this. */
+        private boolean cancelled = false;
+
+        /**
+         * Returns a new future which will be completed with the result of the execution or null if the execution has
+         * already been cancelled.
+         */
+        synchronized CompletableFuture<QueryStepResult> join() {
+            if (this.cancelled) {
+                return null;
+            }
+            this.waitingLookups++;
+            CompletableFuture<QueryStepResult> dependent = this.result.thenApply(queryStepResult -> queryStepResult);
+            dependent.whenComplete((queryStepResult, throwable) -> {
+                if (dependent.isCancelled()) {
+                    leave();
+                }
+            });
+            return dependent;
+        }
+
+        private void leave() {
+            synchronized (this) {
+                this.waitingLookups--;
+                if (this.waitingLookups > 0 || this.result.isDone()) {
+                    return;
+                }
+                this.cancelled = true;
+            }
+            this.result.cancel(true);
+        }
+    }
+}
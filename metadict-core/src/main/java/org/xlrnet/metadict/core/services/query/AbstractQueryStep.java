@@ -45,6 +45,40 @@ public abstract class AbstractQueryStep implements Serializable {
 
     protected transient SearchEngine searchEngine;
 
+    /** Lazily calculated cache key. Will be reset whenever a property of the key changes. */
+    private transient volatile QueryStepKey cacheKey;
+
+    /**
+     * Returns a canonical key which identifies the result of this step in caches. Steps which will return the same
+     * result must return an equal key. The key is calculated only once until a property of the step changes.
+     *
+     * @return a canonical key which identifies the result of this step in caches.
+     */
+    @NotNull
+    public QueryStepKey getCacheKey() {
+        QueryStepKey key = this.cacheKey;
+        if (key == null) {
+            key = createCacheKey();
+            this.cacheKey = key;
+        }
+        return key;
+    }
+
+    /**
+     * Create a new canonical key which identifies the result of this step in caches. See {@link #getCacheKey()}.
+     *
+     * @return a new canonical key which identifies the result of this step in caches.
+     */
+    @NotNull
+    protected abstract QueryStepKey createCacheKey();
+
+    /**
+     * Reset the cached key of this step. Must be called by each setter that changes a property of the key.
+     */
+    protected void resetCacheKey() {
+        this.cacheKey = null;
+    }
+
     @NotNull
     public String getQueryString() {
         return this.queryString;
@@ -64,6 +98,7 @@ public abstract class AbstractQueryStep implements Serializable {
         checkNotNull(queryString);
 
         this.queryString = queryString;
+        resetCacheKey();
         return this;
     }
 
@@ -79,6 +114,7 @@ public abstract class AbstractQueryStep implements Serializable {
         Preconditions.checkNotNull(searchEngineName);
 
         this.searchEngineName = searchEngineName;
+        resetCacheKey();
         return this;
     }
 }
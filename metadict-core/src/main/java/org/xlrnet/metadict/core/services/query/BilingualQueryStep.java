@@ -69,6 +69,7 @@ public class BilingualQueryStep extends AbstractQueryStep implements Serializabl
         checkNotNull(inputLanguage);
 
         this.inputLanguage = inputLanguage;
+        resetCacheKey();
         return this;
     }
 
@@ -82,6 +83,7 @@ public class BilingualQueryStep extends AbstractQueryStep implements Serializabl
         checkNotNull(outputLanguage);
 
         this.outputLanguage = outputLanguage;
+        resetCacheKey();
         return this;
     }
 
@@ -97,9 +99,16 @@ public class BilingualQueryStep extends AbstractQueryStep implements Serializabl
     @NotNull
     public BilingualQueryStep setAllowBothWay(boolean allowBothWay) {
         this.allowBothWay = allowBothWay;
+        resetCacheKey();
         return this;
     }
 
+    @NotNull
+    @Override
+    protected QueryStepKey createCacheKey() {
+        return QueryStepKey.forBilingualStep(this.searchEngineName, this.inputLanguage, this.outputLanguage, this.allowBothWay, this.queryString);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -0,0 +1,318 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Singleton;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.api.storage.StorageService;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.config.QueryConfiguration;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.storage.DefaultStorageService;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Execution strategy that fans out all query steps of a plan concurrently. The steps are composed from the futures of
+ * their search engines, i.e. no thread is occupied while a step waits for its engine; blocking engines are expected to
+ * be wrapped in an {@link org.xlrnet.metadict.api.engine.AsyncSearchEngineAdapter}. Results that are already available
+ * in the first-level cache are answered directly. At most the configured number of steps of a plan is running at the
+ * same time.
+ * <p>
+ * Each step is bounded by a timeout which starts when the step is actually started and the whole plan is bounded by
+ * an additional deadline. Both deadlines are scheduled on a timer; steps that exceed any of them are cancelled and
+ * reported as failed. The returned results are always in the same order as the steps of the plan.
+ * <p>
+ * If hedging is enabled in the {@link HedgingPolicy}, engine calls which take longer than usual for their engine are
+ * hedged: a second identical call will be issued and the result of the call which finishes first will be used.
+ */
+@Singleton
+public class CachedConcurrentExecutionStrategy extends AbstractCachedExecutionStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CachedConcurrentExecutionStrategy.class);
+
+    /** Timer for the deadlines of steps and plans and for issuing hedged calls. */
+    private final ScheduledThreadPoolExecutor scheduler;
+
+    /** Maximum number of steps of a single plan which are running at the same time. */
+    private final int maxConcurrentSteps;
+
+    /** Maximum execution time of a single step in milliseconds. */
+    private final long stepTimeout;
+
+    /** Maximum execution time of a whole query plan in milliseconds. */
+    private final long planTimeout;
+
+    /** Policy for deciding when engine calls should be hedged. */
+    private final HedgingPolicy hedgingPolicy;
+
+    @Inject
+    public CachedConcurrentExecutionStrategy(@DefaultStorageService StorageService storageService, EngineBackoffTracker engineBackoffTracker,
+                                             HedgingPolicy hedgingPolicy, MetadictConfiguration metadictConfiguration) {
+        this(storageService, engineBackoffTracker, hedgingPolicy, metadictConfiguration.getQueryConfiguration());
+    }
+
+    private CachedConcurrentExecutionStrategy(StorageService storageService, EngineBackoffTracker engineBackoffTracker, HedgingPolicy hedgingPolicy, QueryConfiguration queryConfiguration) {
+        this(storageService, engineBackoffTracker, hedgingPolicy, queryConfiguration.getMaxConcurrentSteps(), queryConfiguration.getStepTimeout(),
+                queryConfiguration.getPlanTimeout(), queryConfiguration.getStepCacheTtl(), queryConfiguration.getEngineStepCacheTtl(),
+                queryConfiguration.getNegativeCacheTtl());
+    }
+
+    CachedConcurrentExecutionStrategy(StorageService storageService, int maxConcurrentSteps, long stepTimeout, long planTimeout) {
+        this(storageService, new EngineBackoffTracker(0, 0), HedgingPolicy.disabled(), maxConcurrentSteps, stepTimeout, planTimeout, 0, Collections.emptyMap(), 0);
+    }
+
+    CachedConcurrentExecutionStrategy(StorageService storageService, EngineBackoffTracker engineBackoffTracker, HedgingPolicy hedgingPolicy,
+                                      int maxConcurrentSteps, long stepTimeout, long planTimeout, long stepCacheTtl,
+                                      Map<String, Long> engineStepCacheTtl, long negativeCacheTtl) {
+        super(storageService, engineBackoffTracker, stepCacheTtl, engineStepCacheTtl, negativeCacheTtl);
+        checkArgument(maxConcurrentSteps > 0, "Maximum number of concurrent steps must be positive");
+        checkArgument(stepTimeout > 0, "Step timeout must be positive");
+        checkArgument(planTimeout > 0, "Plan timeout must be positive");
+
+        this.maxConcurrentSteps = maxConcurrentSteps;
+        this.stepTimeout = stepTimeout;
+        this.planTimeout = planTimeout;
+        this.hedgingPolicy = hedgingPolicy;
+        this.scheduler = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("metadict-query-timer-%d").build());
+        this.scheduler.setRemoveOnCancelPolicy(true);
+    }
+
+    @Override
+    @PreDestroy
+    public void shutdown() {
+        LOGGER.info("Shutting down query timer ...");
+        this.scheduler.shutdownNow();
+        super.shutdown();
+    }
+
+    @NotNull
+    @Override
+    CompletableFuture<QueryStepResult> executeQueryStepAsync(@NotNull AbstractQueryStep step) {
+        long hedgeDelay = this.hedgingPolicy.getHedgeDelay(step.getSearchEngineName());
+        CompletableFuture<QueryStepResult> firstCall = super.executeQueryStepAsync(step);
+        if (hedgeDelay < 0 || firstCall.isDone()) {
+            return firstCall;
+        }
+        return hedgeQueryStep(step, firstCall, hedgeDelay);
+    }
+
+    @NotNull
+    @Override
+    public Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan) {
+        return executeQueryPlan(queryPlan, queryStepResult -> {
+        });
+    }
+
+    @NotNull
+    @Override
+    public Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan, @NotNull Consumer<QueryStepResult> stepResultConsumer) {
+        List<AbstractQueryStep> queryStepList = queryPlan.getQueryStepList();
+        QueryStepResult[] queryResults = new QueryStepResult[queryStepList.size()];
+        BlockingQueue<QueryStepExecution> completedSteps = new LinkedBlockingQueue<>();
+        List<QueryStepExecution> uncachedSteps = new ArrayList<>();
+        List<QueryStepResult> cachedResults = new ArrayList<>();
+
+        for (int i = 0; i < queryStepList.size(); i++) {
+            AbstractQueryStep queryStep = queryStepList.get(i);
+            QueryStepResult cachedResult = getCachedQueryStepResult(queryStep);
+            if (cachedResult != null) {
+                LOGGER.debug("Local cache hit on query step {}", queryStep);
+                queryResults[i] = cachedResult;
+                cachedResults.add(cachedResult);
+            } else {
+                QueryStepExecution stepExecution = new QueryStepExecution(i, queryStep);
+                stepExecution.stepResultFuture.thenRun(() -> completedSteps.offer(stepExecution));
+                uncachedSteps.add(stepExecution);
+            }
+        }
+
+        Future<?> planDeadline = schedule(() -> expireQueryPlan(uncachedSteps), this.planTimeout);
+        Iterator<QueryStepExecution> waitingSteps = uncachedSteps.iterator();
+        startQuerySteps(waitingSteps, this.maxConcurrentSteps);
+
+        // Cached results are only passed to the consumer after all other steps have been started, so that a slow
+        // consumer doesn't delay the execution of the remaining steps
+        for (QueryStepResult cachedResult : cachedResults) {
+            stepResultConsumer.accept(cachedResult);
+        }
+
+        int pendingSteps = uncachedSteps.size();
+        try {
+            while (pendingSteps > 0) {
+                QueryStepExecution completedStep = completedSteps.take();
+                queryResults[completedStep.index] = completedStep.stepResultFuture.join();
+                stepResultConsumer.accept(queryResults[completedStep.index]);
+                pendingSteps--;
+                startQuerySteps(waitingSteps, 1);
+            }
+        } catch (InterruptedException e) {
+            LOGGER.warn("Interrupted while waiting for {} query steps", pendingSteps);
+            Thread.currentThread().interrupt();
+            for (QueryStepExecution stepExecution : uncachedSteps) {
+                if (queryResults[stepExecution.index] == null) {
+                    stepExecution.stepResultFuture.complete(buildFailedQueryStepResult(stepExecution.queryStep, "Query step was interrupted"));
+                    queryResults[stepExecution.index] = stepExecution.stepResultFuture.join();
+                    stepResultConsumer.accept(queryResults[stepExecution.index]);
+                }
+            }
+        } finally {
+            planDeadline.cancel(false);
+        }
+
+        return Arrays.asList(queryResults);
+    }
+
+    /**
+     * Start up to the given number of waiting steps. A step is finished as soon as either its lookup completes or its
+     * deadline expires; finishing a step in any way cancels its lookup if it is still running. Steps which have
+     * already been finished before they were started (i.e. the plan has expired) are skipped.
+     */
+    private void startQuerySteps(@NotNull Iterator<QueryStepExecution> waitingSteps, int count) {
+        int started = 0;
+        while (started < count && waitingSteps.hasNext()) {
+            QueryStepExecution stepExecution = waitingSteps.next();
+            CompletableFuture<QueryStepResult> stepResultFuture = stepExecution.stepResultFuture;
+            if (stepResultFuture.isDone()) {
+                continue;
+            }
+            CompletableFuture<QueryStepResult> lookupFuture = lookupQueryStepAsync(stepExecution.queryStep);
+            Future<?> stepDeadline = schedule(() -> expireQueryStep(stepExecution), this.stepTimeout);
+            stepResultFuture.whenComplete((queryStepResult, throwable) -> {
+                stepDeadline.cancel(false);
+                lookupFuture.cancel(true);
+            });
+            lookupFuture.thenAccept(stepResultFuture::complete);
+            started++;
+        }
+    }
+
+    private void expireQueryStep(@NotNull QueryStepExecution stepExecution) {
+        QueryStepResult queryStepResult = buildFailedQueryStepResult(stepExecution.queryStep, "Query step timed out");
+        if (stepExecution.stepResultFuture.complete(queryStepResult)) {
+            LOGGER.warn("Query step {} timed out after {} ms", stepExecution.queryStep, this.stepTimeout);
+            recordQueryStepResult(stepExecution.queryStep, queryStepResult);
+        }
+    }
+
+    private void expireQueryPlan(@NotNull List<QueryStepExecution> stepExecutions) {
+        for (QueryStepExecution stepExecution : stepExecutions) {
+            if (stepExecution.stepResultFuture.complete(buildFailedQueryStepResult(stepExecution.queryStep, "Query plan timed out"))) {
+                LOGGER.warn("Query plan deadline of {} ms exceeded while waiting for step {}", this.planTimeout, stepExecution.queryStep);
+            }
+        }
+    }
+
+    /**
+     * Issue a second call of the given step if the first call doesn't finish within the given delay and the hedge rate
+     * permits it. The first result which neither failed nor was skipped wins and the other call will be cancelled. If
+     * all calls fail, the result of the call which finished last is used.
+     */
+    @NotNull
+    private CompletableFuture<QueryStepResult> hedgeQueryStep(@NotNull AbstractQueryStep step, @NotNull CompletableFuture<QueryStepResult> firstCall, long hedgeDelay) {
+        CompletableFuture<QueryStepResult> hedgedResult = new CompletableFuture<>();
+        List<CompletableFuture<QueryStepResult>> calls = new CopyOnWriteArrayList<>();
+        AtomicInteger pendingCalls = new AtomicInteger(1);
+
+        addHedgedCall(step, hedgedResult, calls, pendingCalls, firstCall);
+        Future<?> hedge = schedule(() -> {
+            if (hedgedResult.isDone() || !this.hedgingPolicy.tryAcquireHedge(step.getSearchEngineName())) {
+                return;
+            }
+            pendingCalls.incrementAndGet();
+            if (!hedgedResult.isDone()) {
+                LOGGER.debug("Hedging query step {} after {} ms", step, hedgeDelay);
+                addHedgedCall(step, hedgedResult, calls, pendingCalls, super.executeQueryStepAsync(step));
+            }
+        }, hedgeDelay);
+
+        hedgedResult.whenComplete((queryStepResult, throwable) -> {
+            hedge.cancel(false);
+            for (CompletableFuture<QueryStepResult> call : calls) {
+                call.cancel(true);
+            }
+        });
+        return hedgedResult;
+    }
+
+    private void addHedgedCall(@NotNull AbstractQueryStep step, @NotNull CompletableFuture<QueryStepResult> hedgedResult, @NotNull List<CompletableFuture<QueryStepResult>> calls,
+                               @NotNull AtomicInteger pendingCalls, @NotNull CompletableFuture<QueryStepResult> call) {
+        calls.add(call);
+        call.whenComplete((queryStepResult, throwable) -> {
+            QueryStepResult callResult = queryStepResult != null ? queryStepResult : buildFailedQueryStepResult(step, "Query step was cancelled");
+            boolean successful = !callResult.isFailedStep() && !callResult.isSkippedStep();
+            if (successful || pendingCalls.decrementAndGet() == 0) {
+                hedgedResult.complete(callResult);
+            }
+        });
+        if (hedgedResult.isDone()) {
+            call.cancel(true);
+        }
+    }
+
+    /**
+     * Schedule the given action on the timer. If the timer has already been shut down, the action will be executed
+     * directly on the calling thread.
+     */
+    @NotNull
+    private Future<?> schedule(@NotNull Runnable action, long delay) {
+        try {
+            return this.scheduler.schedule(action, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {     // NOSONAR: Logging of exception not necessary
+            LOGGER.debug("Query timer has been shut down - running scheduled action directly");
+            action.run();
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /**
+     * A single uncached step of a query plan. The result future is completed with the result of the step or with a
+     * failed result if any deadline expires before.
+     */
+    private static class QueryStepExecution {
+
+        private final int index;
+
+        private final AbstractQueryStep queryStep;
+
+        private final CompletableFuture<QueryStepResult> stepResultFuture = new CompletableFuture<>();
+
+        QueryStepExecution(int index, AbstractQueryStep queryStep) {
+            this.index = index;
+            this.queryStep = queryStep;
+        }
+    }
+}
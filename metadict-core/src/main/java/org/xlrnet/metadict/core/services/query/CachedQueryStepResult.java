@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.base.MoreObjects;
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+
+import java.io.Serializable;
+
+/**
+ * Entry in the query step cache. Each entry contains the cached {@link QueryStepResult} and the time when the result
+ * has been written. The write time is used to decide whether the entry is stale and must be refreshed.
+ */
+final class CachedQueryStepResult implements Serializable {
+
+    private static final long serialVersionUID = -2263806213584795561L;
+
+    private final QueryStepResult queryStepResult;
+
+    private final long writeTimestamp;
+
+    CachedQueryStepResult(@NotNull QueryStepResult queryStepResult, long writeTimestamp) {
+        this.queryStepResult = queryStepResult;
+        this.writeTimestamp = writeTimestamp;
+    }
+
+    /**
+     * Returns the cached result.
+     *
+     * @return the cached result.
+     */
+    @NotNull
+    QueryStepResult getQueryStepResult() {
+        return this.queryStepResult;
+    }
+
+    /**
+     * Returns the time in milliseconds since the epoch when the result has been written.
+     *
+     * @return the time in milliseconds since the epoch when the result has been written.
+     */
+    long getWriteTimestamp() {
+        return this.writeTimestamp;
+    }
+
+    /**
+     * Returns true, if the entry is older than the given time to live. A time to live of zero or less never expires.
+     *
+     * @param ttl
+     *         The time to live in milliseconds.
+     * @param now
+     *         The current time in milliseconds since the epoch.
+     * @return true, if the entry is older than the given time to live.
+     */
+    boolean isStale(long ttl, long now) {
+        return ttl > 0 && now - this.writeTimestamp >= ttl;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("queryStepResult", this.queryStepResult)
+                .add("writeTimestamp", this.writeTimestamp)
+                .toString();
+    }
+}
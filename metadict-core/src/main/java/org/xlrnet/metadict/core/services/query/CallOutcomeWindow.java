@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.jetbrains.annotations.NotNull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Sliding window over the outcomes of the most recent calls to a search engine. Once the window is full, the oldest
+ * outcome will be removed for each new one.
+ */
+class CallOutcomeWindow {
+
+    /** Ring buffer with the outcome of each call in the window. */
+    private final CallOutcome[] outcomes;
+
+    private final int[] outcomeCounts = new int[CallOutcome.values().length];
+
+    private int nextOutcome;
+
+    private int sampleCount;
+
+    /**
+     * Create a new window.
+     *
+     * @param windowSize
+     *         The number of most recent outcomes which will be kept.
+     */
+    CallOutcomeWindow(int windowSize) {
+        checkArgument(windowSize > 0, "Window size must be positive");
+        this.outcomes = new CallOutcome[windowSize];
+    }
+
+    /**
+     * Record the outcome of a new call.
+     *
+     * @param outcome
+     *         The outcome of the call.
+     */
+    synchronized void record(@NotNull CallOutcome outcome) {
+        if (this.sampleCount == this.outcomes.length) {
+            this.outcomeCounts[this.outcomes[this.nextOutcome].ordinal()]--;
+        } else {
+            this.sampleCount++;
+        }
+        this.outcomes[this.nextOutcome] = outcome;
+        this.outcomeCounts[outcome.ordinal()]++;
+        this.nextOutcome = (this.nextOutcome + 1) % this.outcomes.length;
+    }
+
+    /**
+     * Returns the number of outcomes which are currently in the window.
+     *
+     * @return the number of outcomes which are currently in the window.
+     */
+    synchronized int getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * Returns the fraction of calls in the window with the given outcome. If no outcomes are available, zero will be
+     * returned.
+     *
+     * @param outcome
+     *         The outcome to look for.
+     * @return the fraction of calls in the window with the given outcome between 0 and 1.
+     */
+    synchronized double getRate(@NotNull CallOutcome outcome) {
+        if (this.sampleCount == 0) {
+            return 0;
+        }
+        return (double) this.outcomeCounts[outcome.ordinal()] / this.sampleCount;
+    }
+
+    /**
+     * Possible outcomes of a call to a search engine.
+     */
+    enum CallOutcome {
+
+        /** The call returned at least one result. */
+        RESULT,
+
+        /** The call succeeded but didn't return any results. */
+        EMPTY,
+
+        /** The call failed. */
+        FAILURE
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.inject.Singleton;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.config.QueryConfiguration;
+import org.xlrnet.metadict.core.api.query.QueryPlanningStrategy;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Planning strategy which uses the live statistics of each engine to plan queries within a latency budget. Steps for
+ * explicitly requested dictionaries and languages are always part of the plan, since they provide the main results.
+ * Steps for monolingual languages which have only been derived automatically from the requested dictionaries are
+ * supplementary: they will be omitted if their engine fails too often, rarely returns any results or is not expected
+ * to answer within the budget. Since the statistics of an engine only change when it is called, a single omitted step
+ * per engine will still be planned from time to time to notice when the engine has recovered.
+ * <p>
+ * Inside the plan, all main steps come before the supplementary ones and each group is ordered by the expected number
+ * of results per millisecond. Engines without enough statistics are always queried first to learn about them.
+ */
+@Singleton
+public class CostBasedQueryPlanningStrategy implements QueryPlanningStrategy {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CostBasedQueryPlanningStrategy.class);
+
+    /** Minimum number of recorded calls before an engine's statistics will be used for planning. */
+    static final int MIN_SAMPLES = 20;
+
+    /** Percentile of the recent latencies which is used as the expected latency of an engine. */
+    static final double LATENCY_PERCENTILE = 90;
+
+    /** Supplementary steps for engines which failed at least this often will be omitted. */
+    static final double MAX_SUPPLEMENTARY_FAILURE_RATE = 0.5;
+
+    /** Supplementary steps for engines which returned results less often will be omitted. */
+    static final double MIN_SUPPLEMENTARY_YIELD = 0.05;
+
+    /** Default time in milliseconds after which a step of an engine will be planned although it should be omitted. */
+    static final long DEFAULT_EXPLORATION_INTERVAL = 60000;
+
+    private final EngineStatisticsTracker engineStatisticsTracker;
+
+    private final ExecutionStrategyType executionStrategyType;
+
+    private final long defaultLatencyBudget;
+
+    /** Minimum time in milliseconds between two planned steps which should have been omitted for the same engine. */
+    private final long explorationInterval;
+
+    /** Time when a step of each engine has been planned for the last time although it should have been omitted. */
+    private final ConcurrentMap<String, AtomicLong> lastExplorations = new ConcurrentHashMap<>();
+
+    @Inject
+    public CostBasedQueryPlanningStrategy(EngineStatisticsTracker engineStatisticsTracker, MetadictConfiguration metadictConfiguration) {
+        this(engineStatisticsTracker, metadictConfiguration.getQueryConfiguration());
+    }
+
+    private CostBasedQueryPlanningStrategy(EngineStatisticsTracker engineStatisticsTracker, QueryConfiguration queryConfiguration) {
+        this(engineStatisticsTracker, queryConfiguration.getExecutionStrategy(), queryConfiguration.getLatencyBudget());
+    }
+
+    CostBasedQueryPlanningStrategy(@NotNull EngineStatisticsTracker engineStatisticsTracker, @NotNull ExecutionStrategyType executionStrategyType, long defaultLatencyBudget) {
+        this(engineStatisticsTracker, executionStrategyType, defaultLatencyBudget, DEFAULT_EXPLORATION_INTERVAL);
+    }
+
+    CostBasedQueryPlanningStrategy(@NotNull EngineStatisticsTracker engineStatisticsTracker, @NotNull ExecutionStrategyType executionStrategyType, long defaultLatencyBudget, long explorationInterval) {
+        checkArgument(defaultLatencyBudget >= 0, "Latency budget must not be negative");
+        checkArgument(explorationInterval > 0, "Exploration interval must be positive");
+        this.engineStatisticsTracker = engineStatisticsTracker;
+        this.executionStrategyType = executionStrategyType;
+        this.defaultLatencyBudget = defaultLatencyBudget;
+        this.explorationInterval = explorationInterval;
+    }
+
+    @NotNull
+    @Override
+    public QueryPlan calculateQueryPlan(@NotNull QueryRequest queryRequest, @NotNull EngineRegistryService engineRegistryService) {
+        List<PlannedStep> mainSteps = new ArrayList<>();
+        List<PlannedStep> supplementarySteps = new ArrayList<>();
+
+        queryRequest.getBilingualDictionaries().forEach((d) ->
+                engineRegistryService.getSearchEngineNamesByDictionary(d).forEach(
+                        (s) -> mainSteps.add(estimate(
+                                new BilingualQueryStep()
+                                        .setInputLanguage(d.getSource())
+                                        .setAllowBothWay(d.isBidirectional())
+                                        .setOutputLanguage(d.getTarget())
+                                        .setQueryString(queryRequest.getQueryString())
+                                        .setSearchEngineName(s)
+                                        .setSearchEngine(engineRegistryService.getEngineByName(s))
+                        ))));
+
+        List<Language> autoDerivedLanguages = queryRequest.getAutoDerivedMonolingualLanguages();
+        queryRequest.getMonolingualLanguages()
+                .forEach((l) -> engineRegistryService.getSearchEngineNamesByLanguage(l)
+                        .forEach((s) -> (autoDerivedLanguages.contains(l) ? supplementarySteps : mainSteps).add(estimate(
+                                new MonolingualQueryStep()
+                                        .setRequestLanguage(l)
+                                        .setQueryString(queryRequest.getQueryString())
+                                        .setSearchEngineName(s)
+                                        .setSearchEngine(engineRegistryService.getEngineByName(s))
+                        ))));
+
+        Comparator<PlannedStep> byExpectedBenefit = Comparator.comparing((PlannedStep p) -> p.informed)
+                .thenComparing(Comparator.comparingDouble((PlannedStep p) -> p.benefit).reversed());
+        mainSteps.sort(byExpectedBenefit);
+        supplementarySteps.sort(byExpectedBenefit);
+
+        long latencyBudget = queryRequest.getLatencyBudget() > 0 ? queryRequest.getLatencyBudget() : this.defaultLatencyBudget;
+        QueryPlan queryPlan = new QueryPlan();
+        long expectedLatency = 0;
+
+        for (PlannedStep mainStep : mainSteps) {
+            queryPlan.addQueryStep(mainStep.queryStep);
+            expectedLatency = accumulateLatency(expectedLatency, mainStep.expectedLatency);
+        }
+
+        for (PlannedStep supplementaryStep : supplementarySteps) {
+            if (supplementaryStep.informed) {
+                if (supplementaryStep.failureRate >= MAX_SUPPLEMENTARY_FAILURE_RATE || supplementaryStep.yield < MIN_SUPPLEMENTARY_YIELD) {
+                    omitOrExploreStep(queryPlan, supplementaryStep, "unreliable engine");
+                    continue;
+                }
+                long newExpectedLatency = accumulateLatency(expectedLatency, supplementaryStep.expectedLatency);
+                if (latencyBudget > 0 && newExpectedLatency > latencyBudget) {
+                    omitOrExploreStep(queryPlan, supplementaryStep, "latency budget exceeded");
+                    continue;
+                }
+                expectedLatency = newExpectedLatency;
+            }
+            queryPlan.addQueryStep(supplementaryStep.queryStep);
+        }
+
+        return queryPlan;
+    }
+
+    /**
+     * Returns the expected latency of a plan after adding a step with the given latency. Linear execution adds up
+     * the latencies of all steps, while concurrent execution waits only for the slowest step.
+     */
+    private long accumulateLatency(long planLatency, long stepLatency) {
+        if (this.executionStrategyType == ExecutionStrategyType.LINEAR) {
+            return planLatency + stepLatency;
+        }
+        return Math.max(planLatency, stepLatency);
+    }
+
+    /**
+     * Omit the given step from the plan, unless no step of its engine has been planned for the exploration interval.
+     * Otherwise the statistics of an engine which has been omitted once would never change again.
+     */
+    private void omitOrExploreStep(@NotNull QueryPlan queryPlan, @NotNull PlannedStep plannedStep, @NotNull String reason) {
+        if (tryExplore(plannedStep.queryStep.getSearchEngineName())) {
+            LOGGER.debug("Planning query step {} to refresh engine statistics despite {}", plannedStep.queryStep, reason);
+            queryPlan.addQueryStep(plannedStep.queryStep);
+            return;
+        }
+        LOGGER.debug("Omitting query step {} with expected latency {} ms: {}", plannedStep.queryStep, plannedStep.expectedLatency, reason);
+        queryPlan.addOmittedQueryStep(plannedStep.queryStep);
+    }
+
+    /**
+     * Returns true, if a step of the given engine should be planned although it would be omitted. This happens at most
+     * once per exploration interval and engine. The interval starts when a step of the engine is omitted for the first
+     * time.
+     */
+    private boolean tryExplore(@NotNull String searchEngineName) {
+        long now = System.currentTimeMillis();
+        AtomicLong lastExploration = this.lastExplorations.computeIfAbsent(searchEngineName, name -> new AtomicLong(now));
+        long previousExploration = lastExploration.get();
+        return now - previousExploration >= this.explorationInterval && lastExploration.compareAndSet(previousExploration, now);
+    }
+
+    @NotNull
+    private PlannedStep estimate(@NotNull AbstractQueryStep queryStep) {
+        String searchEngineName = queryStep.getSearchEngineName();
+        boolean informed = this.engineStatisticsTracker.getOutcomeSampleCount(searchEngineName) >= MIN_SAMPLES
+                && this.engineStatisticsTracker.getLatencySampleCount(searchEngineName) >= MIN_SAMPLES;
+        long expectedLatency = this.engineStatisticsTracker.getLatencyPercentile(searchEngineName, LATENCY_PERCENTILE);
+        double failureRate = this.engineStatisticsTracker.getFailureRate(searchEngineName);
+        double yield = this.engineStatisticsTracker.getResultYield(searchEngineName);
+        return new PlannedStep(queryStep, informed, expectedLatency, failureRate, yield);
+    }
+
+    /**
+     * Query step together with the expected costs and benefits of its engine.
+     */
+    private static class PlannedStep {
+
+        private final AbstractQueryStep queryStep;
+
+        private final boolean informed;
+
+        private final long expectedLatency;
+
+        private final double failureRate;
+
+        private final double yield;
+
+        /** Expected number of results per millisecond. */
+        private final double benefit;
+
+        PlannedStep(AbstractQueryStep queryStep, boolean informed, long expectedLatency, double failureRate, double yield) {
+            this.queryStep = queryStep;
+            this.informed = informed;
+            this.expectedLatency = expectedLatency;
+            this.failureRate = failureRate;
+            this.yield = yield;
+            this.benefit = yield / Math.max(1, expectedLatency);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.inject.Singleton;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.config.QueryConfiguration;
+
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Tracks consecutive failures of search engines and calculates an exponential backoff per engine name. While an
+ * engine is backing off, no new query steps should be executed on it. The backoff starts with the configured initial
+ * value, doubles with each further failure up to the configured maximum and is reset by the first successful query.
+ */
+@Singleton
+public class EngineBackoffTracker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngineBackoffTracker.class);
+
+    /** Initial backoff in milliseconds after the first failure. */
+    private final long initialBackoff;
+
+    /** Maximum backoff in milliseconds. */
+    private final long maxBackoff;
+
+    /** Current backoff state of each engine which failed recently. */
+    private final ConcurrentMap<String, BackoffState> backoffStates = new ConcurrentHashMap<>();
+
+    @Inject
+    public EngineBackoffTracker(MetadictConfiguration metadictConfiguration) {
+        this(metadictConfiguration.getQueryConfiguration());
+    }
+
+    private EngineBackoffTracker(QueryConfiguration queryConfiguration) {
+        this(queryConfiguration.getEngineBackoffInitial(), queryConfiguration.getEngineBackoffMax());
+    }
+
+    /**
+     * Create a new tracker. An initial backoff of zero disables the backoff completely.
+     *
+     * @param initialBackoff
+     *         Initial backoff in milliseconds after the first failure.
+     * @param maxBackoff
+     *         Maximum backoff in milliseconds.
+     */
+    EngineBackoffTracker(long initialBackoff, long maxBackoff) {
+        checkArgument(initialBackoff >= 0, "Initial backoff may not be negative");
+        checkArgument(maxBackoff >= initialBackoff, "Maximum backoff may not be less than initial backoff");
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+    }
+
+    /**
+     * Returns the remaining backoff time of the given engine in milliseconds. If the engine is not backing off, zero
+     * will be returned.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the remaining backoff time of the given engine in milliseconds.
+     */
+    public long getRemainingBackoff(@Nullable String searchEngineName) {
+        if (searchEngineName == null) {
+            return 0;
+        }
+        BackoffState backoffState = this.backoffStates.get(searchEngineName);
+        if (backoffState == null) {
+            return 0;
+        }
+        return Math.max(0, backoffState.backoffUntil - System.currentTimeMillis());
+    }
+
+    /**
+     * Record a successful query on the given engine. This resets the backoff of the engine.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     */
+    public void recordSuccess(@Nullable String searchEngineName) {
+        if (searchEngineName != null && this.backoffStates.remove(searchEngineName) != null) {
+            LOGGER.info("Engine {} recovered", searchEngineName);
+        }
+    }
+
+    /**
+     * Record a failed query on the given engine. This starts or extends the backoff of the engine.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     */
+    public void recordFailure(@Nullable String searchEngineName) {
+        if (searchEngineName == null || this.initialBackoff <= 0) {
+            return;
+        }
+        BackoffState backoffState = this.backoffStates.compute(searchEngineName, (name, oldState) -> {
+            int failures = oldState != null ? oldState.consecutiveFailures + 1 : 1;
+            return new BackoffState(failures, System.currentTimeMillis() + calculateBackoff(failures));
+        });
+        LOGGER.warn("Engine {} failed {} times in a row - backing off for {} ms", searchEngineName,
+                backoffState.consecutiveFailures, calculateBackoff(backoffState.consecutiveFailures));
+    }
+
+    /**
+     * Returns the backoff in milliseconds after the given number of consecutive failures.
+     *
+     * @param consecutiveFailures
+     *         The number of consecutive failures.
+     * @return the backoff in milliseconds.
+     */
+    long calculateBackoff(int consecutiveFailures) {
+        if (consecutiveFailures <= 0) {
+            return 0;
+        }
+        int shift = Math.min(consecutiveFailures - 1, 30);
+        long backoff = this.initialBackoff << shift;
+        return backoff < 0 || backoff > this.maxBackoff ? this.maxBackoff : backoff;
+    }
+
+    private static final class BackoffState {
+
+        private final int consecutiveFailures;
+
+        private final long backoffUntil;
+
+        private BackoffState(int consecutiveFailures, long backoffUntil) {
+            this.consecutiveFailures = consecutiveFailures;
+            this.backoffUntil = backoffUntil;
+        }
+    }
+}
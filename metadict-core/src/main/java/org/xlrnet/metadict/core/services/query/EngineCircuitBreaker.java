@@ -0,0 +1,282 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Circuit breaker and bulkhead for a single search engine. The optional bulkhead limits the number of concurrent calls
+ * to the engine, so that a slow engine can not occupy all available threads. The circuit breaker records the outcome of the
+ * last calls in a sliding window and opens the circuit if the failure rate exceeds the configured threshold. While the
+ * circuit is open, all calls are rejected. After the open duration has passed, a single probe call is permitted: if
+ * it succeeds, the circuit is closed again, otherwise it stays open for another period. Only the outcome of the probe
+ * call ends the half-open state; calls which have been permitted before the circuit opened are not recorded anymore.
+ * <p>
+ * Callers must call either {@link #onSuccess(Permission)}, {@link #onError(Permission)} or {@link
+ * #onCancel(Permission)} exactly once for each permission that has been granted by {@link #tryAcquirePermission()}.
+ */
+public class EngineCircuitBreaker {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(EngineCircuitBreaker.class);
+
+    /** Number of calls which are permitted while the circuit is half-open. */
+    private static final int MAX_HALF_OPEN_CALLS = 1;
+
+    /** Permission for calls while the circuit is closed. */
+    private static final Permission CALL_PERMISSION = new Permission(false);
+
+    /** Permission for the probe call while the circuit is half-open. */
+    private static final Permission PROBE_PERMISSION = new Permission(true);
+
+    private final String engineName;
+
+    private final int maxConcurrentCalls;
+
+    private final int failureRateThreshold;
+
+    private final long openDuration;
+
+    private final int minimumCalls;
+
+    private final int windowSize;
+
+    /** Bulkhead for limiting concurrent calls. Has practically unlimited permits if the bulkhead is disabled. */
+    private final Semaphore bulkhead;
+
+    /** Total number of permits of the bulkhead. */
+    private final int bulkheadPermits;
+
+    private final AtomicLong rejectedCalls = new AtomicLong();
+
+    /** Outcome of the last calls while the circuit is closed. */
+    private CallOutcomeWindow callWindow;
+
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+
+    private long openedAt;
+
+    private int halfOpenCalls;
+
+    /**
+     * Create a new circuit breaker.
+     *
+     * @param engineName
+     *         The name of the guarded engine.
+     * @param maxConcurrentCalls
+     *         The maximum number of concurrent calls. Zero disables the bulkhead.
+     * @param windowSize
+     *         The number of calls which are used for calculating the failure rate.
+     * @param failureRateThreshold
+     *         The failure rate in percent at which the circuit will be opened.
+     * @param openDuration
+     *         The time in milliseconds for which the circuit stays open before a probe call is permitted.
+     */
+    public EngineCircuitBreaker(@NotNull String engineName, int maxConcurrentCalls, int windowSize, int failureRateThreshold, long openDuration) {
+        checkArgument(maxConcurrentCalls >= 0, "Maximum number of concurrent calls may not be negative");
+        checkArgument(windowSize > 0, "Window size must be positive");
+        checkArgument(failureRateThreshold > 0 && failureRateThreshold <= 100, "Failure rate threshold must be between 1 and 100");
+        checkArgument(openDuration > 0, "Open duration must be positive");
+
+        this.engineName = engineName;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDuration = openDuration;
+        this.minimumCalls = Math.max(1, windowSize / 2);
+        this.bulkheadPermits = maxConcurrentCalls > 0 ? maxConcurrentCalls : Integer.MAX_VALUE;
+        this.bulkhead = new Semaphore(this.bulkheadPermits);
+        this.windowSize = windowSize;
+        this.callWindow = new CallOutcomeWindow(windowSize);
+    }
+
+    /**
+     * Try to acquire permission for a new call. This method never blocks. A call is permitted, if the circuit is not
+     * open and the maximum number of concurrent calls (if any) is not reached yet.
+     *
+     * @return the permission for the call or null, if the call is not permitted.
+     */
+    @Nullable
+    public Permission tryAcquirePermission() {
+        if (!this.bulkhead.tryAcquire()) {
+            this.rejectedCalls.incrementAndGet();
+            LOGGER.debug("Rejected call to engine {}: maximum of {} concurrent calls reached", this.engineName, this.maxConcurrentCalls);
+            return null;
+        }
+        Permission permission = tryAcquireCircuitPermission();
+        if (permission == null) {
+            this.bulkhead.release();
+            this.rejectedCalls.incrementAndGet();
+        }
+        return permission;
+    }
+
+    /**
+     * Record a successful call and release its permission.
+     *
+     * @param permission
+     *         The permission of the call.
+     */
+    public void onSuccess(@NotNull Permission permission) {
+        try {
+            synchronized (this) {
+                if (permission.probe && this.state == CircuitBreakerState.HALF_OPEN) {
+                    LOGGER.info("Probe call to engine {} succeeded - closing circuit", this.engineName);
+                    transitionTo(CircuitBreakerState.CLOSED);
+                } else if (!permission.probe && this.state == CircuitBreakerState.CLOSED) {
+                    this.callWindow.record(CallOutcomeWindow.CallOutcome.RESULT);
+                }
+            }
+        } finally {
+            this.bulkhead.release();
+        }
+    }
+
+    /**
+     * Record a failed call and release its permission.
+     *
+     * @param permission
+     *         The permission of the call.
+     */
+    public void onError(@NotNull Permission permission) {
+        try {
+            synchronized (this) {
+                if (permission.probe && this.state == CircuitBreakerState.HALF_OPEN) {
+                    LOGGER.warn("Probe call to engine {} failed - circuit stays open", this.engineName);
+                    transitionTo(CircuitBreakerState.OPEN);
+                } else if (!permission.probe && this.state == CircuitBreakerState.CLOSED) {
+                    this.callWindow.record(CallOutcomeWindow.CallOutcome.FAILURE);
+                    if (this.callWindow.getSampleCount() >= this.minimumCalls && getFailureRate() >= this.failureRateThreshold) {
+                        LOGGER.warn("Failure rate of engine {} reached {}% - opening circuit for {} ms", this.engineName, getFailureRate(), this.openDuration);
+                        transitionTo(CircuitBreakerState.OPEN);
+                    }
+                }
+            }
+        } finally {
+            this.bulkhead.release();
+        }
+    }
+
+    /**
+     * Release the permission of a call which has been cancelled by the caller without recording an outcome. A
+     * cancelled probe call permits a new probe call.
+     *
+     * @param permission
+     *         The permission of the call.
+     */
+    public void onCancel(@NotNull Permission permission) {
+        try {
+            synchronized (this) {
+                if (permission.probe && this.state == CircuitBreakerState.HALF_OPEN && this.halfOpenCalls > 0) {
+                    this.halfOpenCalls--;
+                }
+            }
+        } finally {
+            this.bulkhead.release();
+        }
+    }
+
+    /**
+     * Returns the current state of the circuit.
+     *
+     * @return the current state of the circuit.
+     */
+    @NotNull
+    public synchronized CircuitBreakerState getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns a snapshot of the current state of this circuit breaker.
+     *
+     * @return a snapshot of the current state of this circuit breaker.
+     */
+    @NotNull
+    public synchronized EngineCircuitBreakerStatus getStatus() {
+        return new EngineCircuitBreakerStatus(this.engineName, this.state, getFailureRate(), this.callWindow.getSampleCount(),
+                this.bulkheadPermits - this.bulkhead.availablePermits(), this.maxConcurrentCalls, this.rejectedCalls.get());
+    }
+
+    @Nullable
+    private synchronized Permission tryAcquireCircuitPermission() {
+        if (this.state == CircuitBreakerState.OPEN) {
+            if (System.currentTimeMillis() - this.openedAt < this.openDuration) {
+                return null;
+            }
+            LOGGER.info("Circuit of engine {} is half-open - permitting probe call", this.engineName);
+            transitionTo(CircuitBreakerState.HALF_OPEN);
+        }
+        if (this.state == CircuitBreakerState.HALF_OPEN) {
+            if (this.halfOpenCalls >= MAX_HALF_OPEN_CALLS) {
+                return null;
+            }
+            this.halfOpenCalls++;
+            return PROBE_PERMISSION;
+        }
+        return CALL_PERMISSION;
+    }
+
+    private double getFailureRate() {
+        return this.callWindow.getRate(CallOutcomeWindow.CallOutcome.FAILURE) * 100;
+    }
+
+    private void transitionTo(@NotNull CircuitBreakerState newState) {
+        this.state = newState;
+        this.halfOpenCalls = 0;
+        if (newState == CircuitBreakerState.OPEN) {
+            this.openedAt = System.currentTimeMillis();
+        } else if (newState == CircuitBreakerState.CLOSED) {
+            this.callWindow = new CallOutcomeWindow(this.windowSize);
+        }
+    }
+
+    /**
+     * Permission for a single call which has been granted by {@link #tryAcquirePermission()}. Tells whether the call
+     * is the probe call of the half-open circuit.
+     */
+    public static final class Permission {
+
+        private final boolean probe;
+
+        private Permission(boolean probe) {
+            this.probe = probe;
+        }
+
+        /**
+         * Returns true, if the call is the probe call of the half-open circuit.
+         *
+         * @return true, if the call is the probe call of the half-open circuit.
+         */
+        public boolean isProbe() {
+            return this.probe;
+        }
+    }
+}
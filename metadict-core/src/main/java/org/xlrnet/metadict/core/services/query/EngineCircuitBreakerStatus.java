@@ -0,0 +1,138 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of the state of an {@link EngineCircuitBreaker}.
+ */
+public class EngineCircuitBreakerStatus implements Serializable {
+
+    private static final long serialVersionUID = -1720367411640366296L;
+
+    private final String engineName;
+
+    private final CircuitBreakerState state;
+
+    private final double failureRate;
+
+    private final int recordedCalls;
+
+    private final int activeCalls;
+
+    private final int maxConcurrentCalls;
+
+    private final long rejectedCalls;
+
+    EngineCircuitBreakerStatus(String engineName, CircuitBreakerState state, double failureRate, int recordedCalls, int activeCalls, int maxConcurrentCalls, long rejectedCalls) {
+        this.engineName = engineName;
+        this.state = state;
+        this.failureRate = failureRate;
+        this.recordedCalls = recordedCalls;
+        this.activeCalls = activeCalls;
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.rejectedCalls = rejectedCalls;
+    }
+
+    /**
+     * Returns the name of the engine.
+     *
+     * @return the name of the engine.
+     */
+    public String getEngineName() {
+        return this.engineName;
+    }
+
+    /**
+     * Returns the current state of the circuit breaker.
+     *
+     * @return the current state of the circuit breaker.
+     */
+    public CircuitBreakerState getState() {
+        return this.state;
+    }
+
+    /**
+     * Returns the percentage of failed calls in the recorded calls.
+     *
+     * @return the percentage of failed calls in the recorded calls.
+     */
+    public double getFailureRate() {
+        return this.failureRate;
+    }
+
+    /**
+     * Returns the number of calls which are currently recorded for calculating the failure rate.
+     *
+     * @return the number of calls which are currently recorded for calculating the failure rate.
+     */
+    public int getRecordedCalls() {
+        return this.recordedCalls;
+    }
+
+    /**
+     * Returns the number of calls which are currently running.
+     *
+     * @return the number of calls which are currently running.
+     */
+    public int getActiveCalls() {
+        return this.activeCalls;
+    }
+
+    /**
+     * Returns the maximum number of calls which may run at the same time. Zero means that the number of calls is not
+     * limited.
+     *
+     * @return the maximum number of calls which may run at the same time.
+     */
+    public int getMaxConcurrentCalls() {
+        return this.maxConcurrentCalls;
+    }
+
+    /**
+     * Returns the total number of calls which have been rejected.
+     *
+     * @return the total number of calls which have been rejected.
+     */
+    public long getRejectedCalls() {
+        return this.rejectedCalls;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("engineName", this.engineName)
+                .add("state", this.state)
+                .add("failureRate", this.failureRate)
+                .add("recordedCalls", this.recordedCalls)
+                .add("activeCalls", this.activeCalls)
+                .add("maxConcurrentCalls", this.maxConcurrentCalls)
+                .add("rejectedCalls", this.rejectedCalls)
+                .toString();
+    }
+}
@@ -27,6 +27,7 @@ package org.xlrnet.metadict.core.services.query;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Singleton;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -35,12 +36,16 @@ import org.slf4j.LoggerFactory;
 import org.xlrnet.metadict.api.engine.*;
 import org.xlrnet.metadict.api.language.BilingualDictionary;
 import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.config.QueryConfiguration;
 import org.xlrnet.metadict.core.services.autotest.AutoTestService;
 import org.xlrnet.metadict.core.util.BilingualDictionaryUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -48,6 +53,11 @@ import static com.google.common.base.Preconditions.checkState;
 /**
  * Class for loading and managing all available {@link SearchEngineProvider}.
  * <p>
+ * Each registered engine is guarded by its own {@link EngineCircuitBreaker}, which limits the number of concurrent
+ * calls and rejects calls while the engine is failing. Engines which only implement the blocking query methods are
+ * wrapped in an {@link AsyncSearchEngineAdapter}, so that their calls run on a dedicated executor per engine and never
+ * block the threads which execute the queries.
+ * <p>
  * Since this object is {@link Singleton}, only one instance will be running at the
  * same time.
  */
@@ -56,6 +66,18 @@ public class EngineRegistryService {
 
     private static final Logger logger = LoggerFactory.getLogger(EngineRegistryService.class);
 
+    private static final int DEFAULT_MAX_CONCURRENT_CALLS = 0;
+
+    private static final int DEFAULT_WINDOW_SIZE = 20;
+
+    private static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+
+    private static final long DEFAULT_OPEN_DURATION = 30000;
+
+    private static final int DEFAULT_ENGINE_THREADS = 8;
+
+    private static final int DEFAULT_ENGINE_MAX_QUEUED_CALLS = 64;
+
     Multimap<BilingualDictionary, String> dictionaryEngineNameMap = ArrayListMultimap.create();
 
     Multimap<Language, String> languageEngineNameMap = ArrayListMultimap.create();
@@ -66,6 +88,11 @@ public class EngineRegistryService {
 
     private Map<String, SearchEngine> searchEngineMap = new HashMap<>();
 
+    private Map<String, EngineCircuitBreaker> circuitBreakerMap = new TreeMap<>();
+
+    /** Statistics about the calls to all engines. */
+    private EngineStatisticsTracker engineStatisticsTracker = new EngineStatisticsTracker();
+
     private List<BilingualDictionary> supportedDictionaryList;
 
     /** List of available search providers. */
@@ -74,13 +101,44 @@ public class EngineRegistryService {
     /** The auto test manager. */
     private AutoTestService autoTestService;
 
+    /** Maximum number of concurrent calls per engine. Zero disables the limit. */
+    private int maxConcurrentCalls = DEFAULT_MAX_CONCURRENT_CALLS;
+
+    /** Number of calls for calculating the failure rate of an engine. */
+    private int circuitBreakerWindowSize = DEFAULT_WINDOW_SIZE;
+
+    /** Failure rate in percent at which a circuit opens. */
+    private int circuitBreakerFailureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+
+    /** Time in milliseconds for which a circuit stays open. */
+    private long circuitBreakerOpenDuration = DEFAULT_OPEN_DURATION;
+
+    /** Number of threads per engine which only implements the blocking query methods. */
+    private int engineThreads = DEFAULT_ENGINE_THREADS;
+
+    /** Maximum number of calls per blocking engine which may wait for a free thread. */
+    private int engineMaxQueuedCalls = DEFAULT_ENGINE_MAX_QUEUED_CALLS;
+
+    /** Executors for the calls of engines which only implement the blocking query methods. */
+    private final Map<String, ThreadPoolExecutor> engineExecutorMap = new HashMap<>();
+
     public EngineRegistryService() {
     }
 
     @Inject
-    public EngineRegistryService(Set<SearchEngineProvider> searchProviderInstances, AutoTestService autoTestService) {
+    public EngineRegistryService(Set<SearchEngineProvider> searchProviderInstances, AutoTestService autoTestService,
+                                 EngineStatisticsTracker engineStatisticsTracker, MetadictConfiguration metadictConfiguration) {
         this.searchProviderInstances = searchProviderInstances;
         this.autoTestService = autoTestService;
+        this.engineStatisticsTracker = engineStatisticsTracker;
+
+        QueryConfiguration queryConfiguration = metadictConfiguration.getQueryConfiguration();
+        this.maxConcurrentCalls = queryConfiguration.getEngineMaxConcurrentCalls();
+        this.circuitBreakerWindowSize = queryConfiguration.getCircuitBreakerWindowSize();
+        this.circuitBreakerFailureRateThreshold = queryConfiguration.getCircuitBreakerFailureRateThreshold();
+        this.circuitBreakerOpenDuration = queryConfiguration.getCircuitBreakerOpenDuration();
+        this.engineThreads = queryConfiguration.getEngineThreads();
+        this.engineMaxQueuedCalls = queryConfiguration.getEngineMaxQueuedCalls();
     }
 
     /**
@@ -94,9 +152,9 @@ public class EngineRegistryService {
     }
 
     /**
-     * Returns the concrete {@link SearchEngine} that is registered under the given name. This name should be the
-     * canonical class name of the engine. The registered engines can be queried by using {@link
-     * #getRegisteredEngineNames()}.
+     * Returns the {@link SearchEngine} that is registered under the given name. This name should be the canonical
+     * class name of the engine. The registered engines can be queried by using {@link #getRegisteredEngineNames()}.
+     * All calls on the returned engine are guarded by the engine's {@link EngineCircuitBreaker}.
      *
      * @param engineName
      *         Name of the registered engine
@@ -161,6 +219,20 @@ public class EngineRegistryService {
         return Collections.unmodifiableSet(this.searchEngineMap.keySet());
     }
 
+    /**
+     * Returns the current state of the circuit breakers of all registered engines ordered by engine name.
+     *
+     * @return the current state of the circuit breakers of all registered engines.
+     */
+    @NotNull
+    public List<EngineCircuitBreakerStatus> getCircuitBreakerStatus() {
+        List<EngineCircuitBreakerStatus> statusList = new ArrayList<>(this.circuitBreakerMap.size());
+        for (EngineCircuitBreaker circuitBreaker : this.circuitBreakerMap.values()) {
+            statusList.add(circuitBreaker.getStatus());
+        }
+        return statusList;
+    }
+
     /**
      * Returns the names of all engines that support the given {@link BilingualDictionary} for bilingual look-ups.
      *
@@ -211,6 +283,19 @@ public class EngineRegistryService {
         return this.autoTestService;
     }
 
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Shutting down engine executors ...");
+        for (ThreadPoolExecutor engineExecutor : this.engineExecutorMap.values()) {
+            // Cancel the queued calls, so that nobody waits for them anymore
+            for (Runnable queuedCall : engineExecutor.shutdownNow()) {
+                if (queuedCall instanceof Future) {
+                    ((Future<?>) queuedCall).cancel(false);
+                }
+            }
+        }
+    }
+
     @PostConstruct
     public void initialize() {
         logger.info("Registering search providers...");
@@ -257,15 +342,47 @@ public class EngineRegistryService {
         registerAutoTestSuite(searchEngineProvider, searchEngine);
 
         String canonicalEngineName = searchEngine.getClass().getCanonicalName();
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(canonicalEngineName, this.maxConcurrentCalls,
+                this.circuitBreakerWindowSize, this.circuitBreakerFailureRateThreshold, this.circuitBreakerOpenDuration);
 
         this.engineDescriptionMap.put(canonicalEngineName, engineDescription);
         this.featureSetMap.put(canonicalEngineName, featureSet);
-        this.searchEngineMap.put(canonicalEngineName, searchEngine);
+        SearchEngine asyncSearchEngine = searchEngine;
+        if (isBlockingEngine(searchEngine)) {
+            ThreadPoolExecutor engineExecutor = createEngineExecutor(searchEngine.getClass().getSimpleName());
+            this.engineExecutorMap.put(canonicalEngineName, engineExecutor);
+            asyncSearchEngine = new AsyncSearchEngineAdapter(searchEngine, engineExecutor);
+        }
+        this.searchEngineMap.put(canonicalEngineName, new GuardedSearchEngine(asyncSearchEngine, canonicalEngineName, circuitBreaker, this.engineStatisticsTracker));
+        this.circuitBreakerMap.put(canonicalEngineName, circuitBreaker);
         registerDictionariesFromFeatureSet(canonicalEngineName, featureSet);
 
         logger.info("Registered engine {} from provider {}", canonicalEngineName, canonicalProviderName);
     }
 
+    /**
+     * Returns true, if the given engine doesn't override any of the asynchronous query methods of {@link
+     * SearchEngine}, i.e. its asynchronous methods would block the calling thread.
+     */
+    private static boolean isBlockingEngine(@NotNull SearchEngine searchEngine) {
+        try {
+            Class<?> engineClass = searchEngine.getClass();
+            return engineClass.getMethod("executeBilingualQueryAsync", String.class, Language.class, Language.class, boolean.class).getDeclaringClass() == SearchEngine.class
+                    && engineClass.getMethod("executeMonolingualQueryAsync", String.class, Language.class).getDeclaringClass() == SearchEngine.class;
+        } catch (NoSuchMethodException e) {     // NOSONAR: Logging of exception not necessary
+            return true;
+        }
+    }
+
+    @NotNull
+    private ThreadPoolExecutor createEngineExecutor(@NotNull String engineName) {
+        BlockingQueue<Runnable> queue = this.engineMaxQueuedCalls > 0 ? new LinkedBlockingQueue<>(this.engineMaxQueuedCalls) : new SynchronousQueue<>();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(this.engineThreads, this.engineThreads, 60L, TimeUnit.SECONDS, queue,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("metadict-engine-" + engineName + "-%d").build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private void registerAutoTestSuite(@NotNull SearchEngineProvider searchEngineProvider, @NotNull SearchEngine searchEngine) {
         try {
             AutoTestSuite testSuite = searchEngineProvider.getAutoTestSuite();
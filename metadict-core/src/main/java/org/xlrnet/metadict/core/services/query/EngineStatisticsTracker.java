@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.inject.Singleton;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Collects live statistics about the calls to each search engine. The statistics are recorded by the {@link
+ * GuardedSearchEngine} of each registered engine and can be used for scheduling and planning decisions.
+ */
+@Singleton
+public class EngineStatisticsTracker {
+
+    /** Number of recent calls per engine that will be used for statistics. */
+    private static final int WINDOW_SIZE = 256;
+
+    private final ConcurrentMap<String, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CallOutcomeWindow> callOutcomeWindows = new ConcurrentHashMap<>();
+
+    @Inject
+    public EngineStatisticsTracker() {
+    }
+
+    /**
+     * Record the latency of a successful call.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @param latency
+     *         The latency of the call in milliseconds.
+     */
+    public void recordLatency(@NotNull String searchEngineName, long latency) {
+        this.latencyHistograms.computeIfAbsent(searchEngineName, name -> new LatencyHistogram(WINDOW_SIZE)).record(latency);
+    }
+
+    /**
+     * Returns the number of recent calls of the given engine for which a latency has been recorded.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the number of recent calls of the given engine for which a latency has been recorded.
+     */
+    public int getLatencySampleCount(@Nullable String searchEngineName) {
+        LatencyHistogram histogram = searchEngineName != null ? this.latencyHistograms.get(searchEngineName) : null;
+        return histogram != null ? histogram.getSampleCount() : 0;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the recent latencies of the given engine in milliseconds. If
+     * no latencies have been recorded yet, zero will be returned.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @param percentile
+     *         The percentile between 0 and 100.
+     * @return an upper bound of the given percentile of the recent latencies in milliseconds.
+     */
+    public long getLatencyPercentile(@Nullable String searchEngineName, double percentile) {
+        LatencyHistogram histogram = searchEngineName != null ? this.latencyHistograms.get(searchEngineName) : null;
+        return histogram != null ? histogram.getPercentile(percentile) : 0;
+    }
+
+    /**
+     * Record the outcome of a successful call.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @param emptyResult
+     *         True, if the call didn't return any results.
+     */
+    public void recordResult(@NotNull String searchEngineName, boolean emptyResult) {
+        getCallOutcomeWindow(searchEngineName).record(emptyResult ? CallOutcomeWindow.CallOutcome.EMPTY : CallOutcomeWindow.CallOutcome.RESULT);
+    }
+
+    /**
+     * Record a failed call.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     */
+    public void recordFailure(@NotNull String searchEngineName) {
+        getCallOutcomeWindow(searchEngineName).record(CallOutcomeWindow.CallOutcome.FAILURE);
+    }
+
+    /**
+     * Returns the number of recent calls of the given engine for which an outcome has been recorded.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the number of recent calls of the given engine for which an outcome has been recorded.
+     */
+    public int getOutcomeSampleCount(@Nullable String searchEngineName) {
+        CallOutcomeWindow window = searchEngineName != null ? this.callOutcomeWindows.get(searchEngineName) : null;
+        return window != null ? window.getSampleCount() : 0;
+    }
+
+    /**
+     * Returns the fraction of recent calls of the given engine which failed. If no outcomes have been recorded yet,
+     * zero will be returned.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the fraction of recent calls which failed between 0 and 1.
+     */
+    public double getFailureRate(@Nullable String searchEngineName) {
+        CallOutcomeWindow window = searchEngineName != null ? this.callOutcomeWindows.get(searchEngineName) : null;
+        return window != null ? window.getRate(CallOutcomeWindow.CallOutcome.FAILURE) : 0;
+    }
+
+    /**
+     * Returns the fraction of recent calls of the given engine which returned at least one result. If no outcomes have
+     * been recorded yet, one will be returned.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the fraction of recent calls which returned results between 0 and 1.
+     */
+    public double getResultYield(@Nullable String searchEngineName) {
+        CallOutcomeWindow window = searchEngineName != null ? this.callOutcomeWindows.get(searchEngineName) : null;
+        return window != null && window.getSampleCount() > 0 ? window.getRate(CallOutcomeWindow.CallOutcome.RESULT) : 1;
+    }
+
+    @NotNull
+    private CallOutcomeWindow getCallOutcomeWindow(@NotNull String searchEngineName) {
+        return this.callOutcomeWindows.computeIfAbsent(searchEngineName, name -> new CallOutcomeWindow(WINDOW_SIZE));
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.api.engine.AsyncSearchEngineAdapter;
+import org.xlrnet.metadict.api.engine.SearchEngine;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.EngineQueryResult;
+import org.xlrnet.metadict.api.query.MonolingualQueryResult;
+import org.xlrnet.metadict.api.util.FutureUtils;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Decorator for a {@link SearchEngine} which guards all calls with an {@link EngineCircuitBreaker}. Rejected calls
+ * will fail immediately with an {@link EngineUnavailableException} without calling the engine. The latency of each
+ * successful call and the outcome of each executed call will be recorded in the {@link EngineStatisticsTracker}.
+ * <p>
+ * Asynchronous calls hold their permission of the circuit breaker until the returned future completes. Cancelling the
+ * returned future (e.g. after a timeout or for the slower call of a hedged step) also cancels the future of the engine
+ * and releases the permission. Cancelled calls are neither recorded as failed nor as successful, since the engine
+ * didn't get the chance to finish them. For engines wrapped in an {@link AsyncSearchEngineAdapter}, the permission of
+ * a cancelled call is only released when the blocking call has actually returned, so that hung calls still count
+ * against the bulkhead. The permission is released as well if the engine throws instead of returning a future.
+ * <p>
+ * Calls which are rejected by the executor of an {@link AsyncSearchEngineAdapter} fail with an {@link
+ * EngineUnavailableException}. They are not recorded, since the overload is local and not caused by the engine.
+ */
+class GuardedSearchEngine implements SearchEngine {
+
+    private final SearchEngine delegate;
+
+    private final String searchEngineName;
+
+    private final EngineCircuitBreaker circuitBreaker;
+
+    private final EngineStatisticsTracker engineStatisticsTracker;
+
+    GuardedSearchEngine(@NotNull SearchEngine delegate, @NotNull String searchEngineName, @NotNull EngineCircuitBreaker circuitBreaker, @NotNull EngineStatisticsTracker engineStatisticsTracker) {
+        this.delegate = delegate;
+        this.searchEngineName = searchEngineName;
+        this.circuitBreaker = circuitBreaker;
+        this.engineStatisticsTracker = engineStatisticsTracker;
+    }
+
+    @NotNull
+    @Override
+    public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+        return guardedCall(() -> this.delegate.executeBilingualQuery(queryInput, inputLanguage, outputLanguage, allowBothWay));
+    }
+
+    @NotNull
+    @Override
+    public MonolingualQueryResult executeMonolingualQuery(@NotNull String queryInput, @NotNull Language queryLanguage) throws MetadictTechnicalException {
+        return guardedCall(() -> this.delegate.executeMonolingualQuery(queryInput, queryLanguage));
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<BilingualQueryResult> executeBilingualQueryAsync(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+        return guardedAsyncCall(() -> this.delegate.executeBilingualQueryAsync(queryInput, inputLanguage, outputLanguage, allowBothWay));
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<MonolingualQueryResult> executeMonolingualQueryAsync(@NotNull String queryInput, @NotNull Language queryLanguage) {
+        return guardedAsyncCall(() -> this.delegate.executeMonolingualQueryAsync(queryInput, queryLanguage));
+    }
+
+    /**
+     * Returns the guarded engine.
+     *
+     * @return the guarded engine.
+     */
+    @NotNull
+    SearchEngine getDelegate() {
+        return this.delegate;
+    }
+
+    /**
+     * Returns the circuit breaker of the guarded engine.
+     *
+     * @return the circuit breaker of the guarded engine.
+     */
+    @NotNull
+    EngineCircuitBreaker getCircuitBreaker() {
+        return this.circuitBreaker;
+    }
+
+    private <T extends EngineQueryResult> T guardedCall(@NotNull EngineCall<T> engineCall) throws MetadictTechnicalException {
+        EngineCircuitBreaker.Permission permission = this.circuitBreaker.tryAcquirePermission();
+        if (permission == null) {
+            throw new EngineUnavailableException("Engine " + this.searchEngineName + " is currently unavailable");
+        }
+        boolean successful = false;
+        long startTime = System.currentTimeMillis();
+        try {
+            T result = engineCall.call();
+            successful = true;
+            recordSuccess(permission, startTime, result);
+            return result;
+        } finally {
+            if (!successful) {
+                recordFailure(permission);
+            }
+        }
+    }
+
+    @NotNull
+    private <T extends EngineQueryResult> CompletableFuture<T> guardedAsyncCall(@NotNull Supplier<CompletableFuture<T>> engineCall) {
+        EngineCircuitBreaker.Permission permission = this.circuitBreaker.tryAcquirePermission();
+        if (permission == null) {
+            return FutureUtils.failedFuture(new EngineUnavailableException("Engine " + this.searchEngineName + " is currently unavailable"));
+        }
+        long startTime = System.currentTimeMillis();
+        CompletableFuture<T> resultFuture = null;
+        try {
+            resultFuture = engineCall.get();
+        } catch (RuntimeException e) {
+            return FutureUtils.failedFuture(e);
+        } finally {
+            if (resultFuture == null) {
+                recordFailure(permission);
+            }
+        }
+        if (resultFuture == null) {
+            return FutureUtils.failedFuture(new MetadictTechnicalException("Engine " + this.searchEngineName + " returned no future"));
+        }
+        // The outcome is recorded on the future of the engine itself, since a derived future won't run its actions
+        // after it has been cancelled by the caller
+        CompletableFuture<T> guardedFuture = new CompletableFuture<>();
+        CompletableFuture<T> engineFuture = resultFuture;
+        resultFuture.whenComplete((result, throwable) -> {
+            Throwable cause = throwable != null ? FutureUtils.unwrap(throwable) : null;
+            if (throwable == null) {
+                recordSuccess(permission, startTime, result);
+                guardedFuture.complete(result);
+            } else if (cause instanceof CancellationException) {
+                getCallCompletion(engineFuture).whenComplete((ignored, completionThrowable) -> this.circuitBreaker.onCancel(permission));
+                guardedFuture.completeExceptionally(throwable);
+            } else if (cause instanceof RejectedExecutionException) {
+                this.circuitBreaker.onCancel(permission);
+                guardedFuture.completeExceptionally(new EngineUnavailableException("Engine " + this.searchEngineName + " is overloaded"));
+            } else {
+                recordFailure(permission);
+                guardedFuture.completeExceptionally(throwable);
+            }
+        });
+        return FutureUtils.propagateCancellation(guardedFuture, resultFuture);
+    }
+
+    /**
+     * Returns a future which completes when the engine has actually finished the call of the given future. Calls of an
+     * {@link AsyncSearchEngineAdapter} may still be running after their future has been cancelled.
+     */
+    @NotNull
+    private static CompletableFuture<?> getCallCompletion(@NotNull CompletableFuture<?> resultFuture) {
+        if (resultFuture instanceof AsyncSearchEngineAdapter.CallFuture) {
+            return ((AsyncSearchEngineAdapter.CallFuture<?>) resultFuture).getCallCompletion();
+        }
+        return resultFuture;
+    }
+
+    private void recordSuccess(@NotNull EngineCircuitBreaker.Permission permission, long startTime, EngineQueryResult result) {
+        this.circuitBreaker.onSuccess(permission);
+        this.engineStatisticsTracker.recordLatency(this.searchEngineName, System.currentTimeMillis() - startTime);
+        this.engineStatisticsTracker.recordResult(this.searchEngineName, result == null || QueryUtil.isEmptyResult(result));
+    }
+
+    private void recordFailure(@NotNull EngineCircuitBreaker.Permission permission) {
+        this.circuitBreaker.onError(permission);
+        this.engineStatisticsTracker.recordFailure(this.searchEngineName);
+    }
+
+    @FunctionalInterface
+    private interface EngineCall<T> {
+
+        T call() throws MetadictTechnicalException;
+    }
+}
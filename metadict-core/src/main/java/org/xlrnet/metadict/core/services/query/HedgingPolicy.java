@@ -0,0 +1,168 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.inject.Singleton;
+import org.jetbrains.annotations.Nullable;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.config.QueryConfiguration;
+
+import javax.inject.Inject;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Decides when a slow engine call should be hedged by issuing a second identical call. A call will be hedged once it
+ * took longer than the configured percentile of the recent latencies of its engine. To keep the additional load on
+ * the engines bounded, the share of hedged calls per engine is capped by the maximum hedge rate.
+ */
+@Singleton
+public class HedgingPolicy {
+
+    /** Minimum number of latency samples before an engine's calls will be hedged. */
+    static final int MIN_LATENCY_SAMPLES = 20;
+
+    /** Number of calls after which the hedge counters will be halved to prefer recent calls. */
+    private static final long HEDGE_COUNTER_DECAY = 1000;
+
+    private final EngineStatisticsTracker engineStatisticsTracker;
+
+    private final boolean enabled;
+
+    private final int hedgePercentile;
+
+    private final int maxHedgeRate;
+
+    private final ConcurrentMap<String, HedgeCounter> hedgeCounters = new ConcurrentHashMap<>();
+
+    @Inject
+    public HedgingPolicy(EngineStatisticsTracker engineStatisticsTracker, MetadictConfiguration metadictConfiguration) {
+        this(engineStatisticsTracker, metadictConfiguration.getQueryConfiguration());
+    }
+
+    private HedgingPolicy(EngineStatisticsTracker engineStatisticsTracker, QueryConfiguration queryConfiguration) {
+        this(engineStatisticsTracker, queryConfiguration.isHedgingEnabled(), queryConfiguration.getHedgePercentile(), queryConfiguration.getMaxHedgeRate());
+    }
+
+    /**
+     * Create a new hedging policy.
+     *
+     * @param engineStatisticsTracker
+     *         The source for latencies of the engines.
+     * @param enabled
+     *         True, if calls may be hedged at all.
+     * @param hedgePercentile
+     *         The latency percentile after which a call will be hedged.
+     * @param maxHedgeRate
+     *         The maximum percentage of calls per engine which may be hedged.
+     */
+    HedgingPolicy(EngineStatisticsTracker engineStatisticsTracker, boolean enabled, int hedgePercentile, int maxHedgeRate) {
+        checkArgument(hedgePercentile > 0 && hedgePercentile < 100, "Hedge percentile must be between 1 and 99");
+        checkArgument(maxHedgeRate >= 0 && maxHedgeRate <= 100, "Maximum hedge rate must be between 0 and 100");
+        this.engineStatisticsTracker = engineStatisticsTracker;
+        this.enabled = enabled;
+        this.hedgePercentile = hedgePercentile;
+        this.maxHedgeRate = maxHedgeRate;
+    }
+
+    /**
+     * Returns a policy which never hedges any calls.
+     *
+     * @return a policy which never hedges any calls.
+     */
+    static HedgingPolicy disabled() {
+        return new HedgingPolicy(new EngineStatisticsTracker(), false, 95, 0);
+    }
+
+    /**
+     * Returns true, if calls may be hedged at all.
+     *
+     * @return true, if calls may be hedged at all.
+     */
+    boolean isEnabled() {
+        return this.enabled && this.maxHedgeRate > 0;
+    }
+
+    /**
+     * Returns the time in milliseconds after which a call to the given engine should be hedged. If calls to the
+     * engine should not be hedged, e.g. because there are not enough latency samples yet, -1 will be returned. Each
+     * call of this method counts as a new call to the engine for the calculation of the hedge rate.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return the time in milliseconds after which a call should be hedged or -1.
+     */
+    long getHedgeDelay(@Nullable String searchEngineName) {
+        if (!isEnabled() || searchEngineName == null) {
+            return -1;
+        }
+        getHedgeCounter(searchEngineName).recordCall();
+        if (this.engineStatisticsTracker.getLatencySampleCount(searchEngineName) < MIN_LATENCY_SAMPLES) {
+            return -1;
+        }
+        return this.engineStatisticsTracker.getLatencyPercentile(searchEngineName, this.hedgePercentile);
+    }
+
+    /**
+     * Try to acquire permission for a hedged call to the given engine. The permission will be denied, if the share of
+     * hedged calls would exceed the maximum hedge rate.
+     *
+     * @param searchEngineName
+     *         The name of the engine.
+     * @return true, if a hedged call may be issued.
+     */
+    boolean tryAcquireHedge(@Nullable String searchEngineName) {
+        return isEnabled() && searchEngineName != null && getHedgeCounter(searchEngineName).tryAcquireHedge(this.maxHedgeRate);
+    }
+
+    private HedgeCounter getHedgeCounter(String searchEngineName) {
+        return this.hedgeCounters.computeIfAbsent(searchEngineName, name -> new HedgeCounter());
+    }
+
+    private static class HedgeCounter {
+
+        private long calls;
+
+        private long hedges;
+
+        synchronized void recordCall() {
+            this.calls++;
+            if (this.calls >= HEDGE_COUNTER_DECAY) {
+                this.calls /= 2;
+                this.hedges /= 2;
+            }
+        }
+
+        synchronized boolean tryAcquireHedge(int maxHedgeRate) {
+            if ((this.hedges + 1) * 100 > this.calls * maxHedgeRate) {
+                return false;
+            }
+            this.hedges++;
+            return true;
+        }
+    }
+}
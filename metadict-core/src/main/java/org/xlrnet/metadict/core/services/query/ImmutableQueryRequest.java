@@ -33,6 +33,7 @@ import org.xlrnet.metadict.core.services.aggregation.group.GroupingType;
 import org.xlrnet.metadict.core.services.aggregation.order.OrderType;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -54,6 +55,10 @@ public class ImmutableQueryRequest implements QueryRequest, Serializable {
                 ", groupingType=" + this.groupingType +
                 ", orderType=" + this.orderType +
                 ", monolingualLanguages=" + this.monolingualLanguages +
+                ", autoDerivedMonolingualLanguages=" + this.autoDerivedMonolingualLanguages +
+                ", latencyBudget=" + this.latencyBudget +
+                ", groupLimit=" + this.groupLimit +
+                ", groupOffset=" + this.groupOffset +
                 '}';
     }
 
@@ -65,13 +70,29 @@ public class ImmutableQueryRequest implements QueryRequest, Serializable {
 
     private final List<Language> monolingualLanguages;
 
+    private final List<Language> autoDerivedMonolingualLanguages;
+
+    private final long latencyBudget;
+
+    private final int groupLimit;
+
+    private final int groupOffset;
+
     ImmutableQueryRequest(String queryString, List<BilingualDictionary> queryDictionaries, GroupingType groupingType, OrderType orderType, List<Language> monolingualLanguages, String originalQueryString) {
+        this(queryString, queryDictionaries, groupingType, orderType, monolingualLanguages, originalQueryString, Collections.emptyList(), 0, 0, 0);
+    }
+
+    ImmutableQueryRequest(String queryString, List<BilingualDictionary> queryDictionaries, GroupingType groupingType, OrderType orderType, List<Language> monolingualLanguages, String originalQueryString, List<Language> autoDerivedMonolingualLanguages, long latencyBudget, int groupLimit, int groupOffset) {
         this.queryString = queryString;
         this.queryDictionaries = queryDictionaries;
         this.groupingType = groupingType;
         this.orderType = orderType;
         this.monolingualLanguages = monolingualLanguages;
         this.originalQueryString = originalQueryString;
+        this.autoDerivedMonolingualLanguages = autoDerivedMonolingualLanguages;
+        this.latencyBudget = latencyBudget;
+        this.groupLimit = groupLimit;
+        this.groupOffset = groupOffset;
     }
 
     @Override
@@ -124,6 +145,27 @@ public class ImmutableQueryRequest implements QueryRequest, Serializable {
         return originalQueryString;
     }
 
+    @NotNull
+    @Override
+    public List<Language> getAutoDerivedMonolingualLanguages() {
+        return this.autoDerivedMonolingualLanguages;
+    }
+
+    @Override
+    public long getLatencyBudget() {
+        return this.latencyBudget;
+    }
+
+    @Override
+    public int getGroupLimit() {
+        return this.groupLimit;
+    }
+
+    @Override
+    public int getGroupOffset() {
+        return this.groupOffset;
+    }
+
     @Override
     public int hashCode() {
         return Objects.hashCode(this.queryString, this.queryDictionaries);
@@ -46,12 +46,15 @@ public class ImmutableQueryStepResult implements QueryStepResult {
 
     private final String errorMessage;
 
-    ImmutableQueryStepResult(AbstractQueryStep queryStep, EngineQueryResult engineQueryResult, long executionTime, boolean failedStep, String errorMessage) {
+    private final boolean skippedStep;
+
+    ImmutableQueryStepResult(AbstractQueryStep queryStep, EngineQueryResult engineQueryResult, long executionTime, boolean failedStep, String errorMessage, boolean skippedStep) {
         this.queryStep = queryStep;
         this.engineQueryResult = engineQueryResult;
         this.executionTime = executionTime;
         this.failedStep = failedStep;
         this.errorMessage = errorMessage;
+        this.skippedStep = skippedStep;
     }
 
     /**
@@ -105,4 +108,14 @@ public class ImmutableQueryStepResult implements QueryStepResult {
     public boolean isFailedStep() {
         return this.failedStep;
     }
+
+    /**
+     * Returns true, if the attached {@link AbstractQueryStep} has not been executed at all.
+     *
+     * @return true, if the attached {@link AbstractQueryStep} has not been executed at all.
+     */
+    @Override
+    public boolean isSkippedStep() {
+        return this.skippedStep;
+    }
 }
@@ -0,0 +1,149 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Histogram of the most recent latencies of a search engine. Latencies are counted in exponentially growing buckets,
+ * so that percentiles can be calculated in constant time with a relative error of at most 20 percent. Only the last
+ * samples are kept: once the window is full, the oldest sample will be removed for each new one.
+ */
+class LatencyHistogram {
+
+    /** Growth factor between the upper bounds of two consecutive buckets. */
+    private static final double BUCKET_GROWTH = 1.2;
+
+    /** Largest latency in milliseconds which is distinguished by the histogram. */
+    private static final long MAX_TRACKED_LATENCY = 120000;
+
+    /** Upper bounds in milliseconds of all buckets. */
+    private static final long[] BUCKET_BOUNDS = calculateBucketBounds();
+
+    /** Number of samples in each bucket. */
+    private final int[] bucketCounts = new int[BUCKET_BOUNDS.length];
+
+    /** Ring buffer with the bucket of each sample in the window. */
+    private final byte[] sampleBuckets;
+
+    private int nextSample;
+
+    private int sampleCount;
+
+    /**
+     * Create a new histogram.
+     *
+     * @param windowSize
+     *         The number of most recent samples which will be kept.
+     */
+    LatencyHistogram(int windowSize) {
+        checkArgument(windowSize > 0, "Window size must be positive");
+        this.sampleBuckets = new byte[windowSize];
+    }
+
+    /**
+     * Record a new latency.
+     *
+     * @param latency
+     *         The latency in milliseconds.
+     */
+    synchronized void record(long latency) {
+        int bucket = findBucket(latency);
+        if (this.sampleCount == this.sampleBuckets.length) {
+            this.bucketCounts[this.sampleBuckets[this.nextSample]]--;
+        } else {
+            this.sampleCount++;
+        }
+        this.sampleBuckets[this.nextSample] = (byte) bucket;
+        this.bucketCounts[bucket]++;
+        this.nextSample = (this.nextSample + 1) % this.sampleBuckets.length;
+    }
+
+    /**
+     * Returns the number of samples which are currently in the window.
+     *
+     * @return the number of samples which are currently in the window.
+     */
+    synchronized int getSampleCount() {
+        return this.sampleCount;
+    }
+
+    /**
+     * Returns an upper bound of the given percentile of the recorded latencies in milliseconds. If no samples are
+     * available, zero will be returned.
+     *
+     * @param percentile
+     *         The percentile between 0 and 100.
+     * @return an upper bound of the given percentile in milliseconds.
+     */
+    synchronized long getPercentile(double percentile) {
+        checkArgument(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+        if (this.sampleCount == 0) {
+            return 0;
+        }
+        int rank = Math.max(1, (int) Math.ceil(percentile / 100 * this.sampleCount));
+        int cumulativeCount = 0;
+        for (int i = 0; i < this.bucketCounts.length; i++) {
+            cumulativeCount += this.bucketCounts[i];
+            if (cumulativeCount >= rank) {
+                return BUCKET_BOUNDS[i];
+            }
+        }
+        return BUCKET_BOUNDS[BUCKET_BOUNDS.length - 1];
+    }
+
+    private static int findBucket(long latency) {
+        int low = 0;
+        int high = BUCKET_BOUNDS.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (BUCKET_BOUNDS[mid] < latency) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static long[] calculateBucketBounds() {
+        long[] bounds = new long[128];
+        int count = 0;
+        double bound = 1;
+        while (count < bounds.length) {
+            long roundedBound = (long) Math.ceil(bound);
+            if (count == 0 || roundedBound > bounds[count - 1]) {
+                bounds[count++] = roundedBound;
+            }
+            if (roundedBound >= MAX_TRACKED_LATENCY) {
+                break;
+            }
+            bound *= BUCKET_GROWTH;
+        }
+        long[] result = new long[count];
+        System.arraycopy(bounds, 0, result, 0, count);
+        return result;
+    }
+}
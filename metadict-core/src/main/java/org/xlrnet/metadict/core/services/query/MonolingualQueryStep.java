@@ -26,6 +26,7 @@ package org.xlrnet.metadict.core.services.query;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import org.jetbrains.annotations.NotNull;
 import org.xlrnet.metadict.api.language.Language;
 
 import java.io.Serializable;
@@ -45,6 +46,7 @@ public class MonolingualQueryStep extends AbstractQueryStep implements Serializa
 
     public MonolingualQueryStep setRequestLanguage(Language requestLanguage) {
         this.requestLanguage = requestLanguage;
+        resetCacheKey();
         return this;
     }
 
@@ -53,6 +55,12 @@ public class MonolingualQueryStep extends AbstractQueryStep implements Serializa
         return Objects.hashCode(this.searchEngineName, this.queryString, this.searchEngine, this.requestLanguage);
     }
 
+    @NotNull
+    @Override
+    protected QueryStepKey createCacheKey() {
+        return QueryStepKey.forMonolingualStep(this.searchEngineName, this.requestLanguage, this.queryString);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -113,6 +113,23 @@ public class QueryPerformanceStatistics implements Serializable {
         return this;
     }
 
+    /**
+     * Returns a copy of these statistics.
+     *
+     * @return a copy of these statistics.
+     */
+    QueryPerformanceStatistics copy() {
+        QueryPerformanceStatistics copy = new QueryPerformanceStatistics();
+        copy.totalDuration = this.totalDuration;
+        copy.planningPhaseDuration = this.planningPhaseDuration;
+        copy.queryPhaseDuration = this.queryPhaseDuration;
+        copy.collectPhaseDuration = this.collectPhaseDuration;
+        copy.groupPhaseDuration = this.groupPhaseDuration;
+        copy.mergePhaseDuration = this.mergePhaseDuration;
+        copy.orderPhaseDuration = this.orderPhaseDuration;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
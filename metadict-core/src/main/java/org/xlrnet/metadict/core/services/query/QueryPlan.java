@@ -39,32 +39,67 @@ public class QueryPlan {
 
     private List<AbstractQueryStep> queryStepList = new ArrayList<>();
 
+    private List<AbstractQueryStep> omittedQueryStepList = new ArrayList<>();
+
     public QueryPlan addQueryStep(AbstractQueryStep queryStep) {
         this.queryStepList.add(queryStep);
         return this;
     }
 
+    /**
+     * Add a query step which could have been part of this plan, but which has been omitted by the planning strategy.
+     * Omitted steps won't be executed.
+     *
+     * @param queryStep
+     *         The omitted query step.
+     * @return this plan.
+     */
+    public QueryPlan addOmittedQueryStep(AbstractQueryStep queryStep) {
+        this.omittedQueryStepList.add(queryStep);
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (!(o instanceof QueryPlan)) return false;
         QueryPlan queryPlan = (QueryPlan) o;
-        return Objects.equal(this.queryStepList, queryPlan.queryStepList);
+        return Objects.equal(this.queryStepList, queryPlan.queryStepList) &&
+                Objects.equal(this.omittedQueryStepList, queryPlan.omittedQueryStepList);
     }
 
     public List<AbstractQueryStep> getQueryStepList() {
         return Collections.unmodifiableList(this.queryStepList);
     }
 
+    /**
+     * Returns all query steps which have been omitted by the planning strategy.
+     *
+     * @return all query steps which have been omitted by the planning strategy.
+     */
+    public List<AbstractQueryStep> getOmittedQueryStepList() {
+        return Collections.unmodifiableList(this.omittedQueryStepList);
+    }
+
+    /**
+     * Returns true, if no query steps have been omitted. Results of incomplete plans should not be cached.
+     *
+     * @return true, if no query steps have been omitted.
+     */
+    public boolean isComplete() {
+        return this.omittedQueryStepList.isEmpty();
+    }
+
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.queryStepList);
+        return Objects.hashCode(this.queryStepList, this.omittedQueryStepList);
     }
 
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("queryStepList", this.queryStepList)
+                .add("omittedQueryStepList", this.omittedQueryStepList)
                 .toString();
     }
 }
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.inject.Provider;
+import com.google.inject.Singleton;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.query.QueryPlanExecutionStrategy;
+
+import javax.inject.Inject;
+
+/**
+ * Provider for the {@link QueryPlanExecutionStrategy} which has been selected in the query configuration. If no
+ * strategy is configured, the {@link CachedLinearExecutionStrategy} will be used.
+ */
+@Singleton
+public class QueryPlanExecutionStrategyFactory implements Provider<QueryPlanExecutionStrategy> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryPlanExecutionStrategyFactory.class);
+
+    private final MetadictConfiguration metadictConfiguration;
+
+    private final Provider<CachedLinearExecutionStrategy> linearExecutionStrategyProvider;
+
+    private final Provider<CachedConcurrentExecutionStrategy> concurrentExecutionStrategyProvider;
+
+    @Inject
+    public QueryPlanExecutionStrategyFactory(MetadictConfiguration metadictConfiguration,
+                                             Provider<CachedLinearExecutionStrategy> linearExecutionStrategyProvider,
+                                             Provider<CachedConcurrentExecutionStrategy> concurrentExecutionStrategyProvider) {
+        this.metadictConfiguration = metadictConfiguration;
+        this.linearExecutionStrategyProvider = linearExecutionStrategyProvider;
+        this.concurrentExecutionStrategyProvider = concurrentExecutionStrategyProvider;
+    }
+
+    @Override
+    public QueryPlanExecutionStrategy get() {
+        ExecutionStrategyType strategyType = this.metadictConfiguration.getQueryConfiguration().getExecutionStrategy();
+
+        if (strategyType == ExecutionStrategyType.CONCURRENT) {
+            LOGGER.debug("Using concurrent query plan execution");
+            return this.concurrentExecutionStrategyProvider.get();
+        }
+        LOGGER.debug("Using linear query plan execution");
+        return this.linearExecutionStrategyProvider.get();
+    }
+}
@@ -37,6 +37,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -58,6 +59,12 @@ public class QueryRequestBuilder {
 
     private boolean autoDeriveMonolingualLanguages = false;
 
+    private long latencyBudget = 0;
+
+    private int groupLimit = 0;
+
+    private int groupOffset = 0;
+
     /**
      * Adds a new {@link BilingualDictionary} to the current query.
      *
@@ -87,14 +94,60 @@ public class QueryRequestBuilder {
     }
 
     public QueryRequest build() {
+        Set<Language> derivedLanguages = new HashSet<>();
         if (this.autoDeriveMonolingualLanguages) {
             for (BilingualDictionary d : this.queryDictionaries) {
-                this.queryLanguages.add(d.getSource());
-                this.queryLanguages.add(d.getTarget());
+                derivedLanguages.add(d.getSource());
+                derivedLanguages.add(d.getTarget());
             }
+            derivedLanguages.removeAll(this.queryLanguages);
         }
+        List<Language> monolingualLanguages = Lists.newArrayList(this.queryLanguages);
+        monolingualLanguages.addAll(derivedLanguages);
+
+        return new ImmutableQueryRequest(this.queryString, Lists.newArrayList(this.queryDictionaries), this.groupingType, this.orderType, monolingualLanguages, this.originalQueryString, Lists.newArrayList(derivedLanguages), this.latencyBudget, this.groupLimit, this.groupOffset);
+    }
+
+    /**
+     * Set the maximum number of entries that should be returned for each result group. If none or zero is set, all
+     * entries will be returned.
+     *
+     * @param groupLimit
+     *         The maximum number of entries per group.
+     * @return the current builder
+     */
+    public QueryRequestBuilder setGroupLimit(int groupLimit) {
+        checkArgument(groupLimit >= 0, "Group limit must not be negative");
+        this.groupLimit = groupLimit;
+        return this;
+    }
 
-        return new ImmutableQueryRequest(this.queryString, Lists.newArrayList(this.queryDictionaries), this.groupingType, this.orderType, Lists.newArrayList(this.queryLanguages), this.originalQueryString);
+    /**
+     * Set the number of most relevant entries that should be skipped in each result group. If none is set, no entries
+     * will be skipped.
+     *
+     * @param groupOffset
+     *         The number of entries to skip in each group.
+     * @return the current builder
+     */
+    public QueryRequestBuilder setGroupOffset(int groupOffset) {
+        checkArgument(groupOffset >= 0, "Group offset must not be negative");
+        this.groupOffset = groupOffset;
+        return this;
+    }
+
+    /**
+     * Set the time in milliseconds in which the request should be answered. The budget is used as a hint for planning
+     * the query. If none or zero is set, the configured default budget will be used.
+     *
+     * @param latencyBudget
+     *         The time in milliseconds in which the request should be answered.
+     * @return the current builder
+     */
+    public QueryRequestBuilder setLatencyBudget(long latencyBudget) {
+        checkArgument(latencyBudget >= 0, "Latency budget must not be negative");
+        this.latencyBudget = latencyBudget;
+        return this;
     }
 
     /**
@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.services.aggregation.group.GroupingType;
+import org.xlrnet.metadict.core.services.aggregation.order.OrderType;
+
+import java.util.Set;
+
+/**
+ * Normalized key of a {@link QueryRequest}. Two requests with the same key will always produce the same merged results
+ * and therefore the same {@link org.xlrnet.metadict.core.api.query.QueryResponse} for the same page. In contrast to
+ * {@link ImmutableQueryRequest#equals(Object)}, the key includes all properties which influence the results and ignores
+ * the order of dictionaries and languages. The latency budget is part of the key, since a cost-based planning strategy
+ * may omit different query steps for different budgets. The requested page of each group is not part of the key, so
+ * that all pages can be built from the same cached results.
+ */
+final class QueryRequestKey {
+
+    private final String queryString;
+
+    private final Set<BilingualDictionary> dictionaries;
+
+    private final Set<Language> monolingualLanguages;
+
+    private final GroupingType groupingType;
+
+    private final OrderType orderType;
+
+    private final long latencyBudget;
+
+    private final int hashCode;
+
+    private QueryRequestKey(String queryString, Set<BilingualDictionary> dictionaries, Set<Language> monolingualLanguages, GroupingType groupingType, OrderType orderType, long latencyBudget) {
+        this.queryString = queryString;
+        this.dictionaries = dictionaries;
+        this.monolingualLanguages = monolingualLanguages;
+        this.groupingType = groupingType;
+        this.orderType = orderType;
+        this.latencyBudget = latencyBudget;
+        this.hashCode = Objects.hashCode(queryString, dictionaries, monolingualLanguages, groupingType, orderType, latencyBudget);
+    }
+
+    /**
+     * Create a new key for the given request.
+     *
+     * @param queryRequest
+     *         The request for which a key should be created.
+     * @return a new key for the given request.
+     */
+    @NotNull
+    static QueryRequestKey from(@NotNull QueryRequest queryRequest) {
+        return new QueryRequestKey(
+                StringUtils.lowerCase(StringUtils.trim(queryRequest.getQueryString())),
+                ImmutableSet.copyOf(queryRequest.getBilingualDictionaries()),
+                ImmutableSet.copyOf(queryRequest.getMonolingualLanguages()),
+                queryRequest.getQueryGrouping(),
+                queryRequest.getQueryOrdering(),
+                queryRequest.getLatencyBudget()
+        );
+    }
+
+    @NotNull
+    String getQueryString() {
+        return this.queryString;
+    }
+
+    @NotNull
+    Set<BilingualDictionary> getDictionaries() {
+        return this.dictionaries;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QueryRequestKey)) return false;
+        QueryRequestKey that = (QueryRequestKey) o;
+        return this.hashCode == that.hashCode &&
+                Objects.equal(this.queryString, that.queryString) &&
+                Objects.equal(this.dictionaries, that.dictionaries) &&
+                Objects.equal(this.monolingualLanguages, that.monolingualLanguages) &&
+                this.groupingType == that.groupingType &&
+                this.orderType == that.orderType &&
+                this.latencyBudget == that.latencyBudget;
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("queryString", this.queryString)
+                .add("dictionaries", this.dictionaries)
+                .add("monolingualLanguages", this.monolingualLanguages)
+                .add("groupingType", this.groupingType)
+                .add("orderType", this.orderType)
+                .add("latencyBudget", this.latencyBudget)
+                .toString();
+    }
+}
@@ -24,24 +24,34 @@
 
 package org.xlrnet.metadict.core.services.query;
 
+import com.google.common.cache.*;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Multimaps;
+import com.google.common.collect.SetMultimap;
 import com.google.inject.Singleton;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xlrnet.metadict.api.language.BilingualDictionary;
 import org.xlrnet.metadict.api.query.*;
 import org.xlrnet.metadict.core.api.aggregation.Group;
+import org.xlrnet.metadict.core.api.aggregation.OrderStrategy;
 import org.xlrnet.metadict.core.api.aggregation.ResultEntry;
+import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
 import org.xlrnet.metadict.core.api.query.*;
 import org.xlrnet.metadict.core.services.aggregation.group.GroupBuilder;
 import org.xlrnet.metadict.core.services.aggregation.group.GroupingType;
 import org.xlrnet.metadict.core.services.aggregation.merge.SimilarElementsMergeService;
-import org.xlrnet.metadict.core.services.aggregation.order.OrderType;
+import org.xlrnet.metadict.core.services.aggregation.order.BoundedRelevanceOrderStrategy;
 
 import javax.inject.Inject;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Consumer;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -53,6 +63,9 @@ public class QueryService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(QueryService.class);
 
+    /** Number of stripes for tracking the invalidation generations of query steps. */
+    private static final int STEP_GENERATION_STRIPES = 256;
+
     /**
      * The registry which contains all available engines.
      */
@@ -71,12 +84,58 @@ public class QueryService {
     /** Service for merging similar elements inside a collection. */
     private final SimilarElementsMergeService mergeService;
 
+    /** Currently running queries which can be shared by identical incoming requests. */
+    private final ConcurrentMap<QueryRequestKey, CompletableFuture<AggregatedQueryResult>> inFlightQueries = new ConcurrentHashMap<>();
+
+    /**
+     * Maximum time in milliseconds to wait for an identical in-flight query. The query will be executed separately
+     * if the in-flight query didn't finish in time.
+     */
+    private final long inFlightQueryTimeout;
+
+    /** Total number of requested queries. */
+    private final AtomicLong totalQueryCount = new AtomicLong();
+
+    /** Number of queries which have been answered by an identical in-flight query. */
+    private final AtomicLong coalescedQueryCount = new AtomicLong();
+
+    /**
+     * Cache for the merged results of finished queries. The responses for all pages of a request will be built from the
+     * same cached result. Only results without failed steps will be cached.
+     */
+    private final Cache<QueryRequestKey, CachedQueryResult> responseCache;
+
+    /** Index of all cached responses which have been built from the result of a given query step. */
+    private final SetMultimap<QueryStepKey, QueryRequestKey> cachedResponsesByStep = Multimaps.synchronizedSetMultimap(HashMultimap.create());
+
+    /**
+     * Invalidation generations of the query steps. Each invalidation of a step increments the generation of its
+     * stripe, so that a response which has been built while one of its steps was invalidated won't be cached. Steps
+     * which share a stripe may prevent caching each other's responses.
+     */
+    private final AtomicLongArray stepGenerations = new AtomicLongArray(STEP_GENERATION_STRIPES);
+
     @Inject
-    public QueryService(EngineRegistryService engineRegistryService, QueryPlanningStrategy queryPlanningStrategy, QueryPlanExecutionStrategy queryPlanExecutionStrategy, SimilarElementsMergeService mergeService) {
+    public QueryService(EngineRegistryService engineRegistryService, QueryPlanningStrategy queryPlanningStrategy, QueryPlanExecutionStrategy queryPlanExecutionStrategy, SimilarElementsMergeService mergeService, MetadictConfiguration metadictConfiguration) {
+        this(engineRegistryService, queryPlanningStrategy, queryPlanExecutionStrategy, mergeService,
+                metadictConfiguration.getQueryConfiguration().getResponseCacheSize(),
+                metadictConfiguration.getQueryConfiguration().getResponseCacheTtl(),
+                metadictConfiguration.getQueryConfiguration().getPlanTimeout());
+    }
+
+    QueryService(EngineRegistryService engineRegistryService, QueryPlanningStrategy queryPlanningStrategy, QueryPlanExecutionStrategy queryPlanExecutionStrategy, SimilarElementsMergeService mergeService, int responseCacheSize, long responseCacheTtl, long inFlightQueryTimeout) {
         this.engineRegistryService = engineRegistryService;
         this.queryPlanningStrategy = queryPlanningStrategy;
         this.queryPlanExecutionStrategy = queryPlanExecutionStrategy;
         this.mergeService = mergeService;
+        this.inFlightQueryTimeout = inFlightQueryTimeout;
+        this.responseCache = CacheBuilder.newBuilder()
+                .maximumSize(responseCacheSize)
+                .expireAfterWrite(responseCacheTtl, TimeUnit.MILLISECONDS)
+                .removalListener(this::onResponseRemoval)
+                .recordStats()
+                .build();
+        this.queryPlanExecutionStrategy.addInvalidationListener(this::invalidateResponsesForStep);
     }
 
     /**
@@ -89,7 +148,10 @@ public class QueryService {
     }
 
     /**
-     * Execute a given query request and return the collected result data.
+     * Execute a given query request and return the collected result data. If an identical request is already being
+     * executed, no new execution will be started. Instead, the merged results of the running execution will be shared.
+     * Requests which differ only in the requested page of each group are considered identical. If the running execution
+     * doesn't finish within the plan timeout, the request will be executed separately.
      *
      * @param queryRequest
      *         The request to execute.
@@ -98,7 +160,181 @@ public class QueryService {
     @NotNull
     public QueryResponse executeQuery(@NotNull QueryRequest queryRequest) {
         LOGGER.info("Incoming query request {}", queryRequest);
-        return internalExecuteQuery(queryRequest);
+        validateQueryRequest(queryRequest);
+        this.totalQueryCount.incrementAndGet();
+
+        QueryRequestKey requestKey = QueryRequestKey.from(queryRequest);
+        CachedQueryResult cachedResult = this.responseCache.getIfPresent(requestKey);
+        if (cachedResult != null) {
+            LOGGER.debug("Response cache hit on query request {}", queryRequest);
+            return cachedResult.aggregatedResult.getResponse(queryRequest);
+        }
+
+        CompletableFuture<AggregatedQueryResult> newQuery = new CompletableFuture<>();
+        CompletableFuture<AggregatedQueryResult> inFlightQuery = this.inFlightQueries.putIfAbsent(requestKey, newQuery);
+
+        if (inFlightQuery != null) {
+            this.coalescedQueryCount.incrementAndGet();
+            LOGGER.debug("Coalescing query request {} with in-flight query", queryRequest);
+            AggregatedQueryResult sharedResult = awaitInFlightQuery(inFlightQuery);
+            if (sharedResult != null) {
+                return sharedResult.getResponse(queryRequest);
+            }
+            LOGGER.warn("In-flight query didn't finish within {} ms - executing query request {} separately", this.inFlightQueryTimeout, queryRequest);
+            return internalExecuteQuery(queryRequest, requestKey, null).getResponse(queryRequest);
+        }
+
+        AggregatedQueryResult aggregatedResult;
+        try {
+            aggregatedResult = internalExecuteQuery(queryRequest, requestKey, null);
+            newQuery.complete(aggregatedResult);
+        } catch (RuntimeException e) {
+            newQuery.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlightQueries.remove(requestKey, newQuery);
+        }
+        return aggregatedResult.getResponse(queryRequest);
+    }
+
+    /**
+     * Execute a given query request and return the collected result data. Each time a step of the query has finished,
+     * the given consumer will be called with a partial response that contains the grouped, merged and ordered results
+     * of all steps that have finished so far. The consumer will be called on the invoking thread. The final response
+     * which contains the results of all steps will be returned after all steps have finished and will not be passed to
+     * the consumer. Streaming queries are never coalesced with other requests, since each caller needs its own partial
+     * responses.
+     *
+     * @param queryRequest
+     *         The request to execute.
+     * @param partialResponseConsumer
+     *         Consumer for intermediate responses.
+     * @return The resulting data.
+     */
+    @NotNull
+    public QueryResponse executeQuery(@NotNull QueryRequest queryRequest, @NotNull Consumer<QueryResponse> partialResponseConsumer) {
+        LOGGER.info("Incoming streaming query request {}", queryRequest);
+        validateQueryRequest(queryRequest);
+        checkNotNull(partialResponseConsumer, "Partial response consumer may not be null");
+        this.totalQueryCount.incrementAndGet();
+
+        QueryRequestKey requestKey = QueryRequestKey.from(queryRequest);
+        CachedQueryResult cachedResult = this.responseCache.getIfPresent(requestKey);
+        if (cachedResult != null) {
+            LOGGER.debug("Response cache hit on streaming query request {}", queryRequest);
+            return cachedResult.aggregatedResult.getResponse(queryRequest);
+        }
+        return internalExecuteQuery(queryRequest, requestKey, partialResponseConsumer).getResponse(queryRequest);
+    }
+
+    /**
+     * Returns a snapshot of the current query statistics.
+     *
+     * @return a snapshot of the current query statistics.
+     */
+    @NotNull
+    public QueryServiceStatistics getStatistics() {
+        CacheStats responseCacheStats = this.responseCache.stats();
+        return new QueryServiceStatistics(this.totalQueryCount.get(), this.coalescedQueryCount.get(), responseCacheStats.hitCount(), responseCacheStats.missCount());
+    }
+
+    /**
+     * Invalidate all cached responses which contain the results of the given query step.
+     *
+     * @param queryStepKey
+     *         The cache key of the query step whose results are no longer valid.
+     */
+    void invalidateResponsesForStep(@NotNull QueryStepKey queryStepKey) {
+        this.stepGenerations.incrementAndGet(getGenerationStripe(queryStepKey));
+        Set<QueryRequestKey> affectedRequests;
+        synchronized (this.cachedResponsesByStep) {
+            affectedRequests = new HashSet<>(this.cachedResponsesByStep.removeAll(queryStepKey));
+        }
+        if (!affectedRequests.isEmpty()) {
+            LOGGER.debug("Invalidating {} cached responses for query step {}", affectedRequests.size(), queryStepKey);
+            this.responseCache.invalidateAll(affectedRequests);
+        }
+    }
+
+    /**
+     * Cache the given result unless one of the query steps has been invalidated since the given generations have
+     * been captured. The generations are checked again after the result has been cached, since an invalidation
+     * between the check and the insertion wouldn't find the cached result otherwise.
+     */
+    private void cacheResult(@NotNull QueryRequestKey requestKey, @NotNull QueryPlan queryPlan, @NotNull long[] capturedGenerations, @NotNull AggregatedQueryResult aggregatedResult) {
+        List<QueryStepKey> queryStepKeys = new ArrayList<>();
+        for (AbstractQueryStep queryStep : queryPlan.getQueryStepList()) {
+            queryStepKeys.add(queryStep.getCacheKey());
+        }
+        if (isAnyStepInvalidated(queryStepKeys, capturedGenerations)) {
+            LOGGER.debug("Not caching response for {} - a query step has been invalidated during execution", requestKey);
+            return;
+        }
+        for (QueryStepKey queryStepKey : queryStepKeys) {
+            this.cachedResponsesByStep.put(queryStepKey, requestKey);
+        }
+        this.responseCache.put(requestKey, new CachedQueryResult(aggregatedResult, queryStepKeys));
+        if (isAnyStepInvalidated(queryStepKeys, capturedGenerations)) {
+            LOGGER.debug("Discarding cached response for {} - a query step has been invalidated during caching", requestKey);
+            this.responseCache.invalidate(requestKey);
+        }
+    }
+
+    /**
+     * Capture the current invalidation generations of all steps in the given plan.
+     */
+    @NotNull
+    private long[] captureStepGenerations(@NotNull QueryPlan queryPlan) {
+        List<AbstractQueryStep> querySteps = queryPlan.getQueryStepList();
+        long[] generations = new long[querySteps.size()];
+        for (int i = 0; i < generations.length; i++) {
+            generations[i] = this.stepGenerations.get(getGenerationStripe(querySteps.get(i).getCacheKey()));
+        }
+        return generations;
+    }
+
+    private boolean isAnyStepInvalidated(@NotNull List<QueryStepKey> queryStepKeys, @NotNull long[] capturedGenerations) {
+        for (int i = 0; i < capturedGenerations.length; i++) {
+            if (this.stepGenerations.get(getGenerationStripe(queryStepKeys.get(i))) != capturedGenerations[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int getGenerationStripe(@NotNull QueryStepKey queryStepKey) {
+        return (queryStepKey.hashCode() & Integer.MAX_VALUE) % STEP_GENERATION_STRIPES;
+    }
+
+    private void onResponseRemoval(@NotNull RemovalNotification<QueryRequestKey, CachedQueryResult> notification) {
+        CachedQueryResult cachedResult = notification.getValue();
+        if (notification.getCause() == RemovalCause.REPLACED || cachedResult == null) {
+            return;
+        }
+        for (QueryStepKey queryStepKey : cachedResult.queryStepKeys) {
+            this.cachedResponsesByStep.remove(queryStepKey, notification.getKey());
+        }
+    }
+
+    /**
+     * Wait for the result of the given in-flight query. Returns null if the query didn't finish in time or the waiting
+     * thread was interrupted.
+     */
+    @Nullable
+    private AggregatedQueryResult awaitInFlightQuery(@NotNull CompletableFuture<AggregatedQueryResult> inFlightQuery) {
+        try {
+            return inFlightQuery.get(this.inFlightQueryTimeout, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new CompletionException(e.getCause());
+        } catch (TimeoutException e) {   // NOSONAR: Logging of exception not necessary
+            return null;
+        } catch (InterruptedException e) {   // NOSONAR: Logging of exception not necessary
+            Thread.currentThread().interrupt();
+            return null;
+        }
     }
 
     @NotNull
@@ -109,6 +345,14 @@ public class QueryService {
         return queryStepResults;
     }
 
+    @NotNull
+    private Iterable<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan, @NotNull Consumer<QueryStepResult> stepResultConsumer) {
+        LOGGER.trace("Executing query plan {} with partial results using executor {} ...", queryPlan, this.queryPlanExecutionStrategy.getClass().getSimpleName());
+        Iterable<QueryStepResult> queryStepResults = this.queryPlanExecutionStrategy.executeQueryPlan(queryPlan, stepResultConsumer);
+        LOGGER.trace("Executed query plan {} with partial results using executor {}.", queryPlan, this.queryPlanExecutionStrategy.getClass().getSimpleName());
+        return queryStepResults;
+    }
+
     @NotNull
     private QueryPlan prepareQueryPlan(@NotNull QueryRequest queryRequest) {
         LOGGER.trace("Calculating query plan using {} for request {} ...", this.queryPlanningStrategy.getClass().getSimpleName(), queryRequest);
@@ -138,12 +382,30 @@ public class QueryService {
         return resultGroups;
     }
 
+    /**
+     * Build a response from the ordered bilingual entries of the given result which contains only the requested page
+     * of each group. The duration of the order phase will be added to a copy of the result's performance statistics.
+     */
     @NotNull
-    private QueryResponse buildQueryResponse(@NotNull QueryRequest queryRequest, @NotNull Collection<Group<ResultEntry>> resultGroups, @NotNull Collection<DictionaryObject> similarRecommendations, @NotNull Collection<ExternalContent> externalContents, @NotNull QueryPerformanceStatistics performanceStatistics, @NotNull Collection<MonolingualEntry> monolingualEntries, @NotNull Collection<SynonymEntry> synonymEntries) {
+    private QueryResponse buildQueryResponse(@NotNull QueryRequest queryRequest, @NotNull AggregatedQueryResult aggregatedResult) {
+        long startOrderTime = System.currentTimeMillis();
+        Collection<Group<ResultEntry>> orderedResultGroups = selectPage(aggregatedResult.getOrderedResultGroups(queryRequest), queryRequest.getGroupOffset(), queryRequest.getGroupLimit());
+        long orderPhaseDuration = System.currentTimeMillis() - startOrderTime;
+
+        QueryPerformanceStatistics performanceStatistics = aggregatedResult.performanceStatistics.copy()
+                .setOrderPhaseDuration(orderPhaseDuration)
+                .setTotalDuration(aggregatedResult.performanceStatistics.getTotalDuration() + orderPhaseDuration);
+
+        return buildQueryResponse(queryRequest, orderedResultGroups, performanceStatistics, aggregatedResult.similarRecommendations,
+                aggregatedResult.externalContents, aggregatedResult.monolingualEntries, aggregatedResult.synonymEntries);
+    }
+
+    @NotNull
+    private QueryResponse buildQueryResponse(@NotNull QueryRequest queryRequest, @NotNull Collection<Group<ResultEntry>> orderedResultGroups, @NotNull QueryPerformanceStatistics performanceStatistics, @NotNull Collection<DictionaryObject> similarRecommendations, @NotNull Collection<ExternalContent> externalContents, @NotNull Collection<MonolingualEntry> monolingualEntries, @NotNull Collection<SynonymEntry> synonymEntries) {
         return new QueryResponseBuilder()
                 .setQueryRequestString(queryRequest.getQueryString())
                 .setQueryPerformanceStatistics(performanceStatistics)
-                .setGroupedBilingualResults(resultGroups)
+                .setGroupedBilingualResults(orderedResultGroups)
                 .setGroupingType(queryRequest.getQueryGrouping())
                 .setSimilarRecommendations(similarRecommendations)
                 .setExternalContents(externalContents)
@@ -152,6 +414,23 @@ public class QueryService {
                 .build();
     }
 
+    /**
+     * Returns a copy of the given response which echoes the given query string. All other contents are shared.
+     */
+    @NotNull
+    private static QueryResponse withRequestString(@NotNull QueryResponse queryResponse, @NotNull String queryString) {
+        return new QueryResponseBuilder()
+                .setQueryRequestString(queryString)
+                .setQueryPerformanceStatistics(queryResponse.getPerformanceStatistics())
+                .setGroupedBilingualResults(queryResponse.getGroupedBilingualEntries())
+                .setGroupingType(queryResponse.getGroupingType())
+                .setSimilarRecommendations(queryResponse.getSimilarRecommendations())
+                .setExternalContents(queryResponse.getExternalContents())
+                .setMonolingualEntries(queryResponse.getMonolingualEntries())
+                .setSynonymEntries(queryResponse.getSynonymEntries())
+                .build();
+    }
+
     @NotNull
     private List<ExternalContent> collectExternalContent(@NotNull Iterable<QueryStepResult> engineQueryResults) {
         return QueryUtil.collectExternalContent(engineQueryResults);
@@ -163,17 +442,43 @@ public class QueryService {
     }
 
     @NotNull
-    private QueryResponse internalExecuteQuery(@NotNull QueryRequest queryRequest) {
+    private AggregatedQueryResult internalExecuteQuery(@NotNull QueryRequest queryRequest, @NotNull QueryRequestKey requestKey, @Nullable Consumer<QueryResponse> partialResponseConsumer) {
         QueryPerformanceStatistics performanceStatistics = new QueryPerformanceStatistics();
-        validateQueryRequest(queryRequest);
 
         long startPlanningTime = System.currentTimeMillis();
         QueryPlan queryPlan = prepareQueryPlan(queryRequest);
         // TODO: validate query plan
+        long[] stepGenerationsBeforeQuery = captureStepGenerations(queryPlan);
 
         long startQueryTime = System.currentTimeMillis();
-        Iterable<QueryStepResult> engineQueryResults = executeQueryPlan(queryPlan);
+        Iterable<QueryStepResult> engineQueryResults;
+        if (partialResponseConsumer != null) {
+            engineQueryResults = executeQueryPlan(queryPlan, new PartialResponseAggregator(queryRequest, startPlanningTime, queryPlan.getQueryStepList().size(), partialResponseConsumer));
+        } else {
+            engineQueryResults = executeQueryPlan(queryPlan);
+        }
+
+        long startCollectingTime = System.currentTimeMillis();
+        performanceStatistics.setPlanningPhaseDuration(startPlanningTime - startQueryTime)
+                .setQueryPhaseDuration(startCollectingTime - startQueryTime);
+
+        AggregatedQueryResult aggregatedResult = aggregateQueryResults(queryRequest, engineQueryResults, performanceStatistics);
+        performanceStatistics.setTotalDuration(System.currentTimeMillis() - startPlanningTime);
 
+        // Results with failed or omitted steps are incomplete and will not be cached
+        if (queryPlan.isComplete() && Iterables.all(engineQueryResults, result -> result != null && !result.isFailedStep() && !result.isSkippedStep())) {
+            cacheResult(requestKey, queryPlan, stepGenerationsBeforeQuery, aggregatedResult);
+        }
+
+        return aggregatedResult;
+    }
+
+    /**
+     * Collect, group and merge the given results of a query. The durations of the single phases will be written to the
+     * given performance statistics. Ordering is deferred until a response for a concrete page is built.
+     */
+    @NotNull
+    private AggregatedQueryResult aggregateQueryResults(@NotNull QueryRequest queryRequest, @NotNull Iterable<QueryStepResult> engineQueryResults, @NotNull QueryPerformanceStatistics performanceStatistics) {
         long startCollectingTime = System.currentTimeMillis();
         Collection<DictionaryObject> similarRecommendations = collectSimilarRecommendations(engineQueryResults);
         Collection<ExternalContent> externalContents = collectExternalContent(engineQueryResults);
@@ -188,19 +493,12 @@ public class QueryService {
         monolingualEntries = mergeService.mergeElements(monolingualEntries, MonolingualEntry.class);
         similarRecommendations = mergeService.mergeElements(similarRecommendations, DictionaryObject.class);
 
-        long startOrderTime = System.currentTimeMillis();
-        Collection<Group<ResultEntry>> orderedResultGroups = orderBilingualEntries(queryRequest, mergedBilingualEntries);
-
         long finishTime = System.currentTimeMillis();
-        performanceStatistics.setPlanningPhaseDuration(startPlanningTime - startQueryTime)
-                .setQueryPhaseDuration(startCollectingTime - startQueryTime)
-                .setCollectPhaseDuration(startGroupingTime - startCollectingTime)
+        performanceStatistics.setCollectPhaseDuration(startGroupingTime - startCollectingTime)
                 .setGroupPhaseDuration(startMergingTime - startGroupingTime)
-                .setMergePhaseDuration(startOrderTime - startMergingTime)
-                .setOrderPhaseDuration(finishTime - startOrderTime)
-                .setTotalDuration(finishTime - startPlanningTime);
+                .setMergePhaseDuration(finishTime - startMergingTime);
 
-        return buildQueryResponse(queryRequest, orderedResultGroups, similarRecommendations, externalContents, performanceStatistics, monolingualEntries, synonymEntries);
+        return new AggregatedQueryResult(mergedBilingualEntries, similarRecommendations, externalContents, monolingualEntries, synonymEntries, performanceStatistics);
     }
 
     @NotNull
@@ -225,14 +523,264 @@ public class QueryService {
         return QueryUtil.collectSynonymEntries(engineQueryResults);
     }
 
+    /**
+     * Order all entries in the given groups with the order strategy of the given request.
+     */
     @NotNull
     private Collection<Group<ResultEntry>> orderBilingualEntries(@NotNull QueryRequest queryRequest, @NotNull Collection<Group<BilingualEntry>> groupsToOrder) {
-        OrderType orderType = queryRequest.getQueryOrdering();
+        OrderStrategy orderStrategy = queryRequest.getQueryOrdering().getOrderStrategy();
 
-        LOGGER.trace("Sorting results for query {} using strategy {} ...", queryRequest, orderType.getOrderStrategy().getClass().getSimpleName());
-        Collection<Group<ResultEntry>> sortedResultGroups = orderType.getOrderStrategy().sortResultGroups(queryRequest, groupsToOrder);
-        LOGGER.trace("Finished sorting results for query {} using strategy {}.", queryRequest, orderType.getOrderStrategy().getClass().getSimpleName());
+        LOGGER.trace("Sorting results for query {} using strategy {} ...", queryRequest, orderStrategy.getClass().getSimpleName());
+        Collection<Group<ResultEntry>> sortedResultGroups = orderStrategy.sortResultGroups(queryRequest, groupsToOrder);
+        LOGGER.trace("Finished sorting results for query {} using strategy {}.", queryRequest, orderStrategy.getClass().getSimpleName());
 
         return sortedResultGroups;
     }
+
+    /**
+     * Select the given page from each of the given ordered groups. The total number of entries in each group will be
+     * kept.
+     *
+     * @param orderedResultGroups
+     *         The ordered groups. Each group must contain at least the entries up to the end of the page.
+     * @param groupOffset
+     *         The number of first entries to skip in each group.
+     * @param groupLimit
+     *         The maximum number of entries per group or 0 if the number is not limited.
+     */
+    @NotNull
+    private Collection<Group<ResultEntry>> selectPage(@NotNull Collection<Group<ResultEntry>> orderedResultGroups, int groupOffset, int groupLimit) {
+        if (groupOffset == 0 && groupLimit == 0) {
+            return orderedResultGroups;
+        }
+        List<Group<ResultEntry>> pagedResultGroups = new ArrayList<>(orderedResultGroups.size());
+        for (Group<ResultEntry> resultGroup : orderedResultGroups) {
+            List<ResultEntry> entries = resultGroup.getResultEntries();
+            int fromIndex = Math.min(groupOffset, entries.size());
+            int toIndex = groupLimit > 0 ? (int) Math.min((long) fromIndex + groupLimit, entries.size()) : entries.size();
+            pagedResultGroups.add(new GroupBuilder<ResultEntry>()
+                    .setTotalEntryCount(resultGroup.getTotalEntryCount())
+                    .setGroupIdentifier(resultGroup.getGroupIdentifier())
+                    .addAll(entries.subList(fromIndex, toIndex))
+                    .build());
+        }
+        return pagedResultGroups;
+    }
+
+    /**
+     * Consumer for the results of single query steps which aggregates all results that have been received so far to a
+     * partial {@link QueryResponse}. The last step result will not cause a partial response, since the final response
+     * will be built anyway.
+     * <p>
+     * Each new step result is merged into the state of the previous partial response: only its own results are
+     * grouped and only the groups which received new entries are merged and ordered again. The other groups are reused
+     * as they are. Merging a changed group still processes all entries of that group, since the mergers can only merge
+     * complete collections.
+     */
+    private class PartialResponseAggregator implements Consumer<QueryStepResult> {
+
+        private final QueryRequest queryRequest;
+
+        private final long startTime;
+
+        private final int expectedResults;
+
+        private final Consumer<QueryResponse> partialResponseConsumer;
+
+        /** Unmerged bilingual entries of all received results by their group identifier. */
+        private final Map<String, List<BilingualEntry>> groupedEntries = new LinkedHashMap<>();
+
+        /** Merged and ordered groups by their group identifier. */
+        private final Map<String, Group<ResultEntry>> orderedResultGroups = new LinkedHashMap<>();
+
+        private final List<DictionaryObject> similarRecommendations = new ArrayList<>();
+
+        private final List<ExternalContent> externalContents = new ArrayList<>();
+
+        private final List<MonolingualEntry> monolingualEntries = new ArrayList<>();
+
+        private final List<SynonymEntry> synonymEntries = new ArrayList<>();
+
+        private Collection<DictionaryObject> mergedSimilarRecommendations = Collections.emptyList();
+
+        private Collection<MonolingualEntry> mergedMonolingualEntries = Collections.emptyList();
+
+        private int receivedResults;
+
+        PartialResponseAggregator(QueryRequest queryRequest, long startTime, int expectedResults, Consumer<QueryResponse> partialResponseConsumer) {
+            this.queryRequest = queryRequest;
+            this.startTime = startTime;
+            this.expectedResults = expectedResults;
+            this.partialResponseConsumer = partialResponseConsumer;
+        }
+
+        @Override
+        public void accept(QueryStepResult queryStepResult) {
+            this.receivedResults++;
+            if (this.receivedResults >= this.expectedResults) {
+                return;
+            }
+            QueryPerformanceStatistics performanceStatistics = new QueryPerformanceStatistics();
+            mergeStepResult(queryStepResult, performanceStatistics);
+            if (queryStepResult.isFailedStep() || queryStepResult.isSkippedStep()) {
+                return;
+            }
+
+            Collection<Group<ResultEntry>> pagedResultGroups = selectPage(this.orderedResultGroups.values(), this.queryRequest.getGroupOffset(), this.queryRequest.getGroupLimit());
+            performanceStatistics.setTotalDuration(System.currentTimeMillis() - this.startTime);
+
+            this.partialResponseConsumer.accept(buildQueryResponse(this.queryRequest, new ArrayList<>(pagedResultGroups), performanceStatistics,
+                    this.mergedSimilarRecommendations, new ArrayList<>(this.externalContents), this.mergedMonolingualEntries, new ArrayList<>(this.synonymEntries)));
+        }
+
+        private void mergeStepResult(@NotNull QueryStepResult queryStepResult, @NotNull QueryPerformanceStatistics performanceStatistics) {
+            long startCollectingTime = System.currentTimeMillis();
+            List<QueryStepResult> stepResults = Collections.singletonList(queryStepResult);
+            List<DictionaryObject> newSimilarRecommendations = collectSimilarRecommendations(stepResults);
+            List<MonolingualEntry> newMonolingualEntries = collectMonolingualEntries(stepResults);
+            this.externalContents.addAll(collectExternalContent(stepResults));
+            this.synonymEntries.addAll(collectSynonymEntries(stepResults));
+
+            long startGroupingTime = System.currentTimeMillis();
+            List<Group<BilingualEntry>> changedGroups = new ArrayList<>();
+            for (Group<BilingualEntry> stepGroup : groupQueryResults(this.queryRequest, stepResults)) {
+                List<BilingualEntry> entries = this.groupedEntries.get(stepGroup.getGroupIdentifier());
+                if (entries != null && stepGroup.getResultEntries().isEmpty()) {
+                    continue;
+                } else if (entries == null) {
+                    entries = new ArrayList<>();
+                    this.groupedEntries.put(stepGroup.getGroupIdentifier(), entries);
+                }
+                entries.addAll(stepGroup.getResultEntries());
+                changedGroups.add(new GroupBuilder<BilingualEntry>().setGroupIdentifier(stepGroup.getGroupIdentifier()).addAll(entries).build());
+            }
+
+            long startMergingTime = System.currentTimeMillis();
+            Collection<Group<BilingualEntry>> mergedGroups = mergeBilingualEntries(changedGroups);
+            if (!newMonolingualEntries.isEmpty()) {
+                this.monolingualEntries.addAll(newMonolingualEntries);
+                this.mergedMonolingualEntries = mergeService.mergeElements(new ArrayList<>(this.monolingualEntries), MonolingualEntry.class);
+            }
+            if (!newSimilarRecommendations.isEmpty()) {
+                this.similarRecommendations.addAll(newSimilarRecommendations);
+                this.mergedSimilarRecommendations = mergeService.mergeElements(new ArrayList<>(this.similarRecommendations), DictionaryObject.class);
+            }
+
+            long startOrderTime = System.currentTimeMillis();
+            for (Group<ResultEntry> orderedGroup : orderBilingualEntries(this.queryRequest, mergedGroups)) {
+                this.orderedResultGroups.put(orderedGroup.getGroupIdentifier(), orderedGroup);
+            }
+
+            long finishTime = System.currentTimeMillis();
+            performanceStatistics.setCollectPhaseDuration(startGroupingTime - startCollectingTime)
+                    .setGroupPhaseDuration(startMergingTime - startGroupingTime)
+                    .setMergePhaseDuration(startOrderTime - startMergingTime)
+                    .setOrderPhaseDuration(finishTime - startOrderTime);
+        }
+    }
+
+    /**
+     * Collected and merged results of a query. The entries are ordered only once per required number of entries and
+     * responses for single pages are selected from the ordered entries on demand. The response without paging is built only once, too.
+     */
+    private class AggregatedQueryResult {
+
+        private final Collection<Group<BilingualEntry>> mergedBilingualGroups;
+
+        private final Collection<DictionaryObject> similarRecommendations;
+
+        private final Collection<ExternalContent> externalContents;
+
+        private final Collection<MonolingualEntry> monolingualEntries;
+
+        private final Collection<SynonymEntry> synonymEntries;
+
+        private final QueryPerformanceStatistics performanceStatistics;
+
+        private Collection<Group<ResultEntry>> orderedResultGroups;
+
+        /** Number of first entries per group in {@link #orderedResultGroups} or 0 if all entries are ordered. */
+        private int orderedEntryBound;
+
+        private QueryResponse completeResponse;
+
+        AggregatedQueryResult(Collection<Group<BilingualEntry>> mergedBilingualGroups, Collection<DictionaryObject> similarRecommendations, Collection<ExternalContent> externalContents, Collection<MonolingualEntry> monolingualEntries, Collection<SynonymEntry> synonymEntries, QueryPerformanceStatistics performanceStatistics) {
+            this.mergedBilingualGroups = mergedBilingualGroups;
+            this.similarRecommendations = similarRecommendations;
+            this.externalContents = externalContents;
+            this.monolingualEntries = monolingualEntries;
+            this.synonymEntries = synonymEntries;
+            this.performanceStatistics = performanceStatistics;
+        }
+
+        /**
+         * Returns the merged bilingual entries ordered with the order strategy of the given request. Since the
+         * ordering is part of the request key, all requests for this result use the same order strategy. If the
+         * request is limited and uses a {@link BoundedRelevanceOrderStrategy}, only the entries up to the end of the
+         * requested page will be ordered until a request needs more entries.
+         */
+        @NotNull
+        synchronized Collection<Group<ResultEntry>> getOrderedResultGroups(@NotNull QueryRequest queryRequest) {
+            int requiredEntries = getRequiredEntries(queryRequest);
+            if (this.orderedResultGroups != null && (this.orderedEntryBound == 0 || (requiredEntries > 0 && requiredEntries <= this.orderedEntryBound))) {
+                return this.orderedResultGroups;
+            }
+            OrderStrategy orderStrategy = queryRequest.getQueryOrdering().getOrderStrategy();
+            if (requiredEntries > 0 && orderStrategy instanceof BoundedRelevanceOrderStrategy) {
+                LOGGER.trace("Sorting {} first results per group for query {} ...", requiredEntries, queryRequest);
+                this.orderedResultGroups = ((BoundedRelevanceOrderStrategy) orderStrategy).sortResultGroups(queryRequest, this.mergedBilingualGroups, requiredEntries);
+                this.orderedEntryBound = requiredEntries;
+            } else {
+                this.orderedResultGroups = orderBilingualEntries(queryRequest, this.mergedBilingualGroups);
+                this.orderedEntryBound = 0;
+            }
+            return this.orderedResultGroups;
+        }
+
+        /**
+         * Returns the number of first entries per group which are necessary to build the requested page or 0 if all
+         * entries are necessary.
+         */
+        private int getRequiredEntries(@NotNull QueryRequest queryRequest) {
+            if (queryRequest.getGroupLimit() <= 0) {
+                return 0;
+            }
+            return (int) Math.min((long) queryRequest.getGroupOffset() + queryRequest.getGroupLimit(), Integer.MAX_VALUE);
+        }
+
+        @NotNull
+        QueryResponse getResponse(@NotNull QueryRequest queryRequest) {
+            if (queryRequest.getGroupLimit() > 0 || queryRequest.getGroupOffset() > 0) {
+                return buildQueryResponse(queryRequest, this);
+            }
+            QueryResponse response;
+            synchronized (this) {
+                if (this.completeResponse == null) {
+                    this.completeResponse = buildQueryResponse(queryRequest, this);
+                }
+                response = this.completeResponse;
+            }
+            // Identical requests may still differ in the whitespace of their query strings
+            if (!Objects.equals(response.getRequestString(), queryRequest.getQueryString())) {
+                response = withRequestString(response, queryRequest.getQueryString());
+            }
+            return response;
+        }
+    }
+
+    /**
+     * Entry of the response cache. Contains the steps from which the result was built to allow invalidating the
+     * result when one of the steps is invalidated.
+     */
+    private static class CachedQueryResult {
+
+        private final AggregatedQueryResult aggregatedResult;
+
+        private final List<QueryStepKey> queryStepKeys;
+
+        CachedQueryResult(AggregatedQueryResult aggregatedResult, List<QueryStepKey> queryStepKeys) {
+            this.aggregatedResult = aggregatedResult;
+            this.queryStepKeys = queryStepKeys;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.base.MoreObjects;
+
+import java.io.Serializable;
+
+/**
+ * Snapshot of runtime statistics about the queries which have been handled by the {@link QueryService}.
+ */
+public class QueryServiceStatistics implements Serializable {
+
+    private static final long serialVersionUID = -4375406342785611209L;
+
+    private final long totalQueries;
+
+    private final long coalescedQueries;
+
+    private final long responseCacheHits;
+
+    private final long responseCacheMisses;
+
+    QueryServiceStatistics(long totalQueries, long coalescedQueries, long responseCacheHits, long responseCacheMisses) {
+        this.totalQueries = totalQueries;
+        this.coalescedQueries = coalescedQueries;
+        this.responseCacheHits = responseCacheHits;
+        this.responseCacheMisses = responseCacheMisses;
+    }
+
+    /**
+     * Returns the total number of queries which have been requested.
+     *
+     * @return the total number of queries which have been requested.
+     */
+    public long getTotalQueries() {
+        return this.totalQueries;
+    }
+
+    /**
+     * Returns the number of queries which were not executed on their own, because an identical query was already
+     * in-flight and its response could be shared.
+     *
+     * @return the number of coalesced queries.
+     */
+    public long getCoalescedQueries() {
+        return this.coalescedQueries;
+    }
+
+    /**
+     * Returns the ratio of coalesced queries to all queries as a value between 0 and 1.
+     *
+     * @return the ratio of coalesced queries to all queries.
+     */
+    public double getCoalescingRatio() {
+        return this.totalQueries > 0 ? (double) this.coalescedQueries / this.totalQueries : 0;
+    }
+
+    /**
+     * Returns the number of queries which have been answered from the response cache.
+     *
+     * @return the number of queries which have been answered from the response cache.
+     */
+    public long getResponseCacheHits() {
+        return this.responseCacheHits;
+    }
+
+    /**
+     * Returns the number of queries which could not be answered from the response cache.
+     *
+     * @return the number of queries which could not be answered from the response cache.
+     */
+    public long getResponseCacheMisses() {
+        return this.responseCacheMisses;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("totalQueries", this.totalQueries)
+                .add("coalescedQueries", this.coalescedQueries)
+                .add("coalescingRatio", getCoalescingRatio())
+                .add("responseCacheHits", this.responseCacheHits)
+                .add("responseCacheMisses", this.responseCacheMisses)
+                .toString();
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.BaseEncoding;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xlrnet.metadict.api.language.Language;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Canonical, fixed-width key for caching the result of a query step. The key consists of a single version byte
+ * followed by a 128 bit hash over the type of the step, the name of the engine, the queried languages, the direction
+ * flag and the normalized query string. In contrast to {@link AbstractQueryStep#toString()}, the key does not depend on
+ * the internal structure of the step classes and can safely be used for persistent caches.
+ * <p>
+ * The version byte must be incremented whenever the layout of the hashed data changes. Old persisted entries will then
+ * simply never be looked up again.
+ */
+public final class QueryStepKey implements Serializable {
+
+    private static final long serialVersionUID = 1390478633549245713L;
+
+    /** Current version of the key layout. */
+    static final byte KEY_VERSION = 1;
+
+    /** Length of a key in bytes. */
+    public static final int KEY_LENGTH = 17;
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+
+    private static final BaseEncoding KEY_ENCODING = BaseEncoding.base16().lowerCase();
+
+    private static final byte TYPE_BILINGUAL = 'B';
+
+    private static final byte TYPE_MONOLINGUAL = 'M';
+
+    private final byte[] keyBytes;
+
+    private final int hashCode;
+
+    private QueryStepKey(byte[] keyBytes) {
+        this.keyBytes = keyBytes;
+        this.hashCode = Arrays.hashCode(keyBytes);
+    }
+
+    /**
+     * Create a new key for a bilingual query step.
+     *
+     * @param searchEngineName
+     *         The name of the queried engine.
+     * @param inputLanguage
+     *         The input language of the query.
+     * @param outputLanguage
+     *         The output language of the query.
+     * @param allowBothWay
+     *         True, if the query may be executed in both directions.
+     * @param queryString
+     *         The query string which will be normalized.
+     * @return a new key.
+     */
+    @NotNull
+    static QueryStepKey forBilingualStep(@Nullable String searchEngineName, @Nullable Language inputLanguage, @Nullable Language outputLanguage, boolean allowBothWay, @Nullable String queryString) {
+        Hasher hasher = HASH_FUNCTION.newHasher().putByte(TYPE_BILINGUAL);
+        putString(hasher, searchEngineName);
+        putLanguage(hasher, inputLanguage);
+        putLanguage(hasher, outputLanguage);
+        hasher.putBoolean(allowBothWay);
+        putString(hasher, normalizeQueryString(queryString));
+        return fromHash(hasher.hash());
+    }
+
+    /**
+     * Create a new key for a monolingual query step.
+     *
+     * @param searchEngineName
+     *         The name of the queried engine.
+     * @param requestLanguage
+     *         The language of the query.
+     * @param queryString
+     *         The query string which will be normalized.
+     * @return a new key.
+     */
+    @NotNull
+    static QueryStepKey forMonolingualStep(@Nullable String searchEngineName, @Nullable Language requestLanguage, @Nullable String queryString) {
+        Hasher hasher = HASH_FUNCTION.newHasher().putByte(TYPE_MONOLINGUAL);
+        putString(hasher, searchEngineName);
+        putLanguage(hasher, requestLanguage);
+        putString(hasher, normalizeQueryString(queryString));
+        return fromHash(hasher.hash());
+    }
+
+    /**
+     * Normalize a query string for use in a key. The string will be trimmed, unicode-normalized, lowercased and
+     * consecutive whitespace will be collapsed.
+     *
+     * @param queryString
+     *         The string to normalize.
+     * @return the normalized query string.
+     */
+    @Nullable
+    static String normalizeQueryString(@Nullable String queryString) {
+        if (queryString == null) {
+            return null;
+        }
+        String normalized = Normalizer.normalize(queryString, Normalizer.Form.NFC);
+        return StringUtils.normalizeSpace(normalized).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns a copy of the binary representation of this key.
+     *
+     * @return a copy of the binary representation of this key.
+     */
+    @NotNull
+    public byte[] toByteArray() {
+        return this.keyBytes.clone();
+    }
+
+    /**
+     * Returns the key as a string of hexadecimal characters. This representation is used for storage backends which
+     * support only string keys.
+     *
+     * @return the key as a string of hexadecimal characters.
+     */
+    @Override
+    public String toString() {
+        return KEY_ENCODING.encode(this.keyBytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof QueryStepKey)) return false;
+        QueryStepKey that = (QueryStepKey) o;
+        return this.hashCode == that.hashCode && Arrays.equals(this.keyBytes, that.keyBytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return this.hashCode;
+    }
+
+    @NotNull
+    private static QueryStepKey fromHash(@NotNull HashCode hashCode) {
+        byte[] keyBytes = new byte[KEY_LENGTH];
+        keyBytes[0] = KEY_VERSION;
+        hashCode.writeBytesTo(keyBytes, 1, KEY_LENGTH - 1);
+        return new QueryStepKey(keyBytes);
+    }
+
+    private static void putString(@NotNull Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+        } else {
+            hasher.putInt(value.length()).putString(value, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void putLanguage(@NotNull Hasher hasher, @Nullable Language language) {
+        if (language == null) {
+            hasher.putInt(-1);
+        } else {
+            putString(hasher, language.getIdentifier());
+            putString(hasher, StringUtils.defaultString(language.getDialect()));
+        }
+    }
+}
@@ -45,6 +45,8 @@ public class QueryStepResultBuilder {
 
     private String errorMessage;
 
+    private boolean skippedStep = false;
+
     /**
      * Returns a new instance of {@link QueryStepResult}. This method will throw a {@link NullPointerException} if
      * either the {@link BilingualQueryStep} or the {@link BilingualQueryResult} is not set.
@@ -55,7 +57,7 @@ public class QueryStepResultBuilder {
         checkNotNull(this.queryStep, "Provided query step may not be null");
         checkNotNull(this.engineQueryResult, "Provided query result may not be null");
 
-        return new ImmutableQueryStepResult(this.queryStep, this.engineQueryResult, this.executionTime, this.failedStep, this.errorMessage);
+        return new ImmutableQueryStepResult(this.queryStep, this.engineQueryResult, this.executionTime, this.failedStep, this.errorMessage, this.skippedStep);
     }
 
     /**
@@ -108,6 +110,19 @@ public class QueryStepResultBuilder {
         return this;
     }
 
+    /**
+     * Should be set to true, if the attached query step has not been executed at all. If this is set to true, then
+     * {@link #setErrorMessage(String)} should be set with the reason why the step was skipped.
+     *
+     * @param skippedStep
+     *         True, if the attached query step has not been executed.
+     * @return the current builder
+     */
+    public QueryStepResultBuilder setSkippedStep(boolean skippedStep) {
+        this.skippedStep = skippedStep;
+        return this;
+    }
+
     /**
      * Set the {@link BilingualQueryStep} that was executed.
      *
@@ -0,0 +1,704 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.xlrnet.metadict.api.language.GrammaticalForm;
+import org.xlrnet.metadict.api.language.GrammaticalGender;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Schema-aware binary codec for cached query step results. Instead of writing class descriptors and field names like
+ * the Java serialization, the codec writes only the values of the query result model in a fixed order. Strings and
+ * languages which occur multiple times in the same value are written only once and referenced afterwards.
+ * <p>
+ * Every encoded value starts with a version header. Values with a different version can't be read and cause an {@link
+ * IOException}, i.e. the version must be incremented whenever the layout changes.
+ * <p>
+ * Supported are {@link QueryStepResult} and the cached results of {@link AbstractCachedExecutionStrategy} with
+ * bilingual or monolingual steps and results. Use {@link #isSupported(Object)} to check if a value can be encoded.
+ */
+public final class QueryStepResultCodec {
+
+    /** Current version of the binary layout. */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int TYPE_STEP_RESULT = 1;
+
+    private static final int TYPE_CACHED_STEP_RESULT = 2;
+
+    private static final int NULL = 0;
+
+    private static final int STEP_BILINGUAL = 1;
+
+    private static final int STEP_MONOLINGUAL = 2;
+
+    private static final int RESULT_BILINGUAL = 1;
+
+    private static final int RESULT_MONOLINGUAL = 2;
+
+    private static final int FLAG_FAILED = 1;
+
+    private static final int FLAG_SKIPPED = 2;
+
+    /** Marker for a value which is written for the first time. Higher values are references to earlier values. */
+    private static final int NEW_VALUE = 1;
+
+    private static final int FORM_ENUM = 0;
+
+    private static final int FORM_SERIALIZED = 1;
+
+    private QueryStepResultCodec() {
+
+    }
+
+    /**
+     * Returns true, if the given value can be encoded with this codec.
+     *
+     * @param value
+     *         The value to check.
+     * @return true, if the given value can be encoded with this codec.
+     */
+    public static boolean isSupported(@Nullable Object value) {
+        if (value instanceof CachedQueryStepResult) {
+            return isSupportedStepResult(((CachedQueryStepResult) value).getQueryStepResult());
+        }
+        return value instanceof QueryStepResult && isSupportedStepResult((QueryStepResult) value);
+    }
+
+    /**
+     * Write the given value to the given output. The value must be supported by this codec.
+     *
+     * @param out
+     *         The output to write to.
+     * @param value
+     *         The value to write.
+     * @throws IOException
+     *         if writing failed.
+     */
+    public static void write(@NotNull DataOutput out, @NotNull Object value) throws IOException {
+        if (!isSupported(value)) {
+            throw new IllegalArgumentException("Unsupported value type: " + value.getClass().getCanonicalName());
+        }
+        Encoder encoder = new Encoder(out);
+        out.writeByte(FORMAT_VERSION);
+        if (value instanceof CachedQueryStepResult) {
+            CachedQueryStepResult cachedResult = (CachedQueryStepResult) value;
+            out.writeByte(TYPE_CACHED_STEP_RESULT);
+            encoder.writeLong(cachedResult.getWriteTimestamp());
+            encoder.writeStepResult(cachedResult.getQueryStepResult());
+        } else {
+            out.writeByte(TYPE_STEP_RESULT);
+            encoder.writeStepResult((QueryStepResult) value);
+        }
+    }
+
+    /**
+     * Read a value from the given input which has been written with {@link #write(DataOutput, Object)}.
+     *
+     * @param in
+     *         The input to read from.
+     * @return the read value.
+     * @throws IOException
+     *         if the value couldn't be read or has been written with a different version.
+     */
+    @NotNull
+    public static Object read(@NotNull DataInput in) throws IOException {
+        int version = in.readUnsignedByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported format version " + version + " - expected " + FORMAT_VERSION);
+        }
+        Decoder decoder = new Decoder(in);
+        int type = in.readUnsignedByte();
+        switch (type) {
+            case TYPE_CACHED_STEP_RESULT:
+                long writeTimestamp = decoder.readLong();
+                return new CachedQueryStepResult(decoder.readStepResult(), writeTimestamp);
+            case TYPE_STEP_RESULT:
+                return decoder.readStepResult();
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static boolean isSupportedStepResult(@Nullable QueryStepResult stepResult) {
+        if (stepResult == null) {
+            return false;
+        }
+        AbstractQueryStep queryStep = stepResult.getQueryStep();
+        EngineQueryResult engineQueryResult = stepResult.getEngineQueryResult();
+        return (queryStep == null || queryStep.getClass() == BilingualQueryStep.class || queryStep.getClass() == MonolingualQueryStep.class)
+                && (engineQueryResult == null || engineQueryResult instanceof BilingualQueryResult || engineQueryResult instanceof MonolingualQueryResult);
+    }
+
+    /**
+     * Writes the single parts of a value and keeps track of already written strings and languages.
+     */
+    private static class Encoder {
+
+        private final DataOutput out;
+
+        private final Map<String, Integer> writtenStrings = new HashMap<>();
+
+        private final Map<Language, Integer> writtenLanguages = new HashMap<>();
+
+        private Encoder(DataOutput out) {
+            this.out = out;
+        }
+
+        private void writeStepResult(@NotNull QueryStepResult stepResult) throws IOException {
+            int flags = (stepResult.isFailedStep() ? FLAG_FAILED : 0) | (stepResult.isSkippedStep() ? FLAG_SKIPPED : 0);
+            this.out.writeByte(flags);
+            writeLong(stepResult.getExecutionTime());
+            writeString(stepResult.getErrorMessage());
+            writeQueryStep(stepResult.getQueryStep());
+            writeEngineQueryResult(stepResult.getEngineQueryResult());
+        }
+
+        private void writeQueryStep(@Nullable AbstractQueryStep queryStep) throws IOException {
+            if (queryStep instanceof BilingualQueryStep) {
+                BilingualQueryStep bilingualQueryStep = (BilingualQueryStep) queryStep;
+                this.out.writeByte(STEP_BILINGUAL);
+                writeString(queryStep.getSearchEngineName());
+                writeString(queryStep.getQueryString());
+                writeLanguage(bilingualQueryStep.getInputLanguage());
+                writeLanguage(bilingualQueryStep.getOutputLanguage());
+                this.out.writeBoolean(bilingualQueryStep.isAllowBothWay());
+            } else if (queryStep instanceof MonolingualQueryStep) {
+                this.out.writeByte(STEP_MONOLINGUAL);
+                writeString(queryStep.getSearchEngineName());
+                writeString(queryStep.getQueryString());
+                writeLanguage(((MonolingualQueryStep) queryStep).getRequestLanguage());
+            } else {
+                this.out.writeByte(NULL);
+            }
+        }
+
+        private void writeEngineQueryResult(@Nullable EngineQueryResult engineQueryResult) throws IOException {
+            if (engineQueryResult instanceof BilingualQueryResult) {
+                this.out.writeByte(RESULT_BILINGUAL);
+                List<BilingualEntry> entries = ((BilingualQueryResult) engineQueryResult).getBilingualEntries();
+                writeInt(entries.size());
+                for (BilingualEntry entry : entries) {
+                    writeEnum(entry.getEntryType());
+                    writeDictionaryObject(entry.getSource());
+                    writeDictionaryObject(entry.getTarget());
+                }
+            } else if (engineQueryResult instanceof MonolingualQueryResult) {
+                this.out.writeByte(RESULT_MONOLINGUAL);
+                List<MonolingualEntry> entries = ((MonolingualQueryResult) engineQueryResult).getMonolingualEntries();
+                writeInt(entries.size());
+                for (MonolingualEntry entry : entries) {
+                    writeEnum(entry.getEntryType());
+                    writeDictionaryObject(entry.getContent());
+                }
+            } else {
+                this.out.writeByte(NULL);
+                return;
+            }
+            writeDictionaryObjects(engineQueryResult.getSimilarRecommendations());
+            writeExternalContents(engineQueryResult.getExternalContents());
+            writeSynonymEntries(engineQueryResult.getSynonymEntries());
+        }
+
+        private void writeExternalContents(@NotNull List<ExternalContent> externalContents) throws IOException {
+            writeInt(externalContents.size());
+            for (ExternalContent externalContent : externalContents) {
+                writeString(externalContent.getTitle());
+                writeString(externalContent.getDescription());
+                writeString(externalContent.getLink() != null ? externalContent.getLink().toExternalForm() : null);
+            }
+        }
+
+        private void writeSynonymEntries(@NotNull List<SynonymEntry> synonymEntries) throws IOException {
+            writeInt(synonymEntries.size());
+            for (SynonymEntry synonymEntry : synonymEntries) {
+                writeDictionaryObject(synonymEntry.getBaseObject());
+                writeEnum(synonymEntry.getBaseEntryType());
+                Collection<SynonymGroup> synonymGroups = synonymEntry.getSynonymGroups();
+                writeInt(synonymGroups.size());
+                for (SynonymGroup synonymGroup : synonymGroups) {
+                    writeDictionaryObject(synonymGroup.getBaseMeaning());
+                    writeDictionaryObjects(synonymGroup.getSynonyms());
+                }
+            }
+        }
+
+        private void writeDictionaryObjects(@NotNull Collection<DictionaryObject> dictionaryObjects) throws IOException {
+            writeInt(dictionaryObjects.size());
+            for (DictionaryObject dictionaryObject : dictionaryObjects) {
+                writeDictionaryObject(dictionaryObject);
+            }
+        }
+
+        private void writeDictionaryObject(@NotNull DictionaryObject dictionaryObject) throws IOException {
+            writeLanguage(dictionaryObject.getLanguage());
+            writeString(dictionaryObject.getGeneralForm());
+            writeString(dictionaryObject.getDescription());
+            writeString(dictionaryObject.getAbbreviation());
+            writeString(dictionaryObject.getDomain());
+            writeString(dictionaryObject.getPronunciation());
+            writeEnum(dictionaryObject.getGrammaticalGender());
+            writeStrings(dictionaryObject.getMeanings());
+            writeStrings(dictionaryObject.getSyllabification());
+            writeStrings(dictionaryObject.getAlternateForms());
+            writeAdditionalForms(dictionaryObject.getAdditionalForms());
+        }
+
+        private void writeAdditionalForms(@Nullable Map<GrammaticalForm, String> additionalForms) throws IOException {
+            if (additionalForms == null) {
+                writeInt(0);
+                return;
+            }
+            writeInt(additionalForms.size());
+            for (Map.Entry<GrammaticalForm, String> additionalForm : additionalForms.entrySet()) {
+                writeGrammaticalForm(additionalForm.getKey());
+                writeString(additionalForm.getValue());
+            }
+        }
+
+        private void writeGrammaticalForm(@NotNull GrammaticalForm grammaticalForm) throws IOException {
+            if (grammaticalForm instanceof Enum) {
+                this.out.writeByte(FORM_ENUM);
+                writeString(((Enum<?>) grammaticalForm).getDeclaringClass().getName());
+                writeString(((Enum<?>) grammaticalForm).name());
+            } else {
+                this.out.writeByte(FORM_SERIALIZED);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+                    objectOutputStream.writeObject(grammaticalForm);
+                }
+                writeInt(bytes.size());
+                this.out.write(bytes.toByteArray());
+            }
+        }
+
+        private void writeStrings(@Nullable List<String> strings) throws IOException {
+            if (strings == null) {
+                writeInt(0);
+                return;
+            }
+            writeInt(strings.size());
+            for (String string : strings) {
+                writeString(string);
+            }
+        }
+
+        private void writeEnum(@Nullable Enum<?> value) throws IOException {
+            writeString(value != null ? value.name() : null);
+        }
+
+        private void writeLanguage(@Nullable Language language) throws IOException {
+            if (language == null) {
+                writeInt(NULL);
+                return;
+            }
+            Integer index = this.writtenLanguages.get(language);
+            if (index != null) {
+                writeInt(NEW_VALUE + 1 + index);
+                return;
+            }
+            this.writtenLanguages.put(language, this.writtenLanguages.size());
+            writeInt(NEW_VALUE);
+            writeString(language.getIdentifier());
+            writeString(language.getDisplayName());
+            writeString(language.getDialect());
+            writeString(language.getDialectDisplayName());
+        }
+
+        private void writeString(@Nullable String string) throws IOException {
+            if (string == null) {
+                writeInt(NULL);
+                return;
+            }
+            Integer index = this.writtenStrings.get(string);
+            if (index != null) {
+                writeInt(NEW_VALUE + 1 + index);
+                return;
+            }
+            this.writtenStrings.put(string, this.writtenStrings.size());
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeInt(NEW_VALUE);
+            writeInt(bytes.length);
+            this.out.write(bytes);
+        }
+
+        /** Write a non-negative int with a variable length of one to five bytes. */
+        private void writeInt(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                this.out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.out.writeByte(value);
+        }
+
+        /** Write a long with a variable length of one to ten bytes. Small non-negative values need the fewest bytes. */
+        private void writeLong(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                this.out.writeByte((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            this.out.writeByte((int) value);
+        }
+    }
+
+    /**
+     * Reads the single parts of a value and keeps track of already read strings and languages.
+     */
+    private static class Decoder {
+
+        private final DataInput in;
+
+        private final List<String> readStrings = new ArrayList<>();
+
+        private final List<Language> readLanguages = new ArrayList<>();
+
+        private Decoder(DataInput in) {
+            this.in = in;
+        }
+
+        @NotNull
+        private QueryStepResult readStepResult() throws IOException {
+            int flags = this.in.readUnsignedByte();
+            long executionTime = readLong();
+            String errorMessage = readString();
+            AbstractQueryStep queryStep = readQueryStep();
+            EngineQueryResult engineQueryResult = readEngineQueryResult();
+
+            return new QueryStepResultBuilder()
+                    .setFailedStep((flags & FLAG_FAILED) != 0)
+                    .setSkippedStep((flags & FLAG_SKIPPED) != 0)
+                    .setExecutionTime(executionTime)
+                    .setErrorMessage(errorMessage)
+                    .setQueryStep(queryStep)
+                    .setEngineQueryResult(engineQueryResult != null ? AbstractCachedExecutionStrategy.compactQueryResult(engineQueryResult) : null)
+                    .build();
+        }
+
+        @Nullable
+        private AbstractQueryStep readQueryStep() throws IOException {
+            int stepType = this.in.readUnsignedByte();
+            AbstractQueryStep queryStep;
+            if (stepType == STEP_BILINGUAL) {
+                queryStep = new BilingualQueryStep();
+            } else if (stepType == STEP_MONOLINGUAL) {
+                queryStep = new MonolingualQueryStep();
+            } else if (stepType == NULL) {
+                return null;
+            } else {
+                throw new IOException("Unknown query step type " + stepType);
+            }
+
+            String searchEngineName = readString();
+            String queryString = readString();
+            if (searchEngineName != null) {
+                queryStep.setSearchEngineName(searchEngineName);
+            }
+            if (queryString != null) {
+                queryStep.setQueryString(queryString);
+            }
+            if (queryStep instanceof BilingualQueryStep) {
+                Language inputLanguage = readLanguage();
+                Language outputLanguage = readLanguage();
+                if (inputLanguage != null) {
+                    ((BilingualQueryStep) queryStep).setInputLanguage(inputLanguage);
+                }
+                if (outputLanguage != null) {
+                    ((BilingualQueryStep) queryStep).setOutputLanguage(outputLanguage);
+                }
+                ((BilingualQueryStep) queryStep).setAllowBothWay(this.in.readBoolean());
+            } else {
+                Language requestLanguage = readLanguage();
+                if (requestLanguage != null) {
+                    ((MonolingualQueryStep) queryStep).setRequestLanguage(requestLanguage);
+                }
+            }
+            return queryStep;
+        }
+
+        @Nullable
+        private EngineQueryResult readEngineQueryResult() throws IOException {
+            int resultType = this.in.readUnsignedByte();
+            EngineQueryResultBuilder resultBuilder;
+            if (resultType == RESULT_BILINGUAL) {
+                BilingualQueryResultBuilder bilingualBuilder = ImmutableBilingualQueryResult.builder();
+                int entryCount = readInt();
+                for (int i = 0; i < entryCount; i++) {
+                    EntryType entryType = readEnum(EntryType.class);
+                    bilingualBuilder.addBilingualEntry(ImmutableBilingualEntry.builder()
+                            .setEntryType(entryType)
+                            .setInputObject(readDictionaryObject())
+                            .setOutputObject(readDictionaryObject())
+                            .build());
+                }
+                resultBuilder = bilingualBuilder;
+            } else if (resultType == RESULT_MONOLINGUAL) {
+                MonolingualQueryResultBuilder monolingualBuilder = ImmutableMonolingualQueryResult.builder();
+                int entryCount = readInt();
+                for (int i = 0; i < entryCount; i++) {
+                    EntryType entryType = readEnum(EntryType.class);
+                    monolingualBuilder.addMonolingualEntry(ImmutableMonolingualEntry.builder()
+                            .setEntryType(entryType)
+                            .setContent(readDictionaryObject())
+                            .build());
+                }
+                resultBuilder = monolingualBuilder;
+            } else if (resultType == NULL) {
+                return null;
+            } else {
+                throw new IOException("Unknown query result type " + resultType);
+            }
+
+            int recommendationCount = readInt();
+            for (int i = 0; i < recommendationCount; i++) {
+                resultBuilder.addSimilarRecommendation(readDictionaryObject());
+            }
+            int externalContentCount = readInt();
+            for (int i = 0; i < externalContentCount; i++) {
+                resultBuilder.addExternalContent(readExternalContent());
+            }
+            int synonymEntryCount = readInt();
+            for (int i = 0; i < synonymEntryCount; i++) {
+                resultBuilder.addSynonymEntry(readSynonymEntry());
+            }
+            return resultBuilder.build();
+        }
+
+        @NotNull
+        private ExternalContent readExternalContent() throws IOException {
+            ExternalContentBuilder builder = ImmutableExternalContent.builder();
+            String title = readString();
+            String description = readString();
+            String link = readString();
+            if (title != null) {
+                builder.setTitle(title);
+            }
+            if (description != null) {
+                builder.setDescription(description);
+            }
+            if (link != null) {
+                builder.setLink(new URL(link));
+            }
+            return builder.build();
+        }
+
+        @NotNull
+        private SynonymEntry readSynonymEntry() throws IOException {
+            SynonymEntryBuilder builder = ImmutableSynonymEntry.builder()
+                    .setBaseObject(readDictionaryObject())
+                    .setBaseEntryType(readEnum(EntryType.class));
+            int groupCount = readInt();
+            for (int i = 0; i < groupCount; i++) {
+                SynonymGroupBuilder groupBuilder = ImmutableSynonymGroup.builder().setBaseMeaning(readDictionaryObject());
+                int synonymCount = readInt();
+                for (int j = 0; j < synonymCount; j++) {
+                    groupBuilder.addSynonym(readDictionaryObject());
+                }
+                builder.addSynonymGroup(groupBuilder.build());
+            }
+            return builder.build();
+        }
+
+        @NotNull
+        private DictionaryObject readDictionaryObject() throws IOException {
+            DictionaryObjectBuilder builder = ImmutableDictionaryObject.builder();
+            Language language = readLanguage();
+            String generalForm = readString();
+            if (language == null || generalForm == null) {
+                throw new IOException("Dictionary object without language or general form");
+            }
+            builder.setLanguage(language)
+                    .setGeneralForm(generalForm)
+                    .setDescription(readString())
+                    .setAbbreviation(readString())
+                    .setDomain(readString());
+            builder.setPronunciation(readString());
+            builder.setGrammaticalGender(readEnum(GrammaticalGender.class));
+
+            List<String> meanings = readStrings();
+            if (meanings != null) {
+                builder.setMeanings(meanings);
+            }
+            List<String> syllabification = readStrings();
+            if (syllabification != null) {
+                builder.setSyllabification(syllabification);
+            }
+            List<String> alternateForms = readStrings();
+            if (alternateForms != null) {
+                builder.setAlternateForms(alternateForms);
+            }
+            int additionalFormCount = readInt();
+            for (int i = 0; i < additionalFormCount; i++) {
+                GrammaticalForm grammaticalForm = readGrammaticalForm();
+                String value = readString();
+                if (value != null) {
+                    builder.setAdditionalForm(grammaticalForm, value);
+                }
+            }
+            return builder.build();
+        }
+
+        @NotNull
+        @SuppressWarnings("unchecked")
+        private GrammaticalForm readGrammaticalForm() throws IOException {
+            int formType = this.in.readUnsignedByte();
+            if (formType == FORM_ENUM) {
+                String className = readString();
+                String name = readString();
+                try {
+                    Class<?> formClass = Class.forName(className, true, QueryStepResultCodec.class.getClassLoader());
+                    if (!formClass.isEnum() || !GrammaticalForm.class.isAssignableFrom(formClass)) {
+                        throw new IOException("Invalid grammatical form class " + className);
+                    }
+                    return (GrammaticalForm) Enum.valueOf(formClass.asSubclass(Enum.class), name);
+                } catch (ClassNotFoundException | IllegalArgumentException | NullPointerException e) {
+                    throw new IOException("Unknown grammatical form " + className + "." + name, e);
+                }
+            } else if (formType == FORM_SERIALIZED) {
+                byte[] bytes = new byte[readInt()];
+                this.in.readFully(bytes);
+                try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return (GrammaticalForm) objectInputStream.readObject();
+                } catch (ClassNotFoundException | ClassCastException e) {
+                    throw new IOException("Invalid serialized grammatical form", e);
+                }
+            }
+            throw new IOException("Unknown grammatical form type " + formType);
+        }
+
+        /** Returns the read strings or null if the list was empty. */
+        @Nullable
+        private List<String> readStrings() throws IOException {
+            int size = readInt();
+            if (size == 0) {
+                return null;
+            }
+            List<String> strings = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                strings.add(readString());
+            }
+            return strings;
+        }
+
+        @Nullable
+        private <T extends Enum<T>> T readEnum(@NotNull Class<T> enumClass) throws IOException {
+            String name = readString();
+            if (name == null) {
+                return null;
+            }
+            try {
+                return Enum.valueOf(enumClass, name);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Unknown constant " + name + " of " + enumClass.getSimpleName(), e);
+            }
+        }
+
+        @Nullable
+        private Language readLanguage() throws IOException {
+            int reference = readInt();
+            if (reference == NULL) {
+                return null;
+            } else if (reference > NEW_VALUE) {
+                return lookup(this.readLanguages, reference);
+            }
+            String identifier = readString();
+            String displayName = readString();
+            String dialect = readString();
+            String dialectDisplayName = readString();
+            if (identifier == null || displayName == null) {
+                throw new IOException("Language without identifier or display name");
+            }
+
+            Language language;
+            try {
+                if (dialect != null) {
+                    language = Language.forSimpleLanguage(identifier, displayName, dialect, dialectDisplayName != null ? dialectDisplayName : dialect);
+                } else {
+                    language = Language.forSimpleLanguage(identifier, displayName);
+                }
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Invalid language " + identifier, e);
+            }
+            this.readLanguages.add(language);
+            return language;
+        }
+
+        @Nullable
+        private String readString() throws IOException {
+            int reference = readInt();
+            if (reference == NULL) {
+                return null;
+            } else if (reference > NEW_VALUE) {
+                return lookup(this.readStrings, reference);
+            }
+            byte[] bytes = new byte[readInt()];
+            this.in.readFully(bytes);
+            String string = new String(bytes, StandardCharsets.UTF_8);
+            this.readStrings.add(string);
+            return string;
+        }
+
+        @NotNull
+        private static <T> T lookup(@NotNull List<T> values, int reference) throws IOException {
+            int index = reference - NEW_VALUE - 1;
+            if (index >= values.size()) {
+                throw new IOException("Invalid back reference " + index);
+            }
+            return values.get(index);
+        }
+
+        private int readInt() throws IOException {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = this.in.readUnsignedByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length int");
+        }
+
+        private long readLong() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = this.in.readUnsignedByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed variable length long");
+        }
+    }
+}
@@ -38,6 +38,25 @@ import java.util.List;
  */
 public class QueryUtil {
 
+    /**
+     * Returns true, if the given result contains neither entries nor any additional content.
+     *
+     * @param engineQueryResult
+     *         The result to check.
+     * @return true, if the given result contains neither entries nor any additional content.
+     */
+    public static boolean isEmptyResult(@NotNull EngineQueryResult engineQueryResult) {
+        if (engineQueryResult instanceof BilingualQueryResult && !isNullOrEmpty(((BilingualQueryResult) engineQueryResult).getBilingualEntries())) {
+            return false;
+        }
+        if (engineQueryResult instanceof MonolingualQueryResult && !isNullOrEmpty(((MonolingualQueryResult) engineQueryResult).getMonolingualEntries())) {
+            return false;
+        }
+        return isNullOrEmpty(engineQueryResult.getSynonymEntries())
+                && isNullOrEmpty(engineQueryResult.getSimilarRecommendations())
+                && isNullOrEmpty(engineQueryResult.getExternalContents());
+    }
+
     /**
      * Collect similar recommendations from multiple {@link QueryStepResult} and merge them in one list.
      *
@@ -120,6 +139,10 @@ public class QueryUtil {
         return monolingualEntries;
     }
 
+    private static boolean isNullOrEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+
     /**
      * Inner class for comparing {@link MonolingualEntry} objects according to their Levensthein distance from a given
      * query string.
@@ -27,12 +27,18 @@ package org.xlrnet.metadict.core.services.status;
 import com.google.inject.Singleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.core.services.query.EngineCircuitBreakerStatus;
+import org.xlrnet.metadict.core.services.query.EngineRegistryService;
+import org.xlrnet.metadict.core.services.query.QueryService;
+import org.xlrnet.metadict.core.services.query.QueryServiceStatistics;
 import org.xlrnet.metadict.core.util.CommonUtils;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.inject.Inject;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 
 /**
  * Services for providing information about the current system state (versions, etc.).
@@ -67,13 +73,29 @@ public class SystemStatusService {
      */
     private static final String REVISION = CommonUtils.getProperty("build.properties", "build.revision", UNKNOWN);
 
+    /**
+     * Service for executing queries.
+     */
+    private final QueryService queryService;
+
+    /**
+     * Registry with all search engines.
+     */
+    private final EngineRegistryService engineRegistryService;
+
+    @Inject
+    public SystemStatusService(QueryService queryService, EngineRegistryService engineRegistryService) {
+        this.queryService = queryService;
+        this.engineRegistryService = engineRegistryService;
+    }
+
     /**
      * Returns the current system status.
      *
      * @return the current system status.
      */
     public SystemStatus queryStatus() {
-        return new SystemStatus(Duration.between(START_TIME, Instant.now()));
+        return new SystemStatus(Duration.between(START_TIME, Instant.now()), this.queryService.getStatistics(), this.engineRegistryService.getCircuitBreakerStatus());
     }
 
     @PostConstruct
@@ -96,8 +118,20 @@ public class SystemStatusService {
          */
         private final Duration uptime;
 
-        SystemStatus(Duration uptime) {
+        /**
+         * Statistics about executed queries.
+         */
+        private final QueryServiceStatistics queryStatistics;
+
+        /**
+         * State of the circuit breakers of all engines.
+         */
+        private final List<EngineCircuitBreakerStatus> engineStatus;
+
+        SystemStatus(Duration uptime, QueryServiceStatistics queryStatistics, List<EngineCircuitBreakerStatus> engineStatus) {
             this.uptime = uptime;
+            this.queryStatistics = queryStatistics;
+            this.engineStatus = engineStatus;
         }
 
         public String getVersion() {
@@ -119,5 +153,13 @@ public class SystemStatusService {
         public Duration getUptime() {
             return this.uptime;
         }
+
+        public QueryServiceStatistics getQueryStatistics() {
+            return this.queryStatistics;
+        }
+
+        public List<EngineCircuitBreakerStatus> getEngineStatus() {
+            return this.engineStatus;
+        }
     }
 }
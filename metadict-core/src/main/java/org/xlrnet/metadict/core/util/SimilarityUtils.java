@@ -21,26 +21,45 @@
  * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
  * THE SOFTWARE.
  */
-
 package org.xlrnet.metadict.core.util;
 
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.xlrnet.metadict.api.exception.MetadictRuntimeException;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Stack;
 
 /**
  * Helper class with static methods for calculating the similarity between two objects.
+ * <p>
+ * The fields of each compared class are resolved only once and cached as {@link MethodHandle} based accessors. A
+ * comparison doesn't use any reflection and allocates no intermediate objects besides the boxed values of primitive
+ * fields.
  */
 public class SimilarityUtils {
 
-    private static final SimilarityStatistics ONE = new SimilarityStatistics(1, 1);
+    /** Name of the field which is added to each class by jacoco. */
+    private static final String JACOCO_DATA_FIELD = "$jacocoData";
+
+    /** Type of the accessors, i.e. a function which takes the object and returns the value of the field. */
+    private static final MethodType ACCESSOR_TYPE = MethodType.methodType(Object.class, Object.class);
 
-    private static final SimilarityStatistics ZERO = new SimilarityStatistics(1, 0);
+    /** Cache for the field accessors of each class. */
+    private static final ClassValue<FieldAccessors> FIELD_ACCESSORS = new ClassValue<FieldAccessors>() {
+        @Override
+        protected FieldAccessors computeValue(Class<?> type) {
+            return new FieldAccessors(type);
+        }
+    };
 
     /**
      * Calculate the similarity between two objects by counting how many fields with the same name in both objects have
@@ -63,22 +82,22 @@ public class SimilarityUtils {
      * returned.
      */
     public static double fieldSimilarity(@Nullable Object object1, @Nullable Object object2) {
-        return calculateFieldSimilarity(object1, object2, false, null).getRatio();
+        SimilarityStatistics similarityStatistics = new SimilarityStatistics();
+        addFieldSimilarity(object1, object2, false, similarityStatistics);
+        return similarityStatistics.getRatio();
     }
 
     /**
      * Calculate the similarity between two objects by counting how many fields with the same name in both objects have
-     * the same value. If both objects contain a field which is neither null nor a subclass of either {@link Number} or
-     * {@link CharSequence}, then the field similarity of this field in both objects will be calculated recursively. The
-     * returned similarity is the number of equal atomic fields divided by the number of atomic fields the two objects
-     * have in common. An atomic field is a field that is either null or a subclass of either {@link Number} or {@link
-     * CharSequence}.
+     * the same value. If both objects contain a field which is neither null nor a subclass of either {@link Number},
+     * {@link Boolean} or {@link CharSequence}, then the fields of the two field values will be compared with {@link
+     * #fieldSimilarity(Object, Object)} instead. The returned similarity is the number of equal fields divided by the
+     * number of fields the two objects have in common, where the fields of nested objects are counted individually.
      * <p>
      * Special behaviour: <ul> <li>If both objects are of type {@link CharSequence}, then {@link Objects#equals(Object,
-     * Object)} will be called with the two parameters directly.</li> <li>If any of the two objects is an array, an
-     * {@link IllegalArgumentException} will be thrown.</li> <li>Whenever an object loop has been detected, {@link
-     * Objects#equals(Object, Object)} will be called on the current field to prevent a {@link StackOverflowError}</li>
-     * </ul>
+     * Object)} will be called with the two parameters directly.</li> <li>If any of the two objects or any of their
+     * field values is an array, an {@link IllegalArgumentException} will be thrown.</li> <li>Nested objects are
+     * compared only one level deep, i.e. object loops can't cause a {@link StackOverflowError}.</li> </ul>
      * <p>
      *
      * @param object1
@@ -90,109 +109,151 @@ public class SimilarityUtils {
      * returned.
      */
     public static double deepFieldSimilarity(@Nullable Object object1, @Nullable Object object2) {
-        return calculateFieldSimilarity(object1, object2, true, new Stack<>()).getRatio();
+        SimilarityStatistics similarityStatistics = new SimilarityStatistics();
+        addFieldSimilarity(object1, object2, true, similarityStatistics);
+        return similarityStatistics.getRatio();
     }
 
-    private static SimilarityStatistics calculateFieldSimilarity(@Nullable Object object1, @Nullable Object object2, boolean invokeRecursively, @Nullable Stack<Object> recursiveStack) {
+    private static void addFieldSimilarity(@Nullable Object object1, @Nullable Object object2, boolean compareNestedFields, @NotNull SimilarityStatistics similarityStatistics) {
         if (object1 == null && object2 == null) {
-            return ONE;
+            similarityStatistics.add(true);
+            return;
         }
         if (object1 == null || object2 == null) {
-            return ZERO;
+            similarityStatistics.add(false);
+            return;
         }
 
         if (object1 instanceof Object[] || object2 instanceof Object[]) {
             throw new IllegalArgumentException("Arrays cannot be compared");
         }
 
-        if (object1 instanceof Number || object2 instanceof Number) {
-            return Objects.equals(object1, object2) ? ONE : ZERO;
+        if (isAtomic(object1) || isAtomic(object2)) {
+            similarityStatistics.add(Objects.equals(object1, object2));
+            return;
         }
 
-        if (object1 instanceof Boolean || object2 instanceof Boolean) {
-            return Objects.equals(object1, object2) ? ONE : ZERO;
-        }
+        FieldAccessors fieldAccessors1 = FIELD_ACCESSORS.get(object1.getClass());
+        FieldAccessors fieldAccessors2 = object1.getClass() == object2.getClass() ? fieldAccessors1 : FIELD_ACCESSORS.get(object2.getClass());
 
-        if (object1 instanceof CharSequence || object2 instanceof CharSequence) {
-            return Objects.equals(object1, object2) ? ONE : ZERO;
-        }
-
-        Map<String, Object> fieldValueMap1 = getFieldNamesAndValues(object1);
-        Map<String, Object> fieldValueMap2 = getFieldNamesAndValues(object2);
+        for (FieldAccessor fieldAccessor1 : fieldAccessors1.accessors) {
+            FieldAccessor fieldAccessor2 = fieldAccessors1 == fieldAccessors2 ? fieldAccessor1 : fieldAccessors2.accessorsByName.get(fieldAccessor1.name);
+            if (fieldAccessor2 == null) {
+                continue;
+            }
 
-        double equalFieldValues = 0, sameFieldNames = 0;
+            Object value1 = fieldAccessor1.get(object1);
+            Object value2 = fieldAccessor2.get(object2);
 
-        for (Map.Entry<String, Object> entry : fieldValueMap1.entrySet()) {
-            if ("$jacocoData".equals(entry.getKey())) {
-                // Skip fields created by jacoco
-                continue;
+            if (compareNestedFields) {
+                addFieldSimilarity(value1, value2, false, similarityStatistics);
+            } else {
+                similarityStatistics.add(Objects.equals(value1, value2));
             }
-            String key = entry.getKey();
-            Object value1 = entry.getValue();
-            Object value2 = fieldValueMap2.get(key);
+        }
+    }
 
-            if (fieldValueMap2.containsKey(key)) {
-                if (!invokeRecursively) {
-                    sameFieldNames++;
-                }
+    private static boolean isAtomic(@NotNull Object object) {
+        return object instanceof Number || object instanceof Boolean || object instanceof CharSequence;
+    }
 
-                if (invokeRecursively) {
-                    SimilarityStatistics similarityStatistics;
+    /**
+     * Accessors for all declared fields of a single class.
+     */
+    private static class FieldAccessors {
 
-                    assert recursiveStack != null;
-                    recursiveStack.push(value1);
+        final FieldAccessor[] accessors;
 
-                    // Try to detect potential stack overflow
-                    if (recursiveStack.contains(value1)) {
-                        similarityStatistics = calculateFieldSimilarity(value1, value2, false, recursiveStack);
-                    } else {
-                        similarityStatistics = calculateFieldSimilarity(value1, value2, true, recursiveStack);
-                    }
+        final Map<String, FieldAccessor> accessorsByName;
 
-                    recursiveStack.pop();
+        FieldAccessors(@NotNull Class<?> type) {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            List<FieldAccessor> accessorList = new ArrayList<>();
+            this.accessorsByName = new HashMap<>();
 
-                    sameFieldNames += similarityStatistics.sameFieldNames;
-                    equalFieldValues += similarityStatistics.equalFieldValues;
+            for (Field field : type.getDeclaredFields()) {
+                if (JACOCO_DATA_FIELD.equals(field.getName())) {
+                    continue;
+                }
+                field.setAccessible(true);
+                FieldAccessor fieldAccessor = createAccessor(lookup, field);
+                accessorList.add(fieldAccessor);
+                this.accessorsByName.put(field.getName(), fieldAccessor);
+            }
+            this.accessors = accessorList.toArray(new FieldAccessor[accessorList.size()]);
+        }
 
-                } else if (Objects.equals(value1, value2)) {
-                    equalFieldValues++;
+        /**
+         * Create a new accessor for the given field. The value of static final fields is read only once.
+         */
+        @NotNull
+        private static FieldAccessor createAccessor(@NotNull MethodHandles.Lookup lookup, @NotNull Field field) {
+            try {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+                    return new FieldAccessor(field.getName(), null, field.get(null));
+                }
+                MethodHandle getter = lookup.unreflectGetter(field);
+                if (Modifier.isStatic(modifiers)) {
+                    getter = MethodHandles.dropArguments(getter, 0, Object.class);
                 }
+                return new FieldAccessor(field.getName(), getter.asType(ACCESSOR_TYPE), null);
+            } catch (IllegalAccessException e) {
+                throw new MetadictRuntimeException(e);
             }
         }
-        return new SimilarityStatistics(sameFieldNames, equalFieldValues);
     }
 
-    private static Map<String, Object> getFieldNamesAndValues(final Object valueObj) {
-        Class clazz = valueObj.getClass();
-        Map<String, Object> fieldMap = new HashMap<>();
-        Field[] valueObjFields = clazz.getDeclaredFields();
+    /**
+     * Accessor for a single field. Accessors for constant fields contain only the value of the field.
+     */
+    private static class FieldAccessor {
+
+        final String name;
+
+        final MethodHandle getter;
 
-        for (Field valueObjField : valueObjFields) {
-            String fieldName = valueObjField.getName();
-            valueObjField.setAccessible(true);
+        final Object constantValue;
+
+        FieldAccessor(String name, MethodHandle getter, Object constantValue) {
+            this.name = name;
+            this.getter = getter;
+            this.constantValue = constantValue;
+        }
+
+        @Nullable
+        Object get(@NotNull Object object) {
+            if (this.getter == null) {
+                return this.constantValue;
+            }
             try {
-                Object fieldObject = valueObjField.get(valueObj);
-                fieldMap.put(fieldName, fieldObject);
-            } catch (IllegalAccessException e) {
-                throw new MetadictRuntimeException(e);
+                return (Object) this.getter.invokeExact(object);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable throwable) {
+                throw new MetadictRuntimeException(throwable);
             }
         }
-        return fieldMap;
     }
 
+    /**
+     * Mutable accumulator for the number of common and equal fields.
+     */
     private static class SimilarityStatistics {
 
-        final double sameFieldNames;
+        int sameFieldNames;
 
-        final double equalFieldValues;
+        int equalFieldValues;
 
-        public SimilarityStatistics(double sameFieldNames, double equalFieldValues) {
-            this.sameFieldNames = sameFieldNames;
-            this.equalFieldValues = equalFieldValues;
+        void add(boolean equal) {
+            this.sameFieldNames++;
+            if (equal) {
+                this.equalFieldValues++;
+            }
         }
 
-        public double getRatio() {
-            return (this.sameFieldNames > 0) ? (this.equalFieldValues / this.sameFieldNames) : 0;
+        double getRatio() {
+            return (this.sameFieldNames > 0) ? ((double) this.equalFieldValues / this.sameFieldNames) : 0;
         }
 
     }
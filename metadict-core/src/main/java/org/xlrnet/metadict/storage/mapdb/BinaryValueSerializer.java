@@ -0,0 +1,86 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.storage.mapdb;
+
+import org.mapdb.Serializer;
+import org.xlrnet.metadict.core.services.query.QueryStepResultCodec;
+
+import java.io.*;
+
+/**
+ * MapDB value serializer which writes cached query step results with the compact {@link QueryStepResultCodec}. All
+ * other values are written with the Java serialization. The first byte of each value identifies the used encoding.
+ * <p>
+ * The serializer is stored in the MapDB catalog together with each namespace that has been created with it. Existing
+ * namespaces keep the serializer they have been created with.
+ */
+public class BinaryValueSerializer implements Serializer<Object>, Serializable {
+
+    private static final long serialVersionUID = 3358794311276459176L;
+
+    private static final int ENCODING_JAVA = 0;
+
+    private static final int ENCODING_QUERY_STEP_RESULT = 1;
+
+    @Override
+    public void serialize(DataOutput out, Object value) throws IOException {
+        if (QueryStepResultCodec.isSupported(value)) {
+            out.writeByte(ENCODING_QUERY_STEP_RESULT);
+            QueryStepResultCodec.write(out, value);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(bytes)) {
+                objectOutputStream.writeObject(value);
+            }
+            out.writeByte(ENCODING_JAVA);
+            out.writeInt(bytes.size());
+            out.write(bytes.toByteArray());
+        }
+    }
+
+    @Override
+    public Object deserialize(DataInput in, int available) throws IOException {
+        int encoding = in.readUnsignedByte();
+        switch (encoding) {
+            case ENCODING_QUERY_STEP_RESULT:
+                return QueryStepResultCodec.read(in);
+            case ENCODING_JAVA:
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+                    return objectInputStream.readObject();
+                } catch (ClassNotFoundException e) {
+                    throw new IOException("Unknown class of serialized value", e);
+                }
+            default:
+                throw new IOException("Unknown value encoding " + encoding);
+        }
+    }
+
+    @Override
+    public int fixedSize() {
+        return -1;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.storage.mapdb;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistics about the values which have been compressed by a {@link DeflateValueSerializer} for a single namespace.
+ * The statistics are owned by the {@link MapdbStorageEngine} which created the namespace.
+ */
+final class CompressionStatistics {
+
+    private final AtomicLong valueCount = new AtomicLong();
+
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    /**
+     * Record a single written value.
+     *
+     * @param uncompressedSize
+     *         Size of the serialized value in bytes before compression.
+     * @param compressedSize
+     *         Size of the serialized value in bytes after compression.
+     */
+    void record(int uncompressedSize, int compressedSize) {
+        this.valueCount.incrementAndGet();
+        this.uncompressedBytes.addAndGet(uncompressedSize);
+        this.compressedBytes.addAndGet(compressedSize);
+    }
+
+    /**
+     * Returns the number of written values.
+     *
+     * @return the number of written values.
+     */
+    long getValueCount() {
+        return this.valueCount.get();
+    }
+
+    /**
+     * Returns the ratio between the uncompressed and the compressed size of all written values. A ratio of 4 means that
+     * the compressed values need a quarter of the space. If no value has been written yet, the ratio is 1.
+     *
+     * @return the ratio between the uncompressed and the compressed size of all written values.
+     */
+    double getCompressionRatio() {
+        long compressed = this.compressedBytes.get();
+        return compressed > 0 ? (double) this.uncompressedBytes.get() / compressed : 1.0;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("valueCount", this.valueCount)
+                .add("uncompressedBytes", this.uncompressedBytes)
+                .add("compressedBytes", this.compressedBytes)
+                .toString();
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.storage.mapdb;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.mapdb.Serializer;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * MapDB value serializer which compresses the output of another serializer with Deflate. An optional preset dictionary
+ * with typical content of the values (e.g. frequent words, language identifiers or engine names) improves the
+ * compression of small values significantly.
+ * <p>
+ * Like all value serializers, the instance is stored in the MapDB catalog together with its namespace. Level and
+ * dictionary of existing namespaces therefore won't change when the configuration changes.
+ */
+public class DeflateValueSerializer implements Serializer<Object>, Serializable {
+
+    private static final long serialVersionUID = -7609349914318226014L;
+
+    /** Deflate can only use the last 32 KB of a preset dictionary. */
+    static final int MAX_DICTIONARY_SIZE = 32 * 1024;
+
+    private static final int STORED = 0;
+
+    private static final int DEFLATED = 1;
+
+    private static final int BUFFER_SIZE = 4096;
+
+    private final Serializer<Object> delegate;
+
+    private final int level;
+
+    private final byte[] dictionary;
+
+    /** Statistics of the namespace which uses this serializer; not restored together with the serializer. */
+    private transient volatile CompressionStatistics statistics;
+
+    /**
+     * Create a new serializer which compresses the output of the given serializer.
+     *
+     * @param delegate
+     *         The serializer which writes the uncompressed values. It must be serializable itself.
+     * @param level
+     *         The compression level from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}.
+     * @param dictionary
+     *         An optional preset dictionary. Only the last {@link #MAX_DICTIONARY_SIZE} bytes will be used.
+     */
+    public DeflateValueSerializer(@NotNull Serializer<Object> delegate, int level, @Nullable byte[] dictionary) {
+        checkNotNull(delegate, "Delegate serializer may not be null");
+        checkArgument(level >= Deflater.BEST_SPEED && level <= Deflater.BEST_COMPRESSION, "Invalid compression level: %s", level);
+
+        this.delegate = delegate;
+        this.level = level;
+        this.dictionary = dictionary != null && dictionary.length > MAX_DICTIONARY_SIZE
+                ? Arrays.copyOfRange(dictionary, dictionary.length - MAX_DICTIONARY_SIZE, dictionary.length)
+                : dictionary;
+    }
+
+    /**
+     * Returns a copy of this serializer which records all written values in the given statistics.
+     *
+     * @param statistics
+     *         The statistics of the namespace in which the serializer will be used.
+     * @return a copy of this serializer which records its statistics.
+     */
+    @NotNull
+    DeflateValueSerializer withStatistics(@NotNull CompressionStatistics statistics) {
+        checkNotNull(statistics, "Statistics may not be null");
+
+        DeflateValueSerializer serializer = new DeflateValueSerializer(this.delegate, this.level, this.dictionary);
+        serializer.statistics = statistics;
+        return serializer;
+    }
+
+    /**
+     * Record all values which will be written by this serializer in the given statistics. Used for serializers which
+     * have been restored from the MapDB catalog, since their statistics are not restored.
+     *
+     * @param statistics
+     *         The statistics of the namespace in which the serializer is used.
+     */
+    void bindStatistics(@NotNull CompressionStatistics statistics) {
+        checkNotNull(statistics, "Statistics may not be null");
+
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void serialize(DataOutput out, Object value) throws IOException {
+        ByteArrayOutputStream uncompressedBytes = new ByteArrayOutputStream();
+        try (DataOutputStream uncompressedOut = new DataOutputStream(uncompressedBytes)) {
+            this.delegate.serialize(uncompressedOut, value);
+        }
+        byte[] uncompressed = uncompressedBytes.toByteArray();
+        byte[] compressed = deflate(uncompressed);
+
+        // Values which don't get smaller are stored uncompressed
+        int storedSize;
+        if (compressed.length < uncompressed.length) {
+            out.writeByte(DEFLATED);
+            out.writeInt(uncompressed.length);
+            out.writeInt(compressed.length);
+            out.write(compressed);
+            storedSize = compressed.length;
+        } else {
+            out.writeByte(STORED);
+            out.writeInt(uncompressed.length);
+            out.write(uncompressed);
+            storedSize = uncompressed.length;
+        }
+
+        CompressionStatistics currentStatistics = this.statistics;
+        if (currentStatistics != null) {
+            currentStatistics.record(uncompressed.length, storedSize);
+        }
+    }
+
+    @Override
+    public Object deserialize(DataInput in, int available) throws IOException {
+        int type = in.readUnsignedByte();
+        byte[] uncompressed = new byte[in.readInt()];
+        if (type == DEFLATED) {
+            byte[] compressed = new byte[in.readInt()];
+            in.readFully(compressed);
+            inflate(compressed, uncompressed);
+        } else if (type == STORED) {
+            in.readFully(uncompressed);
+        } else {
+            throw new IOException("Unknown compression type " + type);
+        }
+        return this.delegate.deserialize(new DataInputStream(new ByteArrayInputStream(uncompressed)), uncompressed.length);
+    }
+
+    @Override
+    public int fixedSize() {
+        return -1;
+    }
+
+    @NotNull
+    private byte[] deflate(@NotNull byte[] uncompressed) {
+        Deflater deflater = new Deflater(this.level, true);
+        try {
+            if (this.dictionary != null) {
+                deflater.setDictionary(this.dictionary);
+            }
+            deflater.setInput(uncompressed);
+            deflater.finish();
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, uncompressed.length / 2));
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                compressed.write(buffer, 0, length);
+            }
+            return compressed.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void inflate(@NotNull byte[] compressed, @NotNull byte[] uncompressed) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            if (this.dictionary != null) {
+                inflater.setDictionary(this.dictionary);
+            }
+            inflater.setInput(compressed);
+            int length = inflater.inflate(uncompressed);
+            if (length != uncompressed.length) {
+                throw new IOException("Compressed value is truncated: expected " + uncompressed.length + " bytes but got " + length);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Compressed value is corrupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -26,6 +26,7 @@ package org.xlrnet.metadict.storage.mapdb;
 
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
 import org.mapdb.HTreeMap;
@@ -36,8 +37,12 @@ import org.xlrnet.metadict.api.storage.StorageBackendException;
 import org.xlrnet.metadict.api.storage.StorageOperationException;
 import org.xlrnet.metadict.api.storage.StorageService;
 
+import java.io.IOError;
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -52,12 +57,28 @@ public class MapdbStorageEngine implements StorageService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MapdbStorageEngine.class);
 
+    /** Field with the value serializer of a {@link HTreeMap} or null if the field can't be accessed. */
+    private static final Field VALUE_SERIALIZER_FIELD = findValueSerializerField();
+
     private final DBMaker dbMaker;
 
     private final Serializer[] serializers;
 
     private final DB db;
 
+    /**
+     * Compression statistics of the compressed namespaces which have been opened by this engine. Namespaces which were
+     * restored from an existing database only count the values which have been written since they were opened.
+     */
+    private final Map<String, CompressionStatistics> compressionStatistics = new ConcurrentHashMap<>();
+
+    /**
+     * Maps of all namespaces which have been opened by this engine. MapDB only keeps weak references to opened maps
+     * and restores collected ones from its catalog, i.e. with a new serializer without statistics. Keeping the maps
+     * also avoids looking them up in the catalog on each access.
+     */
+    private final Map<String, HTreeMap<String, Object>> openNamespaces = new ConcurrentHashMap<>();
+
     protected MapdbStorageEngine(DBMaker dbMaker, Serializer... serializers) {
         this.dbMaker = dbMaker;
         this.serializers = serializers;
@@ -154,6 +175,8 @@ public class MapdbStorageEngine implements StorageService {
             return Optional.ofNullable(readValue);
         } catch (ClassCastException e) {
             throw new StorageOperationException("Reading value failed due to an invalid class cast", namespace, key, e);
+        } catch (IOError e) {
+            throw new StorageOperationException("Reading value failed due to an unreadable value", namespace, key, e);
         }
     }
 
@@ -184,6 +207,20 @@ public class MapdbStorageEngine implements StorageService {
     void commit() {
         LOGGER.debug("Committing database changes ...");
         this.db.commit();
+        logCompressionStatistics();
+    }
+
+    /**
+     * Log the compression ratio of all compressed namespaces which have been opened by this engine.
+     */
+    private void logCompressionStatistics() {
+        if (!LOGGER.isDebugEnabled()) {
+            return;
+        }
+        for (Map.Entry<String, CompressionStatistics> entry : this.compressionStatistics.entrySet()) {
+            CompressionStatistics statistics = entry.getValue();
+            LOGGER.debug("Compression ratio of namespace {}: {} ({})", entry.getKey(), String.format("%.2f", statistics.getCompressionRatio()), statistics);
+        }
     }
 
     /**
@@ -194,17 +231,93 @@ public class MapdbStorageEngine implements StorageService {
      * @return The internal map for accessing the namespace.
      */
     private HTreeMap<String, Object> internalOpenNamespace(@NotNull String namespace) {
-        if (this.db.exists(namespace)) {
-            return this.db.getHashMap(namespace);
+        HTreeMap<String, Object> openNamespace = this.openNamespaces.get(namespace);
+        if (openNamespace != null) {
+            return openNamespace;
+        }
+        synchronized (this) {
+            openNamespace = this.openNamespaces.get(namespace);
+            if (openNamespace == null) {
+                openNamespace = this.db.exists(namespace) ? restoreNamespace(namespace) : createNamespace(namespace);
+                this.openNamespaces.put(namespace, openNamespace);
+            }
+            return openNamespace;
+        }
+    }
+
+    /**
+     * Open an existing namespace from the catalog. If its values are compressed, new statistics will be bound to the
+     * restored serializer.
+     */
+    @NotNull
+    private HTreeMap<String, Object> restoreNamespace(@NotNull String namespace) {
+        HTreeMap<String, Object> map = this.db.getHashMap(namespace);
+        Serializer valueSerializer = getValueSerializer(map);
+        if (valueSerializer instanceof DeflateValueSerializer) {
+            CompressionStatistics statistics = new CompressionStatistics();
+            ((DeflateValueSerializer) valueSerializer).bindStatistics(statistics);
+            this.compressionStatistics.put(namespace, statistics);
         }
+        return map;
+    }
+
+    /**
+     * Returns the value serializer of the given map. MapDB doesn't expose the serializers of maps which have been
+     * restored from the catalog, so the field has to be read directly.
+     */
+    @Nullable
+    private static Serializer getValueSerializer(@NotNull HTreeMap<String, Object> map) {
+        if (VALUE_SERIALIZER_FIELD == null) {
+            return null;
+        }
+        try {
+            return (Serializer) VALUE_SERIALIZER_FIELD.get(map);
+        } catch (ReflectiveOperationException | RuntimeException e) {     // NOSONAR: Logging of exception not necessary
+            LOGGER.debug("Reading value serializer of restored namespace failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Field findValueSerializerField() {
+        try {
+            Field valueSerializerField = HTreeMap.class.getDeclaredField("valueSerializer");
+            valueSerializerField.setAccessible(true);
+            return valueSerializerField;
+        } catch (ReflectiveOperationException | RuntimeException e) {     // NOSONAR: Logging of exception not necessary
+            LOGGER.debug("Value serializers of restored namespaces are not accessible: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @NotNull
+    private HTreeMap<String, Object> createNamespace(@NotNull String namespace) {
         LOGGER.trace("Creating new namespace={}", namespace);
         DB.HTreeMapMaker mapMaker = this.db.createHashMap(namespace);
 
+        CompressionStatistics statistics = null;
         for (Serializer serializer : this.serializers) {
+            if (serializer instanceof DeflateValueSerializer) {
+                statistics = new CompressionStatistics();
+                serializer = ((DeflateValueSerializer) serializer).withStatistics(statistics);
+            }
             mapMaker.valueSerializer(serializer);
         }
 
-        return mapMaker.make();
+        HTreeMap<String, Object> map = mapMaker.make();
+        if (statistics != null) {
+            this.compressionStatistics.put(namespace, statistics);
+        }
+        return map;
+    }
+
+    /**
+     * Returns the compression statistics of the given namespace or null if the namespace has not been opened or is not
+     * compressed.
+     */
+    @Nullable
+    CompressionStatistics getCompressionStatistics(@NotNull String namespace) {
+        return this.compressionStatistics.get(namespace);
     }
 
     /**
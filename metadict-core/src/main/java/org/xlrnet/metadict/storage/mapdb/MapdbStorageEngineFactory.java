@@ -26,14 +26,18 @@ package org.xlrnet.metadict.storage.mapdb;
 
 import org.apache.commons.lang3.StringUtils;
 import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xlrnet.metadict.api.storage.StorageBackendException;
 import org.xlrnet.metadict.api.storage.StorageService;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Map;
+import java.util.zip.Deflater;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -54,6 +58,14 @@ public class MapdbStorageEngineFactory {
 
     private static final String PROPERTY_KEY_ASYNC_WRITE = "enableAsyncWrite";
 
+    private static final String PROPERTY_KEY_VALUE_SERIALIZER = "valueSerializer";
+
+    private static final String PROPERTY_KEY_COMPRESSION = "compression";
+
+    private static final String PROPERTY_KEY_COMPRESSION_LEVEL = "compressionLevel";
+
+    private static final String PROPERTY_KEY_COMPRESSION_DICTIONARY = "compressionDictionary";
+
     public StorageService fromConfiguration(Map<String, String> configuration) throws StorageBackendException {
         DBMaker dbMaker = createDBMakerInstance(configuration);
 
@@ -76,7 +88,52 @@ public class MapdbStorageEngineFactory {
             dbMaker.asyncWriteEnable();
         }
 
-        return new MapdbStorageEngine(dbMaker);
+        return new MapdbStorageEngine(dbMaker, createValueSerializers(configuration));
+    }
+
+    private Serializer[] createValueSerializers(Map<String, String> configuration) throws StorageBackendException {
+        String valueSerializerProperty = configuration.get(PROPERTY_KEY_VALUE_SERIALIZER);
+        ValueSerializerType valueSerializerType = valueSerializerProperty != null ? ValueSerializerType.valueOf(StringUtils.upperCase(valueSerializerProperty)) : ValueSerializerType.BINARY;
+        String compressionProperty = configuration.get(PROPERTY_KEY_COMPRESSION);
+        CompressionType compressionType = compressionProperty != null ? CompressionType.valueOf(StringUtils.upperCase(compressionProperty)) : CompressionType.NONE;
+
+        LOGGER.info("Using {} value serializer for new namespaces", valueSerializerType);
+
+        switch (valueSerializerType) {
+            case BINARY:
+                return new Serializer[]{createCompressingSerializer(new BinaryValueSerializer(), compressionType, configuration)};
+            default:
+                if (compressionType != CompressionType.NONE) {
+                    throw new StorageBackendException("Compression requires the binary value serializer");
+                }
+                return new Serializer[0];
+        }
+    }
+
+    private Serializer<Object> createCompressingSerializer(Serializer<Object> serializer, CompressionType compressionType, Map<String, String> configuration) throws StorageBackendException {
+        if (compressionType == CompressionType.NONE) {
+            return serializer;
+        }
+
+        String compressionLevelProperty = configuration.get(PROPERTY_KEY_COMPRESSION_LEVEL);
+        String compressionDictionaryProperty = configuration.get(PROPERTY_KEY_COMPRESSION_DICTIONARY);
+
+        int compressionLevel = compressionLevelProperty != null ? Integer.parseInt(compressionLevelProperty) : Deflater.BEST_SPEED;
+        byte[] compressionDictionary = null;
+
+        if (StringUtils.isNotBlank(compressionDictionaryProperty)) {
+            Path path = Paths.get(compressionDictionaryProperty);
+            LOGGER.info("Using compression dictionary '{}'", path.toAbsolutePath().toString());
+            try {
+                compressionDictionary = Files.readAllBytes(path);
+            } catch (IOException e) {
+                throw new StorageBackendException("Reading compression dictionary failed", e);
+            }
+        }
+
+        LOGGER.info("Enabling {} compression with level {} for new namespaces", compressionType, compressionLevel);
+
+        return new DeflateValueSerializer(serializer, compressionLevel, compressionDictionary);
     }
 
     private DBMaker createDBMakerInstance(Map<String, String> configuration) throws StorageBackendException {
@@ -109,4 +166,24 @@ public class MapdbStorageEngineFactory {
         FILE
 
     }
+
+    private enum ValueSerializerType {
+
+        /** Compact binary format for query results, see {@link BinaryValueSerializer}. */
+        BINARY,
+
+        /** Default serializer of MapDB. */
+        DEFAULT
+
+    }
+
+    private enum CompressionType {
+
+        /** Store values uncompressed. */
+        NONE,
+
+        /** Compress values with Deflate, see {@link DeflateValueSerializer}. */
+        DEFLATE
+
+    }
 }
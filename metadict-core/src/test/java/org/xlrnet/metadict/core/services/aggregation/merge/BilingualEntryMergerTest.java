@@ -394,4 +394,71 @@ public class BilingualEntryMergerTest {
         assertEquals("Expected input objects to be not merged", 2, actualList.size());
     }
 
-}
\ No newline at end of file
+    /**
+     * Entries whose entry type was identified automatically must also be merged into a matching dialect entry.
+     */
+    @Test
+    public void mergeSamePair_oneSideOneDialect_unknownEntryType() {
+        BilingualEntry firstEntry = ImmutableBilingualEntry.builder()
+                .setEntryType(EntryType.NOUN)
+                .setInputObject(
+                        ImmutableDictionaryObject.createSimpleObject(
+                                Language.NORWEGIAN_BOKMÅL, "trykker"))
+                .setOutputObject(
+                        ImmutableDictionaryObject.createSimpleObject(
+                                Language.GERMAN, "Drucker")
+                ).build();
+        BilingualEntry secondEntry = ImmutableBilingualEntry.builder()
+                .setEntryType(EntryType.UNKNOWN)
+                .setInputObject(
+                        ImmutableDictionaryObject.createSimpleObject(
+                                Language.NORWEGIAN, "trykker"))
+                .setOutputObject(
+                        ImmutableDictionaryObject.createSimpleObject(
+                                Language.GERMAN, "Drucker")
+                ).build();
+
+        BilingualEntry expected = ImmutableBilingualEntry.builder()
+                .setEntryType(EntryType.NOUN)
+                .setInputObject(
+                        ImmutableDictionaryObject.createSimpleObject(
+                                Language.NORWEGIAN_BOKMÅL, "trykker"))
+                .setOutputObject(
+                        ImmutableDictionaryObject.createSimpleObject(
+                                Language.GERMAN, "Drucker")
+                ).build();
+
+        ArrayList<BilingualEntry> collectionToMerge = Lists.newArrayList(firstEntry, secondEntry);
+        Collection<BilingualEntry> actual = merger.merge(collectionToMerge);
+
+        ArrayList<BilingualEntry> actualList = Lists.newArrayList(actual);
+
+        assertEquals("Expected input objects to be merged", 1, actualList.size());
+        assertEquals(expected, actualList.get(0));
+    }
+
+    /**
+     * Entries without dialect may only be merged into a dialect entry with the same entry type and general forms.
+     */
+    @Test
+    public void mergeSamePair_oneSideOneDialect_manyCandidates() {
+        List<BilingualEntry> collectionToMerge = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            collectionToMerge.add(ImmutableBilingualEntry.builder()
+                    .setEntryType(EntryType.NOUN)
+                    .setInputObject(ImmutableDictionaryObject.createSimpleObject(Language.NORWEGIAN, "trykker" + i))
+                    .setOutputObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "Drucker" + i))
+                    .build());
+            collectionToMerge.add(ImmutableBilingualEntry.builder()
+                    .setEntryType(i % 2 == 0 ? EntryType.NOUN : EntryType.VERB)
+                    .setInputObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "Drucker" + i))
+                    .setOutputObject(ImmutableDictionaryObject.createSimpleObject(Language.NORWEGIAN_BOKMÅL, "trykker" + i))
+                    .build());
+        }
+
+        Collection<BilingualEntry> actual = merger.merge(collectionToMerge);
+
+        assertEquals("Expected only entries with the same entry type to be merged", 150, actual.size());
+    }
+
+}
@@ -0,0 +1,159 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.aggregation.order;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.xlrnet.metadict.api.query.BilingualEntry;
+import org.xlrnet.metadict.api.query.DictionaryObject;
+import org.xlrnet.metadict.api.query.ImmutableBilingualEntry;
+import org.xlrnet.metadict.core.api.aggregation.Group;
+import org.xlrnet.metadict.core.api.aggregation.ResultEntry;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.services.aggregation.group.GroupBuilder;
+import org.xlrnet.metadict.core.services.aggregation.group.ScoredResultEntry;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link BoundedRelevanceOrderStrategy}.
+ */
+public class BoundedRelevanceOrderStrategyTest {
+
+    private final BilingualEntry resultEntry_10 = createBilingualEntry("huse", "hase");
+
+    private final BilingualEntry resultEntry_03 = createBilingualEntry("hus", null);
+
+    private final BilingualEntry resultEntry_05 = createBilingualEntry("huse", "hause");
+
+    private final BilingualEntry otherResultEntry_05 = createBilingualEntry("HASEN", "rabbits");
+
+    @Test
+    public void testSortResultGroups() throws Exception {
+        BoundedRelevanceOrderStrategy strategy = new BoundedRelevanceOrderStrategy();
+
+        List<ResultEntry> resultEntries = sortTestGroup(strategy);
+
+        assertEquals(4, resultEntries.size());
+        assertResultEntry(this.resultEntry_10, 1.0, resultEntries.get(0));
+        assertResultEntry(this.resultEntry_05, 0.5, resultEntries.get(1));
+        assertResultEntry(this.otherResultEntry_05, 0.5, resultEntries.get(2));
+        assertResultEntry(this.resultEntry_03, 0.3333, resultEntries.get(3));
+    }
+
+    @Test
+    public void testSortResultGroups_limited() throws Exception {
+        BoundedRelevanceOrderStrategy strategy = new BoundedRelevanceOrderStrategy(2);
+
+        List<ResultEntry> resultEntries = sortTestGroup(strategy);
+
+        assertEquals(2, resultEntries.size());
+        assertResultEntry(this.resultEntry_10, 1.0, resultEntries.get(0));
+        assertResultEntry(this.resultEntry_05, 0.5, resultEntries.get(1));
+    }
+
+    @Test
+    public void testSortResultGroups_sameAsLevensthein() throws Exception {
+        LevenstheinRelevanceOrderStrategy levenstheinStrategy = new LevenstheinRelevanceOrderStrategy();
+        BoundedRelevanceOrderStrategy strategy = new BoundedRelevanceOrderStrategy();
+        Collection<Group<BilingualEntry>> testGroups = createTestGroups();
+        QueryRequest queryRequest = createQueryRequestMock("hase");
+
+        Collection<Group<ResultEntry>> expected = levenstheinStrategy.sortResultGroups(queryRequest, testGroups);
+        Collection<Group<ResultEntry>> actual = strategy.sortResultGroups(queryRequest, testGroups);
+
+        assertEquals(expected.iterator().next().getResultEntries(), actual.iterator().next().getResultEntries());
+    }
+
+    @Test
+    public void testSortResultGroups_limitedSameAsLevensthein() throws Exception {
+        LevenstheinRelevanceOrderStrategy levenstheinStrategy = new LevenstheinRelevanceOrderStrategy();
+        BoundedRelevanceOrderStrategy strategy = new BoundedRelevanceOrderStrategy();
+        Collection<Group<BilingualEntry>> testGroups = createTestGroups();
+        QueryRequest queryRequest = createQueryRequestMock("hase");
+
+        Collection<Group<ResultEntry>> expected = levenstheinStrategy.sortResultGroups(queryRequest, testGroups);
+        Collection<Group<ResultEntry>> actual = strategy.sortResultGroups(queryRequest, testGroups, 3);
+
+        assertEquals(expected.iterator().next().getResultEntries().subList(0, 3), actual.iterator().next().getResultEntries());
+    }
+
+    @Test
+    public void testOrderType() throws Exception {
+        assertTrue(OrderType.RELEVANCE.getOrderStrategy() instanceof LevenstheinRelevanceOrderStrategy);
+        assertTrue(OrderType.BOUNDED_RELEVANCE.getOrderStrategy() instanceof BoundedRelevanceOrderStrategy);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSortResultGroups_invalidLimit() throws Exception {
+        new BoundedRelevanceOrderStrategy().sortResultGroups(createQueryRequestMock("hase"), createTestGroups(), 0);
+    }
+
+    private void assertResultEntry(BilingualEntry expectedEntry, double expectedScore, ResultEntry actual) {
+        assertEquals(expectedEntry, ((ScoredResultEntry) actual).unwrap());
+        assertEquals(expectedScore, actual.getEntryScore(), 0.01);
+    }
+
+    private List<ResultEntry> sortTestGroup(BoundedRelevanceOrderStrategy strategy) {
+        Collection<Group<ResultEntry>> sortedGroups = strategy.sortResultGroups(createQueryRequestMock("hase"), createTestGroups());
+        return sortedGroups.iterator().next().getResultEntries();
+    }
+
+    private Collection<Group<BilingualEntry>> createTestGroups() {
+        Group<BilingualEntry> resultGroup = new GroupBuilder<BilingualEntry>()
+                .add(this.resultEntry_05)
+                .add(this.resultEntry_03)
+                .add(this.otherResultEntry_05)
+                .add(this.resultEntry_10)
+                .setGroupIdentifier("")
+                .build();
+        return Lists.<Group<BilingualEntry>>newArrayList(resultGroup);
+    }
+
+    private QueryRequest createQueryRequestMock(String requestString) {
+        QueryRequest queryRequest = Mockito.mock(QueryRequest.class);
+        when(queryRequest.getQueryString()).thenReturn(requestString);
+        return queryRequest;
+    }
+
+    @NotNull
+    private BilingualEntry createBilingualEntry(String generalFormInput, String generalFormOutput) {
+        DictionaryObject inputObjectMock = Mockito.mock(DictionaryObject.class);
+        when(inputObjectMock.getGeneralForm()).thenReturn(generalFormInput);
+        DictionaryObject outputObjectMock = Mockito.mock(DictionaryObject.class);
+        when(outputObjectMock.getGeneralForm()).thenReturn(generalFormOutput);
+        return ImmutableBilingualEntry.builder()
+                .setInputObject(inputObjectMock)
+                .setOutputObject(outputObjectMock)
+                .build();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.aggregation.order;
+
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link QueryDistanceCalculator}.
+ */
+public class QueryDistanceCalculatorTest {
+
+    @Test
+    public void testDistance() throws Exception {
+        QueryDistanceCalculator calculator = new QueryDistanceCalculator("hase");
+
+        assertEquals(0, calculator.distance("hase", QueryDistanceCalculator.UNBOUNDED));
+        assertEquals(1, calculator.distance("huse", QueryDistanceCalculator.UNBOUNDED));
+        assertEquals(1, calculator.distance("hause", QueryDistanceCalculator.UNBOUNDED));
+        assertEquals(2, calculator.distance("hus", QueryDistanceCalculator.UNBOUNDED));
+        assertEquals(4, calculator.distance("", QueryDistanceCalculator.UNBOUNDED));
+    }
+
+    @Test
+    public void testDistance_ignoresCase() throws Exception {
+        QueryDistanceCalculator calculator = new QueryDistanceCalculator("HaSe");
+
+        assertEquals("hase", calculator.getNormalizedQuery());
+        assertEquals(0, calculator.distance("HASE", QueryDistanceCalculator.UNBOUNDED));
+        assertEquals(1, calculator.distance("Høse", QueryDistanceCalculator.UNBOUNDED));
+    }
+
+    @Test
+    public void testDistance_emptyQuery() throws Exception {
+        QueryDistanceCalculator calculator = new QueryDistanceCalculator("");
+
+        assertEquals(0, calculator.distance("", QueryDistanceCalculator.UNBOUNDED));
+        assertEquals(4, calculator.distance("hase", QueryDistanceCalculator.UNBOUNDED));
+    }
+
+    @Test
+    public void testDistance_exceedsMaximum() throws Exception {
+        QueryDistanceCalculator calculator = new QueryDistanceCalculator("hase");
+
+        assertEquals(2, calculator.distance("hus", 2));
+        assertEquals(2, calculator.distance("hus", 1));
+        assertEquals(3, calculator.distance("house by the lake", 2));
+        assertEquals(1, calculator.distance("xyzw", 0));
+    }
+
+    @Test
+    public void testDistance_sameAsLevenshtein() throws Exception {
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // Include queries which don't fit into a single bit vector
+            String query = randomString(random, random.nextInt(i % 10 == 0 ? 100 : 12));
+            String text = randomString(random, random.nextInt(14));
+            int maxDistance = random.nextInt(10);
+            QueryDistanceCalculator calculator = new QueryDistanceCalculator(query);
+
+            int expected = StringUtils.getLevenshteinDistance(query.toLowerCase(), text.toLowerCase());
+
+            assertEquals(expected, calculator.distance(text, QueryDistanceCalculator.UNBOUNDED));
+            assertEquals(Math.min(expected, maxDistance + 1), calculator.distance(text, maxDistance));
+        }
+    }
+
+    private String randomString(Random random, int length) {
+        String alphabet = "abcdeABCÅåø";
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+}
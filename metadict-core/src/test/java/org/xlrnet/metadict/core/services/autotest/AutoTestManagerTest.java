@@ -44,6 +44,7 @@ import org.xlrnet.metadict.api.query.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -86,7 +87,7 @@ public class AutoTestManagerTest {
     public void testInvokeAndValidate() throws Exception {
         // Prepare mocks
         BilingualDictionary dictionary = BilingualDictionary.fromLanguages(Language.ENGLISH, Language.GERMAN, true);
-        when(this.mockedSearchEngine.executeBilingualQuery(any(), any(), any(), anyBoolean())).thenReturn(this.actualResult);
+        when(this.mockedSearchEngine.executeBilingualQueryAsync(any(), any(), any(), anyBoolean())).thenReturn(CompletableFuture.completedFuture(this.actualResult));
         ArrayList<BilingualEntry> expectedEntriesList = new ArrayList<>();
         when(this.expectedResult.getBilingualEntries()).thenReturn(expectedEntriesList);
         ArrayList<ExternalContent> expectedExternalContentsList = new ArrayList<>();
@@ -108,7 +109,7 @@ public class AutoTestManagerTest {
         this.autoTestServiceSpy.invokeBilingualAndValidate(this.mockedSearchEngine, dictionary, TEST_REQUEST_STRING, this.expectedResult);
 
         // Verify correct call on search engine:
-        verify(this.mockedSearchEngine).executeBilingualQuery(TEST_REQUEST_STRING, Language.ENGLISH, Language.GERMAN, true);
+        verify(this.mockedSearchEngine).executeBilingualQueryAsync(TEST_REQUEST_STRING, Language.ENGLISH, Language.GERMAN, true);
 
         // Capture arguments and then assert the correct invocations:
         verify(this.autoTestServiceSpy, times(3)).validateActualObjects(expectedValueCaptor.capture(), actualValueCaptor.capture());
@@ -0,0 +1,477 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.collect.ImmutableMap;
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.engine.AsyncSearchEngineAdapter;
+import org.xlrnet.metadict.api.engine.SearchEngine;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.storage.InMemoryStorage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link CachedConcurrentExecutionStrategy}. Mockito mocks are not used for the engines, since their
+ * invocation recording is not safe to use from multiple threads at once. All engines are blocking and wrapped in an
+ * {@link AsyncSearchEngineAdapter} like the engines of the registry.
+ */
+public class CachedConcurrentExecutionStrategyTest {
+
+    private static final String QUERY_STRING = "queryString";
+
+    private static final String STORAGE_NAMESPACE = "QueryCache";
+
+    private static final long STORED_EXECUTION_TIME = 4711;
+
+    private static final BilingualQueryResult NON_EMPTY_RESULT = ImmutableBilingualQueryResult.builder()
+            .addBilingualEntry(ImmutableBilingualEntry.builder()
+                    .setInputObject(ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "house"))
+                    .setOutputObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "Haus"))
+                    .setEntryType(EntryType.NOUN)
+                    .build())
+            .build();
+
+    private static final String ENGINE_NAME = "mockedEngine";
+
+    private CachedConcurrentExecutionStrategy executionStrategy;
+
+    private InMemoryStorage storageService;
+
+    private ExecutorService engineExecutor;
+
+    @Before
+    public void setup() {
+        this.storageService = new InMemoryStorage();
+        this.engineExecutor = Executors.newCachedThreadPool();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, 4, 200, 500);
+    }
+
+    @After
+    public void tearDown() {
+        this.executionStrategy.shutdown();
+        this.engineExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testExecuteQueryPlan_keepsOrder() throws Exception {
+        StubSearchEngine searchEngine = new StubSearchEngine(0, false);
+        QueryPlan queryPlan = new QueryPlan();
+        for (int i = 0; i < 10; i++) {
+            queryPlan.addQueryStep(getQueryStep(QUERY_STRING + i, searchEngine));
+        }
+
+        List<QueryStepResult> queryStepResults = new ArrayList<>(this.executionStrategy.executeQueryPlan(queryPlan));
+
+        assertEquals(10, queryStepResults.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(queryPlan.getQueryStepList().get(i), queryStepResults.get(i).getQueryStep());
+            assertFalse(queryStepResults.get(i).isFailedStep());
+        }
+        assertEquals(10, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_cacheHit() throws Exception {
+        StubSearchEngine searchEngine = new StubSearchEngine(0, false);
+        AbstractQueryStep queryStep = getQueryStep(QUERY_STRING, searchEngine);
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(queryStep);
+
+        this.executionStrategy.executeQueryPlan(queryPlan);
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(queryPlan).iterator().next();
+
+        assertFalse(queryStepResult.isFailedStep());
+        assertEquals(1, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_stepTimeout() throws Exception {
+        AbstractQueryStep slowQueryStep = getQueryStep(QUERY_STRING + "slow", new StubSearchEngine(2000, false));
+        AbstractQueryStep fastQueryStep = getQueryStep(QUERY_STRING + "fast", new StubSearchEngine(0, false));
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(slowQueryStep).addQueryStep(fastQueryStep);
+
+        long startTime = System.currentTimeMillis();
+        List<QueryStepResult> queryStepResults = new ArrayList<>(this.executionStrategy.executeQueryPlan(queryPlan));
+        long executionTime = System.currentTimeMillis() - startTime;
+
+        assertTrue("Execution took " + executionTime + " ms", executionTime < 1000);
+        assertEquals(2, queryStepResults.size());
+        assertTrue(queryStepResults.get(0).isFailedStep());
+        assertFalse(queryStepResults.get(1).isFailedStep());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_consumerInCompletionOrder() throws Exception {
+        AbstractQueryStep slowQueryStep = getQueryStep(QUERY_STRING + "slow", new StubSearchEngine(100, false));
+        AbstractQueryStep fastQueryStep = getQueryStep(QUERY_STRING + "fast", new StubSearchEngine(0, false));
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(slowQueryStep).addQueryStep(fastQueryStep);
+        List<QueryStepResult> consumedResults = new ArrayList<>();
+
+        List<QueryStepResult> queryStepResults = new ArrayList<>(this.executionStrategy.executeQueryPlan(queryPlan, consumedResults::add));
+
+        assertEquals(2, consumedResults.size());
+        assertEquals(fastQueryStep, consumedResults.get(0).getQueryStep());
+        assertEquals(slowQueryStep, consumedResults.get(1).getQueryStep());
+        assertEquals(slowQueryStep, queryStepResults.get(0).getQueryStep());
+        assertEquals(fastQueryStep, queryStepResults.get(1).getQueryStep());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_cacheHitsConsumedAfterSubmission() throws Exception {
+        AbstractQueryStep cachedQueryStep = getQueryStep(QUERY_STRING + "cached", new StubSearchEngine(0, false));
+        this.executionStrategy.executeQueryPlan(new QueryPlan().addQueryStep(cachedQueryStep));
+        CountDownLatch uncachedStepStarted = new CountDownLatch(1);
+        AbstractQueryStep uncachedQueryStep = getQueryStep(QUERY_STRING + "uncached", new StubSearchEngine(0, false) {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+                uncachedStepStarted.countDown();
+                return super.executeBilingualQuery(queryInput, inputLanguage, outputLanguage, allowBothWay);
+            }
+        });
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(cachedQueryStep).addQueryStep(uncachedQueryStep);
+        List<Boolean> startedBeforeConsumption = new ArrayList<>();
+
+        this.executionStrategy.executeQueryPlan(queryPlan, queryStepResult -> {
+            if (queryStepResult.getQueryStep() == cachedQueryStep) {
+                try {
+                    startedBeforeConsumption.add(uncachedStepStarted.await(1000, TimeUnit.MILLISECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        assertEquals(Collections.singletonList(true), startedBeforeConsumption);
+    }
+
+    @Test
+    public void testExecuteQueryPlan_stepThrows() throws Exception {
+        AbstractQueryStep queryStep = getQueryStep(QUERY_STRING, new StubSearchEngine(0, true));
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(queryStep);
+
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(queryPlan).iterator().next();
+
+        assertTrue(queryStepResult.isFailedStep());
+        assertEquals(queryStep, queryStepResult.getQueryStep());
+        assertNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey()));
+    }
+
+    @Test
+    public void testExecuteQueryPlan_staleResultRefreshedInBackground() throws Exception {
+        this.executionStrategy.shutdown();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, new EngineBackoffTracker(0, 0), HedgingPolicy.disabled(), 4, 2000, 2000, 60000, Collections.emptyMap(), 0);
+        StubSearchEngine searchEngine = new StubSearchEngine(200, false);
+        AbstractQueryStep queryStep = getQueryStep(QUERY_STRING, searchEngine);
+        storeCachedResult(queryStep, 0);
+
+        long startTime = System.currentTimeMillis();
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(new QueryPlan().addQueryStep(queryStep)).iterator().next();
+        long executionTime = System.currentTimeMillis() - startTime;
+
+        assertTrue("Execution took " + executionTime + " ms", executionTime < 200);
+        assertEquals(STORED_EXECUTION_TIME, queryStepResult.getExecutionTime());
+
+        long deadline = System.currentTimeMillis() + 2000;
+        CachedQueryStepResult cachedResult = this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey());
+        while ((cachedResult == null || cachedResult.getWriteTimestamp() == 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            cachedResult = this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey());
+        }
+
+        assertNotNull(cachedResult);
+        assertTrue(cachedResult.getWriteTimestamp() > 0);
+        assertEquals(1, searchEngine.invocations.get());
+        assertTrue(this.storageService.read(STORAGE_NAMESPACE, queryStep.getCacheKey().toString(), CachedQueryStepResult.class).get().getWriteTimestamp() > 0);
+    }
+
+    @Test
+    public void testExecuteQueryPlan_freshResultNotRefreshed() throws Exception {
+        this.executionStrategy.shutdown();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, new EngineBackoffTracker(0, 0), HedgingPolicy.disabled(), 4, 200, 500, 60000, Collections.emptyMap(), 0);
+        StubSearchEngine searchEngine = new StubSearchEngine(0, false);
+        AbstractQueryStep queryStep = getQueryStep(QUERY_STRING, searchEngine);
+        storeCachedResult(queryStep, System.currentTimeMillis());
+
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(new QueryPlan().addQueryStep(queryStep)).iterator().next();
+        Thread.sleep(50);
+
+        assertEquals(STORED_EXECUTION_TIME, queryStepResult.getExecutionTime());
+        assertEquals(0, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testGetStepCacheTtl_engineOverride() throws Exception {
+        this.executionStrategy.shutdown();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, new EngineBackoffTracker(0, 0), HedgingPolicy.disabled(), 4, 200, 500, 60000, ImmutableMap.of(ENGINE_NAME, 1000L), 0);
+
+        assertEquals(1000L, this.executionStrategy.getStepCacheTtl(ENGINE_NAME));
+        assertEquals(60000L, this.executionStrategy.getStepCacheTtl("otherEngine"));
+    }
+
+    @Test
+    public void testExecuteQueryPlan_failedResultCachedNegatively() throws Exception {
+        createStrategyWithNegativeCache(new EngineBackoffTracker(0, 0));
+        StubSearchEngine searchEngine = new StubSearchEngine(0, true);
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(getQueryStep(QUERY_STRING, searchEngine));
+
+        this.executionStrategy.executeQueryPlan(queryPlan);
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(queryPlan).iterator().next();
+
+        assertTrue(queryStepResult.isFailedStep());
+        assertEquals(1, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_emptyResultNotStored() throws Exception {
+        createStrategyWithNegativeCache(new EngineBackoffTracker(0, 0));
+        StubSearchEngine searchEngine = new StubSearchEngine(0, false, ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT);
+        AbstractQueryStep queryStep = getQueryStep(QUERY_STRING, searchEngine);
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(queryStep);
+
+        this.executionStrategy.executeQueryPlan(queryPlan);
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(queryPlan).iterator().next();
+
+        assertFalse(queryStepResult.isFailedStep());
+        assertEquals(1, searchEngine.invocations.get());
+        assertNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey()));
+        assertFalse(this.storageService.containsKey(STORAGE_NAMESPACE, queryStep.getCacheKey().toString()));
+    }
+
+    @Test
+    public void testExecuteQueryPlan_skippedWhileEngineBacksOff() throws Exception {
+        createStrategyWithNegativeCache(new EngineBackoffTracker(60000, 60000));
+        StubSearchEngine searchEngine = new StubSearchEngine(0, true);
+
+        QueryStepResult failedResult = this.executionStrategy.executeQueryPlan(new QueryPlan().addQueryStep(getQueryStep(QUERY_STRING + "1", searchEngine))).iterator().next();
+        QueryStepResult skippedResult = this.executionStrategy.executeQueryPlan(new QueryPlan().addQueryStep(getQueryStep(QUERY_STRING + "2", searchEngine))).iterator().next();
+
+        assertTrue(failedResult.isFailedStep());
+        assertFalse(failedResult.isSkippedStep());
+        assertTrue(skippedResult.isSkippedStep());
+        assertFalse(skippedResult.isFailedStep());
+        assertNotNull(skippedResult.getErrorMessage());
+        assertEquals(1, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_slowCallHedged() throws Exception {
+        EngineStatisticsTracker engineStatisticsTracker = new EngineStatisticsTracker();
+        for (int i = 0; i < HedgingPolicy.MIN_LATENCY_SAMPLES; i++) {
+            engineStatisticsTracker.recordLatency(ENGINE_NAME, 10);
+        }
+        createStrategyWithHedging(new HedgingPolicy(engineStatisticsTracker, true, 95, 100));
+        SlowFirstCallSearchEngine searchEngine = new SlowFirstCallSearchEngine(1500);
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(getQueryStep(QUERY_STRING, searchEngine));
+
+        long startTime = System.currentTimeMillis();
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(queryPlan).iterator().next();
+        long executionTime = System.currentTimeMillis() - startTime;
+
+        assertFalse(queryStepResult.isFailedStep());
+        assertTrue("Execution took " + executionTime + " ms", executionTime < 1000);
+        assertEquals(2, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_notHedgedWithoutLatencySamples() throws Exception {
+        createStrategyWithHedging(new HedgingPolicy(new EngineStatisticsTracker(), true, 95, 100));
+        SlowFirstCallSearchEngine searchEngine = new SlowFirstCallSearchEngine(100);
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(getQueryStep(QUERY_STRING, searchEngine));
+
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryPlan(queryPlan).iterator().next();
+
+        assertFalse(queryStepResult.isFailedStep());
+        assertEquals(1, searchEngine.invocations.get());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_planTimeout() throws Exception {
+        this.executionStrategy.shutdown();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, 1, 1000, 500);
+        StubSearchEngine searchEngine = new StubSearchEngine(200, false);
+        QueryPlan queryPlan = new QueryPlan();
+        for (int i = 0; i < 3; i++) {
+            queryPlan.addQueryStep(getQueryStep(QUERY_STRING + i, searchEngine));
+        }
+
+        long startTime = System.currentTimeMillis();
+        List<QueryStepResult> queryStepResults = new ArrayList<>(this.executionStrategy.executeQueryPlan(queryPlan));
+        long executionTime = System.currentTimeMillis() - startTime;
+
+        assertTrue("Execution took " + executionTime + " ms", executionTime < 1000);
+        assertFalse(queryStepResults.get(0).isFailedStep());
+        assertFalse(queryStepResults.get(1).isFailedStep());
+        assertTrue(queryStepResults.get(2).isFailedStep());
+        assertEquals("Query plan timed out", queryStepResults.get(2).getErrorMessage());
+    }
+
+    @Test
+    public void testExecuteQueryPlan_concurrentLookupsShareExecution() throws Exception {
+        CountDownLatch lookupsStarted = new CountDownLatch(1);
+        CountDownLatch engineReleased = new CountDownLatch(1);
+        StubSearchEngine searchEngine = new StubSearchEngine(0, false) {
+            @NotNull
+            @Override
+            public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+                lookupsStarted.countDown();
+                try {
+                    engineReleased.await(1000, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.executeBilingualQuery(queryInput, inputLanguage, outputLanguage, allowBothWay);
+            }
+        };
+        QueryPlan queryPlan = new QueryPlan().addQueryStep(getQueryStep(QUERY_STRING, searchEngine));
+
+        Thread firstPlan = new Thread(() -> this.executionStrategy.executeQueryPlan(queryPlan));
+        firstPlan.start();
+        assertTrue(lookupsStarted.await(1000, TimeUnit.MILLISECONDS));
+        AtomicReference<QueryStepResult> secondResult = new AtomicReference<>();
+        Thread secondPlan = new Thread(() -> secondResult.set(this.executionStrategy.executeQueryPlan(queryPlan).iterator().next()));
+        secondPlan.start();
+        Thread.sleep(50);
+        engineReleased.countDown();
+        firstPlan.join(1000);
+        secondPlan.join(1000);
+
+        assertNotNull(secondResult.get());
+        assertFalse(secondResult.get().isFailedStep());
+        assertEquals(1, searchEngine.invocations.get());
+    }
+
+    private void createStrategyWithHedging(HedgingPolicy hedgingPolicy) {
+        this.executionStrategy.shutdown();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, new EngineBackoffTracker(0, 0), hedgingPolicy, 4, 2000, 2000, 0, Collections.emptyMap(), 0);
+    }
+
+    private void createStrategyWithNegativeCache(EngineBackoffTracker engineBackoffTracker) {
+        this.executionStrategy.shutdown();
+        this.executionStrategy = new CachedConcurrentExecutionStrategy(this.storageService, engineBackoffTracker, HedgingPolicy.disabled(), 4, 200, 500, 0, Collections.emptyMap(), 60000);
+    }
+
+    private void storeCachedResult(AbstractQueryStep queryStep, long writeTimestamp) throws Exception {
+        QueryStepResult storedResult = new QueryStepResultBuilder()
+                .setQueryStep(queryStep)
+                .setEngineQueryResult(NON_EMPTY_RESULT)
+                .setExecutionTime(STORED_EXECUTION_TIME)
+                .build();
+        this.storageService.create(STORAGE_NAMESPACE, queryStep.getCacheKey().toString(), new CachedQueryStepResult(storedResult, writeTimestamp));
+    }
+
+    private AbstractQueryStep getQueryStep(String queryString, SearchEngine searchEngine) {
+        return new BilingualQueryStep()
+                .setAllowBothWay(true)
+                .setInputLanguage(Language.ENGLISH)
+                .setOutputLanguage(Language.GERMAN)
+                .setQueryString(queryString)
+                .setSearchEngine(new AsyncSearchEngineAdapter(searchEngine, this.engineExecutor))
+                .setSearchEngineName(ENGINE_NAME);
+    }
+
+    private static class StubSearchEngine implements SearchEngine {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        private final long delay;
+
+        private final boolean fail;
+
+        private final BilingualQueryResult queryResult;
+
+        StubSearchEngine(long delay, boolean fail) {
+            this(delay, fail, NON_EMPTY_RESULT);
+        }
+
+        StubSearchEngine(long delay, boolean fail, BilingualQueryResult queryResult) {
+            this.delay = delay;
+            this.fail = fail;
+            this.queryResult = queryResult;
+        }
+
+        @NotNull
+        @Override
+        public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+            this.invocations.incrementAndGet();
+            if (this.fail) {
+                throw new MetadictTechnicalException("Exception");
+            }
+            if (this.delay > 0) {
+                try {
+                    Thread.sleep(this.delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MetadictTechnicalException(e);
+                }
+            }
+            return this.queryResult;
+        }
+    }
+
+    /**
+     * Engine which is slow on its first invocation and fast on all further invocations.
+     */
+    private static class SlowFirstCallSearchEngine implements SearchEngine {
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        private final long firstCallDelay;
+
+        SlowFirstCallSearchEngine(long firstCallDelay) {
+            this.firstCallDelay = firstCallDelay;
+        }
+
+        @NotNull
+        @Override
+        public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
+            if (this.invocations.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(this.firstCallDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MetadictTechnicalException(e);
+                }
+            }
+            return NON_EMPTY_RESULT;
+        }
+    }
+}
@@ -33,12 +33,16 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.xlrnet.metadict.api.engine.SearchEngine;
 import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
 import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualEntry;
 import org.xlrnet.metadict.api.query.BilingualQueryResult;
 import org.xlrnet.metadict.api.storage.StorageOperationException;
+import org.xlrnet.metadict.api.util.FutureUtils;
 import org.xlrnet.metadict.core.api.query.QueryStepResult;
 import org.xlrnet.metadict.core.services.storage.InMemoryStorage;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.*;
 import static org.mockito.Matchers.any;
@@ -86,7 +90,7 @@ public class CachedLinearExecutionStrategyTest {
         verify(this.executionStrategy).executeQueryPlan(queryPlan);
         assertEquals(queryStepResults.size(), 1);
         assertEquals(this.stepResultMock, queryStepResults.iterator().next());
-        assertNotNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep));
+        assertNotNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey()));
     }
 
     @Test
@@ -102,7 +106,7 @@ public class CachedLinearExecutionStrategyTest {
         verify(this.executionStrategy).executeQueryPlan(queryPlan);
         assertEquals(queryStepResults.size(), 1);
         assertEquals(this.stepResultMock, queryStepResults.iterator().next());
-        assertNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep));
+        assertNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey()));
     }
 
     @Test
@@ -121,14 +125,15 @@ public class CachedLinearExecutionStrategyTest {
 
         assertTrue(queryStepResult.isFailedStep());
         assertEquals("java.lang.RuntimeException: Exception", queryStepResult.getErrorMessage());
-        assertNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep));
+        assertNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey()));
     }
 
     @Test
     public void testExecuteQueryPlan_storageThrows() throws Exception {
         AbstractQueryStep queryStep = getQueryStepMock();
         QueryPlan queryPlan = new QueryPlan().addQueryStep(queryStep);
-        when(this.engineMock.executeBilingualQuery(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(this.resultMock);
+        when(this.engineMock.executeBilingualQueryAsync(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(CompletableFuture.completedFuture(this.resultMock));
+        when(this.resultMock.getBilingualEntries()).thenReturn(Collections.singletonList(mock(BilingualEntry.class)));
 
         doThrow(new StorageOperationException("message", "ns", "key")).when(this.storageService).read(any(), any(), any());
 
@@ -142,17 +147,17 @@ public class CachedLinearExecutionStrategyTest {
         QueryStepResult queryStepResult = queryStepResults.iterator().next();
 
         assertFalse(queryStepResult.isFailedStep());
-        assertNotNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep));
+        assertNotNull(this.executionStrategy.queryStepResultCache.getIfPresent(queryStep.getCacheKey()));
     }
 
     @Test
     public void testExecuteQueryStep_returnsNull() throws Exception {
         AbstractQueryStep queryStep = getQueryStepMock();
-        when(this.engineMock.executeBilingualQuery(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(null);
+        when(this.engineMock.executeBilingualQueryAsync(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(CompletableFuture.completedFuture(null));
 
         QueryStepResult queryStepResult = this.executionStrategy.executeQueryStep(queryStep);
 
-        verify(this.engineMock).executeBilingualQuery(eq(QUERY_STRING), eq(Language.ENGLISH), eq(Language.GERMAN), eq(true));
+        verify(this.engineMock).executeBilingualQueryAsync(eq(QUERY_STRING), eq(Language.ENGLISH), eq(Language.GERMAN), eq(true));
 
         assertTrue(queryStepResult.isFailedStep());
         assertNotNull(queryStepResult.getErrorMessage());
@@ -164,11 +169,11 @@ public class CachedLinearExecutionStrategyTest {
     public void testExecuteQueryStep_succesful() throws Exception {
         AbstractQueryStep queryStep = getQueryStepMock();
 
-        when(this.engineMock.executeBilingualQuery(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(this.resultMock);
+        when(this.engineMock.executeBilingualQueryAsync(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(CompletableFuture.completedFuture(this.resultMock));
 
         QueryStepResult queryStepResult = this.executionStrategy.executeQueryStep(queryStep);
 
-        verify(this.engineMock).executeBilingualQuery(eq(QUERY_STRING), eq(Language.ENGLISH), eq(Language.GERMAN), eq(true));
+        verify(this.engineMock).executeBilingualQueryAsync(eq(QUERY_STRING), eq(Language.ENGLISH), eq(Language.GERMAN), eq(true));
 
         assertFalse(queryStepResult.isFailedStep());
         assertNull(queryStepResult.getErrorMessage());
@@ -179,11 +184,11 @@ public class CachedLinearExecutionStrategyTest {
     @Test
     public void testExecuteQueryStep_throwsException() throws Exception {
         AbstractQueryStep queryStep = getQueryStepMock();
-        when(this.engineMock.executeBilingualQuery(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenThrow(new MetadictTechnicalException("Exception"));
+        when(this.engineMock.executeBilingualQueryAsync(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(FutureUtils.failedFuture(new MetadictTechnicalException("Exception")));
 
         QueryStepResult queryStepResult = this.executionStrategy.executeQueryStep(queryStep);
 
-        verify(this.engineMock).executeBilingualQuery(eq(QUERY_STRING), eq(Language.ENGLISH), eq(Language.GERMAN), eq(true));
+        verify(this.engineMock).executeBilingualQueryAsync(eq(QUERY_STRING), eq(Language.ENGLISH), eq(Language.GERMAN), eq(true));
 
         assertTrue(queryStepResult.isFailedStep());
         assertEquals("Exception", queryStepResult.getErrorMessage());
@@ -191,6 +196,19 @@ public class CachedLinearExecutionStrategyTest {
         assertEquals(queryStep, queryStepResult.getQueryStep());
     }
 
+    @Test
+    public void testExecuteQueryStep_engineUnavailable() throws Exception {
+        AbstractQueryStep queryStep = getQueryStepMock();
+        when(this.engineMock.executeBilingualQueryAsync(anyString(), any(Language.class), any(Language.class), anyBoolean())).thenReturn(FutureUtils.failedFuture(new EngineUnavailableException("Unavailable")));
+
+        QueryStepResult queryStepResult = this.executionStrategy.executeQueryStep(queryStep);
+
+        assertTrue(queryStepResult.isSkippedStep());
+        assertFalse(queryStepResult.isFailedStep());
+        assertEquals("Unavailable", queryStepResult.getErrorMessage());
+        assertNotNull(queryStepResult.getEngineQueryResult());
+    }
+
     private AbstractQueryStep getQueryStepMock() {
         return new BilingualQueryStep()
                 .setAllowBothWay(true)
@@ -0,0 +1,218 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.engine.SearchEngine;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test cases for {@link CostBasedQueryPlanningStrategy}.
+ */
+public class CostBasedQueryPlanningStrategyTest {
+
+    private static final String BILINGUAL_ENGINE = "bilingual";
+
+    private static final String MONOLINGUAL_ENGINE = "monolingual";
+
+    private static final BilingualDictionary DICTIONARY = BilingualDictionary.fromLanguages(Language.GERMAN, Language.ENGLISH, true);
+
+    private EngineRegistryService engineRegistryService;
+
+    private EngineStatisticsTracker engineStatisticsTracker;
+
+    @Before
+    public void setup() {
+        this.engineRegistryService = mock(EngineRegistryService.class);
+        this.engineStatisticsTracker = new EngineStatisticsTracker();
+        when(this.engineRegistryService.getSearchEngineNamesByDictionary(any(BilingualDictionary.class))).thenReturn(Collections.singletonList(BILINGUAL_ENGINE));
+        when(this.engineRegistryService.getSearchEngineNamesByLanguage(any(Language.class))).thenReturn(Collections.singletonList(MONOLINGUAL_ENGINE));
+        when(this.engineRegistryService.getEngineByName(anyString())).thenReturn(mock(SearchEngine.class));
+    }
+
+    @Test
+    public void testAllStepsPlannedWithoutStatistics() {
+        QueryPlan queryPlan = newStrategy(100).calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+
+        assertEquals(3, queryPlan.getQueryStepList().size());
+        assertTrue(queryPlan.isComplete());
+    }
+
+    @Test
+    public void testSlowAutoDerivedStepsOmittedWhenBudgetIsTight() {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 2000, false, false);
+
+        QueryPlan queryPlan = newStrategy(1000).calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+
+        assertEquals(1, queryPlan.getQueryStepList().size());
+        assertTrue(queryPlan.getQueryStepList().get(0) instanceof BilingualQueryStep);
+        assertEquals(2, queryPlan.getOmittedQueryStepList().size());
+        assertFalse(queryPlan.isComplete());
+    }
+
+    @Test
+    public void testSlowAutoDerivedStepsPlannedWithinBudget() {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 2000, false, false);
+
+        QueryPlan queryPlan = newStrategy(5000).calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+
+        assertEquals(3, queryPlan.getQueryStepList().size());
+        assertTrue(queryPlan.getQueryStepList().get(0) instanceof BilingualQueryStep);
+    }
+
+    @Test
+    public void testRequestBudgetOverridesDefault() {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 2000, false, false);
+        QueryRequest queryRequest = new QueryRequestBuilder()
+                .setQueryString("test")
+                .addQueryDictionary(DICTIONARY)
+                .setAutoDeriveMonolingualLanguages(true)
+                .setLatencyBudget(1000)
+                .build();
+
+        QueryPlan queryPlan = newStrategy(5000).calculateQueryPlan(queryRequest, this.engineRegistryService);
+
+        assertEquals(1, queryPlan.getQueryStepList().size());
+    }
+
+    @Test
+    public void testExplicitStepsAreNeverOmitted() {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 2000, true, false);
+        QueryRequest queryRequest = new QueryRequestBuilder()
+                .setQueryString("test")
+                .addQueryDictionary(DICTIONARY)
+                .addQueryLanguage(Language.GERMAN)
+                .build();
+
+        QueryPlan queryPlan = newStrategy(1000).calculateQueryPlan(queryRequest, this.engineRegistryService);
+
+        assertEquals(2, queryPlan.getQueryStepList().size());
+        assertTrue(queryPlan.isComplete());
+    }
+
+    @Test
+    public void testAutoDerivedStepsOfFailingEngineOmitted() {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 100, false, true);
+
+        QueryPlan queryPlan = newStrategy(0).calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+
+        assertEquals(1, queryPlan.getQueryStepList().size());
+        assertEquals(2, queryPlan.getOmittedQueryStepList().size());
+    }
+
+    @Test
+    public void testOmittedStepsExploredAfterInterval() throws Exception {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 100, false, true);
+        CostBasedQueryPlanningStrategy strategy = new CostBasedQueryPlanningStrategy(this.engineStatisticsTracker, ExecutionStrategyType.CONCURRENT, 0, 50);
+
+        QueryPlan firstPlan = strategy.calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+        Thread.sleep(60);
+        QueryPlan explorationPlan = strategy.calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+        QueryPlan nextPlan = strategy.calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+
+        assertEquals(1, firstPlan.getQueryStepList().size());
+        assertEquals(2, explorationPlan.getQueryStepList().size());
+        assertEquals(1, explorationPlan.getOmittedQueryStepList().size());
+        assertEquals(1, nextPlan.getQueryStepList().size());
+    }
+
+    @Test
+    public void testAutoDerivedStepsWithoutYieldOmitted() {
+        recordCalls(BILINGUAL_ENGINE, 100, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 100, true, false);
+
+        QueryPlan queryPlan = newStrategy(0).calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService);
+
+        assertEquals(1, queryPlan.getQueryStepList().size());
+    }
+
+    @Test
+    public void testLinearExecutionAddsUpLatencies() {
+        recordCalls(BILINGUAL_ENGINE, 600, false, false);
+        recordCalls(MONOLINGUAL_ENGINE, 600, false, false);
+        CostBasedQueryPlanningStrategy concurrentStrategy = new CostBasedQueryPlanningStrategy(this.engineStatisticsTracker, ExecutionStrategyType.CONCURRENT, 1000);
+        CostBasedQueryPlanningStrategy linearStrategy = new CostBasedQueryPlanningStrategy(this.engineStatisticsTracker, ExecutionStrategyType.LINEAR, 1000);
+
+        List<AbstractQueryStep> concurrentSteps = concurrentStrategy.calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService).getQueryStepList();
+        List<AbstractQueryStep> linearSteps = linearStrategy.calculateQueryPlan(autoDerivedRequest(), this.engineRegistryService).getQueryStepList();
+
+        assertEquals(3, concurrentSteps.size());
+        assertEquals(1, linearSteps.size());
+    }
+
+    @Test
+    public void testAutoDerivedLanguagesInRequest() {
+        QueryRequest queryRequest = new QueryRequestBuilder()
+                .setQueryString("test")
+                .addQueryDictionary(DICTIONARY)
+                .addQueryLanguage(Language.GERMAN)
+                .setAutoDeriveMonolingualLanguages(true)
+                .build();
+
+        assertEquals(2, queryRequest.getMonolingualLanguages().size());
+        assertEquals(Collections.singletonList(Language.ENGLISH), queryRequest.getAutoDerivedMonolingualLanguages());
+    }
+
+    private CostBasedQueryPlanningStrategy newStrategy(long latencyBudget) {
+        return new CostBasedQueryPlanningStrategy(this.engineStatisticsTracker, ExecutionStrategyType.CONCURRENT, latencyBudget);
+    }
+
+    private QueryRequest autoDerivedRequest() {
+        return new QueryRequestBuilder()
+                .setQueryString("test")
+                .addQueryDictionary(DICTIONARY)
+                .setAutoDeriveMonolingualLanguages(true)
+                .build();
+    }
+
+    private void recordCalls(String searchEngineName, long latency, boolean empty, boolean failing) {
+        for (int i = 0; i < CostBasedQueryPlanningStrategy.MIN_SAMPLES; i++) {
+            this.engineStatisticsTracker.recordLatency(searchEngineName, latency);
+            if (failing) {
+                this.engineStatisticsTracker.recordFailure(searchEngineName);
+            } else {
+                this.engineStatisticsTracker.recordResult(searchEngineName, empty);
+            }
+        }
+    }
+}
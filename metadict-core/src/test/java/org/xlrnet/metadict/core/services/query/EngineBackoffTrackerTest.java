@@ -0,0 +1,78 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link EngineBackoffTracker}.
+ */
+public class EngineBackoffTrackerTest {
+
+    private static final String ENGINE_NAME = "engine";
+
+    @Test
+    public void testCalculateBackoff() {
+        EngineBackoffTracker engineBackoffTracker = new EngineBackoffTracker(1000, 5000);
+
+        assertEquals(0, engineBackoffTracker.calculateBackoff(0));
+        assertEquals(1000, engineBackoffTracker.calculateBackoff(1));
+        assertEquals(2000, engineBackoffTracker.calculateBackoff(2));
+        assertEquals(4000, engineBackoffTracker.calculateBackoff(3));
+        assertEquals(5000, engineBackoffTracker.calculateBackoff(4));
+        assertEquals(5000, engineBackoffTracker.calculateBackoff(100));
+    }
+
+    @Test
+    public void testRecordFailure() {
+        EngineBackoffTracker engineBackoffTracker = new EngineBackoffTracker(60000, 60000);
+
+        engineBackoffTracker.recordFailure(ENGINE_NAME);
+
+        assertTrue(engineBackoffTracker.getRemainingBackoff(ENGINE_NAME) > 0);
+        assertEquals(0, engineBackoffTracker.getRemainingBackoff("otherEngine"));
+    }
+
+    @Test
+    public void testRecordSuccess() {
+        EngineBackoffTracker engineBackoffTracker = new EngineBackoffTracker(60000, 60000);
+
+        engineBackoffTracker.recordFailure(ENGINE_NAME);
+        engineBackoffTracker.recordSuccess(ENGINE_NAME);
+
+        assertEquals(0, engineBackoffTracker.getRemainingBackoff(ENGINE_NAME));
+    }
+
+    @Test
+    public void testDisabled() {
+        EngineBackoffTracker engineBackoffTracker = new EngineBackoffTracker(0, 0);
+
+        engineBackoffTracker.recordFailure(ENGINE_NAME);
+
+        assertEquals(0, engineBackoffTracker.getRemainingBackoff(ENGINE_NAME));
+    }
+}
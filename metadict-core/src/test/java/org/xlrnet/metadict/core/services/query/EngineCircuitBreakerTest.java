@@ -0,0 +1,183 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link EngineCircuitBreaker}.
+ */
+public class EngineCircuitBreakerTest {
+
+    private static final String ENGINE_NAME = "engine";
+
+    @Test
+    public void testBulkheadLimitsConcurrentCalls() {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 2, 10, 50, 60000);
+
+        EngineCircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+        assertNotNull(permission);
+        assertNotNull(circuitBreaker.tryAcquirePermission());
+        assertNull(circuitBreaker.tryAcquirePermission());
+        assertEquals(2, circuitBreaker.getStatus().getActiveCalls());
+
+        circuitBreaker.onSuccess(permission);
+
+        assertNotNull(circuitBreaker.tryAcquirePermission());
+        assertEquals(1, circuitBreaker.getStatus().getRejectedCalls());
+    }
+
+    @Test
+    public void testBulkheadDisabled() {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 0, 10, 50, 60000);
+
+        for (int i = 0; i < 100; i++) {
+            assertNotNull(circuitBreaker.tryAcquirePermission());
+        }
+        assertEquals(100, circuitBreaker.getStatus().getActiveCalls());
+        assertEquals(0, circuitBreaker.getStatus().getMaxConcurrentCalls());
+        assertEquals(0, circuitBreaker.getStatus().getRejectedCalls());
+    }
+
+    @Test
+    public void testOpensOnFailureRate() {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 10, 10, 50, 60000);
+
+        for (int i = 0; i < 4; i++) {
+            recordCall(circuitBreaker, i % 2 == 0);
+        }
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+
+        recordCall(circuitBreaker, false);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testStaysClosedBelowThreshold() {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 10, 10, 50, 60000);
+
+        for (int i = 0; i < 30; i++) {
+            recordCall(circuitBreaker, i % 3 != 0);
+        }
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertEquals(10, circuitBreaker.getStatus().getRecordedCalls());
+    }
+
+    @Test
+    public void testHalfOpenProbeSucceeds() throws Exception {
+        EngineCircuitBreaker circuitBreaker = openCircuit();
+        Thread.sleep(60);
+
+        EngineCircuitBreaker.Permission probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+        assertTrue(probe.isProbe());
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onSuccess(probe);
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        EngineCircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+        assertNotNull(permission);
+        assertFalse(permission.isProbe());
+    }
+
+    @Test
+    public void testHalfOpenProbeFails() throws Exception {
+        EngineCircuitBreaker circuitBreaker = openCircuit();
+        Thread.sleep(60);
+
+        EngineCircuitBreaker.Permission probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+        circuitBreaker.onError(probe);
+
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testHalfOpenProbeCancelled() throws Exception {
+        EngineCircuitBreaker circuitBreaker = openCircuit();
+        Thread.sleep(60);
+
+        EngineCircuitBreaker.Permission probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+        circuitBreaker.onCancel(probe);
+
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getStatus().getActiveCalls());
+        assertNotNull(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void testHalfOpenEndedOnlyByProbe() throws Exception {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 10, 2, 50, 50);
+        EngineCircuitBreaker.Permission slowSuccess = circuitBreaker.tryAcquirePermission();
+        EngineCircuitBreaker.Permission slowFailure = circuitBreaker.tryAcquirePermission();
+        assertNotNull(slowSuccess);
+        assertNotNull(slowFailure);
+        recordCall(circuitBreaker, false);
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        Thread.sleep(60);
+
+        EngineCircuitBreaker.Permission probe = circuitBreaker.tryAcquirePermission();
+        assertNotNull(probe);
+
+        // Calls which have been permitted before the circuit opened must not end the half-open state
+        circuitBreaker.onSuccess(slowSuccess);
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        circuitBreaker.onError(slowFailure);
+        assertEquals(CircuitBreakerState.HALF_OPEN, circuitBreaker.getState());
+        assertNull(circuitBreaker.tryAcquirePermission());
+
+        circuitBreaker.onSuccess(probe);
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getStatus().getRecordedCalls());
+        assertEquals(0, circuitBreaker.getStatus().getActiveCalls());
+    }
+
+    private EngineCircuitBreaker openCircuit() {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 10, 2, 50, 50);
+        recordCall(circuitBreaker, false);
+        assertEquals(CircuitBreakerState.OPEN, circuitBreaker.getState());
+        return circuitBreaker;
+    }
+
+    private void recordCall(EngineCircuitBreaker circuitBreaker, boolean successful) {
+        EngineCircuitBreaker.Permission permission = circuitBreaker.tryAcquirePermission();
+        assertNotNull(permission);
+        if (successful) {
+            circuitBreaker.onSuccess(permission);
+        } else {
+            circuitBreaker.onError(permission);
+        }
+    }
+}
@@ -24,14 +24,20 @@
 
 package org.xlrnet.metadict.core.services.query;
 
+import org.jetbrains.annotations.NotNull;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.xlrnet.metadict.api.engine.*;
 import org.xlrnet.metadict.api.language.BilingualDictionary;
 import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
 
-import static org.junit.Assert.assertEquals;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
 import static org.mockito.Mockito.when;
 
@@ -50,6 +56,11 @@ public class EngineRegistryServiceTest {
         this.searchEngineProviderMock = Mockito.mock(SearchEngineProvider.class);
     }
 
+    @After
+    public void tearDown() {
+        this.engineRegistryService.shutdown();
+    }
+
     @Test(expected = Exception.class)
     public void testRegisterSearchProvider_fail_null_all() throws Exception {
         this.engineRegistryService.registerSearchProvider(this.searchEngineProviderMock);
@@ -97,4 +108,47 @@ public class EngineRegistryServiceTest {
         assertEquals("Monolingual language has not been registered", 1, this.engineRegistryService.languageEngineNameMap.size());
         assertEquals("Bilingual dictionary has not been registered", 4, this.engineRegistryService.dictionaryEngineNameMap.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testRegisterSearchProvider_guardedEngine() throws Exception {
+        SearchEngine searchEngine = Mockito.mock(SearchEngine.class, RETURNS_SMART_NULLS);
+        when(this.searchEngineProviderMock.getEngineDescription()).thenReturn(Mockito.mock(EngineDescription.class, RETURNS_SMART_NULLS));
+        when(this.searchEngineProviderMock.getFeatureSet()).thenReturn(ImmutableFeatureSet.builder().build());
+        when(this.searchEngineProviderMock.newEngineInstance()).thenReturn(searchEngine);
+
+        this.engineRegistryService.registerSearchProvider(this.searchEngineProviderMock);
+        String engineName = this.engineRegistryService.getRegisteredEngineNames().iterator().next();
+        SearchEngine registeredEngine = this.engineRegistryService.getEngineByName(engineName);
+
+        assertTrue(registeredEngine instanceof GuardedSearchEngine);
+        assertSame(searchEngine, ((GuardedSearchEngine) registeredEngine).getDelegate());
+        assertEquals(1, this.engineRegistryService.getCircuitBreakerStatus().size());
+        assertEquals(engineName, this.engineRegistryService.getCircuitBreakerStatus().get(0).getEngineName());
+        assertEquals(CircuitBreakerState.CLOSED, this.engineRegistryService.getCircuitBreakerStatus().get(0).getState());
+    }
+
+    @Test
+    public void testRegisterSearchProvider_blockingEngineAdapted() throws Exception {
+        SearchEngine searchEngine = new BlockingSearchEngine();
+        when(this.searchEngineProviderMock.getEngineDescription()).thenReturn(Mockito.mock(EngineDescription.class, RETURNS_SMART_NULLS));
+        when(this.searchEngineProviderMock.getFeatureSet()).thenReturn(ImmutableFeatureSet.builder().build());
+        when(this.searchEngineProviderMock.newEngineInstance()).thenReturn(searchEngine);
+
+        this.engineRegistryService.registerSearchProvider(this.searchEngineProviderMock);
+        String engineName = this.engineRegistryService.getRegisteredEngineNames().iterator().next();
+        SearchEngine registeredEngine = ((GuardedSearchEngine) this.engineRegistryService.getEngineByName(engineName)).getDelegate();
+
+        assertTrue(registeredEngine instanceof AsyncSearchEngineAdapter);
+        assertSame(searchEngine, ((AsyncSearchEngineAdapter) registeredEngine).getDelegate());
+        assertSame(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT, registeredEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true).get(1, TimeUnit.SECONDS));
+    }
+
+    private static class BlockingSearchEngine implements SearchEngine {
+
+        @NotNull
+        @Override
+        public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+            return ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT;
+        }
+    }
+}
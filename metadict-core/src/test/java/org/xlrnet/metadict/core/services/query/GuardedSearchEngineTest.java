@@ -0,0 +1,346 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.engine.AsyncSearchEngineAdapter;
+import org.xlrnet.metadict.api.engine.SearchEngine;
+import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+import org.xlrnet.metadict.api.query.MonolingualQueryResult;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.storage.InMemoryStorage;
+
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link GuardedSearchEngine}. Each test makes sure that the permission of the bulkhead is released exactly
+ * once, no matter how the call of the engine ends.
+ */
+public class GuardedSearchEngineTest {
+
+    private static final String ENGINE_NAME = "engine";
+
+    private EngineCircuitBreaker circuitBreaker;
+
+    private EngineStatisticsTracker engineStatisticsTracker;
+
+    private StubSearchEngine searchEngine;
+
+    private GuardedSearchEngine guardedSearchEngine;
+
+    @Before
+    public void setup() {
+        this.circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 1, 100, 100, 60000);
+        this.engineStatisticsTracker = new EngineStatisticsTracker();
+        this.searchEngine = new StubSearchEngine();
+        this.guardedSearchEngine = new GuardedSearchEngine(this.searchEngine, ENGINE_NAME, this.circuitBreaker, this.engineStatisticsTracker);
+    }
+
+    @Test
+    public void testAsyncCall_success() throws Exception {
+        CompletableFuture<BilingualQueryResult> future = executeBilingualQueryAsync();
+
+        assertEquals(1, this.circuitBreaker.getStatus().getActiveCalls());
+        this.searchEngine.pendingFuture.complete(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT);
+
+        assertSame(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT, future.get());
+        assertPermissionReleased();
+        assertEquals(0.0, this.engineStatisticsTracker.getFailureRate(ENGINE_NAME), 0.001);
+    }
+
+    @Test
+    public void testAsyncCall_exceptionalCompletion() throws Exception {
+        MetadictTechnicalException exception = new MetadictTechnicalException("failure");
+        CompletableFuture<BilingualQueryResult> future = executeBilingualQueryAsync();
+
+        this.searchEngine.pendingFuture.completeExceptionally(exception);
+
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("Future must be completed exceptionally");
+        } catch (ExecutionException e) {
+            assertSame(exception, e.getCause());
+        }
+        assertFailureRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_cancel() throws Exception {
+        CompletableFuture<BilingualQueryResult> future = executeBilingualQueryAsync();
+
+        future.cancel(true);
+
+        assertTrue(this.searchEngine.pendingFuture.isCancelled());
+        assertNoOutcomeRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_cancelDoesNotOpenCircuit() throws Exception {
+        EngineCircuitBreaker circuitBreaker = new EngineCircuitBreaker(ENGINE_NAME, 0, 2, 50, 60000);
+        GuardedSearchEngine guardedSearchEngine = new GuardedSearchEngine(this.searchEngine, ENGINE_NAME, circuitBreaker, this.engineStatisticsTracker);
+
+        for (int i = 0; i < 4; i++) {
+            guardedSearchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true).cancel(true);
+        }
+
+        assertEquals(CircuitBreakerState.CLOSED, circuitBreaker.getState());
+        assertEquals(0, circuitBreaker.getStatus().getRecordedCalls());
+        assertEquals(0, circuitBreaker.getStatus().getActiveCalls());
+    }
+
+    @Test
+    public void testAsyncCall_timeout() throws Exception {
+        CompletableFuture<BilingualQueryResult> future = executeBilingualQueryAsync();
+
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail("Future must time out");
+        } catch (TimeoutException e) {
+            future.cancel(true);
+        }
+
+        assertTrue(this.searchEngine.pendingFuture.isCancelled());
+        assertNoOutcomeRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_synchronousException() throws Exception {
+        this.searchEngine.throwSynchronously = true;
+
+        CompletableFuture<BilingualQueryResult> future = executeBilingualQueryAsync();
+
+        assertTrue(future.isCompletedExceptionally());
+        assertFailureRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_synchronousError() throws Exception {
+        this.searchEngine.throwError = true;
+
+        try {
+            executeBilingualQueryAsync();
+            fail("Error must be thrown");
+        } catch (AssertionError e) {
+            assertEquals("error", e.getMessage());
+        }
+
+        assertFailureRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_nullFuture() throws Exception {
+        this.searchEngine.returnNull = true;
+
+        CompletableFuture<BilingualQueryResult> future = executeBilingualQueryAsync();
+
+        assertTrue(future.isCompletedExceptionally());
+        assertFailureRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_defaultBlockingImplementation() throws Exception {
+        CompletableFuture<MonolingualQueryResult> future = this.guardedSearchEngine.executeMonolingualQueryAsync("test", Language.GERMAN);
+
+        assertTrue(future.isCompletedExceptionally());
+        assertFailureRecorded();
+    }
+
+    @Test
+    public void testAsyncCall_rejected() throws Exception {
+        executeBilingualQueryAsync();
+
+        CompletableFuture<BilingualQueryResult> rejectedFuture = this.guardedSearchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+        try {
+            rejectedFuture.get();
+            fail("Call must be rejected");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof EngineUnavailableException);
+        }
+        assertEquals(1, this.circuitBreaker.getStatus().getActiveCalls());
+        assertEquals(1, this.searchEngine.invocations);
+    }
+
+    @Test
+    public void testAsyncCall_executorRejected() throws Exception {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new SynchronousQueue<>());
+        CountDownLatch callReleased = new CountDownLatch(1);
+        GuardedSearchEngine guardedSearchEngine = new GuardedSearchEngine(new AsyncSearchEngineAdapter(new BlockingSearchEngine(callReleased), executor),
+                ENGINE_NAME, new EngineCircuitBreaker(ENGINE_NAME, 0, 100, 100, 60000), this.engineStatisticsTracker);
+        try {
+            guardedSearchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+            CompletableFuture<BilingualQueryResult> rejectedFuture = guardedSearchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+
+            try {
+                rejectedFuture.get(1, TimeUnit.SECONDS);
+                fail("Call must be rejected");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof EngineUnavailableException);
+            }
+            assertEquals(0, this.engineStatisticsTracker.getOutcomeSampleCount(ENGINE_NAME));
+        } finally {
+            callReleased.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testAsyncCall_cancelledBlockingCallKeepsPermission() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch callReleased = new CountDownLatch(1);
+        BlockingSearchEngine blockingSearchEngine = new BlockingSearchEngine(callReleased);
+        GuardedSearchEngine guardedSearchEngine = new GuardedSearchEngine(new AsyncSearchEngineAdapter(blockingSearchEngine, executor),
+                ENGINE_NAME, this.circuitBreaker, this.engineStatisticsTracker);
+        try {
+            CompletableFuture<BilingualQueryResult> future = guardedSearchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+            assertTrue(blockingSearchEngine.callStarted.await(1, TimeUnit.SECONDS));
+
+            future.cancel(true);
+
+            assertEquals(1, this.circuitBreaker.getStatus().getActiveCalls());
+            callReleased.countDown();
+            waitForPermissionRelease();
+            assertNoOutcomeRecorded();
+        } finally {
+            callReleased.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStepTimeoutReleasesPermission() throws Exception {
+        CachedConcurrentExecutionStrategy executionStrategy = new CachedConcurrentExecutionStrategy(new InMemoryStorage(), 1, 100, 1000);
+        try {
+            BilingualQueryStep queryStep = new BilingualQueryStep()
+                    .setInputLanguage(Language.GERMAN)
+                    .setOutputLanguage(Language.ENGLISH)
+                    .setAllowBothWay(true);
+            queryStep.setQueryString("test").setSearchEngine(this.guardedSearchEngine).setSearchEngineName(ENGINE_NAME);
+
+            QueryStepResult queryStepResult = executionStrategy.executeQueryPlan(new QueryPlan().addQueryStep(queryStep)).iterator().next();
+
+            assertTrue(queryStepResult.isFailedStep());
+            waitForPermissionRelease();
+            assertTrue(this.searchEngine.pendingFuture.isCancelled());
+        } finally {
+            executionStrategy.shutdown();
+        }
+    }
+
+    private CompletableFuture<BilingualQueryResult> executeBilingualQueryAsync() {
+        return this.guardedSearchEngine.executeBilingualQueryAsync("test", Language.GERMAN, Language.ENGLISH, true);
+    }
+
+    private void assertFailureRecorded() {
+        assertPermissionReleased();
+        assertEquals(1, this.engineStatisticsTracker.getOutcomeSampleCount(ENGINE_NAME));
+        assertEquals(1.0, this.engineStatisticsTracker.getFailureRate(ENGINE_NAME), 0.001);
+    }
+
+    private void assertNoOutcomeRecorded() {
+        assertPermissionReleased();
+        assertEquals(0, this.engineStatisticsTracker.getOutcomeSampleCount(ENGINE_NAME));
+        assertEquals(0, this.circuitBreaker.getStatus().getRecordedCalls());
+    }
+
+    private void assertPermissionReleased() {
+        assertEquals(0, this.circuitBreaker.getStatus().getActiveCalls());
+        assertNotNull(this.circuitBreaker.tryAcquirePermission());
+    }
+
+    private void waitForPermissionRelease() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.circuitBreaker.getStatus().getActiveCalls() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, this.circuitBreaker.getStatus().getActiveCalls());
+    }
+
+    /**
+     * Blocking engine whose calls ignore interrupts and only return after the test released them, like a connection
+     * which is stuck until its socket times out.
+     */
+    private static class BlockingSearchEngine implements SearchEngine {
+
+        private final CountDownLatch callStarted = new CountDownLatch(1);
+
+        private final CountDownLatch callReleased;
+
+        BlockingSearchEngine(CountDownLatch callReleased) {
+            this.callReleased = callReleased;
+        }
+
+        @NotNull
+        @Override
+        public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+            this.callStarted.countDown();
+            Uninterruptibles.awaitUninterruptibly(this.callReleased, 5, TimeUnit.SECONDS);
+            return ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT;
+        }
+    }
+
+    /**
+     * Engine with a non-blocking bilingual lookup whose future is completed by the test.
+     */
+    private static class StubSearchEngine implements SearchEngine {
+
+        private volatile CompletableFuture<BilingualQueryResult> pendingFuture;
+
+        private volatile int invocations;
+
+        private boolean throwSynchronously;
+
+        private boolean throwError;
+
+        private boolean returnNull;
+
+        @NotNull
+        @Override
+        public CompletableFuture<BilingualQueryResult> executeBilingualQueryAsync(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) {
+            this.invocations++;
+            if (this.throwSynchronously) {
+                throw new IllegalStateException("failure");
+            }
+            if (this.throwError) {
+                throw new AssertionError("error");
+            }
+            if (this.returnNull) {
+                return null;
+            }
+            this.pendingFuture = new CompletableFuture<>();
+            return this.pendingFuture;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link HedgingPolicy}.
+ */
+public class HedgingPolicyTest {
+
+    private static final String ENGINE_NAME = "engine";
+
+    @Test
+    public void testDisabled() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(trackerWithSamples(100), false, 95, 100);
+
+        assertEquals(-1, hedgingPolicy.getHedgeDelay(ENGINE_NAME));
+        assertFalse(hedgingPolicy.tryAcquireHedge(ENGINE_NAME));
+    }
+
+    @Test
+    public void testNotEnoughSamples() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(trackerWithSamples(HedgingPolicy.MIN_LATENCY_SAMPLES - 1), true, 95, 10);
+
+        assertEquals(-1, hedgingPolicy.getHedgeDelay(ENGINE_NAME));
+    }
+
+    @Test
+    public void testHedgeDelayFromPercentile() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(trackerWithSamples(100), true, 95, 10);
+
+        long hedgeDelay = hedgingPolicy.getHedgeDelay(ENGINE_NAME);
+
+        assertTrue("Unexpected hedge delay " + hedgeDelay, hedgeDelay >= 950 && hedgeDelay <= 1140);
+    }
+
+    @Test
+    public void testHedgeRateIsCapped() {
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(trackerWithSamples(100), true, 95, 10);
+        int hedges = 0;
+
+        for (int i = 0; i < 100; i++) {
+            hedgingPolicy.getHedgeDelay(ENGINE_NAME);
+            if (hedgingPolicy.tryAcquireHedge(ENGINE_NAME)) {
+                hedges++;
+            }
+        }
+
+        assertEquals(10, hedges);
+    }
+
+    private EngineStatisticsTracker trackerWithSamples(int samples) {
+        EngineStatisticsTracker engineStatisticsTracker = new EngineStatisticsTracker();
+        for (int i = 1; i <= samples; i++) {
+            engineStatisticsTracker.recordLatency(ENGINE_NAME, i * 1000 / samples);
+        }
+        return engineStatisticsTracker;
+    }
+}
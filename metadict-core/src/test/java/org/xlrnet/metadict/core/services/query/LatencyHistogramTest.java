@@ -0,0 +1,84 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link LatencyHistogram}.
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void testEmpty() {
+        LatencyHistogram histogram = new LatencyHistogram(10);
+
+        assertEquals(0, histogram.getSampleCount());
+        assertEquals(0, histogram.getPercentile(95));
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram(100);
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 10);
+        }
+
+        assertEquals(100, histogram.getSampleCount());
+        assertBetween(500, 600, histogram.getPercentile(50));
+        assertBetween(950, 1140, histogram.getPercentile(95));
+        assertBetween(1000, 1200, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testOldSamplesAreRemoved() {
+        LatencyHistogram histogram = new LatencyHistogram(10);
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5000);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(10);
+        }
+
+        assertEquals(10, histogram.getSampleCount());
+        assertBetween(10, 12, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void testLargeLatency() {
+        LatencyHistogram histogram = new LatencyHistogram(10);
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(0);
+
+        assertEquals(1, histogram.getPercentile(50));
+        assertTrue(histogram.getPercentile(100) >= 120000);
+    }
+
+    private void assertBetween(long lower, long upper, long actual) {
+        assertTrue("Expected value between " + lower + " and " + upper + " but was " + actual, actual >= lower && actual <= upper);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link QueryRequestKey}.
+ */
+public class QueryRequestKeyTest {
+
+    @Test
+    public void testEquals_normalizedQueryString() throws Exception {
+        QueryRequestKey first = QueryRequestKey.from(buildRequest(" Test", 0));
+        QueryRequestKey second = QueryRequestKey.from(buildRequest("test ", 0));
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+
+    @Test
+    public void testEquals_differentLatencyBudget() throws Exception {
+        QueryRequestKey first = QueryRequestKey.from(buildRequest("test", 0));
+        QueryRequestKey second = QueryRequestKey.from(buildRequest("test", 1000));
+
+        assertFalse(first.equals(second));
+    }
+
+    private QueryRequest buildRequest(String queryString, long latencyBudget) {
+        return new QueryRequestBuilder()
+                .setQueryString(queryString)
+                .addQueryDictionary(BilingualDictionary.fromLanguages(Language.GERMAN, Language.ENGLISH, true))
+                .setLatencyBudget(latencyBudget)
+                .build();
+    }
+}
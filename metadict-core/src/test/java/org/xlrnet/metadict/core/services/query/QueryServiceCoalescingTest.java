@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.api.query.QueryResponse;
+import org.xlrnet.metadict.core.services.aggregation.merge.SimilarElementsMergeService;
+
+import java.util.Collections;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for coalescing identical in-flight queries in {@link QueryService}.
+ */
+public class QueryServiceCoalescingTest {
+
+    private final CountDownLatch releaseLatch = new CountDownLatch(1);
+
+    private final CountDownLatch startedLatch = new CountDownLatch(1);
+
+    private final AtomicInteger executionCount = new AtomicInteger();
+
+    private QueryService queryService;
+
+    @Before
+    public void setUp() throws Exception {
+        this.queryService = new QueryService(
+                new EngineRegistryService(),
+                new NullQueryPlanningStrategy(),
+                queryPlan -> {
+                    this.executionCount.incrementAndGet();
+                    this.startedLatch.countDown();
+                    try {
+                        this.releaseLatch.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return Collections.emptyList();
+                },
+                mock(SimilarElementsMergeService.class),
+                0, 1, 5000);
+    }
+
+    @Test
+    public void testExecuteQuery_coalesceIdenticalRequests() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            Future<QueryResponse> firstResponse = executorService.submit(() -> this.queryService.executeQuery(buildRequest(" test")));
+            this.startedLatch.await(5, TimeUnit.SECONDS);
+            Future<QueryResponse> secondResponse = executorService.submit(() -> this.queryService.executeQuery(buildRequest("test")));
+
+            // Wait until the second request has joined the first one
+            while (this.queryService.getStatistics().getCoalescedQueries() == 0) {
+                Thread.sleep(10);
+            }
+            this.releaseLatch.countDown();
+
+            QueryResponse first = firstResponse.get(5, TimeUnit.SECONDS);
+            QueryResponse second = secondResponse.get(5, TimeUnit.SECONDS);
+            assertSame(first.getPerformanceStatistics(), second.getPerformanceStatistics());
+            assertEquals(" test", first.getRequestString());
+            assertEquals("test", second.getRequestString());
+            assertEquals(1, this.executionCount.get());
+            assertEquals(2, this.queryService.getStatistics().getTotalQueries());
+            assertEquals(0.5, this.queryService.getStatistics().getCoalescingRatio(), 0.001);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecuteQuery_stuckInFlightQueryNotAwaitedForever() throws Exception {
+        QueryService queryService = new QueryService(new EngineRegistryService(), new NullQueryPlanningStrategy(),
+                queryPlan -> {
+                    if (this.executionCount.incrementAndGet() == 1) {
+                        this.startedLatch.countDown();
+                        try {
+                            this.releaseLatch.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    return Collections.emptyList();
+                },
+                mock(SimilarElementsMergeService.class), 0, 1, 100);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            executorService.submit(() -> queryService.executeQuery(buildRequest("test")));
+            this.startedLatch.await(5, TimeUnit.SECONDS);
+
+            long startTime = System.currentTimeMillis();
+            QueryResponse response = queryService.executeQuery(buildRequest("test"));
+            long executionTime = System.currentTimeMillis() - startTime;
+
+            assertEquals("test", response.getRequestString());
+            assertTrue("Execution took " + executionTime + " ms", executionTime < 2000);
+            assertEquals(2, this.executionCount.get());
+        } finally {
+            this.releaseLatch.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExecuteQuery_sequentialRequestsNotCoalesced() throws Exception {
+        this.releaseLatch.countDown();
+
+        this.queryService.executeQuery(buildRequest("test"));
+        this.queryService.executeQuery(buildRequest("test"));
+
+        assertEquals(2, this.executionCount.get());
+        assertEquals(0, this.queryService.getStatistics().getCoalescedQueries());
+    }
+
+    private QueryRequest buildRequest(String queryString) {
+        return new QueryRequestBuilder()
+                .setQueryString(queryString)
+                .addQueryDictionary(BilingualDictionary.fromLanguages(Language.GERMAN, Language.ENGLISH, true))
+                .build();
+    }
+}
@@ -0,0 +1,256 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResultBuilder;
+import org.xlrnet.metadict.api.query.ImmutableBilingualEntry;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableDictionaryObject;
+import org.xlrnet.metadict.core.api.aggregation.Group;
+import org.xlrnet.metadict.core.api.aggregation.ResultEntry;
+import org.xlrnet.metadict.core.api.query.QueryPlanExecutionStrategy;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.api.query.QueryResponse;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.aggregation.merge.SimilarElementsMergeService;
+import org.xlrnet.metadict.core.services.aggregation.order.OrderType;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for requesting only a page of each result group in {@link QueryService}.
+ */
+public class QueryServicePagingTest {
+
+    private static final int NUMBER_OF_ENTRIES = 10;
+
+    private final AbstractQueryStep queryStep = new BilingualQueryStep()
+            .setInputLanguage(Language.GERMAN)
+            .setOutputLanguage(Language.ENGLISH)
+            .setQueryString("test")
+            .setSearchEngineName("mockedEngine");
+
+    private CountingExecutionStrategy executionStrategy;
+
+    private QueryService queryService;
+
+    @Before
+    public void setUp() throws Exception {
+        this.executionStrategy = new CountingExecutionStrategy();
+        this.queryService = new QueryService(
+                new EngineRegistryService(),
+                (queryRequest, engineRegistryService) -> new QueryPlan().addQueryStep(this.queryStep),
+                this.executionStrategy,
+                new IdentityMergeService(),
+                16, 60000, 5000);
+    }
+
+    @Test
+    public void testExecuteQuery_noLimit() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(0, 0);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getResultEntries().size());
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals("test", group.getResultEntries().get(0).getSource().getGeneralForm());
+    }
+
+    @Test
+    public void testExecuteQuery_firstPage() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(3, 0);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals(Lists.newArrayList("test", "testx", "testxx"), collectGeneralForms(group));
+    }
+
+    @Test
+    public void testExecuteQuery_followingPageFromCache() throws Exception {
+        executeSingleGroupQuery(3, 0);
+        Group<ResultEntry> group = executeSingleGroupQuery(3, 3);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals(Lists.newArrayList("testxxx", "testxxxx", "testxxxxx"), collectGeneralForms(group));
+        assertEquals(1, this.executionStrategy.executionCount);
+        assertEquals(1, this.queryService.getStatistics().getResponseCacheHits());
+    }
+
+    @Test
+    public void testExecuteQuery_pagesSelectedFromCachedOrder() throws Exception {
+        Group<ResultEntry> completeGroup = executeSingleGroupQuery(0, 0);
+        Group<ResultEntry> firstPage = executeSingleGroupQuery(3, 0);
+        Group<ResultEntry> secondPage = executeSingleGroupQuery(3, 3);
+
+        // The entries are ordered only once per cached result, so all pages contain the same scored entries
+        assertSame(completeGroup.getResultEntries().get(0), firstPage.getResultEntries().get(0));
+        assertSame(completeGroup.getResultEntries().get(3), secondPage.getResultEntries().get(0));
+    }
+
+    @Test
+    public void testExecuteQuery_lastPage() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(4, 8);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals(Lists.newArrayList("testxxxxxxxx", "testxxxxxxxxx"), collectGeneralForms(group));
+    }
+
+    @Test
+    public void testExecuteQuery_offsetBeyondLastEntry() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(5, 20);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertTrue(group.getResultEntries().isEmpty());
+    }
+
+    @Test
+    public void testExecuteQuery_offsetWithoutLimit() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(0, 7);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals(Lists.newArrayList("testxxxxxxx", "testxxxxxxxx", "testxxxxxxxxx"), collectGeneralForms(group));
+    }
+
+    @Test
+    public void testExecuteQuery_boundedOrderFirstPage() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(3, 0, OrderType.BOUNDED_RELEVANCE);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals(Lists.newArrayList("test", "testx", "testxx"), collectGeneralForms(group));
+    }
+
+    @Test
+    public void testExecuteQuery_boundedOrderFollowingPages() throws Exception {
+        Group<ResultEntry> firstPage = executeSingleGroupQuery(3, 0, OrderType.BOUNDED_RELEVANCE);
+        Group<ResultEntry> repeatedPage = executeSingleGroupQuery(2, 1, OrderType.BOUNDED_RELEVANCE);
+        Group<ResultEntry> secondPage = executeSingleGroupQuery(3, 3, OrderType.BOUNDED_RELEVANCE);
+        Group<ResultEntry> completeGroup = executeSingleGroupQuery(0, 0, OrderType.BOUNDED_RELEVANCE);
+
+        // Pages within the already ordered entries don't cause a new ordering
+        assertSame(firstPage.getResultEntries().get(1), repeatedPage.getResultEntries().get(0));
+        assertEquals(Lists.newArrayList("testxxx", "testxxxx", "testxxxxx"), collectGeneralForms(secondPage));
+        assertEquals(NUMBER_OF_ENTRIES, secondPage.getTotalEntryCount());
+        assertEquals(NUMBER_OF_ENTRIES, completeGroup.getResultEntries().size());
+        assertEquals(1, this.executionStrategy.executionCount);
+    }
+
+    @Test
+    public void testExecuteQuery_boundedOrderLargeOffset() throws Exception {
+        Group<ResultEntry> group = executeSingleGroupQuery(Integer.MAX_VALUE, 8, OrderType.BOUNDED_RELEVANCE);
+
+        assertEquals(NUMBER_OF_ENTRIES, group.getTotalEntryCount());
+        assertEquals(Lists.newArrayList("testxxxxxxxx", "testxxxxxxxxx"), collectGeneralForms(group));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildRequest_negativeLimit() throws Exception {
+        new QueryRequestBuilder().setGroupLimit(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBuildRequest_negativeOffset() throws Exception {
+        new QueryRequestBuilder().setGroupOffset(-1);
+    }
+
+    @NotNull
+    private Group<ResultEntry> executeSingleGroupQuery(int limit, int offset) {
+        return executeSingleGroupQuery(limit, offset, OrderType.RELEVANCE);
+    }
+
+    @NotNull
+    private Group<ResultEntry> executeSingleGroupQuery(int limit, int offset, @NotNull OrderType orderType) {
+        QueryRequest queryRequest = new QueryRequestBuilder()
+                .setQueryString("test")
+                .setOrderBy(orderType)
+                .addQueryDictionary(BilingualDictionary.fromLanguages(Language.GERMAN, Language.ENGLISH, true))
+                .setGroupLimit(limit)
+                .setGroupOffset(offset)
+                .build();
+        QueryResponse queryResponse = this.queryService.executeQuery(queryRequest);
+        assertEquals(1, queryResponse.getGroupedBilingualEntries().size());
+        return queryResponse.getGroupedBilingualEntries().iterator().next();
+    }
+
+    @NotNull
+    private List<String> collectGeneralForms(@NotNull Group<ResultEntry> group) {
+        List<String> generalForms = new ArrayList<>();
+        for (ResultEntry resultEntry : group) {
+            generalForms.add(resultEntry.getSource().getGeneralForm());
+        }
+        return generalForms;
+    }
+
+    /**
+     * Execution strategy which returns entries with an increasing distance from the query in reverse order.
+     */
+    private static class CountingExecutionStrategy implements QueryPlanExecutionStrategy {
+
+        private int executionCount;
+
+        @NotNull
+        @Override
+        public Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan) {
+            this.executionCount++;
+            BilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.builder();
+            for (int i = NUMBER_OF_ENTRIES - 1; i >= 0; i--) {
+                resultBuilder.addBilingualEntry(ImmutableBilingualEntry.builder()
+                        .setInputObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "test" + Strings.repeat("x", i)))
+                        .setOutputObject(ImmutableDictionaryObject.createSimpleObject(Language.ENGLISH, "zzzzzzzzzzzzzzzzzzzz"))
+                        .build());
+            }
+            return Collections.singletonList(new QueryStepResultBuilder()
+                    .setQueryStep(queryPlan.getQueryStepList().get(0))
+                    .setEngineQueryResult(resultBuilder.build())
+                    .build());
+        }
+    }
+
+    /**
+     * Merge service which doesn't merge any elements.
+     */
+    private static class IdentityMergeService extends SimilarElementsMergeService {
+
+        IdentityMergeService() {
+            super(Collections.emptySet());
+        }
+
+        @NotNull
+        @Override
+        public <T> Collection<T> mergeElements(@NotNull Collection<T> elementsToMerge, @NotNull Class<?> typeHint) {
+            return elementsToMerge;
+        }
+    }
+}
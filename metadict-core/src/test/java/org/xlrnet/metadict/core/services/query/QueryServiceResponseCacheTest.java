@@ -0,0 +1,163 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+import org.xlrnet.metadict.core.api.query.QueryPlanExecutionStrategy;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.api.query.QueryResponse;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.aggregation.group.GroupingType;
+import org.xlrnet.metadict.core.services.aggregation.merge.SimilarElementsMergeService;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests for the response cache in {@link QueryService}.
+ */
+public class QueryServiceResponseCacheTest {
+
+    private final AbstractQueryStep queryStep = new BilingualQueryStep()
+            .setInputLanguage(Language.GERMAN)
+            .setOutputLanguage(Language.ENGLISH)
+            .setQueryString("test")
+            .setSearchEngineName("mockedEngine");
+
+    private CountingExecutionStrategy executionStrategy;
+
+    private QueryService queryService;
+
+    @Before
+    public void setUp() throws Exception {
+        this.executionStrategy = new CountingExecutionStrategy();
+        this.queryService = new QueryService(
+                new EngineRegistryService(),
+                (queryRequest, engineRegistryService) -> new QueryPlan().addQueryStep(this.queryStep),
+                this.executionStrategy,
+                mock(SimilarElementsMergeService.class),
+                16, 60000, 5000);
+    }
+
+    @Test
+    public void testExecuteQuery_cacheHit() throws Exception {
+        QueryResponse firstResponse = this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+        QueryResponse secondResponse = this.queryService.executeQuery(buildRequest("Test", GroupingType.NONE));
+
+        assertSame(firstResponse, secondResponse);
+        assertEquals(1, this.executionStrategy.executionCount);
+        assertEquals(1, this.queryService.getStatistics().getResponseCacheHits());
+        assertEquals(1, this.queryService.getStatistics().getResponseCacheMisses());
+    }
+
+    @Test
+    public void testExecuteQuery_differentGrouping() throws Exception {
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+        this.queryService.executeQuery(buildRequest("test", GroupingType.DICTIONARY));
+
+        assertEquals(2, this.executionStrategy.executionCount);
+    }
+
+    @Test
+    public void testExecuteQuery_failedStepNotCached() throws Exception {
+        this.executionStrategy.failSteps = true;
+
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+
+        assertEquals(2, this.executionStrategy.executionCount);
+    }
+
+    @Test
+    public void testExecuteQuery_invalidatedByStep() throws Exception {
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+        this.executionStrategy.invalidationListener.accept(this.queryStep.getCacheKey());
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+
+        assertEquals(2, this.executionStrategy.executionCount);
+    }
+
+    @Test
+    public void testExecuteQuery_invalidatedDuringExecution() throws Exception {
+        this.executionStrategy.invalidateSteps = true;
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+
+        this.executionStrategy.invalidateSteps = false;
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+        this.queryService.executeQuery(buildRequest("test", GroupingType.NONE));
+
+        assertEquals(2, this.executionStrategy.executionCount);
+        assertEquals(1, this.queryService.getStatistics().getResponseCacheHits());
+    }
+
+    private QueryRequest buildRequest(String queryString, GroupingType groupingType) {
+        return new QueryRequestBuilder()
+                .setQueryString(queryString)
+                .setGroupBy(groupingType)
+                .addQueryDictionary(BilingualDictionary.fromLanguages(Language.GERMAN, Language.ENGLISH, true))
+                .build();
+    }
+
+    private static class CountingExecutionStrategy implements QueryPlanExecutionStrategy {
+
+        private int executionCount;
+
+        private boolean failSteps;
+
+        /** Invalidate each step while executing it, e.g. like a background refresh. */
+        private boolean invalidateSteps;
+
+        private Consumer<QueryStepKey> invalidationListener;
+
+        @NotNull
+        @Override
+        public Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan) {
+            this.executionCount++;
+            if (this.invalidateSteps) {
+                this.invalidationListener.accept(queryPlan.getQueryStepList().get(0).getCacheKey());
+            }
+            return Collections.singletonList(new QueryStepResultBuilder()
+                    .setQueryStep(queryPlan.getQueryStepList().get(0))
+                    .setFailedStep(this.failSteps)
+                    .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT)
+                    .build());
+        }
+
+        @Override
+        public void addInvalidationListener(@NotNull Consumer<QueryStepKey> invalidationListener) {
+            this.invalidationListener = invalidationListener;
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Before;
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.BilingualDictionary;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.BilingualQueryResultBuilder;
+import org.xlrnet.metadict.api.query.ImmutableBilingualEntry;
+import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
+import org.xlrnet.metadict.api.query.ImmutableDictionaryObject;
+import org.xlrnet.metadict.core.api.aggregation.Group;
+import org.xlrnet.metadict.core.api.aggregation.ResultEntry;
+import org.xlrnet.metadict.core.api.query.QueryPlanExecutionStrategy;
+import org.xlrnet.metadict.core.api.query.QueryRequest;
+import org.xlrnet.metadict.core.api.query.QueryResponse;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+import org.xlrnet.metadict.core.services.aggregation.group.GroupingType;
+import org.xlrnet.metadict.core.services.aggregation.merge.SimilarElementsMergeService;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for streaming partial responses in {@link QueryService}.
+ */
+public class QueryServiceStreamingTest {
+
+    private final List<AbstractQueryStep> querySteps = Arrays.asList(
+            createQueryStep(Language.ENGLISH, "first"),
+            createQueryStep(Language.FRENCH, "second"),
+            createQueryStep(Language.ENGLISH, "third"),
+            createQueryStep(Language.FRENCH, "fourth"));
+
+    private QueryService queryService;
+
+    @Before
+    public void setUp() throws Exception {
+        this.queryService = new QueryService(
+                new EngineRegistryService(),
+                (queryRequest, engineRegistryService) -> {
+                    QueryPlan queryPlan = new QueryPlan();
+                    this.querySteps.forEach(queryPlan::addQueryStep);
+                    return queryPlan;
+                },
+                new StepResultExecutionStrategy(),
+                new IdentityMergeService(),
+                16, 60000, 5000);
+    }
+
+    @Test
+    public void testExecuteQuery_partialResponses() throws Exception {
+        List<QueryResponse> partialResponses = new ArrayList<>();
+
+        QueryResponse finalResponse = this.queryService.executeQuery(buildRequest(), partialResponses::add);
+
+        assertEquals(3, partialResponses.size());
+        assertEquals(Collections.singletonList(1), countEntries(partialResponses.get(0)));
+        assertEquals(Arrays.asList(1, 1), countEntries(partialResponses.get(1)));
+        assertEquals(Arrays.asList(2, 1), countEntries(partialResponses.get(2)));
+        assertEquals(4, countEntries(finalResponse).stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    public void testExecuteQuery_unchangedGroupsReused() throws Exception {
+        List<QueryResponse> partialResponses = new ArrayList<>();
+
+        this.queryService.executeQuery(buildRequest(), partialResponses::add);
+
+        // Only the group which received new entries is merged and ordered again
+        Group<ResultEntry> firstGroup = partialResponses.get(0).getGroupedBilingualEntries().iterator().next();
+        assertSame(firstGroup, partialResponses.get(1).getGroupedBilingualEntries().iterator().next());
+    }
+
+    @NotNull
+    private List<Integer> countEntries(@NotNull QueryResponse queryResponse) {
+        List<Integer> entryCounts = new ArrayList<>();
+        for (Group<ResultEntry> group : queryResponse.getGroupedBilingualEntries()) {
+            entryCounts.add(group.getResultEntries().size());
+        }
+        return entryCounts;
+    }
+
+    @NotNull
+    private QueryRequest buildRequest() {
+        return new QueryRequestBuilder()
+                .setQueryString("test")
+                .setGroupBy(GroupingType.DICTIONARY)
+                .addQueryDictionary(BilingualDictionary.fromLanguages(Language.GERMAN, Language.ENGLISH, true))
+                .addQueryDictionary(BilingualDictionary.fromLanguages(Language.GERMAN, Language.FRENCH, true))
+                .build();
+    }
+
+    @NotNull
+    private static AbstractQueryStep createQueryStep(@NotNull Language outputLanguage, @NotNull String searchEngineName) {
+        return new BilingualQueryStep()
+                .setInputLanguage(Language.GERMAN)
+                .setOutputLanguage(outputLanguage)
+                .setAllowBothWay(true)
+                .setQueryString("test")
+                .setSearchEngineName(searchEngineName);
+    }
+
+    /**
+     * Execution strategy which returns a single entry for each step. The entries contain the name of the step's
+     * engine.
+     */
+    private static class StepResultExecutionStrategy implements QueryPlanExecutionStrategy {
+
+        @NotNull
+        @Override
+        public Collection<QueryStepResult> executeQueryPlan(@NotNull QueryPlan queryPlan) {
+            List<QueryStepResult> queryStepResults = new ArrayList<>();
+            for (AbstractQueryStep queryStep : queryPlan.getQueryStepList()) {
+                BilingualQueryStep bilingualQueryStep = (BilingualQueryStep) queryStep;
+                BilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.builder()
+                        .addBilingualEntry(ImmutableBilingualEntry.builder()
+                                .setInputObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "test"))
+                                .setOutputObject(ImmutableDictionaryObject.createSimpleObject(bilingualQueryStep.getOutputLanguage(), queryStep.getSearchEngineName()))
+                                .build());
+                queryStepResults.add(new QueryStepResultBuilder()
+                        .setQueryStep(queryStep)
+                        .setEngineQueryResult(resultBuilder.build())
+                        .build());
+            }
+            return queryStepResults;
+        }
+    }
+
+    /**
+     * Merge service which doesn't merge any elements.
+     */
+    private static class IdentityMergeService extends SimilarElementsMergeService {
+
+        IdentityMergeService() {
+            super(Collections.emptySet());
+        }
+
+        @NotNull
+        @Override
+        public <T> Collection<T> mergeElements(@NotNull Collection<T> elementsToMerge, @NotNull Class<?> typeHint) {
+            return elementsToMerge;
+        }
+    }
+}
@@ -94,7 +94,8 @@ public class QueryServiceSynonymsTest {
                 new EngineRegistryService(),
                 new NullQueryPlanningStrategy(),
                 queryPlanExecutionStrategyMock,
-                mock(SimilarElementsMergeService.class));
+                mock(SimilarElementsMergeService.class),
+                0, 1, 5000);
     }
 
     @Test
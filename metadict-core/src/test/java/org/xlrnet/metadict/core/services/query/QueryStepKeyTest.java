@@ -0,0 +1,113 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.Language;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link QueryStepKey}.
+ */
+public class QueryStepKeyTest {
+
+    private static final String ENGINE_NAME = "engine";
+
+    @Test
+    public void testEqualStepsProduceEqualKeys() {
+        QueryStepKey first = QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, true, "Haus");
+        QueryStepKey second = QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, true, "Haus");
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void testQueryStringIsNormalized() {
+        QueryStepKey first = QueryStepKey.forMonolingualStep(ENGINE_NAME, Language.GERMAN, "  Der   HAUS ");
+        QueryStepKey second = QueryStepKey.forMonolingualStep(ENGINE_NAME, Language.GERMAN, "der haus");
+
+        assertEquals(first, second);
+    }
+
+    @Test
+    public void testKeyLayout() {
+        byte[] keyBytes = QueryStepKey.forMonolingualStep(ENGINE_NAME, Language.GERMAN, "Haus").toByteArray();
+
+        assertEquals(QueryStepKey.KEY_LENGTH, keyBytes.length);
+        assertEquals(QueryStepKey.KEY_VERSION, keyBytes[0]);
+    }
+
+    @Test
+    public void testKeyIsStable() {
+        QueryStepKey key = QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, false, "Haus");
+
+        assertEquals(QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, false, "Haus").toString(), key.toString());
+        assertEquals(2 * QueryStepKey.KEY_LENGTH, key.toString().length());
+    }
+
+    @Test
+    public void testDifferentStepsProduceDifferentKeys() {
+        QueryStepKey reference = QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, true, "Haus");
+
+        assertNotEquals(reference, QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, false, "Haus"));
+        assertNotEquals(reference, QueryStepKey.forBilingualStep(ENGINE_NAME, Language.ENGLISH, Language.GERMAN, true, "Haus"));
+        assertNotEquals(reference, QueryStepKey.forBilingualStep("otherEngine", Language.GERMAN, Language.ENGLISH, true, "Haus"));
+        assertNotEquals(reference, QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, true, "Maus"));
+        assertNotEquals(reference, QueryStepKey.forMonolingualStep(ENGINE_NAME, Language.GERMAN, "Haus"));
+    }
+
+    @Test
+    public void testStepsUseKeyFactories() {
+        AbstractQueryStep bilingualQueryStep = new BilingualQueryStep()
+                .setInputLanguage(Language.GERMAN)
+                .setOutputLanguage(Language.ENGLISH)
+                .setAllowBothWay(true)
+                .setSearchEngineName(ENGINE_NAME)
+                .setQueryString("Haus");
+
+        assertEquals(QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, true, "Haus"), bilingualQueryStep.getCacheKey());
+    }
+
+    @Test
+    public void testCacheKeyIsMemoizedUntilStepChanges() {
+        BilingualQueryStep bilingualQueryStep = new BilingualQueryStep()
+                .setInputLanguage(Language.GERMAN)
+                .setOutputLanguage(Language.ENGLISH)
+                .setAllowBothWay(true);
+        bilingualQueryStep.setSearchEngineName(ENGINE_NAME).setQueryString("Haus");
+
+        QueryStepKey cacheKey = bilingualQueryStep.getCacheKey();
+        assertSame(cacheKey, bilingualQueryStep.getCacheKey());
+
+        bilingualQueryStep.setAllowBothWay(false);
+        assertEquals(QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, false, "Haus"), bilingualQueryStep.getCacheKey());
+
+        bilingualQueryStep.setQueryString("Maus");
+        assertEquals(QueryStepKey.forBilingualStep(ENGINE_NAME, Language.GERMAN, Language.ENGLISH, false, "Maus"), bilingualQueryStep.getCacheKey());
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.core.services.query;
+
+import org.junit.Test;
+import org.xlrnet.metadict.api.language.GrammaticalCase;
+import org.xlrnet.metadict.api.language.GrammaticalGender;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.core.api.query.QueryStepResult;
+
+import java.io.*;
+import java.net.URL;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link QueryStepResultCodec}.
+ */
+public class QueryStepResultCodecTest {
+
+    private static final long WRITE_TIMESTAMP = 1490000000000L;
+
+    @Test
+    public void testRoundTrip_bilingual() throws Exception {
+        QueryStepResult stepResult = buildStepResult(bilingualStep(), buildBilingualResult(3));
+
+        CachedQueryStepResult decoded = (CachedQueryStepResult) roundTrip(new CachedQueryStepResult(stepResult, WRITE_TIMESTAMP));
+
+        assertEquals(WRITE_TIMESTAMP, decoded.getWriteTimestamp());
+        assertStepResultEquals(stepResult, decoded.getQueryStepResult());
+
+        DictionaryObject decodedSource = ((BilingualQueryResult) decoded.getQueryStepResult().getEngineQueryResult()).getBilingualEntries().get(0).getSource();
+        assertEquals("haʊ̯s", decodedSource.getPronunciation());
+        assertEquals(Collections.singletonList("Hus"), decodedSource.getAlternateForms());
+    }
+
+    @Test
+    public void testRoundTrip_monolingual() throws Exception {
+        MonolingualQueryResultBuilder resultBuilder = ImmutableMonolingualQueryResult.builder()
+                .addMonolingualEntry(ImmutableMonolingualEntry.builder().setEntryType(EntryType.NOUN).setContent(buildFullObject("hus")).build());
+        resultBuilder.addSimilarRecommendation(ImmutableDictionaryObject.createSimpleObject(Language.NORWEGIAN_BOKMÅL, "huset"));
+        MonolingualQueryStep queryStep = new MonolingualQueryStep().setRequestLanguage(Language.NORWEGIAN);
+        queryStep.setQueryString("hus").setSearchEngineName("engine");
+        QueryStepResult stepResult = buildStepResult(queryStep, resultBuilder.build());
+
+        QueryStepResult decoded = (QueryStepResult) roundTrip(stepResult);
+
+        assertStepResultEquals(stepResult, decoded);
+    }
+
+    @Test
+    public void testRoundTrip_failedStep() throws Exception {
+        QueryStepResult stepResult = new QueryStepResultBuilder()
+                .setQueryStep(bilingualStep())
+                .setFailedStep(true)
+                .setErrorMessage("failure")
+                .setExecutionTime(42)
+                .setEngineQueryResult(ImmutableBilingualQueryResult.EMPTY_QUERY_RESULT)
+                .build();
+
+        QueryStepResult decoded = (QueryStepResult) roundTrip(stepResult);
+
+        assertStepResultEquals(stepResult, decoded);
+    }
+
+    @Test
+    public void testRoundTrip_largeResultIsCompacted() throws Exception {
+        QueryStepResult stepResult = buildStepResult(bilingualStep(), buildBilingualResult(100));
+
+        QueryStepResult decoded = (QueryStepResult) roundTrip(stepResult);
+
+        assertTrue(decoded.getEngineQueryResult() instanceof CompactBilingualQueryResult);
+        assertEquals(CompactBilingualQueryResult.copyOf((BilingualQueryResult) stepResult.getEngineQueryResult()), decoded.getEngineQueryResult());
+    }
+
+    @Test
+    public void testSmallerThanJavaSerialization() throws Exception {
+        CachedQueryStepResult cachedResult = new CachedQueryStepResult(buildStepResult(bilingualStep(), buildBilingualResult(20)), WRITE_TIMESTAMP);
+
+        ByteArrayOutputStream javaBytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(javaBytes)) {
+            objectOutputStream.writeObject(cachedResult);
+        }
+
+        assertTrue(encode(cachedResult).length < javaBytes.size() / 2);
+    }
+
+    @Test
+    public void testIsSupported() {
+        EngineQueryResult unknownResult = new AbstractQueryResult(Collections.emptyList(), Collections.emptyList(), Collections.emptyList()) {
+        };
+
+        assertTrue(QueryStepResultCodec.isSupported(buildStepResult(bilingualStep(), buildBilingualResult(1))));
+        assertFalse(QueryStepResultCodec.isSupported(buildStepResult(bilingualStep(), unknownResult)));
+        assertFalse(QueryStepResultCodec.isSupported("value"));
+        assertFalse(QueryStepResultCodec.isSupported(null));
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_unknownVersion() throws Exception {
+        byte[] bytes = encode(buildStepResult(bilingualStep(), buildBilingualResult(1)));
+        bytes[0] = (byte) (QueryStepResultCodec.FORMAT_VERSION + 1);
+
+        QueryStepResultCodec.read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    private Object roundTrip(Object value) throws IOException {
+        return QueryStepResultCodec.read(new DataInputStream(new ByteArrayInputStream(encode(value))));
+    }
+
+    private byte[] encode(Object value) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutputStream = new DataOutputStream(bytes)) {
+            QueryStepResultCodec.write(dataOutputStream, value);
+        }
+        return bytes.toByteArray();
+    }
+
+    private void assertStepResultEquals(QueryStepResult expected, QueryStepResult actual) {
+        assertEquals(expected.isFailedStep(), actual.isFailedStep());
+        assertEquals(expected.isSkippedStep(), actual.isSkippedStep());
+        assertEquals(expected.getErrorMessage(), actual.getErrorMessage());
+        assertEquals(expected.getExecutionTime(), actual.getExecutionTime());
+        assertEquals(expected.getQueryStep(), actual.getQueryStep());
+        assertEquals(expected.getEngineQueryResult(), actual.getEngineQueryResult());
+        assertEquals(expected.getEngineQueryResult().getSynonymEntries(), actual.getEngineQueryResult().getSynonymEntries());
+        assertEquals(expected.getEngineQueryResult().toString(), actual.getEngineQueryResult().toString());
+    }
+
+    private QueryStepResult buildStepResult(AbstractQueryStep queryStep, EngineQueryResult engineQueryResult) {
+        return new QueryStepResultBuilder().setQueryStep(queryStep).setEngineQueryResult(engineQueryResult).setExecutionTime(123).build();
+    }
+
+    private BilingualQueryStep bilingualStep() {
+        BilingualQueryStep queryStep = new BilingualQueryStep().setInputLanguage(Language.GERMAN).setOutputLanguage(Language.NORWEGIAN_NYNORSK).setAllowBothWay(true);
+        queryStep.setQueryString("Haus").setSearchEngineName("engine");
+        return queryStep;
+    }
+
+    private BilingualQueryResult buildBilingualResult(int entryCount) {
+        BilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.builder();
+        for (int i = 0; i < entryCount; i++) {
+            resultBuilder.addBilingualEntry(ImmutableBilingualEntry.builder()
+                    .setEntryType(EntryType.NOUN)
+                    .setInputObject(buildFullObject("Haus" + i))
+                    .setOutputObject(ImmutableDictionaryObject.createSimpleObject(Language.NORWEGIAN_NYNORSK, "hus" + i))
+                    .build());
+        }
+        try {
+            resultBuilder.addExternalContent(ImmutableExternalContent.builder().setTitle("title").setLink(new URL("http://example.com/haus")).build());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        resultBuilder.addSynonymEntry(ImmutableSynonymEntry.builder()
+                .setBaseObject(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "Haus"))
+                .setBaseEntryType(EntryType.NOUN)
+                .addSynonymGroup(ImmutableSynonymGroup.builder()
+                        .setBaseMeaning(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "Gebäude"))
+                        .addSynonym(ImmutableDictionaryObject.createSimpleObject(Language.GERMAN, "Bau"))
+                        .build())
+                .build());
+        return resultBuilder.build();
+    }
+
+    private DictionaryObject buildFullObject(String generalForm) {
+        DictionaryObjectBuilder builder = ImmutableDictionaryObject.builder();
+        builder.setPronunciation("haʊ̯s");
+        return builder.setLanguage(Language.GERMAN)
+                .setGeneralForm(generalForm)
+                .setDescription("description")
+                .setAbbreviation("abbr.")
+                .setDomain("Bauwesen")
+                .setGrammaticalGender(GrammaticalGender.NEUTER)
+                .setAdditionalForm(GrammaticalCase.GENITIVE, generalForm + "es")
+                .addMeaning("building")
+                .addSyllable("Haus")
+                .addAlternateForm("Hus")
+                .build();
+    }
+}
@@ -229,6 +229,42 @@ public class SimilarityUtilsTest {
         assertEquals(0.66, SimilarityUtils.fieldSimilarity(testObject1, testObject2), 0.01);
     }
 
+    @Test
+    public void testFieldSimilarity_differentClasses() throws Exception {
+        TestClass testObject1 = new TestClass("TEST", 1, null);
+        OtherTestClass testObject2 = new OtherTestClass("TEST", 1L);
+        // Only the common fields are compared and an int is never equal to a long
+        assertEquals(0.5, SimilarityUtils.fieldSimilarity(testObject1, testObject2), 0.01);
+    }
+
+    @Test
+    public void testDeepFieldSimilarity_differentClasses() throws Exception {
+        TestClass testObject1 = new TestClass("TEST", 1, null);
+        OtherTestClass testObject2 = new OtherTestClass("TEST", 1L);
+        assertEquals(0.5, SimilarityUtils.deepFieldSimilarity(testObject1, testObject2), 0.01);
+    }
+
+    @Test
+    public void testDeepFieldSimilarity_selfReference() throws Exception {
+        TestClass testObject1 = new TestClass("TEST", 1, null);
+        testObject1.someObject = testObject1;
+        TestClass testObject2 = new TestClass("TEST", 1, null);
+        testObject2.someObject = testObject2;
+        // Nested objects are compared only one level deep, the nested references differ
+        assertEquals(0.8, SimilarityUtils.deepFieldSimilarity(testObject1, testObject2), 0.01);
+    }
+
+    @Test
+    public void testDeepFieldSimilarity_repeatedComparisons() throws Exception {
+        TestClass nestedTestObject1 = new TestClass("TRUE", 1, null);
+        TestClass nestedTestObject2 = new TestClass("FALSE", 2, null);
+        for (int i = 0; i < 100; i++) {
+            TestClass testObject1 = new TestClass("TEST", i, nestedTestObject1);
+            TestClass testObject2 = new TestClass("TEST", 2, nestedTestObject2);
+            assertEquals(i == 2 ? 0.6 : 0.4, SimilarityUtils.deepFieldSimilarity(testObject1, testObject2), 0.01);
+        }
+    }
+
     static class TestClass {
 
         private String someString;
@@ -244,4 +280,16 @@ public class SimilarityUtilsTest {
         }
     }
 
-}
\ No newline at end of file
+    static class OtherTestClass {
+
+        private String someString;
+
+        private long someInt;
+
+        public OtherTestClass(String someString, long someInt) {
+            this.someString = someString;
+            this.someInt = someInt;
+        }
+    }
+
+}
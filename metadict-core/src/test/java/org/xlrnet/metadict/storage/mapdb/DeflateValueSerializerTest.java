@@ -0,0 +1,162 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.storage.mapdb;
+
+import org.junit.Test;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test cases for {@link DeflateValueSerializer}.
+ */
+public class DeflateValueSerializerTest {
+
+    private static final byte[] DICTIONARY = "Haus house Häuser houses building Gebäude noun verb".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null);
+        ArrayList<String> value = buildValue(100);
+
+        assertEquals(value, roundTrip(serializer, value));
+    }
+
+    @Test
+    public void testRoundTrip_dictionary() throws Exception {
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_COMPRESSION, DICTIONARY);
+        ArrayList<String> value = buildValue(100);
+
+        assertEquals(value, roundTrip(serializer, value));
+    }
+
+    @Test
+    public void testSerialize_dictionaryImprovesCompression() throws Exception {
+        DeflateValueSerializer withoutDictionary = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null);
+        DeflateValueSerializer withDictionary = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, DICTIONARY);
+        ArrayList<String> value = buildValue(3);
+
+        assertTrue(encode(withDictionary, value).length < encode(withoutDictionary, value).length);
+    }
+
+    @Test
+    public void testSerialize_incompressibleValue() throws Exception {
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null);
+
+        byte[] value = new byte[1024];
+        new Random(0).nextBytes(value);
+
+        assertArrayEquals(value, (byte[]) roundTrip(serializer, value));
+        assertEquals(0, encode(serializer, value)[0]);
+    }
+
+    @Test
+    public void testSerialize_statistics() throws Exception {
+        CompressionStatistics statistics = new CompressionStatistics();
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null)
+                .withStatistics(statistics);
+
+        encode(serializer, buildValue(100));
+        encode(serializer, buildValue(100));
+
+        assertEquals(2, statistics.getValueCount());
+        assertTrue(statistics.getCompressionRatio() > 2);
+    }
+
+    @Test
+    public void testSerialize_statisticsAreNotShared() throws Exception {
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null);
+        CompressionStatistics firstStatistics = new CompressionStatistics();
+        CompressionStatistics secondStatistics = new CompressionStatistics();
+
+        encode(serializer.withStatistics(firstStatistics), buildValue(10));
+        encode(serializer.withStatistics(secondStatistics), buildValue(10));
+        encode(serializer.withStatistics(secondStatistics), buildValue(10));
+        encode(serializer, buildValue(10));
+
+        assertEquals(1, firstStatistics.getValueCount());
+        assertEquals(2, secondStatistics.getValueCount());
+    }
+
+    @Test
+    public void testJavaSerialization() throws Exception {
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, DICTIONARY);
+        ArrayList<String> value = buildValue(10);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream)) {
+            objectOutputStream.writeObject(serializer);
+        }
+        DeflateValueSerializer restoredSerializer;
+        try (ObjectInputStream objectInputStream = new ObjectInputStream(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            restoredSerializer = (DeflateValueSerializer) objectInputStream.readObject();
+        }
+
+        byte[] bytes = encode(serializer, value);
+        assertEquals(value, restoredSerializer.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void testDeserialize_corruptValue() throws Exception {
+        DeflateValueSerializer serializer = new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null);
+        byte[] bytes = encode(serializer, buildValue(100));
+        for (int i = 9; i < bytes.length; i++) {
+            bytes[i] = (byte) 0xFF;
+        }
+
+        serializer.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstructor_invalidLevel() throws Exception {
+        new DeflateValueSerializer(new BinaryValueSerializer(), 0, null);
+    }
+
+    private Object roundTrip(DeflateValueSerializer serializer, Object value) throws IOException {
+        byte[] bytes = encode(serializer, value);
+        return serializer.deserialize(new DataInputStream(new ByteArrayInputStream(bytes)), bytes.length);
+    }
+
+    private byte[] encode(DeflateValueSerializer serializer, Object value) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (DataOutputStream dataOutputStream = new DataOutputStream(outputStream)) {
+            serializer.serialize(dataOutputStream, value);
+        }
+        return outputStream.toByteArray();
+    }
+
+    private ArrayList<String> buildValue(int size) {
+        ArrayList<String> value = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            value.add(i % 2 == 0 ? "Haus house" : "Gebäude building");
+        }
+        return value;
+    }
+}
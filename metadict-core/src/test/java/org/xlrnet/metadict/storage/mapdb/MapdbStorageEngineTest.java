@@ -0,0 +1,111 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.storage.mapdb;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mapdb.DBMaker;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.zip.Deflater;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test cases for the compression statistics of {@link MapdbStorageEngine}.
+ */
+public class MapdbStorageEngineTest {
+
+    private File databaseFile;
+
+    @Before
+    public void setUp() throws Exception {
+        this.databaseFile = Files.createTempFile("metadict-mapdb", ".db").toFile();
+        Files.delete(this.databaseFile.toPath());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        File[] databaseFiles = this.databaseFile.getParentFile().listFiles((dir, name) -> name.startsWith(this.databaseFile.getName()));
+        if (databaseFiles != null) {
+            for (File file : databaseFiles) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionStatistics_createdNamespace() throws Exception {
+        MapdbStorageEngine storageEngine = createCompressingEngine();
+        try {
+            storageEngine.put("namespace", "key", "value");
+
+            assertEquals(1, storageEngine.getCompressionStatistics("namespace").getValueCount());
+        } finally {
+            storageEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompressionStatistics_restoredNamespace() throws Exception {
+        MapdbStorageEngine firstEngine = createCompressingEngine();
+        firstEngine.put("namespace", "key", "value");
+        firstEngine.shutdown();
+
+        MapdbStorageEngine restoredEngine = createCompressingEngine();
+        try {
+            assertEquals("value", restoredEngine.read("namespace", "key", String.class).get());
+            CompressionStatistics statistics = restoredEngine.getCompressionStatistics("namespace");
+            assertNotNull(statistics);
+
+            restoredEngine.put("namespace", "otherKey", "otherValue");
+            restoredEngine.put("namespace", "key", "newValue");
+
+            assertEquals(2, statistics.getValueCount());
+        } finally {
+            restoredEngine.shutdown();
+        }
+    }
+
+    @Test
+    public void testCompressionStatistics_uncompressedNamespace() throws Exception {
+        MapdbStorageEngine storageEngine = new MapdbStorageEngine(DBMaker.newFileDB(this.databaseFile), new BinaryValueSerializer());
+        try {
+            storageEngine.put("namespace", "key", "value");
+
+            assertNull(storageEngine.getCompressionStatistics("namespace"));
+        } finally {
+            storageEngine.shutdown();
+        }
+    }
+
+    private MapdbStorageEngine createCompressingEngine() {
+        return new MapdbStorageEngine(DBMaker.newFileDB(this.databaseFile), new DeflateValueSerializer(new BinaryValueSerializer(), Deflater.BEST_SPEED, null));
+    }
+}
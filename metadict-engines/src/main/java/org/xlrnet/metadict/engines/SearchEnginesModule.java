@@ -25,20 +25,29 @@
 package org.xlrnet.metadict.engines;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
 import org.xlrnet.metadict.api.engine.SearchEngineProvider;
 import org.xlrnet.metadict.engines.heinzelnisse.HeinzelnisseEngineProvider;
+import org.xlrnet.metadict.engines.http.DefaultHttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 import org.xlrnet.metadict.engines.leo.LeoEngineProvider;
 import org.xlrnet.metadict.engines.nobordbok.OrdbokEngineProvider;
 import org.xlrnet.metadict.engines.woxikon.WoxikonEngineProvider;
 
 /**
- * Guice module which installs search engines.
+ * Guice module which installs search engines. All engines share a single {@link HttpFetchService}. Its configuration
+ * can be overridden by setting the binding of {@link HttpFetchConfiguration} with an {@link OptionalBinder}.
  */
 public class SearchEnginesModule extends AbstractModule {
 
     @Override
     protected void configure() {
+        OptionalBinder.newOptionalBinder(binder(), HttpFetchConfiguration.class).setDefault().to(DefaultHttpFetchConfiguration.class);
+        bind(HttpFetchService.class).in(Singleton.class);
+
         Multibinder<SearchEngineProvider> binder = Multibinder.newSetBinder(binder(), SearchEngineProvider.class);
         binder.addBinding().to(HeinzelnisseEngineProvider.class);
         binder.addBinding().to(LeoEngineProvider.class);
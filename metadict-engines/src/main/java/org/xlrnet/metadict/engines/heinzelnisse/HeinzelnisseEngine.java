@@ -37,12 +37,13 @@ import org.xlrnet.metadict.api.language.*;
 import org.xlrnet.metadict.api.query.*;
 import org.xlrnet.metadict.engines.heinzelnisse.entities.HeinzelResponse;
 import org.xlrnet.metadict.engines.heinzelnisse.entities.TranslationEntry;
+import org.xlrnet.metadict.engines.http.HttpFetchResponse;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.util.List;
 import java.util.Map;
@@ -78,8 +79,23 @@ public class HeinzelnisseEngine implements SearchEngine {
 
     private static final String WIKI_BASE_URL = "http://www.heinzelnisse.info/wiki/";
 
+    private static final Map<String, String> REQUEST_HEADERS = ImmutableMap.<String, String>builder()
+            .put("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/41.0.2227.0 Safari/537.36")
+            .put("Content-Type", "application/json")
+            .put("X-Requested-With", "XMLHttpRequest")
+            .put("Referrer", "http://www.heinzelnisse.info/app")
+            .build();
+
+    private static final int TIMEOUT_MILLIS = 5000;
+
     private final ObjectReader heinzelReader = new ObjectMapper().readerFor(HeinzelResponse.class);
 
+    private final HttpFetchService httpFetchService;
+
+    public HeinzelnisseEngine(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @NotNull
     @Override
     public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
@@ -204,18 +220,6 @@ public class HeinzelnisseEngine implements SearchEngine {
         return targetUrlBuilder.toString();
     }
 
-    @NotNull
-    private URLConnection buildUrlConnection(@NotNull URL url) throws IOException {
-        URLConnection connection = url.openConnection();
-        connection.setRequestProperty("User-Agent", "Mozilla/5.0 (X11; Linux x86_64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/41.0.2227.0 Safari/537.36");
-        connection.setRequestProperty("Content-Type", "application/json");
-        connection.setRequestProperty("X-Requested-With", "XMLHttpRequest");
-        connection.setRequestProperty("Referrer", "http://www.heinzelnisse.info/app");
-        connection.setConnectTimeout(5000);
-        connection.setReadTimeout(5000);
-        return connection;
-    }
-
     private void extractAdjectiveForms(@NotNull String otherInformation, @NotNull DictionaryObjectBuilder builder) {
         for (String s : StringUtils.split(otherInformation, ',')) {
             String flectedForm = StringUtils.strip(StringUtils.substringAfter(s, ":"));
@@ -312,10 +316,9 @@ public class HeinzelnisseEngine implements SearchEngine {
      */
     private HeinzelResponse fetchResponse(@NotNull String searchRequest, boolean onlyExactResults, boolean queryGerman, boolean queryNorwegian) throws IOException {
         String targetUrl = buildTargetUrl(searchRequest, onlyExactResults, queryGerman, queryNorwegian);
-        URL url = new URL(targetUrl);
-        URLConnection connection = buildUrlConnection(url);
-        LOGGER.trace("Fetching response from {}", url.toString());
-        return heinzelReader.readValue(connection.getInputStream());
+        LOGGER.trace("Fetching response from {}", targetUrl);
+        HttpFetchResponse response = this.httpFetchService.get(targetUrl, REQUEST_HEADERS, TIMEOUT_MILLIS);
+        return heinzelReader.readValue(response.getBodyAsStream());
     }
 
     private void processResponse(@NotNull HeinzelResponse heinzelResponse, @NotNull BilingualQueryResultBuilder resultBuilder) {
@@ -30,12 +30,22 @@ import org.xlrnet.metadict.api.engine.*;
 import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
 import org.xlrnet.metadict.api.language.*;
 import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
+
+import javax.inject.Inject;
 
 /**
  * Provider for Heinzelnisse.info engine.
  */
 public class HeinzelnisseEngineProvider extends AbstractSearchEngineProvider {
 
+    private final HttpFetchService httpFetchService;
+
+    @Inject
+    public HeinzelnisseEngineProvider(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @Nullable
     @Override
     public AutoTestSuite getAutoTestSuite() throws MetadictTechnicalException {
@@ -118,6 +128,6 @@ public class HeinzelnisseEngineProvider extends AbstractSearchEngineProvider {
     @NotNull
     @Override
     public SearchEngine newEngineInstance() {
-        return new HeinzelnisseEngine();
+        return new HeinzelnisseEngine(this.httpFetchService);
     }
 }
@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.http;
+
+/**
+ * Default configuration of the {@link HttpFetchService} which is used if no other configuration has been bound.
+ */
+public class DefaultHttpFetchConfiguration implements HttpFetchConfiguration {
+
+    private static final int DEFAULT_CONNECT_TIMEOUT = 3000;
+
+    private static final int DEFAULT_READ_TIMEOUT = 5000;
+
+    private static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 8;
+
+    @Override
+    public int getConnectTimeout() {
+        return DEFAULT_CONNECT_TIMEOUT;
+    }
+
+    @Override
+    public int getReadTimeout() {
+        return DEFAULT_READ_TIMEOUT;
+    }
+
+    @Override
+    public int getMaxConnectionsPerHost() {
+        return DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.http;
+
+/**
+ * Configuration for the shared {@link HttpFetchService} which is used by all engines to fetch responses from their
+ * backends.
+ */
+public interface HttpFetchConfiguration {
+
+    /**
+     * Returns the timeout in milliseconds for establishing a new connection.
+     *
+     * @return the timeout in milliseconds for establishing a new connection.
+     */
+    int getConnectTimeout();
+
+    /**
+     * Returns the timeout in milliseconds for reading from an established connection.
+     *
+     * @return the timeout in milliseconds for reading from an established connection.
+     */
+    int getReadTimeout();
+
+    /**
+     * Returns the maximum number of concurrent connections to a single host. Further requests to the same host will
+     * wait until a connection becomes available or the connect timeout expires.
+     *
+     * @return the maximum number of concurrent connections to a single host.
+     */
+    int getMaxConnectionsPerHost();
+}
@@ -0,0 +1,129 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.http;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fully read and decoded response of a request made through the {@link HttpFetchService}.
+ */
+public class HttpFetchResponse {
+
+    private final URL url;
+
+    private final int statusCode;
+
+    private final String contentType;
+
+    private final Charset charset;
+
+    private final byte[] body;
+
+    HttpFetchResponse(@NotNull URL url, int statusCode, @Nullable String contentType, @Nullable Charset charset, @NotNull byte[] body) {
+        this.url = url;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.charset = charset;
+        this.body = body;
+    }
+
+    /**
+     * Returns the URL from which the response was fetched. This may differ from the requested URL if redirects have
+     * been followed.
+     *
+     * @return the URL from which the response was fetched.
+     */
+    @NotNull
+    public URL getUrl() {
+        return this.url;
+    }
+
+    /**
+     * Returns the HTTP status code of the response.
+     *
+     * @return the HTTP status code of the response.
+     */
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * Returns the content type as sent by the server or null if none was sent.
+     *
+     * @return the content type as sent by the server or null if none was sent.
+     */
+    @Nullable
+    public String getContentType() {
+        return this.contentType;
+    }
+
+    /**
+     * Returns the charset declared in the content type or null if none was declared. Parsers should detect the charset
+     * themselves in this case.
+     *
+     * @return the charset declared in the content type or null if none was declared.
+     */
+    @Nullable
+    public Charset getCharset() {
+        return this.charset;
+    }
+
+    /**
+     * Returns the name of the charset declared in the content type or null if none was declared.
+     *
+     * @return the name of the charset declared in the content type or null if none was declared.
+     */
+    @Nullable
+    public String getCharsetName() {
+        return this.charset != null ? this.charset.name() : null;
+    }
+
+    /**
+     * Returns a new stream for reading the decoded body of the response.
+     *
+     * @return a new stream for reading the decoded body of the response.
+     */
+    @NotNull
+    public InputStream getBodyAsStream() {
+        return new ByteArrayInputStream(this.body);
+    }
+
+    /**
+     * Returns the decoded body as a string. If no charset was declared, UTF-8 will be used.
+     *
+     * @return the decoded body as a string.
+     */
+    @NotNull
+    public String getBodyAsString() {
+        return new String(this.body, this.charset != null ? this.charset : StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.http;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.inject.Singleton;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Shared service for fetching responses from the backends of search engines. All engines should use this service
+ * instead of opening their own connections, so that connections can be reused across lookups.
+ * <p>
+ * Connections are reused through the keep-alive cache of the JDK: each response is always read completely and its
+ * stream is closed afterwards (also on errors), which returns the underlying connection to the cache. TLS sessions are
+ * resumed, since all connections use the same default socket factory. The number of concurrent connections per host
+ * is bounded, so that a burst of lookups doesn't open more connections than the keep-alive cache can hold.
+ * <p>
+ * Responses are requested with gzip or deflate compression and decoded transparently.
+ * <p>
+ * Redirects are followed by the service itself instead of the JDK, since the JDK neither follows redirects between
+ * http and https nor acquires a connection permit for the new host. At most {@link #MAX_REDIRECTS} redirects are
+ * followed; any other response with a 3xx status is treated as an error.
+ * <p>
+ * The configured timeouts apply to all requests for which the engine doesn't specify its own timeout.
+ */
+@Singleton
+public class HttpFetchService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpFetchService.class);
+
+    private static final String ACCEPTED_ENCODINGS = "gzip, deflate";
+
+    private static final String CHARSET_PARAMETER = "charset=";
+
+    /** Maximum number of redirects which will be followed for a single request. */
+    static final int MAX_REDIRECTS = 5;
+
+    private static final Set<Integer> REDIRECT_STATUS_CODES = ImmutableSet.of(HttpURLConnection.HTTP_MOVED_PERM,
+            HttpURLConnection.HTTP_MOVED_TEMP, HttpURLConnection.HTTP_SEE_OTHER, 307, 308);
+
+    private static final Set<String> SUPPORTED_PROTOCOLS = ImmutableSet.of("http", "https");
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    private final int maxConnectionsPerHost;
+
+    /** Limits the number of concurrent connections per host. */
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    @Inject
+    public HttpFetchService(@NotNull HttpFetchConfiguration httpFetchConfiguration) {
+        this(httpFetchConfiguration.getConnectTimeout(), httpFetchConfiguration.getReadTimeout(), httpFetchConfiguration.getMaxConnectionsPerHost());
+    }
+
+    HttpFetchService(int connectTimeout, int readTimeout, int maxConnectionsPerHost) {
+        checkArgument(connectTimeout > 0, "Connect timeout must be positive");
+        checkArgument(readTimeout > 0, "Read timeout must be positive");
+        checkArgument(maxConnectionsPerHost > 0, "Maximum number of connections per host must be positive");
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Append the given query parameters URL-encoded to the given base URL.
+     *
+     * @param baseUrl
+     *         The URL to which the parameters should be appended. The URL may already contain a query string.
+     * @param queryParameters
+     *         The parameters to append.
+     * @return the URL with the appended parameters.
+     */
+    @NotNull
+    public static String appendQueryParameters(@NotNull String baseUrl, @NotNull Map<String, String> queryParameters) {
+        StringBuilder urlBuilder = new StringBuilder(baseUrl);
+        char separator = baseUrl.indexOf('?') < 0 ? '?' : '&';
+        try {
+            for (Map.Entry<String, String> parameter : queryParameters.entrySet()) {
+                urlBuilder.append(separator)
+                        .append(URLEncoder.encode(parameter.getKey(), "UTF-8"))
+                        .append('=')
+                        .append(URLEncoder.encode(parameter.getValue(), "UTF-8"));
+                separator = '&';
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+        return urlBuilder.toString();
+    }
+
+    /**
+     * Fetch the given URL with a GET request.
+     *
+     * @param url
+     *         The URL to fetch.
+     * @return the completely read response.
+     * @throws IOException
+     *         Will be thrown if the request failed, the server returned an error status or a redirect couldn't be
+     *         followed.
+     */
+    @NotNull
+    public HttpFetchResponse get(@NotNull String url) throws IOException {
+        return get(url, Collections.emptyMap());
+    }
+
+    /**
+     * Fetch the given URL with a GET request and additional request headers.
+     *
+     * @param url
+     *         The URL to fetch.
+     * @param requestHeaders
+     *         Additional headers which will be sent with the request.
+     * @return the completely read response.
+     * @throws IOException
+     *         Will be thrown if the request failed, the server returned an error status or a redirect couldn't be
+     *         followed.
+     */
+    @NotNull
+    public HttpFetchResponse get(@NotNull String url, @NotNull Map<String, String> requestHeaders) throws IOException {
+        return get(url, requestHeaders, this.connectTimeout, this.readTimeout);
+    }
+
+    /**
+     * Fetch the given URL with a GET request, additional request headers and an engine-specific timeout. The timeout
+     * applies to establishing the connection and to reading from it, i.e. it replaces both configured timeouts.
+     *
+     * @param url
+     *         The URL to fetch.
+     * @param requestHeaders
+     *         Additional headers which will be sent with the request.
+     * @param timeout
+     *         The timeout in milliseconds for connecting and for reading.
+     * @return the completely read response.
+     * @throws IOException
+     *         Will be thrown if the request failed, the server returned an error status or a redirect couldn't be
+     *         followed.
+     */
+    @NotNull
+    public HttpFetchResponse get(@NotNull String url, @NotNull Map<String, String> requestHeaders, int timeout) throws IOException {
+        checkArgument(timeout > 0, "Timeout must be positive");
+        return get(url, requestHeaders, timeout, timeout);
+    }
+
+    @NotNull
+    private HttpFetchResponse get(@NotNull String url, @NotNull Map<String, String> requestHeaders, int connectTimeout, int readTimeout) throws IOException {
+        checkNotNull(url, "URL may not be null");
+        URL targetUrl = new URL(url);
+
+        for (int redirects = 0; ; redirects++) {
+            Semaphore permits = acquirePermit(targetUrl, connectTimeout);
+            try {
+                URLConnection connection = openConnection(targetUrl, requestHeaders, connectTimeout, readTimeout);
+                URL redirectUrl = getRedirectUrl(connection, targetUrl);
+                if (redirectUrl == null) {
+                    return readResponse(connection, targetUrl);
+                }
+                if (redirects >= MAX_REDIRECTS) {
+                    throw new IOException("Too many redirects while fetching URL " + url);
+                }
+                LOGGER.trace("Following redirect from {} to {}", targetUrl, redirectUrl);
+                targetUrl = redirectUrl;
+            } finally {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Acquire a connection permit for the host of the given URL.
+     *
+     * @return the semaphore from which the permit has been acquired.
+     */
+    @NotNull
+    private Semaphore acquirePermit(@NotNull URL targetUrl, int connectTimeout) throws IOException {
+        Semaphore permits = this.hostPermits.computeIfAbsent(targetUrl.getHost(), h -> new Semaphore(this.maxConnectionsPerHost));
+
+        try {
+            if (!permits.tryAcquire(connectTimeout, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Timed out while waiting for a connection to " + targetUrl.getHost());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a connection to " + targetUrl.getHost(), e);
+        }
+        return permits;
+    }
+
+    @NotNull
+    private URLConnection openConnection(@NotNull URL targetUrl, @NotNull Map<String, String> requestHeaders, int connectTimeout, int readTimeout) throws IOException {
+        URLConnection connection = targetUrl.openConnection();
+        if (connection instanceof HttpURLConnection) {
+            ((HttpURLConnection) connection).setInstanceFollowRedirects(false);
+        }
+        connection.setConnectTimeout(connectTimeout);
+        connection.setReadTimeout(readTimeout);
+        connection.setRequestProperty("Accept-Encoding", ACCEPTED_ENCODINGS);
+        for (Map.Entry<String, String> header : requestHeaders.entrySet()) {
+            connection.setRequestProperty(header.getKey(), header.getValue());
+        }
+
+        LOGGER.trace("Fetching response from {}", targetUrl);
+        return connection;
+    }
+
+    /**
+     * Returns the URL to which the response of the given connection redirects or null if it is no redirect. The body
+     * of a redirect will be discarded, so that the connection can be reused.
+     *
+     * @throws IOException
+     *         Will be thrown if the request failed or the server returned a 3xx status which can't be followed.
+     */
+    @Nullable
+    private URL getRedirectUrl(@NotNull URLConnection connection, @NotNull URL targetUrl) throws IOException {
+        if (!(connection instanceof HttpURLConnection)) {
+            return null;
+        }
+        HttpURLConnection httpConnection = (HttpURLConnection) connection;
+        int statusCode = httpConnection.getResponseCode();
+        if (statusCode < HttpURLConnection.HTTP_MULT_CHOICE || statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+            return null;
+        }
+
+        discardResponseStream(httpConnection);
+        String location = httpConnection.getHeaderField("Location");
+        if (!REDIRECT_STATUS_CODES.contains(statusCode) || StringUtils.isBlank(location)) {
+            throw new IOException("Server returned HTTP status " + statusCode + " without redirect for URL " + targetUrl);
+        }
+        URL redirectUrl = new URL(targetUrl, location);
+        if (!SUPPORTED_PROTOCOLS.contains(redirectUrl.getProtocol())) {
+            throw new IOException("Server redirected to unsupported URL " + redirectUrl + " for URL " + targetUrl);
+        }
+        return redirectUrl;
+    }
+
+    @NotNull
+    private HttpFetchResponse readResponse(@NotNull URLConnection connection, @NotNull URL targetUrl) throws IOException {
+        int statusCode = HttpURLConnection.HTTP_OK;
+        if (connection instanceof HttpURLConnection) {
+            statusCode = ((HttpURLConnection) connection).getResponseCode();
+            if (statusCode >= HttpURLConnection.HTTP_BAD_REQUEST) {
+                discardErrorStream((HttpURLConnection) connection);
+                throw new IOException("Server returned HTTP status " + statusCode + " for URL " + targetUrl);
+            }
+        }
+
+        byte[] body;
+        try (InputStream inputStream = decodeStream(connection.getInputStream(), connection.getContentEncoding())) {
+            body = ByteStreams.toByteArray(inputStream);
+        }
+
+        String contentType = connection.getContentType();
+        return new HttpFetchResponse(connection.getURL(), statusCode, contentType, extractCharset(contentType), body);
+    }
+
+    /**
+     * Read and close the body of a redirect. Otherwise, the connection couldn't be reused.
+     */
+    private void discardResponseStream(@NotNull HttpURLConnection connection) {
+        try (InputStream inputStream = connection.getInputStream()) {
+            ByteStreams.exhaust(inputStream);
+        } catch (IOException e) {   // NOSONAR: Logging of exception not necessary
+            LOGGER.trace("Discarding response stream of {} failed", connection.getURL());
+        }
+    }
+
+    /**
+     * Read and close the error stream of a failed request. Otherwise, the connection couldn't be reused.
+     */
+    private void discardErrorStream(@NotNull HttpURLConnection connection) {
+        try (InputStream errorStream = connection.getErrorStream()) {
+            if (errorStream != null) {
+                ByteStreams.exhaust(errorStream);
+            }
+        } catch (IOException e) {   // NOSONAR: Logging of exception not necessary
+            LOGGER.trace("Discarding error stream of {} failed", connection.getURL());
+        }
+    }
+
+    @NotNull
+    private InputStream decodeStream(@NotNull InputStream inputStream, @Nullable String contentEncoding) throws IOException {
+        if ("gzip".equalsIgnoreCase(contentEncoding)) {
+            return new GZIPInputStream(inputStream);
+        } else if ("deflate".equalsIgnoreCase(contentEncoding)) {
+            return new InflaterInputStream(inputStream);
+        }
+        return inputStream;
+    }
+
+    @Nullable
+    static Charset extractCharset(@Nullable String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String parameter : StringUtils.split(contentType, ';')) {
+            String trimmedParameter = StringUtils.trim(parameter);
+            if (StringUtils.startsWithIgnoreCase(trimmedParameter, CHARSET_PARAMETER)) {
+                String charsetName = StringUtils.strip(trimmedParameter.substring(CHARSET_PARAMETER.length()), "\"' ");
+                try {
+                    return Charset.forName(charsetName);
+                } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {     // NOSONAR: Logging of exception not necessary
+                    LOGGER.debug("Ignoring unsupported charset {}", charsetName);
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
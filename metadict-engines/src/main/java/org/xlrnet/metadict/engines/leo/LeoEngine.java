@@ -28,7 +28,6 @@ import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -37,18 +36,21 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.xlrnet.metadict.api.engine.SearchEngine;
 import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
-import org.xlrnet.metadict.api.language.GrammaticalNumber;
-import org.xlrnet.metadict.api.language.GrammaticalTense;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.engines.http.HttpFetchResponse;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
+import javax.xml.stream.XMLStreamException;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.stream.IntStream;
 
 /**
  * This is the implementation for the leo.org search engine for Metadict. It uses the internal REST-endpoint from
@@ -83,6 +85,17 @@ public class LeoEngine implements SearchEngine {
 
     private static final String SECTION_NAME_ATTRIBUTE = "sctName";
 
+    private static final Map<String, String> REQUEST_HEADERS = ImmutableMap.of("User-Agent",
+            "Mozilla/5.0 (Windows NT 6.1) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/41.0.2228.0 Safari/537.36");
+
+    private static final int TIMEOUT_MILLIS = 3000;
+
+    private final HttpFetchService httpFetchService;
+
+    public LeoEngine(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     /**
      * Strips various kinds of whitespace at the beginning and at the end of the input string and none-blank characters
      * from the middle of the string.
@@ -91,7 +104,7 @@ public class LeoEngine implements SearchEngine {
      *         The input string.
      * @return Stripped string.
      */
-    private static String cleanWhitespace(String str) {
+    static String cleanWhitespace(String str) {
         StringUtils.replaceChars(str, "\u00A0\n\t\r", "");
         return StringUtils.strip(str, " \u00A0\n\t\r");
     }
@@ -99,40 +112,24 @@ public class LeoEngine implements SearchEngine {
     @NotNull
     @Override
     public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
-        Connection targetConnection = buildTargetConnection(queryInput, inputLanguage, outputLanguage);
-        Document doc;
+        String targetUrl = buildTargetUrl(queryInput, inputLanguage, outputLanguage);
+        HttpFetchResponse response;
         try {
-            doc = targetConnection.get();
+            response = this.httpFetchService.get(targetUrl, REQUEST_HEADERS, TIMEOUT_MILLIS);
         } catch (IOException e) {
             LOGGER.error("Fetching response from backend failed", e);
             throw new MetadictTechnicalException(e);
         }
 
-        BilingualQueryResultBuilder builder = processDocument(doc);
-
-        return builder.build();
-    }
-
-    /**
-     * Try to extract the plural form if the automatic detection has failed.
-     * <p>
-     * Example: "house - pl.: houses" should return "houses"
-     *
-     * @param inputString
-     *         The input string.
-     * @return the plural form or null if nothing could be found
-     */
-    private String alternativeExtractPluralString(String inputString) {
-        int pluralIndex = StringUtils.indexOfIgnoreCase(inputString, "pl.:");
-        if (pluralIndex < 0) {
-            return null;
+        try {
+            return LeoXmlResponseParser.parse(response.getBodyAsStream(), response.getCharsetName()).build();
+        } catch (XMLStreamException e) {
+            LOGGER.warn("Streaming parser failed on response from {} - falling back to DOM parser", response.getUrl(), e);
+            return parseDocument(response);
         }
-        String pluralSubstring = StringUtils.substring(inputString, pluralIndex + 4);
-        String substringTrim = StringUtils.substringBefore(pluralSubstring, "-");
-        return cleanWhitespace(substringTrim);
     }
 
-    private Connection buildTargetConnection(String searchString, Language inputLanguage, Language outputLanguage) {
+    private String buildTargetUrl(String searchString, Language inputLanguage, Language outputLanguage) {
         String targetDictionary = resolveDictionaryConfig(inputLanguage, outputLanguage);
         if (targetDictionary == null) {
             targetDictionary = resolveDictionaryConfig(outputLanguage, inputLanguage);
@@ -141,56 +138,12 @@ public class LeoEngine implements SearchEngine {
             }
         }
 
-        return Jsoup.connect("https://dict.leo.org/dictQuery/m-vocab/" + targetDictionary + "/query.xml")
-                .userAgent("Mozilla/5.0 (Windows NT 6.1) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/41.0.2228.0 Safari/537.36")
-                .data(DEFAULT_QUERY_DATA)
-                .data("lp", targetDictionary)
-                .data("search", searchString)
-                .data("t", ZonedDateTime.now(ZoneOffset.UTC).toString());
-    }
+        Map<String, String> queryData = new LinkedHashMap<>(DEFAULT_QUERY_DATA);
+        queryData.put("lp", targetDictionary);
+        queryData.put("search", searchString);
+        queryData.put("t", ZonedDateTime.now(ZoneOffset.UTC).toString());
 
-    /**
-     * Extracts the abbreviation information from a given representation string. Tries to use "Abk." and "abbr." for
-     * detecting abbreviations.
-     * <p>
-     * Example: If the input is "zum Beispiel [Abk.: z. B.]", then the abbreviation is "z. B.".
-     *
-     * @param representation
-     *         The input string.
-     * @return the domain string or null if none could be found
-     */
-    @Nullable
-    private String extractAbbreviationString(String representation) {
-        String abbreviation = StringUtils.substringBetween(representation, "[abbr.:", "]");
-        if (abbreviation == null) {
-            abbreviation = StringUtils.substringBetween(representation, "[Abk.:", "]");
-        }
-        if (abbreviation != null) {
-            return cleanWhitespace(abbreviation);
-        }
-        return null;
-    }
-
-    /**
-     * Extracts the domain information from a given representation string.
-     * <p>
-     * Example: If the input is "drive-in restaurant [cook.]", then the domain is "cook."
-     *
-     * @param representation
-     *         The input string.
-     * @return the domain string or null if none could be found
-     */
-    @Nullable
-    private String extractDomainString(String representation) {
-        String substring = StringUtils.substringAfterLast(representation, "[");
-        if (substring != null) {
-            String domain = StringUtils.substringBefore(substring, "]");
-            // Check if the extracted domain string is not an abbreviation
-            if (!(StringUtils.endsWith(".", domain) && (StringUtils.startsWithIgnoreCase("abbr.:", domain) || StringUtils.startsWithIgnoreCase("abk.:", domain)))) {
-                return domain;
-            }
-        }
-        return null;
+        return HttpFetchService.appendQueryParameters("https://dict.leo.org/dictQuery/m-vocab/" + targetDictionary + "/query.xml", queryData);
     }
 
     /**
@@ -217,14 +170,30 @@ public class LeoEngine implements SearchEngine {
         return elements.first().text();
     }
 
-    private BilingualQueryResultBuilder processDocument(Document doc) {
-        BilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.builder();
+    @NotNull
+    private BilingualQueryResult parseDocument(@NotNull HttpFetchResponse response) throws MetadictTechnicalException {
+        Document doc;
+        try {
+            doc = Jsoup.parse(response.getBodyAsStream(), response.getCharsetName(), response.getUrl().toString());
+        } catch (IOException e) {
+            LOGGER.error("Parsing response from backend failed", e);
+            throw new MetadictTechnicalException(e);
+        }
+        return processDocument(doc);
+    }
+
+    /**
+     * Process a complete leo.org response that has been parsed into a DOM. This is used as fallback if the response
+     * can't be processed by the {@link LeoXmlResponseParser}.
+     */
+    BilingualQueryResult processDocument(Document doc) {
+        ConcurrentBilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.concurrentBuilder();
 
         // Find sections:
         Elements sections = doc.getElementsByTag("section");
 
-        // Process sections:
-        sections.stream().parallel().forEach(s -> processSection(s, resultBuilder));
+        // Process sections in parallel - each section gets its own partition to keep the original order:
+        IntStream.range(0, sections.size()).parallel().forEach(i -> processSection(sections.get(i), resultBuilder.partition(i)));
 
         // Find similarities:
         Element similarityNode = doc.getElementsByTag("similar").first();
@@ -238,7 +207,7 @@ public class LeoEngine implements SearchEngine {
         // Process external contents:
         processForumLinks(forumLinkNode, resultBuilder);
 
-        return resultBuilder;
+        return resultBuilder.build();
     }
 
     /**
@@ -249,7 +218,7 @@ public class LeoEngine implements SearchEngine {
      * @param resultBuilder
      *         The builder for the bilingual query result.
      */
-    private void processForumLinks(@Nullable Element forumLinkNode, @NotNull BilingualQueryResultBuilder resultBuilder) {
+    private void processForumLinks(@Nullable Element forumLinkNode, @NotNull EngineQueryResultBuilder resultBuilder) {
         if (forumLinkNode == null) {
             LOGGER.warn("Couldn't find forum link node");
             return;
@@ -343,69 +312,24 @@ public class LeoEngine implements SearchEngine {
     }
 
     private DictionaryObject processSideNode(Element side, EntryType entryType) {
-        DictionaryObjectBuilder dictionaryObjectBuilder = ImmutableDictionaryObject.builder();
-
-        // Extract general form:
-        String generalForm = cleanWhitespace(extractGeneralForm(side));
-
-        // Extract language:
-        String languageIdentifier = side.attr("lang");
-        languageIdentifier = fixLanguageIdentifier(languageIdentifier);
-        Language language = Language.getLanguageById(languageIdentifier);
-
-        final String[] pluralForm = new String[1];      // Workaround since objects inside lambda should be final
-
-        // Extract description and plural form:
-        side.getElementsByTag("small")
-                .stream()
-                .filter(e -> !StringUtils.startsWith(e.text(), "|"))        // Filter verb tenses!
-                .forEach(element -> {
-                    String elementText = element.text();
-                    String elementHtml = element.outerHtml();
-                    if (StringUtils.startsWithIgnoreCase(elementText, "pl.:")) {
-                        pluralForm[0] = StringUtils.substringAfter(elementText, ".:");
-                        if (StringUtils.isNotBlank(pluralForm[0])) {
-                            dictionaryObjectBuilder.setAdditionalForm(GrammaticalNumber.PLURAL, cleanWhitespace(pluralForm[0]));
-                        }
-                    } else if (isValidDescriptionHtml(elementHtml)) {
-                        elementText = StringUtils.strip(elementText, "-");
-                        dictionaryObjectBuilder.setDescription(cleanWhitespace(elementText));
-                    }
-                });
+        LeoSide leoSide = new LeoSide();
+        leoSide.setGeneralForm(extractGeneralForm(side));
+        leoSide.setLanguageIdentifier(side.attr("lang"));
 
-        String fullRepresentation = side.getElementsByTag("repr").text();
-
-        // Test for domain specific content:
-        String domain = extractDomainString(fullRepresentation);
-        if (StringUtils.isNotBlank(domain)) {
-            dictionaryObjectBuilder.setDomain(domain);
+        for (Element small : side.getElementsByTag("small")) {
+            leoSide.addSmall(small.text(), isValidDescriptionHtml(small.outerHtml()));
         }
 
-        // Test for abbreviation
-        String abbreviation = extractAbbreviationString(fullRepresentation);
-        if (StringUtils.isNotBlank(abbreviation)) {
-            dictionaryObjectBuilder.setAbbreviation(abbreviation);
+        Elements representations = side.getElementsByTag("repr");
+        leoSide.setRepresentation(representations.text());
+        if (!representations.isEmpty()) {
+            leoSide.setAdditionalFormText(representations.get(0).getElementsByTag("small").text());
         }
 
-        // Try to detect alternative plural form:
-        if (pluralForm[0] == null) {
-            pluralForm[0] = alternativeExtractPluralString(fullRepresentation);
-            if (StringUtils.isNotBlank(pluralForm[0])) {
-                dictionaryObjectBuilder.setAdditionalForm(GrammaticalNumber.PLURAL, pluralForm[0]);
-            }
-        }
-
-        // Process additional forms (e.g. verb tenses):
-        String additionalFormText = side.getElementsByTag("repr").get(0).getElementsByTag("small").text();
-        processTenses(entryType, dictionaryObjectBuilder, language, additionalFormText);
-
-        return dictionaryObjectBuilder
-                .setGeneralForm(generalForm)
-                .setLanguage(language)
-                .build();
+        return leoSide.toDictionaryObject(entryType);
     }
 
-    private String fixLanguageIdentifier(String languageIdentifier) {
+    static String fixLanguageIdentifier(String languageIdentifier) {
         return "ch".equals(languageIdentifier) ? "cn" : languageIdentifier;
     }
 
@@ -440,23 +364,6 @@ public class LeoEngine implements SearchEngine {
         }
     }
 
-    private void processTenses(EntryType entryType, DictionaryObjectBuilder dictionaryObjectBuilder, Language language, String representation) {
-        // Try to extract verb tenses in english  and german dictionary:
-        if (entryType == EntryType.VERB && (Language.ENGLISH.equals(language) || Language.GERMAN.equals(language))) {
-            String tensesString = StringUtils.substringBetween(representation, "|", "|");
-            if (tensesString != null) {
-                String[] tensesArray = StringUtils.split(tensesString, ",");
-                if (tensesArray.length != 2) {
-                    LOGGER.warn("Tenses array {} has unexpected length {} instead of 2", tensesArray, tensesArray.length);
-                }
-                dictionaryObjectBuilder.setAdditionalForm(GrammaticalTense.PAST_TENSE, cleanWhitespace(tensesArray[0]));
-                if (tensesArray.length >= 2) {
-                    dictionaryObjectBuilder.setAdditionalForm(GrammaticalTense.PAST_PERFECT, cleanWhitespace(tensesArray[1]));
-                }
-            }
-        }
-    }
-
     /**
      * Resolve the internal query configuration for the leo.org backend. Currently supported: <ul> <li>German -
      * English</li> <li>German - French</li> <li>German - Spanish</li> <li>German - Italian</li> <li>German -
@@ -521,7 +428,7 @@ public class LeoEngine implements SearchEngine {
         return null;
     }
 
-    private EntryType resolveSectionType(String sectionType) {
+    static EntryType resolveSectionType(String sectionType) {
         return ENTRY_TYPE_MAP.getOrDefault(sectionType, EntryType.UNKNOWN);
     }
 }
@@ -32,12 +32,22 @@ import org.xlrnet.metadict.api.language.GrammaticalNumber;
 import org.xlrnet.metadict.api.language.GrammaticalTense;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
+
+import javax.inject.Inject;
 
 /**
  * Provider with a search engine for searching in various dictionaries on {@see <a href="http://leo.org/">leo.org</a>}.
  */
 public class LeoEngineProvider extends AbstractSearchEngineProvider {
 
+    private final HttpFetchService httpFetchService;
+
+    @Inject
+    public LeoEngineProvider(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @Nullable
     @Override
     public AutoTestSuite getAutoTestSuite() {
@@ -176,6 +186,6 @@ public class LeoEngineProvider extends AbstractSearchEngineProvider {
     @NotNull
     @Override
     public SearchEngine newEngineInstance() {
-        return new LeoEngine();
+        return new LeoEngine(this.httpFetchService);
     }
 }
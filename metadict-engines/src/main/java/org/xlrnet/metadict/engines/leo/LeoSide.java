@@ -0,0 +1,234 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.leo;
+
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.api.language.GrammaticalNumber;
+import org.xlrnet.metadict.api.language.GrammaticalTense;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.DictionaryObject;
+import org.xlrnet.metadict.api.query.DictionaryObjectBuilder;
+import org.xlrnet.metadict.api.query.EntryType;
+import org.xlrnet.metadict.api.query.ImmutableDictionaryObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.xlrnet.metadict.engines.leo.LeoEngine.cleanWhitespace;
+
+/**
+ * Raw textual content of a single {@code <side>} node in a leo.org response. Both the DOM-based and the streaming
+ * parser collect the same values into this class, so that the conversion into a {@link DictionaryObject} is shared
+ * between them.
+ */
+class LeoSide {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeoSide.class);
+
+    private final List<String> smallTexts = new ArrayList<>();
+
+    private final List<Boolean> smallDescriptionFlags = new ArrayList<>();
+
+    private String languageIdentifier;
+
+    private String generalForm;
+
+    private String representation;
+
+    private String additionalFormText;
+
+    /**
+     * Try to extract the plural form if the automatic detection has failed.
+     * <p>
+     * Example: "house - pl.: houses" should return "houses"
+     *
+     * @param inputString
+     *         The input string.
+     * @return the plural form or null if nothing could be found
+     */
+    private static String alternativeExtractPluralString(String inputString) {
+        int pluralIndex = StringUtils.indexOfIgnoreCase(inputString, "pl.:");
+        if (pluralIndex < 0) {
+            return null;
+        }
+        String pluralSubstring = StringUtils.substring(inputString, pluralIndex + 4);
+        String substringTrim = StringUtils.substringBefore(pluralSubstring, "-");
+        return cleanWhitespace(substringTrim);
+    }
+
+    /**
+     * Extracts the abbreviation information from a given representation string. Tries to use "Abk." and "abbr." for
+     * detecting abbreviations.
+     * <p>
+     * Example: If the input is "zum Beispiel [Abk.: z. B.]", then the abbreviation is "z. B.".
+     *
+     * @param representation
+     *         The input string.
+     * @return the domain string or null if none could be found
+     */
+    @Nullable
+    private static String extractAbbreviationString(String representation) {
+        String abbreviation = StringUtils.substringBetween(representation, "[abbr.:", "]");
+        if (abbreviation == null) {
+            abbreviation = StringUtils.substringBetween(representation, "[Abk.:", "]");
+        }
+        if (abbreviation != null) {
+            return cleanWhitespace(abbreviation);
+        }
+        return null;
+    }
+
+    /**
+     * Extracts the domain information from a given representation string.
+     * <p>
+     * Example: If the input is "drive-in restaurant [cook.]", then the domain is "cook."
+     *
+     * @param representation
+     *         The input string.
+     * @return the domain string or null if none could be found
+     */
+    @Nullable
+    private static String extractDomainString(String representation) {
+        String substring = StringUtils.substringAfterLast(representation, "[");
+        if (substring != null) {
+            String domain = StringUtils.substringBefore(substring, "]");
+            // Check if the extracted domain string is not an abbreviation
+            if (!(StringUtils.endsWith(".", domain) && (StringUtils.startsWithIgnoreCase("abbr.:", domain) || StringUtils.startsWithIgnoreCase("abk.:", domain)))) {
+                return domain;
+            }
+        }
+        return null;
+    }
+
+    private static void processTenses(EntryType entryType, DictionaryObjectBuilder dictionaryObjectBuilder, Language language, String representation) {
+        // Try to extract verb tenses in english  and german dictionary:
+        if (entryType == EntryType.VERB && (Language.ENGLISH.equals(language) || Language.GERMAN.equals(language))) {
+            String tensesString = StringUtils.substringBetween(representation, "|", "|");
+            if (tensesString != null) {
+                String[] tensesArray = StringUtils.split(tensesString, ",");
+                if (tensesArray.length != 2) {
+                    LOGGER.warn("Tenses array {} has unexpected length {} instead of 2", tensesArray, tensesArray.length);
+                }
+                dictionaryObjectBuilder.setAdditionalForm(GrammaticalTense.PAST_TENSE, cleanWhitespace(tensesArray[0]));
+                if (tensesArray.length >= 2) {
+                    dictionaryObjectBuilder.setAdditionalForm(GrammaticalTense.PAST_PERFECT, cleanWhitespace(tensesArray[1]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Register the text of a {@code <small>} node inside this side in document order.
+     *
+     * @param text
+     *         The normalized text of the node.
+     * @param validDescription
+     *         True if the node has the markup of a description (i.e. {@code <small><i>...</i></small>}).
+     */
+    void addSmall(@NotNull String text, boolean validDescription) {
+        this.smallTexts.add(text);
+        this.smallDescriptionFlags.add(validDescription);
+    }
+
+    void setAdditionalFormText(String additionalFormText) {
+        this.additionalFormText = additionalFormText;
+    }
+
+    void setGeneralForm(String generalForm) {
+        this.generalForm = generalForm;
+    }
+
+    void setLanguageIdentifier(String languageIdentifier) {
+        this.languageIdentifier = languageIdentifier;
+    }
+
+    void setRepresentation(String representation) {
+        this.representation = representation;
+    }
+
+    /**
+     * Convert the collected content into a {@link DictionaryObject}.
+     *
+     * @param entryType
+     *         The type of the entry this side belongs to.
+     * @return a new dictionary object.
+     */
+    @NotNull
+    DictionaryObject toDictionaryObject(@NotNull EntryType entryType) {
+        DictionaryObjectBuilder dictionaryObjectBuilder = ImmutableDictionaryObject.builder();
+
+        Language language = Language.getLanguageById(LeoEngine.fixLanguageIdentifier(this.languageIdentifier));
+        String pluralForm = null;
+
+        // Extract description and plural form:
+        for (int i = 0; i < this.smallTexts.size(); i++) {
+            String elementText = this.smallTexts.get(i);
+            if (StringUtils.startsWith(elementText, "|")) {
+                continue;       // Filter verb tenses!
+            }
+            if (StringUtils.startsWithIgnoreCase(elementText, "pl.:")) {
+                pluralForm = StringUtils.substringAfter(elementText, ".:");
+                if (StringUtils.isNotBlank(pluralForm)) {
+                    dictionaryObjectBuilder.setAdditionalForm(GrammaticalNumber.PLURAL, cleanWhitespace(pluralForm));
+                }
+            } else if (this.smallDescriptionFlags.get(i)) {
+                elementText = StringUtils.strip(elementText, "-");
+                dictionaryObjectBuilder.setDescription(cleanWhitespace(elementText));
+            }
+        }
+
+        // Test for domain specific content:
+        String domain = extractDomainString(this.representation);
+        if (StringUtils.isNotBlank(domain)) {
+            dictionaryObjectBuilder.setDomain(domain);
+        }
+
+        // Test for abbreviation
+        String abbreviation = extractAbbreviationString(this.representation);
+        if (StringUtils.isNotBlank(abbreviation)) {
+            dictionaryObjectBuilder.setAbbreviation(abbreviation);
+        }
+
+        // Try to detect alternative plural form:
+        if (pluralForm == null) {
+            pluralForm = alternativeExtractPluralString(this.representation);
+            if (StringUtils.isNotBlank(pluralForm)) {
+                dictionaryObjectBuilder.setAdditionalForm(GrammaticalNumber.PLURAL, pluralForm);
+            }
+        }
+
+        // Process additional forms (e.g. verb tenses):
+        processTenses(entryType, dictionaryObjectBuilder, language, this.additionalFormText);
+
+        return dictionaryObjectBuilder
+                .setGeneralForm(cleanWhitespace(this.generalForm))
+                .setLanguage(language)
+                .build();
+    }
+}
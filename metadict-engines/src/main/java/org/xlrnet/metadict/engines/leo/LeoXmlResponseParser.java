@@ -0,0 +1,626 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.leo;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.api.query.*;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Streaming parser for the XML responses of leo.org. The parser reads the response in a single pass and emits each
+ * {@link BilingualEntry} as soon as its {@code <entry>} node has been closed. Only the content of the current entry
+ * is kept in memory, i.e. no document tree of the whole response is built.
+ * <p>
+ * The extracted values are equivalent to those of the DOM-based parsing in {@link LeoEngine}: element and attribute
+ * names are matched case-insensitively and element texts are normalized the same way as jsoup's {@code text()}
+ * does.
+ */
+class LeoXmlResponseParser {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeoXmlResponseParser.class);
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createInputFactory();
+
+    /** HTML block tags which cause a whitespace to be inserted when jsoup extracts the text of an element. */
+    private static final Set<String> BLOCK_TAGS = ImmutableSet.of("address", "article", "aside", "blockquote", "dd",
+            "div", "dl", "dt", "fieldset", "figure", "footer", "form", "h1", "h2", "h3", "h4", "h5", "h6", "header",
+            "hr", "li", "ol", "p", "pre", "section", "table", "td", "th", "tr", "ul");
+
+    private final BilingualQueryResultBuilder resultBuilder;
+
+    private final List<TextCollector> openCollectors = new ArrayList<>();
+
+    private int depth;
+
+    private int sectionDepth;
+
+    private EntryType sectionEntryType;
+
+    private int entryDepth;
+
+    private String entryCategoryType;
+
+    private final List<LeoSide> entrySides = new ArrayList<>(2);
+
+    private int sideDepth;
+
+    private SideContent sideContent;
+
+    private int similarDepth;
+
+    private boolean similarFound;
+
+    private Language similarSideLanguage;
+
+    private int forumDepth;
+
+    private boolean forumFound;
+
+    private final List<ForumNode> forumNodes = new ArrayList<>();
+
+    private LeoXmlResponseParser(@NotNull BilingualQueryResultBuilder resultBuilder) {
+        this.resultBuilder = resultBuilder;
+    }
+
+    /**
+     * Parse the given leo.org response and return a builder that contains all extracted entries, similar
+     * recommendations and forum links.
+     *
+     * @param inputStream
+     *         The stream with the raw response.
+     * @param charsetName
+     *         The declared charset of the response or null if the parser should detect it.
+     * @return a builder with the extracted results.
+     * @throws XMLStreamException
+     *         if the response is not well-formed XML.
+     */
+    @NotNull
+    static BilingualQueryResultBuilder parse(@NotNull InputStream inputStream, @Nullable String charsetName) throws XMLStreamException {
+        BilingualQueryResultBuilder resultBuilder = ImmutableBilingualQueryResult.builder();
+        XMLStreamReader reader = charsetName != null
+                ? XML_INPUT_FACTORY.createXMLStreamReader(inputStream, charsetName)
+                : XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+        try {
+            new LeoXmlResponseParser(resultBuilder).process(reader);
+        } finally {
+            reader.close();
+        }
+        return resultBuilder;
+    }
+
+    @NotNull
+    private static XMLInputFactory createInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+
+    @NotNull
+    private static String getAttribute(@NotNull XMLStreamReader reader, @NotNull String attributeName) {
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            if (attributeName.equalsIgnoreCase(reader.getAttributeLocalName(i))) {
+                return reader.getAttributeValue(i);
+            }
+        }
+        return "";
+    }
+
+    @NotNull
+    private static String getElementName(@NotNull XMLStreamReader reader) {
+        return reader.getLocalName().toLowerCase(Locale.ENGLISH);
+    }
+
+    private void process(@NotNull XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    startElement(reader);
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    endElement(getElementName(reader));
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    characters(reader.getText());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    comment();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        if (!this.similarFound) {
+            LOGGER.warn("Couldn't find similarity node");
+        }
+        if (this.forumFound) {
+            processForumNodes();
+        } else {
+            LOGGER.warn("Couldn't find forum link node");
+        }
+    }
+
+    private void startElement(@NotNull XMLStreamReader reader) {
+        String elementName = getElementName(reader);
+        this.depth++;
+
+        for (TextCollector collector : this.openCollectors) {
+            collector.elementStarted(elementName, reader.getAttributeCount(), this.depth);
+        }
+
+        if (this.sectionDepth == 0 && "section".equals(elementName)) {
+            this.sectionDepth = this.depth;
+            this.sectionEntryType = LeoEngine.resolveSectionType(getAttribute(reader, "sctName"));
+        } else if (this.sectionDepth > 0 && this.entryDepth == 0 && "entry".equals(elementName)) {
+            this.entryDepth = this.depth;
+            this.entryCategoryType = null;
+            this.entrySides.clear();
+        } else if (this.entryDepth > 0) {
+            startEntryContent(reader, elementName);
+        }
+
+        if (!this.similarFound && "similar".equals(elementName)) {
+            this.similarFound = true;
+            this.similarDepth = this.depth;
+        } else if (this.similarDepth > 0) {
+            startSimilarContent(reader, elementName);
+        }
+
+        if (!this.forumFound && "forumref".equals(elementName)) {
+            this.forumFound = true;
+            this.forumDepth = this.depth;
+        }
+        if (this.forumDepth > 0) {
+            ForumNode forumNode = new ForumNode(elementName, getAttribute(reader, "href"));
+            this.forumNodes.add(forumNode);
+            openCollector(new TextCollector(this.depth, text -> forumNode.text = text));
+        }
+    }
+
+    private void startEntryContent(@NotNull XMLStreamReader reader, @NotNull String elementName) {
+        if (this.entryCategoryType == null && "category".equals(elementName)) {
+            this.entryCategoryType = getAttribute(reader, "type");
+        } else if (this.sideDepth == 0 && "side".equals(elementName)) {
+            this.sideDepth = this.depth;
+            this.sideContent = new SideContent(getAttribute(reader, "lang"));
+        } else if (this.sideDepth > 0) {
+            startSideContent(reader, elementName);
+        }
+    }
+
+    private void startSideContent(@NotNull XMLStreamReader reader, @NotNull String elementName) {
+        SideContent side = this.sideContent;
+        switch (elementName) {
+            case "word":
+                if (!side.generalFormStarted) {
+                    side.generalFormStarted = true;
+                    openCollector(new TextCollector(this.depth, text -> side.generalForm = text));
+                }
+                break;
+            case "repr":
+                int reprIndex = side.reprTexts.size();
+                side.reprTexts.add("");
+                if (reprIndex == 0) {
+                    side.firstReprDepth = this.depth;
+                }
+                openCollector(new TextCollector(this.depth, text -> {
+                    side.reprTexts.set(reprIndex, text);
+                    if (reprIndex == 0) {
+                        side.firstReprDepth = 0;
+                    }
+                }));
+                break;
+            case "small":
+                int smallIndex = side.smallTexts.size();
+                side.smallTexts.add("");
+                side.smallDescriptionFlags.add(false);
+                int firstReprSmallIndex = -1;
+                if (side.firstReprDepth > 0) {
+                    firstReprSmallIndex = side.firstReprSmallTexts.size();
+                    side.firstReprSmallTexts.add("");
+                }
+                int additionalFormIndex = firstReprSmallIndex;
+                SmallCollector smallCollector = new SmallCollector(this.depth, reader.getAttributeCount() > 0);
+                smallCollector.callback = text -> {
+                    side.smallTexts.set(smallIndex, text);
+                    side.smallDescriptionFlags.set(smallIndex, smallCollector.isValidDescription());
+                    if (additionalFormIndex >= 0) {
+                        side.firstReprSmallTexts.set(additionalFormIndex, text);
+                    }
+                };
+                openCollector(smallCollector);
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void startSimilarContent(@NotNull XMLStreamReader reader, @NotNull String elementName) {
+        if ("side".equals(elementName)) {
+            String languageIdentifier = LeoEngine.fixLanguageIdentifier(getAttribute(reader, "lang"));
+            this.similarSideLanguage = Language.getLanguageById(languageIdentifier);
+        } else if ("word".equals(elementName) && this.similarSideLanguage != null) {
+            Language wordLanguage = this.similarSideLanguage;
+            openCollector(new TextCollector(this.depth, text ->
+                    this.resultBuilder.addSimilarRecommendation(
+                            ImmutableDictionaryObject.builder()
+                                    .setLanguage(wordLanguage)
+                                    .setGeneralForm(LeoEngine.cleanWhitespace(text))
+                                    .build()
+                    )
+            ));
+        }
+    }
+
+    private void endElement(@NotNull String elementName) {
+        for (TextCollector collector : this.openCollectors) {
+            collector.elementEnded(elementName, this.depth);
+        }
+        for (Iterator<TextCollector> iterator = this.openCollectors.iterator(); iterator.hasNext(); ) {
+            TextCollector collector = iterator.next();
+            if (collector.depth == this.depth) {
+                iterator.remove();
+                collector.callback.accept(collector.getText());
+            }
+        }
+
+        if (this.depth == this.sideDepth) {
+            if (this.entrySides.size() < 2) {
+                this.entrySides.add(this.sideContent.toLeoSide());
+            }
+            this.sideDepth = 0;
+            this.sideContent = null;
+        } else if (this.depth == this.entryDepth) {
+            finishEntry();
+            this.entryDepth = 0;
+        } else if (this.depth == this.sectionDepth) {
+            this.sectionDepth = 0;
+        }
+
+        if (this.depth == this.similarDepth) {
+            this.similarDepth = 0;
+        } else if (this.similarDepth > 0 && "side".equals(elementName)) {
+            this.similarSideLanguage = null;
+        }
+
+        if (this.depth == this.forumDepth) {
+            this.forumDepth = 0;
+        }
+
+        this.depth--;
+    }
+
+    private void characters(@NotNull String text) {
+        for (TextCollector collector : this.openCollectors) {
+            collector.textAppended(text, this.depth);
+        }
+    }
+
+    private void comment() {
+        for (TextCollector collector : this.openCollectors) {
+            collector.otherNodeAppended(this.depth);
+        }
+    }
+
+    private void openCollector(@NotNull TextCollector collector) {
+        this.openCollectors.add(collector);
+    }
+
+    private void finishEntry() {
+        if (this.entrySides.size() < 2) {
+            LOGGER.warn("Skipping entry with {} instead of 2 sides", this.entrySides.size());
+            return;
+        }
+
+        EntryType entryType = this.sectionEntryType;
+        if (this.entryCategoryType != null) {
+            EntryType categoryType = LeoEngine.resolveSectionType(this.entryCategoryType);
+            if (categoryType != EntryType.UNKNOWN) {
+                entryType = categoryType;
+            }
+        }
+
+        this.resultBuilder.addBilingualEntry(ImmutableBilingualEntry.builder()
+                .setEntryType(entryType)
+                .setInputObject(this.entrySides.get(0).toDictionaryObject(entryType))
+                .setOutputObject(this.entrySides.get(1).toDictionaryObject(entryType)).build());
+    }
+
+    /**
+     * Process the flattened elements of the forum link node. This follows the same element sequence as the DOM-based
+     * parsing in {@link LeoEngine}.
+     */
+    private void processForumNodes() {
+        ExternalContentBuilder builder = ImmutableExternalContent.builder();
+
+        for (Iterator<ForumNode> iterator = this.forumNodes.iterator(); iterator.hasNext(); ) {
+            ForumNode node = iterator.next();
+
+            if ("link".equals(node.name)) {
+                builder = ImmutableExternalContent.builder();
+                if (StringUtils.isBlank(node.href)) {
+                    LOGGER.trace("Skipping link node with empty href attribute");
+                    continue;
+                }
+                try {
+                    builder.setLink(new URL("https://dict.leo.org/" + node.href));
+                    if (!iterator.hasNext()) {
+                        break;
+                    }
+                    node = iterator.next();
+                } catch (MalformedURLException e) {
+                    LOGGER.warn("Illegal URL for forum entry", e);
+                }
+            }
+
+            if ("subject".equals(node.name)) {
+                String subject = node.text;
+                if (!iterator.hasNext()) {
+                    break;
+                }
+                node = iterator.next();
+                if (StringUtils.isNotBlank(subject)) {
+                    builder.setTitle("leo.org forum: " + subject);
+                } else {
+                    LOGGER.trace("Skipping blank subject node");
+                    continue;
+                }
+            }
+
+            if ("teaser".equals(node.name)) {
+                if (StringUtils.isNotBlank(node.text)) {
+                    builder.setDescription(node.text);
+                    this.resultBuilder.addExternalContent(builder.build());
+                } else {
+                    LOGGER.warn("Skipping blank teaser node");
+                }
+            }
+        }
+    }
+
+    /**
+     * Content of the {@code <side>} node that is currently being parsed.
+     */
+    private static class SideContent {
+
+        private final String languageIdentifier;
+
+        private final List<String> reprTexts = new ArrayList<>();
+
+        private final List<String> smallTexts = new ArrayList<>();
+
+        private final List<Boolean> smallDescriptionFlags = new ArrayList<>();
+
+        private final List<String> firstReprSmallTexts = new ArrayList<>();
+
+        private boolean generalFormStarted;
+
+        private String generalForm;
+
+        private int firstReprDepth;
+
+        SideContent(@NotNull String languageIdentifier) {
+            this.languageIdentifier = languageIdentifier;
+        }
+
+        /** Join multiple texts the same way as jsoup's {@code Elements.text()}. */
+        @NotNull
+        private static String joinTexts(@NotNull List<String> texts) {
+            StringBuilder builder = new StringBuilder();
+            for (String text : texts) {
+                if (builder.length() != 0) {
+                    builder.append(' ');
+                }
+                builder.append(text);
+            }
+            return builder.toString();
+        }
+
+        @NotNull
+        LeoSide toLeoSide() {
+            LeoSide leoSide = new LeoSide();
+            leoSide.setLanguageIdentifier(this.languageIdentifier);
+            leoSide.setGeneralForm(this.generalForm);
+            for (int i = 0; i < this.smallTexts.size(); i++) {
+                leoSide.addSmall(this.smallTexts.get(i), this.smallDescriptionFlags.get(i));
+            }
+            leoSide.setRepresentation(joinTexts(this.reprTexts));
+            if (!this.reprTexts.isEmpty()) {
+                leoSide.setAdditionalFormText(joinTexts(this.firstReprSmallTexts));
+            }
+            return leoSide;
+        }
+    }
+
+    /**
+     * Flattened element inside the forum link node.
+     */
+    private static class ForumNode {
+
+        private final String name;
+
+        private final String href;
+
+        private String text;
+
+        ForumNode(@NotNull String name, @NotNull String href) {
+            this.name = name;
+            this.href = href;
+        }
+    }
+
+    /**
+     * Collects the normalized text of a single element including all of its descendants. The normalization follows
+     * jsoup's {@code Element.text()}: whitespace runs are collapsed into a single space, block elements are separated
+     * by a space and the result is trimmed.
+     */
+    private static class TextCollector {
+
+        final int depth;
+
+        Consumer<String> callback;
+
+        private final StringBuilder accumulator = new StringBuilder();
+
+        TextCollector(int depth) {
+            this.depth = depth;
+        }
+
+        TextCollector(int depth, @NotNull Consumer<String> callback) {
+            this.depth = depth;
+            this.callback = callback;
+        }
+
+        private static boolean isWhitespace(char c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+        }
+
+        void elementStarted(@NotNull String elementName, int attributeCount, int elementDepth) {
+            if (this.accumulator.length() > 0 && (BLOCK_TAGS.contains(elementName) || "br".equals(elementName))
+                    && !lastCharIsWhitespace()) {
+                this.accumulator.append(' ');
+            }
+        }
+
+        void elementEnded(@NotNull String elementName, int elementDepth) {
+            // Only relevant for collectors that track their structure
+        }
+
+        void otherNodeAppended(int parentDepth) {
+            // Only relevant for collectors that track their structure
+        }
+
+        void textAppended(@NotNull String text, int parentDepth) {
+            boolean stripLeading = lastCharIsWhitespace();
+            boolean lastWasWhite = false;
+            boolean reachedNonWhite = false;
+
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (isWhitespace(c)) {
+                    if ((stripLeading && !reachedNonWhite) || lastWasWhite) {
+                        continue;
+                    }
+                    this.accumulator.append(' ');
+                    lastWasWhite = true;
+                } else {
+                    this.accumulator.append(c);
+                    lastWasWhite = false;
+                    reachedNonWhite = true;
+                }
+            }
+        }
+
+        @NotNull
+        String getText() {
+            return this.accumulator.toString().trim();
+        }
+
+        private boolean lastCharIsWhitespace() {
+            return this.accumulator.length() != 0 && this.accumulator.charAt(this.accumulator.length() - 1) == ' ';
+        }
+    }
+
+    /**
+     * Text collector for {@code <small>} elements that additionally checks whether the element has the markup of a
+     * description, i.e. {@code <small><i>...</i></small>} without any attributes.
+     */
+    private static class SmallCollector extends TextCollector {
+
+        private final boolean hasAttributes;
+
+        private boolean hasChildNodes;
+
+        private boolean firstChildIsPlainItalic;
+
+        private boolean lastChildIsItalic;
+
+        SmallCollector(int depth, boolean hasAttributes) {
+            super(depth);
+            this.hasAttributes = hasAttributes;
+        }
+
+        @Override
+        void elementStarted(@NotNull String elementName, int attributeCount, int elementDepth) {
+            super.elementStarted(elementName, attributeCount, elementDepth);
+            if (elementDepth == this.depth + 1 && !this.hasChildNodes) {
+                this.hasChildNodes = true;
+                this.firstChildIsPlainItalic = "i".equals(elementName) && attributeCount == 0;
+            }
+        }
+
+        @Override
+        void elementEnded(@NotNull String elementName, int elementDepth) {
+            if (elementDepth == this.depth + 1) {
+                this.lastChildIsItalic = "i".equals(elementName);
+            }
+        }
+
+        @Override
+        void otherNodeAppended(int parentDepth) {
+            if (parentDepth == this.depth) {
+                this.hasChildNodes = true;
+                this.lastChildIsItalic = false;
+            }
+        }
+
+        @Override
+        void textAppended(@NotNull String text, int parentDepth) {
+            super.textAppended(text, parentDepth);
+            otherNodeAppended(parentDepth);
+        }
+
+        boolean isValidDescription() {
+            String text = getText();
+            return !this.hasAttributes && this.firstChildIsPlainItalic && this.lastChildIsItalic
+                    && !StringUtils.containsIgnoreCase(text, ".:") && !StringUtils.containsIgnoreCase(text, ".]")
+                    && !StringUtils.containsIgnoreCase(text, "auch:") && !StringUtils.containsIgnoreCase(text, "also:");
+        }
+    }
+}
@@ -41,10 +41,11 @@ import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.language.UnsupportedLanguageException;
 import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.engines.http.HttpFetchResponse;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
-import java.net.URL;
 import java.net.URLEncoder;
 import java.util.Map;
 import java.util.Optional;
@@ -69,6 +70,14 @@ public class OrdbokEngine implements SearchEngine {
 
     private static final String BASE_URL = "http://ordbok.uib.no/perl/ordbok.cgi?OPP=";
 
+    private static final int TIMEOUT_MILLIS = 3000;
+
+    private final HttpFetchService httpFetchService;
+
+    public OrdbokEngine(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @NotNull
     @Override
     public MonolingualQueryResult executeMonolingualQuery(@NotNull String queryString, @NotNull Language queryLanguage) throws MetadictTechnicalException {
@@ -129,9 +138,9 @@ public class OrdbokEngine implements SearchEngine {
         }
 
         String targetUrl = buildTargetUrl(queryString, queryBokmaal, queryNynorsk);
-        URL url = new URL(targetUrl);
+        HttpFetchResponse response = this.httpFetchService.get(targetUrl, ImmutableMap.of(), TIMEOUT_MILLIS);
 
-        return Jsoup.parse(url, 3000);
+        return Jsoup.parse(response.getBodyAsStream(), response.getCharsetName(), response.getUrl().toString());
     }
 
     @NotNull
@@ -28,12 +28,22 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.xlrnet.metadict.api.engine.*;
 import org.xlrnet.metadict.api.language.Language;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
+
+import javax.inject.Inject;
 
 /**
  * Provider for Bokmålordbok and Nynorskordbok search engine.
  */
 public class OrdbokEngineProvider extends AbstractSearchEngineProvider {
 
+    private final HttpFetchService httpFetchService;
+
+    @Inject
+    public OrdbokEngineProvider(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @Nullable
     @Override
     public AutoTestSuite getAutoTestSuite() {
@@ -70,6 +80,6 @@ public class OrdbokEngineProvider extends AbstractSearchEngineProvider {
     @NotNull
     @Override
     public SearchEngine newEngineInstance() {
-        return new OrdbokEngine();
+        return new OrdbokEngine(this.httpFetchService);
     }
 }
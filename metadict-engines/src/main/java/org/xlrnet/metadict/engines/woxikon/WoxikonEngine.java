@@ -38,6 +38,8 @@ import org.xlrnet.metadict.api.exception.MetadictTechnicalException;
 import org.xlrnet.metadict.api.language.GrammaticalGender;
 import org.xlrnet.metadict.api.language.Language;
 import org.xlrnet.metadict.api.query.*;
+import org.xlrnet.metadict.engines.http.HttpFetchResponse;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
@@ -103,6 +105,12 @@ public class WoxikonEngine implements SearchEngine {
 
     private static final String CLASS_EXTRA_INFO = "word-extra-info";
 
+    private final HttpFetchService httpFetchService;
+
+    public WoxikonEngine(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @NotNull
     @Override
     public BilingualQueryResult executeBilingualQuery(@NotNull String queryInput, @NotNull Language inputLanguage, @NotNull Language outputLanguage, boolean allowBothWay) throws MetadictTechnicalException {
@@ -111,7 +119,8 @@ public class WoxikonEngine implements SearchEngine {
 
         try {
             targetUrl = buildTargetUrl(queryInput, targetLanguage);
-            Document doc = Jsoup.parse(targetUrl, TIMEOUT_MILLIS);
+            HttpFetchResponse response = this.httpFetchService.get(targetUrl.toString(), ImmutableMap.of(), TIMEOUT_MILLIS);
+            Document doc = Jsoup.parse(response.getBodyAsStream(), response.getCharsetName(), response.getUrl().toString());
             return processBilingualDocument(queryInput, doc, targetLanguage);
         } catch (IOException e) {
             LOGGER.error("Fetching response from backend failed", e);
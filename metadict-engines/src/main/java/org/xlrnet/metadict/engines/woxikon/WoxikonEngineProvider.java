@@ -35,6 +35,9 @@ import org.xlrnet.metadict.api.query.EntryType;
 import org.xlrnet.metadict.api.query.ImmutableBilingualEntry;
 import org.xlrnet.metadict.api.query.ImmutableBilingualQueryResult;
 import org.xlrnet.metadict.api.query.ImmutableDictionaryObject;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
+
+import javax.inject.Inject;
 
 /**
  * Provider with a search engine for searching in various dictionaries on {@see <a
@@ -42,6 +45,13 @@ import org.xlrnet.metadict.api.query.ImmutableDictionaryObject;
  */
 public class WoxikonEngineProvider extends AbstractSearchEngineProvider {
 
+    private final HttpFetchService httpFetchService;
+
+    @Inject
+    public WoxikonEngineProvider(@NotNull HttpFetchService httpFetchService) {
+        this.httpFetchService = httpFetchService;
+    }
+
     @Nullable
     @Override
     public AutoTestSuite getAutoTestSuite() throws MetadictTechnicalException {
@@ -158,6 +168,6 @@ public class WoxikonEngineProvider extends AbstractSearchEngineProvider {
     @NotNull
     @Override
     public SearchEngine newEngineInstance() {
-        return new WoxikonEngine();
+        return new WoxikonEngine(this.httpFetchService);
     }
 }
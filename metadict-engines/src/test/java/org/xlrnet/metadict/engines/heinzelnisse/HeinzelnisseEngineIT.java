@@ -26,6 +26,8 @@ package org.xlrnet.metadict.engines.heinzelnisse;
 
 import org.junit.runners.Parameterized;
 import org.xlrnet.metadict.core.services.autotest.AbstractAutoSearchEngineIntegrationTest;
+import org.xlrnet.metadict.engines.http.DefaultHttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 /**
  * Integration tests for {@link HeinzelnisseEngine}.
@@ -34,7 +36,7 @@ public class HeinzelnisseEngineIT extends AbstractAutoSearchEngineIntegrationTes
 
     @Parameterized.Parameters
     public static Iterable<Object[]> data() throws Exception {
-        return prepareProvider(new HeinzelnisseEngineProvider());
+        return prepareProvider(new HeinzelnisseEngineProvider(new HttpFetchService(new DefaultHttpFetchConfiguration())));
     }
 
 }
@@ -29,6 +29,8 @@ import org.junit.Test;
 import org.mockito.Mockito;
 import org.xlrnet.metadict.api.language.*;
 import org.xlrnet.metadict.api.query.DictionaryObjectBuilder;
+import org.xlrnet.metadict.engines.http.DefaultHttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 import static org.mockito.Mockito.verify;
 
@@ -55,7 +57,7 @@ public class HeinzelnisseEngineTest {
 
     private static final String ANSWER_TEST_FLERTALL = "mødre";
 
-    private HeinzelnisseEngine engine = new HeinzelnisseEngine();
+    private HeinzelnisseEngine engine = new HeinzelnisseEngine(new HttpFetchService(new DefaultHttpFetchConfiguration()));
 
     private DictionaryObjectBuilder dictionaryObjectBuilder;
 
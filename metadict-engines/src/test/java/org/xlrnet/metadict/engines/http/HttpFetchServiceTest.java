@@ -0,0 +1,160 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.http;
+
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test cases for {@link HttpFetchService}.
+ */
+public class HttpFetchServiceTest {
+
+    @Test
+    public void testAppendQueryParameters() {
+        String url = HttpFetchService.appendQueryParameters("https://example.com/query", ImmutableMap.of("search", "ein haus", "lp", "ende"));
+
+        assertEquals("https://example.com/query?search=ein+haus&lp=ende", url);
+    }
+
+    @Test
+    public void testAppendQueryParameters_existingQuery() {
+        String url = HttpFetchService.appendQueryParameters("https://example.com/query?n=1", ImmutableMap.of("search", "ä&ö"));
+
+        assertEquals("https://example.com/query?n=1&search=%C3%A4%26%C3%B6", url);
+    }
+
+    @Test
+    public void testExtractCharset() {
+        assertEquals(StandardCharsets.ISO_8859_1, HttpFetchService.extractCharset("text/html; charset=ISO-8859-1"));
+        assertEquals(StandardCharsets.UTF_8, HttpFetchService.extractCharset("application/json;Charset=\"utf-8\""));
+    }
+
+    @Test
+    public void testExtractCharset_missingOrUnsupported() {
+        assertNull(HttpFetchService.extractCharset(null));
+        assertNull(HttpFetchService.extractCharset("text/html"));
+        assertNull(HttpFetchService.extractCharset("text/html; charset=unknown-charset"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGet_nonPositiveTimeout() throws Exception {
+        new HttpFetchService(new DefaultHttpFetchConfiguration()).get("http://localhost/", ImmutableMap.of(), 0);
+    }
+
+    @Test
+    public void testGet_engineTimeoutOverridesReadTimeout() throws Exception {
+        HttpFetchService service = new HttpFetchService(1000, 60000, 1);
+
+        try (ServerSocket server = new ServerSocket(0)) {
+            long start = System.nanoTime();
+            try {
+                service.get("http://localhost:" + server.getLocalPort() + "/", ImmutableMap.of(), 200);
+                throw new AssertionError("Request against a silent server must time out");
+            } catch (SocketTimeoutException expected) {
+                long elapsedMillis = (System.nanoTime() - start) / 1000000;
+                assertTrue("Request took " + elapsedMillis + "ms", elapsedMillis < 30000);
+            }
+        }
+    }
+
+    @Test
+    public void testGet_followsRedirectsAcrossHosts() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        String otherHostUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        server.createContext("/redirect", exchange -> sendRedirect(exchange, 302, "/moved"));
+        server.createContext("/moved", exchange -> sendRedirect(exchange, 301, otherHostUrl + "/target"));
+        server.createContext("/target", exchange -> {
+            byte[] body = "found".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        server.start();
+
+        try {
+            // A single permit per host must suffice, since the permit of each hop is released before the next one
+            HttpFetchResponse response = new HttpFetchService(1000, 1000, 1).get("http://localhost:" + server.getAddress().getPort() + "/redirect");
+
+            assertEquals(200, response.getStatusCode());
+            assertEquals(otherHostUrl + "/target", response.getUrl().toString());
+            assertEquals("found", response.getBodyAsString());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testGet_tooManyRedirects() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/loop", exchange -> sendRedirect(exchange, 307, "/loop"));
+        server.start();
+
+        try {
+            new HttpFetchService(1000, 1000, 1).get("http://localhost:" + server.getAddress().getPort() + "/loop");
+            throw new AssertionError("Endless redirects must fail");
+        } catch (IOException expected) {
+            assertTrue(expected.getMessage(), expected.getMessage().startsWith("Too many redirects"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testGet_redirectWithoutLocation() throws Exception {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(302, -1);
+            exchange.close();
+        });
+        server.start();
+
+        try {
+            new HttpFetchService(1000, 1000, 1).get("http://localhost:" + server.getAddress().getPort() + "/");
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static void sendRedirect(HttpExchange exchange, int statusCode, String location) throws IOException {
+        exchange.getResponseHeaders().set("Location", location);
+        exchange.sendResponseHeaders(statusCode, -1);
+        exchange.close();
+    }
+}
@@ -26,6 +26,8 @@ package org.xlrnet.metadict.engines.leo;
 
 import org.junit.runners.Parameterized;
 import org.xlrnet.metadict.core.services.autotest.AbstractAutoSearchEngineIntegrationTest;
+import org.xlrnet.metadict.engines.http.DefaultHttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 /**
  * Integration tests for {@link LeoEngine}.
@@ -34,7 +36,7 @@ public class LeoEngineIT extends AbstractAutoSearchEngineIntegrationTest {
 
     @Parameterized.Parameters
     public static Iterable<Object[]> data() throws Exception {
-        return prepareProvider(new LeoEngineProvider());
+        return prepareProvider(new LeoEngineProvider(new HttpFetchService(new DefaultHttpFetchConfiguration())));
     }
 
 }
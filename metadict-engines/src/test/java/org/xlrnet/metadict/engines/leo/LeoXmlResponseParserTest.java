@@ -0,0 +1,83 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Jakob Hendeß
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ * THE SOFTWARE.
+ */
+
+package org.xlrnet.metadict.engines.leo;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.Test;
+import org.xlrnet.metadict.api.query.BilingualQueryResult;
+import org.xlrnet.metadict.engines.http.DefaultHttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests for {@link LeoXmlResponseParser}. The streaming parser must produce the same result as the DOM-based parsing
+ * in {@link LeoEngine}.
+ */
+public class LeoXmlResponseParserTest {
+
+    private static final String RESPONSE_FIXTURE = "leo-ende-build.xml";
+
+    @Test
+    public void testParse_sameResultAsDom() throws Exception {
+        BilingualQueryResult domResult = parseWithDom();
+        BilingualQueryResult streamResult = parseWithStream();
+
+        assertFalse(domResult.getBilingualEntries().isEmpty());
+        assertEquals(domResult.getBilingualEntries(), streamResult.getBilingualEntries());
+        assertEquals(domResult.getSimilarRecommendations(), streamResult.getSimilarRecommendations());
+        assertEquals(domResult.getExternalContents(), streamResult.getExternalContents());
+    }
+
+    @Test
+    public void testParse_entriesInDocumentOrder() throws Exception {
+        BilingualQueryResult streamResult = parseWithStream();
+
+        assertEquals(6, streamResult.getBilingualEntries().size());
+        assertEquals("build", streamResult.getBilingualEntries().get(0).getSource().getGeneralForm());
+        assertEquals("zum Beispiel", streamResult.getBilingualEntries().get(5).getTarget().getGeneralForm());
+    }
+
+    private BilingualQueryResult parseWithDom() throws Exception {
+        try (InputStream inputStream = openFixture()) {
+            Document document = Jsoup.parse(inputStream, "UTF-8", "https://dict.leo.org/");
+            return new LeoEngine(new HttpFetchService(new DefaultHttpFetchConfiguration())).processDocument(document);
+        }
+    }
+
+    private BilingualQueryResult parseWithStream() throws Exception {
+        try (InputStream inputStream = openFixture()) {
+            return LeoXmlResponseParser.parse(inputStream, "UTF-8").build();
+        }
+    }
+
+    private InputStream openFixture() {
+        return getClass().getResourceAsStream(RESPONSE_FIXTURE);
+    }
+}
@@ -26,6 +26,8 @@ package org.xlrnet.metadict.engines.woxikon;
 
 import org.junit.runners.Parameterized;
 import org.xlrnet.metadict.core.services.autotest.AbstractAutoSearchEngineIntegrationTest;
+import org.xlrnet.metadict.engines.http.DefaultHttpFetchConfiguration;
+import org.xlrnet.metadict.engines.http.HttpFetchService;
 
 /**
  * Integration tests for {@link WoxikonEngine}.
@@ -34,7 +36,7 @@ public class WoxikonEngineIT extends AbstractAutoSearchEngineIntegrationTest {
 
     @Parameterized.Parameters
     public static Iterable<Object[]> data() throws Exception {
-        return prepareProvider(new WoxikonEngineProvider());
+        return prepareProvider(new WoxikonEngineProvider(new HttpFetchService(new DefaultHttpFetchConfiguration())));
     }
 
 }
@@ -34,6 +34,11 @@ public enum ResponseStatus {
      */
     OK,
 
+    /**
+     * The returned data contains only the results of a part of the query. More data will follow.
+     */
+    PARTIAL,
+
     /**
      * The query failed for a reason that was not caused by the Metadict core.
      */
@@ -28,12 +28,19 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import io.dropwizard.Configuration;
 import org.dhatim.dropwizard.jwt.cookie.authentication.JwtCookieAuthConfiguration;
 import org.xlrnet.metadict.core.api.config.MetadictConfiguration;
+import org.xlrnet.metadict.core.api.config.QueryConfiguration;
 import org.xlrnet.metadict.core.api.config.StorageConfiguration;
+import org.xlrnet.metadict.core.services.query.ExecutionStrategyType;
+import org.xlrnet.metadict.core.services.query.PlanningStrategyType;
+import org.xlrnet.metadict.engines.http.HttpFetchConfiguration;
 import org.xlrnet.metadict.web.middleware.db.DatabaseEnabledConfiguration;
 import org.xlrnet.metadict.web.middleware.db.DatabaseType;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -49,10 +56,20 @@ public class MappedJsonConfiguration extends Configuration implements MetadictCo
     @JsonProperty("storage")
     private StorageConfigurationImpl storage;
 
+    @Valid
+    @NotNull
+    @JsonProperty("query")
+    private QueryConfigurationImpl query = new QueryConfigurationImpl();
+
     @NotNull
     @JsonProperty("database")
     private DatabaseConfigurationImpl databaseConfiguration;
 
+    @Valid
+    @NotNull
+    @JsonProperty("http")
+    private HttpFetchConfigurationImpl http = new HttpFetchConfigurationImpl();
+
     /**
      * Returns the configuration for JWT cookie authentication.
      *
@@ -67,11 +84,25 @@ public class MappedJsonConfiguration extends Configuration implements MetadictCo
         return this.storage;
     }
 
+    @Override
+    public QueryConfigurationImpl getQueryConfiguration() {
+        return this.query;
+    }
+
     @Override
     public DatabaseConfigurationImpl getDatabaseConfiguration() {
         return databaseConfiguration;
     }
 
+    /**
+     * Returns the configuration for the HTTP connections of all search engines.
+     *
+     * @return the configuration for the HTTP connections of all search engines.
+     */
+    public HttpFetchConfigurationImpl getHttpConfiguration() {
+        return this.http;
+    }
+
     /**
      * Configuration class for a database management system which is used as the backend.
      */
@@ -115,4 +146,237 @@ public class MappedJsonConfiguration extends Configuration implements MetadictCo
         }
 
     }
+
+    static class QueryConfigurationImpl implements QueryConfiguration {
+
+        @NotNull
+        @JsonProperty("executionStrategy")
+        private ExecutionStrategyType executionStrategy = ExecutionStrategyType.LINEAR;
+
+        @NotNull
+        @JsonProperty("planningStrategy")
+        private PlanningStrategyType planningStrategy = PlanningStrategyType.SIMPLE;
+
+        @Min(0)
+        @JsonProperty("latencyBudget")
+        private long latencyBudget = 0;
+
+        @Min(1)
+        @JsonProperty("maxConcurrentSteps")
+        private int maxConcurrentSteps = 16;
+
+        @Min(1)
+        @JsonProperty("stepTimeout")
+        private long stepTimeout = 10000;
+
+        @Min(1)
+        @JsonProperty("planTimeout")
+        private long planTimeout = 15000;
+
+        @Min(0)
+        @JsonProperty("responseCacheSize")
+        private int responseCacheSize = 1024;
+
+        @Min(1)
+        @JsonProperty("responseCacheTtl")
+        private long responseCacheTtl = 300000;
+
+        @Min(0)
+        @JsonProperty("stepCacheTtl")
+        private long stepCacheTtl = 86400000;
+
+        @NotNull
+        @JsonProperty("engineStepCacheTtl")
+        private Map<String, Long> engineStepCacheTtl = new HashMap<>();
+
+        @Min(0)
+        @JsonProperty("negativeCacheTtl")
+        private long negativeCacheTtl = 60000;
+
+        @Min(0)
+        @JsonProperty("engineBackoffInitial")
+        private long engineBackoffInitial = 5000;
+
+        @Min(0)
+        @JsonProperty("engineBackoffMax")
+        private long engineBackoffMax = 300000;
+
+        @Min(0)
+        @JsonProperty("engineMaxConcurrentCalls")
+        private int engineMaxConcurrentCalls = 0;
+
+        @Min(1)
+        @JsonProperty("engineThreads")
+        private int engineThreads = 8;
+
+        @Min(0)
+        @JsonProperty("engineMaxQueuedCalls")
+        private int engineMaxQueuedCalls = 64;
+
+        @Min(1)
+        @JsonProperty("circuitBreakerWindowSize")
+        private int circuitBreakerWindowSize = 20;
+
+        @Min(1)
+        @Max(100)
+        @JsonProperty("circuitBreakerFailureRateThreshold")
+        private int circuitBreakerFailureRateThreshold = 50;
+
+        @Min(1)
+        @JsonProperty("circuitBreakerOpenDuration")
+        private long circuitBreakerOpenDuration = 30000;
+
+        @JsonProperty("hedgingEnabled")
+        private boolean hedgingEnabled = false;
+
+        @Min(1)
+        @Max(99)
+        @JsonProperty("hedgePercentile")
+        private int hedgePercentile = 95;
+
+        @Min(0)
+        @Max(100)
+        @JsonProperty("maxHedgeRate")
+        private int maxHedgeRate = 10;
+
+        @Override
+        public ExecutionStrategyType getExecutionStrategy() {
+            return this.executionStrategy;
+        }
+
+        @Override
+        public PlanningStrategyType getPlanningStrategy() {
+            return this.planningStrategy;
+        }
+
+        @Override
+        public long getLatencyBudget() {
+            return this.latencyBudget;
+        }
+
+        @Override
+        public int getMaxConcurrentSteps() {
+            return this.maxConcurrentSteps;
+        }
+
+        @Override
+        public long getStepTimeout() {
+            return this.stepTimeout;
+        }
+
+        @Override
+        public long getPlanTimeout() {
+            return this.planTimeout;
+        }
+
+        @Override
+        public int getResponseCacheSize() {
+            return this.responseCacheSize;
+        }
+
+        @Override
+        public long getResponseCacheTtl() {
+            return this.responseCacheTtl;
+        }
+
+        @Override
+        public long getStepCacheTtl() {
+            return this.stepCacheTtl;
+        }
+
+        @Override
+        public Map<String, Long> getEngineStepCacheTtl() {
+            return this.engineStepCacheTtl;
+        }
+
+        @Override
+        public long getNegativeCacheTtl() {
+            return this.negativeCacheTtl;
+        }
+
+        @Override
+        public long getEngineBackoffInitial() {
+            return this.engineBackoffInitial;
+        }
+
+        @Override
+        public long getEngineBackoffMax() {
+            return this.engineBackoffMax;
+        }
+
+        @Override
+        public int getEngineMaxConcurrentCalls() {
+            return this.engineMaxConcurrentCalls;
+        }
+
+        @Override
+        public int getEngineThreads() {
+            return this.engineThreads;
+        }
+
+        @Override
+        public int getEngineMaxQueuedCalls() {
+            return this.engineMaxQueuedCalls;
+        }
+
+        @Override
+        public int getCircuitBreakerWindowSize() {
+            return this.circuitBreakerWindowSize;
+        }
+
+        @Override
+        public int getCircuitBreakerFailureRateThreshold() {
+            return this.circuitBreakerFailureRateThreshold;
+        }
+
+        @Override
+        public long getCircuitBreakerOpenDuration() {
+            return this.circuitBreakerOpenDuration;
+        }
+
+        @Override
+        public boolean isHedgingEnabled() {
+            return this.hedgingEnabled;
+        }
+
+        @Override
+        public int getHedgePercentile() {
+            return this.hedgePercentile;
+        }
+
+        @Override
+        public int getMaxHedgeRate() {
+            return this.maxHedgeRate;
+        }
+    }
+
+    static class HttpFetchConfigurationImpl implements HttpFetchConfiguration {
+
+        @Min(1)
+        @JsonProperty("connectTimeout")
+        private int connectTimeout = 3000;
+
+        @Min(1)
+        @JsonProperty("readTimeout")
+        private int readTimeout = 5000;
+
+        @Min(1)
+        @JsonProperty("maxConnectionsPerHost")
+        private int maxConnectionsPerHost = 8;
+
+        @Override
+        public int getConnectTimeout() {
+            return this.connectTimeout;
+        }
+
+        @Override
+        public int getReadTimeout() {
+            return this.readTimeout;
+        }
+
+        @Override
+        public int getMaxConnectionsPerHost() {
+            return this.maxConnectionsPerHost;
+        }
+    }
 }
@@ -25,18 +25,20 @@
 package org.xlrnet.metadict.web.middleware.app;
 
 import com.google.inject.multibindings.Multibinder;
+import com.google.inject.multibindings.OptionalBinder;
+import org.xlrnet.metadict.engines.http.HttpFetchConfiguration;
 import ru.vyarus.dropwizard.guice.module.support.DropwizardAwareModule;
 
 /**
  * Guice module for the Metadict Web Application.
  */
-public class WebModule extends DropwizardAwareModule {
+public class WebModule extends DropwizardAwareModule<MappedJsonConfiguration> {
 
     /**
      * Configures a {@link Multibinder} via the exposed methods.
      */
     @Override
     protected void configure() {
-        // No configuration necessary
+        OptionalBinder.newOptionalBinder(binder(), HttpFetchConfiguration.class).setBinding().toInstance(configuration().getHttpConfiguration());
     }
 }
@@ -28,7 +28,9 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import org.xlrnet.metadict.api.query.DictionaryObject;
 import org.xlrnet.metadict.core.api.query.QueryResponse;
+import org.xlrnet.metadict.web.middleware.jackson.mixins.DictionaryObjectMixIn;
 import org.xlrnet.metadict.web.middleware.jackson.mixins.QueryResponseMixIn;
 
 /**
@@ -61,7 +63,9 @@ public class JacksonUtils {
                 // Allow field names without quotes
                 .configure(JsonParser.Feature.ALLOW_UNQUOTED_FIELD_NAMES, true)
                 // Enable a custom mixin which prevents transmitting ungrouped bilingual entries
-                .addMixIn(QueryResponse.class, QueryResponseMixIn.class);
+                .addMixIn(QueryResponse.class, QueryResponseMixIn.class)
+                // Enable a custom mixin which prevents transmitting the normalized general form of dictionary objects
+                .addMixIn(DictionaryObject.class, DictionaryObjectMixIn.class);
     }
 
 }
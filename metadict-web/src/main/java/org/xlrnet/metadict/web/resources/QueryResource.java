@@ -24,8 +24,10 @@
 
 package org.xlrnet.metadict.web.resources;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Enums;
 import io.dropwizard.auth.Auth;
+import io.dropwizard.setup.Environment;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -48,6 +50,10 @@ import javax.inject.Inject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Optional;
 
@@ -62,6 +68,10 @@ import java.util.Optional;
  * list of dictionary languages that should be queried and REQUEST is the concrete query string that should be sent to
  * metadict. This method invokes the query exactly with the provided dictionaries. Use this method if you want to search
  * only in one direction.</li> </ul>
+ * <p/>
+ * Both endpoints are also available in a streaming variant by appending /stream to the path. The streaming variant
+ * returns newline-delimited JSON where each line contains a partial response as soon as a search engine has finished.
+ * The last line contains the final response.
  */
 @Path("/")
 public class QueryResource {
@@ -70,6 +80,9 @@ public class QueryResource {
 
     private static final int MAX_REQUEST_LENGTH = 200;
 
+    /** Media type for newline-delimited JSON. */
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     /**
      * Injected query service.
      */
@@ -80,19 +93,26 @@ public class QueryResource {
      */
     private final QueryLoggingService queryLoggingService;
 
+    /**
+     * Object mapper for serializing streamed responses.
+     */
+    private final ObjectMapper objectMapper;
+
     @Inject
-    public QueryResource(QueryService queryService, QueryLoggingService queryLoggingService) {
+    public QueryResource(QueryService queryService, QueryLoggingService queryLoggingService, Environment environment) {
         this.queryService = queryService;
         this.queryLoggingService = queryLoggingService;
+        this.objectMapper = environment.getObjectMapper();
     }
 
     /**
      * Issue a two-way dictionary query.
      * <p/>
-     * Endpoint: /api/query/{DICTIONARIES}/{REQUEST}?groupBy={GROUPING}&orderBy={ORDERING} where DICTIONARIES is the
-     * list of dictionary languages that should be queried and REQUEST is the concrete query string that should be sent
-     * to metadict. Optional parameters {GROUPING} and {ORDERING} can be used to define how the results should be
-     * grouped and ordered. See the concrete parameter description for more information about the parameters. This
+     * Endpoint: /api/query/{DICTIONARIES}/{REQUEST}?groupBy={GROUPING}&orderBy={ORDERING}&limit={LIMIT}&offset={OFFSET}
+     * where DICTIONARIES is the list of dictionary languages that should be queried and REQUEST is the concrete query
+     * string that should be sent to metadict. Optional parameters {GROUPING} and {ORDERING} can be used to define how
+     * the results should be grouped and ordered. Optional parameters {LIMIT} and {OFFSET} can be used to request only a
+     * page of each group. See the concrete parameter description for more information about the parameters. This
      * method invokes an automatic two-way query on the core and tries to resolve the internal dictionaries with this
      * preference. This is usually the preferred way for querying.
      *
@@ -114,21 +134,45 @@ public class QueryResource {
      *         Define how the resulting entry groups should be ordered by metadict. This string value has to correspond
      *         with one of the constants defined in {@link OrderType} but will only be checked case-insensitive. If no
      *         value is defined, the relevance ordering will be used.
+     * @param limit
+     *         The maximum number of entries that should be returned for each group. If no value is defined, all
+     *         entries will be returned.
+     * @param offset
+     *         The number of most relevant entries that should be skipped in each group. Can be used together with
+     *         {@code limit} to fetch the following pages of a previous query. If no value is defined, no entries will
+     *         be skipped.
      */
     @GET
     @Path("/query/{dictionaries}/{request}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response bidirectionalQuery(@Auth Optional<JwtPrincipal> principal, @PathParam("dictionaries") String dictionaryString, @PathParam("request") String queryRequest, @QueryParam("groupBy") String grouping, @QueryParam("orderBy") String ordering) {
-        return internalExecuteQuery(principal, dictionaryString, queryRequest, grouping, ordering, true);
+    public Response bidirectionalQuery(@Auth Optional<JwtPrincipal> principal, @PathParam("dictionaries") String dictionaryString, @PathParam("request") String queryRequest, @QueryParam("groupBy") String grouping, @QueryParam("orderBy") String ordering, @QueryParam("limit") Integer limit, @QueryParam("offset") Integer offset) {
+        return internalExecuteQuery(principal, dictionaryString, queryRequest, grouping, ordering, limit, offset, true, false);
+    }
+
+    /**
+     * Issue a two-way dictionary query and stream partial results.
+     * <p/>
+     * Endpoint: /api/query/{DICTIONARIES}/{REQUEST}/stream?groupBy={GROUPING}&orderBy={ORDERING}&limit={LIMIT}&offset={OFFSET}.
+     * Accepts the same parameters as {@link #bidirectionalQuery(Optional, String, String, String, String, Integer,
+     * Integer)}, but returns newline-delimited JSON. Each line contains the grouped, merged and ordered results of all search engines that
+     * have finished so far and has the status {@link ResponseStatus#PARTIAL}. The last line contains the final
+     * response with status {@link ResponseStatus#OK}.
+     */
+    @GET
+    @Path("/query/{dictionaries}/{request}/stream")
+    @Produces(APPLICATION_NDJSON)
+    public Response bidirectionalStreamingQuery(@Auth Optional<JwtPrincipal> principal, @PathParam("dictionaries") String dictionaryString, @PathParam("request") String queryRequest, @QueryParam("groupBy") String grouping, @QueryParam("orderBy") String ordering, @QueryParam("limit") Integer limit, @QueryParam("offset") Integer offset) {
+        return internalExecuteQuery(principal, dictionaryString, queryRequest, grouping, ordering, limit, offset, true, true);
     }
 
     /**
      * Issue a one-way dictionary query.
      * <p/>
-     * Endpoint: /api/uniquery/{DICTIONARIES}/{REQUEST}?groupBy={GROUPING}&orderBy={ORDERING} where DICTIONARIES is the
-     * list of dictionary languages that should be queried and REQUEST is the concrete query string that should be sent
-     * to metadict. Optional parameters {GROUPING} and {ORDERING} can be used to define how the results should be
-     * grouped and ordered. See the concrete parameter description for more information about the parameters. This
+     * Endpoint: /api/uniquery/{DICTIONARIES}/{REQUEST}?groupBy={GROUPING}&orderBy={ORDERING}&limit={LIMIT}&offset={OFFSET}
+     * where DICTIONARIES is the list of dictionary languages that should be queried and REQUEST is the concrete query
+     * string that should be sent to metadict. Optional parameters {GROUPING} and {ORDERING} can be used to define how
+     * the results should be grouped and ordered. Optional parameters {LIMIT} and {OFFSET} can be used to request only a
+     * page of each group. See the concrete parameter description for more information about the parameters. This
      * method invokes only a one-way query on the core and tries to resolve the internal dictionaries with this
      * preference.
      * <p/>
@@ -153,18 +197,40 @@ public class QueryResource {
      *         Define how the resulting entry groups should be ordered by metadict. This string value has to correspond
      *         with one of the constants defined in {@link OrderType} but will only be checked case-insensitive. If no
      *         value is defined, the relevance ordering will be used.
+     * @param limit
+     *         The maximum number of entries that should be returned for each group. If no value is defined, all
+     *         entries will be returned.
+     * @param offset
+     *         The number of most relevant entries that should be skipped in each group. Can be used together with
+     *         {@code limit} to fetch the following pages of a previous query. If no value is defined, no entries will
+     *         be skipped.
      */
     @GET
     @Path("/uniquery/{dictionaries}/{request}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response unidirectionalQuery(@Auth Optional<JwtPrincipal> principal, @PathParam("dictionaries") String dictionaryString, @PathParam("request") String queryString, @QueryParam("groupBy") String grouping, @QueryParam("orderBy") String ordering) {
-        return internalExecuteQuery(principal, dictionaryString, queryString, grouping, ordering, false);
+    public Response unidirectionalQuery(@Auth Optional<JwtPrincipal> principal, @PathParam("dictionaries") String dictionaryString, @PathParam("request") String queryString, @QueryParam("groupBy") String grouping, @QueryParam("orderBy") String ordering, @QueryParam("limit") Integer limit, @QueryParam("offset") Integer offset) {
+        return internalExecuteQuery(principal, dictionaryString, queryString, grouping, ordering, limit, offset, false, false);
+    }
+
+    /**
+     * Issue a one-way dictionary query and stream partial results.
+     * <p/>
+     * Endpoint: /api/uniquery/{DICTIONARIES}/{REQUEST}/stream?groupBy={GROUPING}&orderBy={ORDERING}&limit={LIMIT}&offset={OFFSET}.
+     * Accepts the same parameters as {@link #unidirectionalQuery(Optional, String, String, String, String, Integer,
+     * Integer)}, but returns newline-delimited JSON. See {@link #bidirectionalStreamingQuery(Optional, String, String,
+     * String, String, Integer, Integer)} for details about the format.
+     */
+    @GET
+    @Path("/uniquery/{dictionaries}/{request}/stream")
+    @Produces(APPLICATION_NDJSON)
+    public Response unidirectionalStreamingQuery(@Auth Optional<JwtPrincipal> principal, @PathParam("dictionaries") String dictionaryString, @PathParam("request") String queryString, @QueryParam("groupBy") String grouping, @QueryParam("orderBy") String ordering, @QueryParam("limit") Integer limit, @QueryParam("offset") Integer offset) {
+        return internalExecuteQuery(principal, dictionaryString, queryString, grouping, ordering, limit, offset, false, true);
     }
 
     /**
      * Resolve dictionaries and finally execute the query.
      */
-    private Response internalExecuteQuery(Optional<JwtPrincipal> principal, @NotNull String dictionaryString, @NotNull String queryString, @Nullable String grouping, @Nullable String ordering, boolean bidirectional) {
+    private Response internalExecuteQuery(Optional<JwtPrincipal> principal, @NotNull String dictionaryString, @NotNull String queryString, @Nullable String grouping, @Nullable String ordering, @Nullable Integer limit, @Nullable Integer offset, boolean bidirectional, boolean streaming) {
         GroupingType groupingType = Enums.getIfPresent(GroupingType.class, StringUtils.stripToEmpty(grouping).toUpperCase()).or(GroupingType.NONE);
         OrderType orderType = Enums.getIfPresent(OrderType.class, StringUtils.stripToEmpty(ordering).toUpperCase()).or(OrderType.RELEVANCE);
         List<BilingualDictionary> dictionaries;
@@ -187,21 +253,59 @@ public class QueryResource {
             return Response.status(Response.Status.BAD_REQUEST).entity(new ResponseContainer<>(ResponseStatus.MALFORMED_QUERY, "Request too long. Only 200 characters supported", null)).build();
         }
 
+        if ((limit != null && limit < 0) || (offset != null && offset < 0)) {
+            LOGGER.debug("Negative limit or offset in query: limit={}, offset={}", limit, offset);
+            return Response.status(Response.Status.BAD_REQUEST).entity(new ResponseContainer<>(ResponseStatus.MALFORMED_QUERY, "Limit and offset must not be negative", null)).build();
+        }
+
         QueryRequest queryRequest = this.queryService.createNewQueryRequestBuilder()
                 .setQueryString(queryString)
                 .setQueryDictionaries(dictionaries)
                 .setAutoDeriveMonolingualLanguages(true)
                 .setGroupBy(groupingType)
                 .setOrderBy(orderType)
+                .setGroupLimit(limit != null ? limit : 0)
+                .setGroupOffset(offset != null ? offset : 0)
                 .build();
 
         if (principal.isPresent()) {
             queryLoggingService.logQuery(principal, queryRequest);
         }
 
+        if (streaming) {
+            return Response.ok(streamQuery(queryRequest), APPLICATION_NDJSON).build();
+        }
+
         QueryResponse queryResponse = this.queryService.executeQuery(queryRequest);
 
         return Response.ok(new ResponseContainer<>(ResponseStatus.OK, null, queryResponse)).build();
     }
 
+    /**
+     * Create a streaming output which executes the query and writes each partial response as a single line.
+     */
+    @NotNull
+    private StreamingOutput streamQuery(@NotNull QueryRequest queryRequest) {
+        return outputStream -> {
+            try {
+                QueryResponse queryResponse = this.queryService.executeQuery(queryRequest,
+                        partialResponse -> writeResponseLine(outputStream, ResponseStatus.PARTIAL, partialResponse));
+                writeResponseLine(outputStream, ResponseStatus.OK, queryResponse);
+            } catch (UncheckedIOException e) {
+                LOGGER.debug("Streaming query response failed", e);
+                throw e.getCause();
+            }
+        };
+    }
+
+    private void writeResponseLine(@NotNull OutputStream outputStream, @NotNull ResponseStatus status, @NotNull QueryResponse queryResponse) {
+        try {
+            outputStream.write(this.objectMapper.writeValueAsBytes(new ResponseContainer<>(status, null, queryResponse)));
+            outputStream.write('\n');
+            outputStream.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
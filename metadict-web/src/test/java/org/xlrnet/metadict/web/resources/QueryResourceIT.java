@@ -39,4 +39,14 @@ public class QueryResourceIT extends AbstractIT {
         assertNotNull(responseContainer.getData());
         assertFalse(responseContainer.getData().isEmpty());
     }
+
+    @Test
+    public void testStreamingQuery() {
+        Response response = getTarget().path("/query/demo-test/sampleQuery/stream").request().buildGet().invoke();
+        assertEquals(Response.Status.OK.getStatusCode(), response.getStatus());
+
+        String[] lines = response.readEntity(String.class).split("\n");
+        assertTrue(lines.length > 0);
+        assertTrue(lines[lines.length - 1].contains("\"status\":\"OK\""));
+    }
 }